@@ -0,0 +1,65 @@
+package benchmarks;
+
+import battle.battlefield.BattleHandler;
+import battle.interfaces.Unit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures BattleHandler.autoBattle. autoBattle empties the
+ * losing army and shrinks the winning one, so each call first
+ * restores both armies; that reset is part of the measured time.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class AutoBattleBenchmark {
+    @Param({"10", "100", "400"})
+    private int armySize;
+
+    private Unit[] attackerTemplate;
+    private Unit[] defenderTemplate;
+    private Unit[] attackers;
+    private Unit[] defenders;
+
+    @Setup
+    public void setup() {
+        attackerTemplate = BattleSetup.army(armySize);
+        defenderTemplate = BattleSetup.army(armySize + 1);
+        attackers = new Unit[attackerTemplate.length];
+        defenders = new Unit[defenderTemplate.length];
+    }
+
+    @Benchmark
+    public boolean autoBattle() {
+        restore(attackerTemplate, attackers);
+        restore(defenderTemplate, defenders);
+
+        return BattleHandler.autoBattle(attackers, defenders);
+    }
+
+    /**
+     * Refills every unit of an army and puts it back into the
+     * array autoBattle works on.
+     */
+    private static void restore(Unit[] template, Unit[] army) {
+        for (int i = 0; i < template.length; i++) {
+            template[i].refill();
+            army[i] = template[i];
+        }
+    }
+}
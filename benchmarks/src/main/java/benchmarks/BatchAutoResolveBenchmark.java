@@ -0,0 +1,60 @@
+package benchmarks;
+
+import battle.interfaces.Unit;
+import battle.simulation.ArmyBatch;
+import battle.simulation.AutoResolveResult;
+import battle.simulation.BatchAutoResolver;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures BatchAutoResolver.resolve over a batch of battles that
+ * have already been packed, reported per battle so that it can be
+ * compared with AutoBattleBenchmark.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class BatchAutoResolveBenchmark {
+    private static final int BATTLES = 1000;
+
+    @Param({"10", "100", "400"})
+    private int armySize;
+
+    private ArmyBatch attackers;
+    private ArmyBatch defenders;
+
+    @Setup
+    public void setup() {
+        Unit[][] attackerArmies = new Unit[BATTLES][];
+        Unit[][] defenderArmies = new Unit[BATTLES][];
+        for (int i = 0; i < BATTLES; i++) {
+            attackerArmies[i] = BattleSetup.army(armySize);
+            defenderArmies[i] = BattleSetup.army(armySize + 1);
+        }
+
+        attackers = new ArmyBatch(attackerArmies);
+        defenders = new ArmyBatch(defenderArmies);
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(BATTLES)
+    public AutoResolveResult resolve() {
+        return BatchAutoResolver.resolve(attackers, defenders);
+    }
+}
@@ -0,0 +1,60 @@
+package benchmarks;
+
+import battle.interfaces.Unit;
+import battle.units.ancientunits.MeleeCavalry;
+import battle.units.ancientunits.MeleeInfantry;
+import battle.units.ancientunits.SkirmisherCavalry;
+import battle.units.ancientunits.SkirmisherInfantry;
+import battle.units.ancientunits.SpearInfantry;
+
+/**
+ * Builds the armies shared by every benchmark. Unit
+ * stats match the testing clients (AutoBattleTC, SCTC, etc.).
+ */
+final class BattleSetup {
+    /** one template for each ancient unit class */
+    private static final Unit[] TEMPLATES = {
+        new SpearInfantry("Militia Hoplites", 160, 150, 20, 3,
+                150, 0.5),
+        new MeleeInfantry("Legionaries", 160, 350, 40, 10, 250, 0.2),
+        new MeleeCavalry("Cataphracts", 80, 700, 60, 15, 250, 1.5),
+        new SkirmisherInfantry("Archers", 120, 200, 10, 30, 2,
+                150, 5, 1.2),
+        new SkirmisherCavalry("Horse Archers", 80, 250, 10, 35, 5,
+                100, 4, 1.8)
+    };
+
+    private BattleSetup() {
+    }
+
+    /**
+     * Returns a fresh copy of the template of a given unit class.
+     * @param unitClass, simple name of an ancient unit class
+     * @return Unit
+     */
+    static Unit unit(String unitClass) {
+        for (Unit template : TEMPLATES) {
+            if (template.getClass().getSimpleName().equals(unitClass)) {
+                return template.copyUnit();
+            }
+        }
+
+        throw new IllegalArgumentException("Unknown unit class: "
+                + unitClass);
+    }
+
+    /**
+     * Builds an army cycling through every unit class.
+     * @param size, number of units in the army
+     * @return Unit[]
+     */
+    static Unit[] army(int size) {
+        Unit[] units = new Unit[size];
+
+        for (int i = 0; i < size; i++) {
+            units[i] = TEMPLATES[i % TEMPLATES.length].copyUnit();
+        }
+
+        return units;
+    }
+}
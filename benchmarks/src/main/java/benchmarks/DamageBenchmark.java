@@ -0,0 +1,50 @@
+package benchmarks;
+
+import battle.interfaces.Unit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import testing.unittesting.StateType;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures damageUnit of every ancient unit class. The damage
+ * is large enough to get through armor but never destroys the
+ * unit, which is refilled after each hit.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class DamageBenchmark {
+    @Param({"MeleeInfantry", "SpearInfantry", "MeleeCavalry",
+            "SkirmisherInfantry", "SkirmisherCavalry"})
+    private String unitClass;
+
+    private Unit unit;
+
+    @Setup
+    public void setup() {
+        unit = BattleSetup.unit(unitClass);
+        unit.activateSpecialAbility();
+    }
+
+    @Benchmark
+    public StateType damageUnit() {
+        StateType result = unit.damageUnit(40);
+        unit.refill();
+
+        return result;
+    }
+}
@@ -0,0 +1,86 @@
+package benchmarks;
+
+import battle.battlefield.BattleHandler;
+import battle.battlefield.Battlefield;
+import battle.interfaces.Unit;
+import battle.simulation.BatchSimulator;
+import calculations.GridCalculations;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import testing.unittesting.StateType;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures BattleHandler.fightTwoUnits. Attackers stand on one
+ * row and defenders directly below them; every call attacks the
+ * next pair, and the defender is refilled afterwards so no unit
+ * is ever destroyed.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class FightBenchmark {
+    @Param({"64", "256"})
+    private int mapSize;
+
+    @Param({"10", "100", "400"})
+    private int armySize;
+
+    private BattleHandler handler;
+    private Battlefield battlefield;
+    private int[] attackIDs;
+    private int[] defendIDs;
+    private Unit[] defenders;
+    private int next;
+
+    @Setup
+    public void setup() {
+        Unit[] attackers = BattleSetup.army(armySize);
+        defenders = BattleSetup.army(armySize);
+
+        battlefield = new Battlefield(BatchSimulator.plains(mapSize));
+        handler = new BattleHandler(attackers, defenders,
+                Integer.MAX_VALUE, 1000, 0);
+
+        attackIDs = new int[armySize];
+        defendIDs = new int[armySize];
+
+        // pairs every attacker with the defender directly below it,
+        // wrapping onto further pairs of rows as the map fills up
+        for (int i = 0; i < armySize; i++) {
+            int row = (i / mapSize) * 2;
+            int col = i % mapSize;
+
+            attackIDs[i] = GridCalculations.getID(row, col, mapSize);
+            defendIDs[i] = GridCalculations.getID(row + 1, col, mapSize);
+
+            battlefield.placeUnit(attackIDs[i], attackers[i]);
+            battlefield.placeUnit(defendIDs[i], defenders[i]);
+        }
+    }
+
+    @Benchmark
+    public StateType fightTwoUnits() {
+        int i = next;
+        next = (i + 1 == armySize) ? 0 : i + 1;
+
+        StateType result = handler.fightTwoUnits(attackIDs[i],
+                defendIDs[i], battlefield, 1);
+        defenders[i].refill();
+
+        return result;
+    }
+}
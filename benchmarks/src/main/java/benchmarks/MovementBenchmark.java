@@ -0,0 +1,79 @@
+package benchmarks;
+
+import battle.battlefield.Battlefield;
+import battle.simulation.BatchSimulator;
+import calculations.GridCalculations;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import testing.unittesting.StateType;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures Battlefield.moveUnit. Units are spread evenly over
+ * the map and every call moves the next unit one area to the
+ * right and back again on its following turn.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class MovementBenchmark {
+    @Param({"64", "256"})
+    private int mapSize;
+
+    @Param({"20", "200", "800"})
+    private int unitCount;
+
+    private Battlefield battlefield;
+    private int[] from;
+    private int[] to;
+    private int next;
+
+    @Setup
+    public void setup() {
+        battlefield = new Battlefield(BatchSimulator.plains(mapSize));
+
+        from = new int[unitCount];
+        to = new int[unitCount];
+
+        // spreads the units over every other column of the map
+        int perRow = mapSize / 2;
+
+        for (int i = 0; i < unitCount; i++) {
+            int row = (i / perRow) % mapSize;
+            int col = (i % perRow) * 2;
+
+            from[i] = GridCalculations.getID(row, col, mapSize);
+            to[i] = from[i] + 1;
+
+            battlefield.placeUnit(from[i], BattleSetup.army(1)[0]);
+        }
+    }
+
+    @Benchmark
+    public StateType moveUnit() {
+        int i = next;
+        next = (i + 1 == unitCount) ? 0 : i + 1;
+
+        StateType result = battlefield.moveUnit(from[i], to[i]);
+
+        // the unit moves back on its next turn
+        int temp = from[i];
+        from[i] = to[i];
+        to[i] = temp;
+
+        return result;
+    }
+}
@@ -0,0 +1,90 @@
+package benchmarks;
+
+import battle.ai.TacticalPlanner;
+import battle.ai.TurnPlan;
+import battle.battlefield.BattleHandler;
+import battle.battlefield.Battlefield;
+import battle.simulation.BatchSimulator;
+import battle.simulation.TacticalBattle;
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures how TacticalPlanner scales with the parallelism of its
+ * pool: every plan has the same time budget, so the search
+ * iterations per second are the figure to compare.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class PlannerBenchmark {
+    private static final long BUDGET_MILLIS = 100;
+    private static final int MAX_MOVEMENT = 1000;
+
+    @Param({"1", "2", "4", "8", "16"})
+    private int parallelism;
+
+    private ForkJoinPool pool;
+    private TacticalPlanner planner;
+    private BattleHandler handler;
+    private Battlefield battlefield;
+
+    /** search iterations, reported per second next to the plans */
+    @State(Scope.Thread)
+    @AuxCounters(AuxCounters.Type.OPERATIONS)
+    public static class Counters {
+        public long iterations;
+
+        @Setup(Level.Iteration)
+        public void reset() {
+            iterations = 0;
+        }
+    }
+
+    @Setup
+    public void setup() {
+        pool = new ForkJoinPool(parallelism);
+        planner = new TacticalPlanner(pool, BUDGET_MILLIS,
+                TacticalPlanner.DEFAULT_PLAYOUT_TURNS);
+
+        TacticalBattle battle = new TacticalBattle(BattleSetup.army(6),
+                BattleSetup.army(6),
+                new Battlefield(BatchSimulator.plains(16)), 10,
+                MAX_MOVEMENT, 1);
+        handler = battle.getHandler();
+        battlefield = battle.getBattlefield();
+        handler.resetMovement(true, MAX_MOVEMENT);
+    }
+
+    @TearDown
+    public void tearDown() {
+        pool.shutdown();
+    }
+
+    @Benchmark
+    public TurnPlan plan(Counters counters) {
+        TurnPlan plan = planner.plan(handler, battlefield, true,
+                MAX_MOVEMENT);
+        counters.iterations += plan.getIterations();
+
+        return plan;
+    }
+}
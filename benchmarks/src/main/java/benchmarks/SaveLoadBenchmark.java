@@ -0,0 +1,89 @@
+package benchmarks;
+
+import battle.battlefield.BattleHandler;
+import battle.battlefield.Battlefield;
+import battle.battlefield.SavedBattle;
+import battle.interfaces.Unit;
+import battle.simulation.BatchSimulator;
+import calculations.GridCalculations;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.channels.Channels;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures SavedBattle.save and SavedBattle.load through
+ * in-memory channels, so only encoding and decoding is timed and
+ * not the file system. Both armies stand in rows at opposite ends
+ * of the map.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class SaveLoadBenchmark {
+    @Param({"64", "256"})
+    private int mapSize;
+
+    @Param({"10", "200"})
+    private int armySize;
+
+    private BattleHandler handler;
+    private Battlefield battlefield;
+    private ByteArrayOutputStream buffer;
+    private byte[] saved;
+
+    @Setup
+    public void setup() throws IOException {
+        Unit[] attackers = BattleSetup.army(armySize);
+        Unit[] defenders = BattleSetup.army(armySize);
+
+        battlefield = new Battlefield(BatchSimulator.plains(mapSize));
+        handler = new BattleHandler(attackers, defenders, 10, 1000, 0);
+
+        // fills rows from the top for the attackers and from the
+        // bottom for the defenders
+        for (int i = 0; i < armySize; i++) {
+            int row = i / mapSize;
+            int col = i % mapSize;
+
+            battlefield.placeUnit(GridCalculations.getID(row, col,
+                    mapSize), attackers[i]);
+            battlefield.placeUnit(GridCalculations.getID(mapSize - 1 - row,
+                    col, mapSize), defenders[i]);
+        }
+
+        buffer = new ByteArrayOutputStream();
+        SavedBattle.save(Channels.newChannel(buffer), handler, battlefield);
+        saved = buffer.toByteArray();
+    }
+
+    @Benchmark
+    public int save() throws IOException {
+        buffer.reset();
+        SavedBattle.save(Channels.newChannel(buffer), handler, battlefield);
+
+        return buffer.size();
+    }
+
+    @Benchmark
+    public SavedBattle load() throws IOException {
+        return SavedBattle.load(Channels.newChannel(
+                new ByteArrayInputStream(saved)));
+    }
+}
@@ -0,0 +1,88 @@
+package benchmarks;
+
+import battle.battlefield.Battlefield;
+import battle.battlefield.MappedTerrain;
+import battle.battlefield.PackedTerrain;
+import battle.battlefield.TerrainTemplate;
+import battle.simulation.BatchSimulator;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures Battlefield.getDefenseBonus, the terrain lookup made by
+ * every fight, on each kind of terrain. Every call looks up the
+ * next of a fixed set of random areas spread over the whole map.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class TerrainBenchmark {
+    private static final int LOOKUPS = 4096;
+
+    @Param({"256", "2048"})
+    private int mapSize;
+
+    @Param({"template", "packed", "mapped"})
+    private String terrain;
+
+    private Battlefield battlefield;
+    private Path path;
+    private int[] areaIDs;
+    private int next;
+
+    @Setup
+    public void setup() throws IOException {
+        TerrainTemplate template = BatchSimulator.plains(mapSize);
+
+        if (terrain.equals("mapped")) {
+            path = Files.createTempFile("terrain", ".map");
+            MappedTerrain.write(path, template);
+            battlefield = new Battlefield(MappedTerrain.open(path));
+        } else if (terrain.equals("packed")) {
+            battlefield = new Battlefield(PackedTerrain.pack(template));
+        } else {
+            battlefield = new Battlefield(template);
+        }
+
+        SplittableRandom random = new SplittableRandom(1);
+        areaIDs = new int[LOOKUPS];
+
+        for (int i = 0; i < LOOKUPS; i++) {
+            areaIDs[i] = random.nextInt(mapSize * mapSize);
+        }
+    }
+
+    @TearDown
+    public void tearDown() throws IOException {
+        if (path != null) {
+            Files.delete(path);
+        }
+    }
+
+    @Benchmark
+    public double getDefenseBonus() {
+        int i = next;
+        next = (i + 1) & (LOOKUPS - 1);
+
+        return battlefield.getDefenseBonus(areaIDs[i]);
+    }
+}
@@ -0,0 +1,211 @@
+package battle.ai;
+
+import battle.battlefield.BattleHandler;
+import battle.battlefield.Battlefield;
+import battle.interfaces.Unit;
+import battle.pathfinding.PathFinder;
+
+import java.util.Arrays;
+import java.util.BitSet;
+
+/**
+ * Lists every legal action of a unit: a move to each area it can
+ * reach with the movement points it has left (by the same rules
+ * and costs as PathFinder), and an attack on each enemy it can
+ * reach from where it stands (by the same range and ammunition
+ * rules as BattleHandler.fightTwoUnits, so generated attacks never
+ * fail for being out of range).
+ *
+ * Actions are written into a buffer owned by the generator as
+ * packed ints (see Actions), with the movement cost of each move
+ * kept beside it. The buffers and the pathfinder's arrays are
+ * reused from call to call and only grow, so generating actions
+ * does not allocate once they are large enough. Like PathFinder, a
+ * generator is not thread-safe and belongs to one battlefield.
+ */
+public class ActionGenerator {
+    private final PathFinder pathFinder;
+    private final Battlefield battlefield;
+
+    /** areas reached by the last move search */
+    private final BitSet reachable;
+    /** area IDs written by handler queries */
+    private int[] targets;
+
+    /** packed actions, Actions.STRIDE ints each */
+    private int[] actions;
+    /** movement cost of each action (0 for attacks) */
+    private int[] costs;
+    /** number of actions in the buffer */
+    private int count;
+
+    /**
+     * Creates an ActionGenerator object using a pathfinder (and its
+     * battlefield) for moves.
+     * @param pathFinder, the pathfinder of the battlefield
+     */
+    public ActionGenerator(PathFinder pathFinder) {
+        this.pathFinder = pathFinder;
+        this.battlefield = pathFinder.getBattlefield();
+
+        int n = battlefield.getRowCount();
+
+        this.reachable = new BitSet(n * n);
+        this.targets = new int[64];
+        this.actions = new int[Actions.STRIDE * 64];
+        this.costs = new int[64];
+    }
+
+    /**
+     * Replaces the buffer with every legal action of the unit in a
+     * given area.
+     * @param areaID, area of the unit.
+     * @param handler, the battle's handler.
+     * @return int, number of actions
+     */
+    public int generate(int areaID, BattleHandler handler) {
+        count = 0;
+        return append(areaID, handler);
+    }
+
+    /**
+     * Adds every legal action of the unit in a given area to the
+     * actions already in the buffer, so that the actions of a whole
+     * side can be listed together.
+     * @param areaID, area of the unit.
+     * @param handler, the battle's handler.
+     * @return int, number of actions in the buffer
+     */
+    public int append(int areaID, BattleHandler handler) {
+        Unit unit = battlefield.getUnit(areaID);
+
+        if (unit == null) {
+            return count;
+        }
+
+        appendAttacks(areaID, handler);
+        appendMoves(areaID, unit, handler);
+
+        return count;
+    }
+
+    /**
+     * Adds an action that ends the side's turn.
+     * @return int, number of actions in the buffer
+     */
+    public int appendEndTurn() {
+        add(Actions.END_TURN, -1, -1, 0);
+        return count;
+    }
+
+    /**
+     * Empties the buffer.
+     */
+    public void clear() {
+        count = 0;
+    }
+
+    /**
+     * Returns the number of actions in the buffer.
+     * @return int
+     */
+    public int getActionCount() {
+        return count;
+    }
+
+    /**
+     * Returns the type of an action (see Actions).
+     * @param i, index of the action
+     * @return int
+     */
+    public int getType(int i) {
+        return actions[i * Actions.STRIDE];
+    }
+
+    /**
+     * Returns the area of the unit taking an action.
+     * @param i, index of the action
+     * @return int
+     */
+    public int getSource(int i) {
+        return actions[i * Actions.STRIDE + 1];
+    }
+
+    /**
+     * Returns the area an action moves to or attacks.
+     * @param i, index of the action
+     * @return int
+     */
+    public int getTarget(int i) {
+        return actions[i * Actions.STRIDE + 2];
+    }
+
+    /**
+     * Returns the movement points a move costs (0 for attacks).
+     * @param i, index of the action
+     * @return int
+     */
+    public int getCost(int i) {
+        return costs[i];
+    }
+
+    /**
+     * Returns the buffer itself, valid until the next call that
+     * changes it; actions take Actions.STRIDE ints each.
+     * @return int[]
+     */
+    public int[] getActions() {
+        return actions;
+    }
+
+    private void appendAttacks(int areaID, BattleHandler handler) {
+        int found = handler.findTargetsInRange(areaID, battlefield,
+                targets);
+
+        // the query writes enemies only, so a full buffer means
+        // more targets may be left out and it is repeated with
+        // more room
+        while (found == targets.length) {
+            targets = new int[targets.length * 2];
+            found = handler.findTargetsInRange(areaID, battlefield,
+                    targets);
+        }
+
+        for (int i = 0; i < found; i++) {
+            add(Actions.ATTACK, areaID, targets[i], 0);
+        }
+    }
+
+    private void appendMoves(int areaID, Unit unit,
+                             BattleHandler handler) {
+        int budget = handler.unitMovement(unit);
+
+        // a unit without a step's worth of points reaches nothing
+        if (budget < unit.getMovementCost()) {
+            return;
+        }
+
+        pathFinder.findReachable(areaID, unit, budget, reachable);
+
+        for (int id = reachable.nextSetBit(0); id >= 0;
+             id = reachable.nextSetBit(id + 1)) {
+            if (id != areaID) {
+                add(Actions.MOVE, areaID, id,
+                        pathFinder.getReachedCost(id));
+            }
+        }
+    }
+
+    private void add(int type, int source, int target, int cost) {
+        if (count == costs.length) {
+            actions = Arrays.copyOf(actions, actions.length * 2);
+            costs = Arrays.copyOf(costs, costs.length * 2);
+        }
+
+        int at = count * Actions.STRIDE;
+        actions[at] = type;
+        actions[at + 1] = source;
+        actions[at + 2] = target;
+        costs[count++] = cost;
+    }
+}
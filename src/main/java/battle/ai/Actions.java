@@ -0,0 +1,21 @@
+package battle.ai;
+
+/**
+ * Actions a side can take during its turn, packed as three ints
+ * (type, source area, target area) so that lists of actions are
+ * plain int arrays rather than objects.
+ */
+public final class Actions {
+    /** ints taken by one action */
+    public static final int STRIDE = 3;
+
+    /** the unit in the source area steps to the target area */
+    public static final int MOVE = 0;
+    /** the unit in the source area attacks the target area */
+    public static final int ATTACK = 1;
+    /** the side ends its turn (source and target are -1) */
+    public static final int END_TURN = 2;
+
+    private Actions() {
+    }
+}
@@ -0,0 +1,312 @@
+package battle.ai;
+
+import battle.battlefield.BattleHandler;
+import battle.battlefield.Battlefield;
+import battle.interfaces.Unit;
+import calculations.GridCalculations;
+
+import java.util.Arrays;
+
+/**
+ * Keeps, for each side and each area, the melee and the ranged
+ * damage that side's units could deal to that area next turn.
+ *
+ * A unit threatens every area it could attack after spending a
+ * full turn of movement points (maxMovement, as given to
+ * resetMovement) on steps to neighboring areas: its melee damage
+ * if it fights in melee, or its ranged damage while it still has
+ * ammunition and range. Terrain costs and other units are not
+ * taken into account, so the maps tell what could reach an area
+ * at most.
+ *
+ * Each unit's share is remembered under its area, so the maps are
+ * updated in place when a single unit is placed, moves, changes
+ * (for instance runs out of ammunition), or dies, touching only
+ * the areas that unit can reach instead of recomputing the maps.
+ * Damage values are whole numbers, so adding and removing shares
+ * leaves no rounding error behind.
+ */
+public class InfluenceMap {
+    private final Battlefield battlefield;
+    private final int n;
+    private final int maxMovement;
+
+    /** melee and ranged damage of the attackers and defenders */
+    private final float[] attackerMelee;
+    private final float[] attackerRanged;
+    private final float[] defenderMelee;
+    private final float[] defenderRanged;
+
+    /** share of the unit in each area (0 for no share) */
+    private final float[] shareDamage;
+    /** steps the unit in each area can take in a turn */
+    private final int[] shareSteps;
+    /** range factor the unit in each area attacks with */
+    private final int[] shareRange;
+    /** whether the share counts as ranged damage */
+    private final boolean[] shareRanged;
+    /** whether the share belongs to the attackers */
+    private final boolean[] shareAttacker;
+
+    /** greatest column offset in range at each row offset, per
+     *  range factor */
+    private int[][] rangeWidths = new int[0][];
+
+    /**
+     * Creates an empty InfluenceMap object for a battlefield.
+     * @param battlefield the maps cover.
+     * @param maxMovement, movement points units get each turn.
+     */
+    public InfluenceMap(Battlefield battlefield, int maxMovement) {
+        this.battlefield = battlefield;
+        this.n = battlefield.getRowCount();
+        this.maxMovement = maxMovement;
+
+        int size = n * n;
+
+        this.attackerMelee = new float[size];
+        this.attackerRanged = new float[size];
+        this.defenderMelee = new float[size];
+        this.defenderRanged = new float[size];
+
+        this.shareDamage = new float[size];
+        this.shareSteps = new int[size];
+        this.shareRange = new int[size];
+        this.shareRanged = new boolean[size];
+        this.shareAttacker = new boolean[size];
+    }
+
+    /**
+     * Recomputes the maps from every unit on the battlefield.
+     * @param handler, the battle's handler.
+     */
+    public void rebuild(BattleHandler handler) {
+        int size = n * n;
+
+        for (int id = 0; id < size; id++) {
+            attackerMelee[id] = 0;
+            attackerRanged[id] = 0;
+            defenderMelee[id] = 0;
+            defenderRanged[id] = 0;
+            shareDamage[id] = 0;
+        }
+
+        for (int id = 0; id < size; id++) {
+            addUnit(id, handler);
+        }
+    }
+
+    /**
+     * Adds the share of the unit in a given area, after it has
+     * been placed there.
+     * @param areaID, area of the unit.
+     * @param handler, the battle's handler.
+     */
+    public void addUnit(int areaID, BattleHandler handler) {
+        Unit unit = battlefield.getUnit(areaID);
+
+        if (unit == null || shareDamage[areaID] != 0) {
+            return;
+        }
+
+        int rangeFactor = unit.getRangeFactor();
+        boolean ranged = unit.isRangedUnit() && rangeFactor > 1
+                && handler.unitAmmunition(unit) > 0;
+
+        // melee is fought at the reach of melee units; a ranged unit
+        // out of ammunition comes as close as one
+        if (!ranged && unit.isRangedUnit()) {
+            rangeFactor = 1;
+        }
+
+        int damage = ranged ? unit.getRangedDamage()
+                : unit.getMeleeDamage();
+
+        if (damage <= 0) {
+            return;
+        }
+
+        shareDamage[areaID] = damage;
+        shareSteps[areaID] = maxMovement
+                / Math.max(1, unit.getMovementCost());
+        shareRange[areaID] = rangeFactor;
+        shareRanged[areaID] = ranged;
+        shareAttacker[areaID] = handler.isAttacker(unit);
+
+        spread(areaID, damage);
+    }
+
+    /**
+     * Removes the share of the unit that was in a given area, when
+     * it dies or leaves the battlefield; the unit itself is not
+     * needed, so this may be called before or after it is removed.
+     * @param areaID, area the unit was in.
+     */
+    public void removeUnit(int areaID) {
+        float damage = shareDamage[areaID];
+
+        if (damage == 0) {
+            return;
+        }
+
+        spread(areaID, -damage);
+        shareDamage[areaID] = 0;
+    }
+
+    /**
+     * Moves the share of a unit from one area to another, after the
+     * unit has moved.
+     * @param fromID, area the unit left.
+     * @param toID, area the unit moved to.
+     */
+    public void moveUnit(int fromID, int toID) {
+        float damage = shareDamage[fromID];
+
+        if (damage == 0 || fromID == toID) {
+            return;
+        }
+
+        spread(fromID, -damage);
+        shareDamage[fromID] = 0;
+
+        shareDamage[toID] = damage;
+        shareSteps[toID] = shareSteps[fromID];
+        shareRange[toID] = shareRange[fromID];
+        shareRanged[toID] = shareRanged[fromID];
+        shareAttacker[toID] = shareAttacker[fromID];
+
+        spread(toID, damage);
+    }
+
+    /**
+     * Recomputes the share of the unit in a given area, after
+     * something other than its area changed, such as it running out
+     * of ammunition.
+     * @param areaID, area of the unit.
+     * @param handler, the battle's handler.
+     */
+    public void updateUnit(int areaID, BattleHandler handler) {
+        removeUnit(areaID);
+        addUnit(areaID, handler);
+    }
+
+    /**
+     * Returns the melee damage a side could deal to an area next
+     * turn.
+     * @param areaID, the area.
+     * @param isAttacker, true for the attackers' damage.
+     * @return float
+     */
+    public float getMeleeInfluence(int areaID, boolean isAttacker) {
+        return isAttacker ? attackerMelee[areaID] : defenderMelee[areaID];
+    }
+
+    /**
+     * Returns the ranged damage a side could deal to an area next
+     * turn.
+     * @param areaID, the area.
+     * @param isAttacker, true for the attackers' damage.
+     * @return float
+     */
+    public float getRangedInfluence(int areaID, boolean isAttacker) {
+        return isAttacker ? attackerRanged[areaID]
+                : defenderRanged[areaID];
+    }
+
+    /**
+     * Returns the damage the enemies of a side could deal to an
+     * area next turn, melee and ranged together.
+     * @param areaID, the area.
+     * @param isAttacker, true for the threat to the attackers.
+     * @return float
+     */
+    public float getThreat(int areaID, boolean isAttacker) {
+        return getMeleeInfluence(areaID, !isAttacker)
+                + getRangedInfluence(areaID, !isAttacker);
+    }
+
+    /**
+     * Returns the melee map of a side itself, indexed by area ID;
+     * it is owned by the influence map and must not be modified.
+     * @param isAttacker, true for the attackers' map.
+     * @return float[]
+     */
+    public float[] getMeleeMap(boolean isAttacker) {
+        return isAttacker ? attackerMelee : defenderMelee;
+    }
+
+    /**
+     * Returns the ranged map of a side itself, indexed by area ID;
+     * it is owned by the influence map and must not be modified.
+     * @param isAttacker, true for the attackers' map.
+     * @return float[]
+     */
+    public float[] getRangedMap(boolean isAttacker) {
+        return isAttacker ? attackerRanged : defenderRanged;
+    }
+
+    /**
+     * Adds damage to every area the share in a given area reaches:
+     * areas within the unit's range of any area within its steps.
+     * Each row of that shape is one run of areas, as wide as the
+     * steps plus the range's width at the row's distance past them.
+     */
+    private void spread(int areaID, float damage) {
+        float[] map = shareRanged[areaID]
+                ? (shareAttacker[areaID] ? attackerRanged : defenderRanged)
+                : (shareAttacker[areaID] ? attackerMelee : defenderMelee);
+
+        int steps = shareSteps[areaID];
+        int[] widths = getRangeWidths(shareRange[areaID]);
+        int reach = steps + widths.length - 1;
+
+        int row = GridCalculations.getRow(areaID, n);
+        int col = GridCalculations.getCol(areaID, row, n);
+
+        int rowStart = Math.max(0, row - reach);
+        int rowEnd = Math.min(n - 1, row + reach);
+
+        for (int r = rowStart; r <= rowEnd; r++) {
+            // distance left over once the steps are taken
+            int dRow = Math.max(0, Math.abs(r - row) - steps);
+            int width = steps + widths[dRow];
+
+            int base = r * n;
+            int colEnd = Math.min(n - 1, col + width);
+
+            for (int c = Math.max(0, col - width); c <= colEnd; c++) {
+                map[base + c] += damage;
+            }
+        }
+    }
+
+    /**
+     * Returns, for each row offset within a range factor, the
+     * greatest column offset still in range, read from the range's
+     * offset table in GridCalculations.
+     */
+    private int[] getRangeWidths(int rangeFactor) {
+        if (rangeFactor < rangeWidths.length
+                && rangeWidths[rangeFactor] != null) {
+            return rangeWidths[rangeFactor];
+        }
+
+        int[] offsets = GridCalculations.getRangeOffsets(rangeFactor);
+        int reach = (int) Math.sqrt(
+                GridCalculations.getRangeSquared(rangeFactor));
+        int[] widths = new int[reach + 1];
+
+        for (int i = 0; i < offsets.length; i += 2) {
+            int dRow = Math.abs(offsets[i]);
+            widths[dRow] = Math.max(widths[dRow], Math.abs(offsets[i + 1]));
+        }
+
+        if (rangeFactor >= rangeWidths.length) {
+            rangeWidths = Arrays.copyOf(rangeWidths, rangeFactor + 1);
+        }
+
+        rangeWidths[rangeFactor] = widths;
+
+        return widths;
+    }
+}
@@ -0,0 +1,973 @@
+package battle.ai;
+
+import battle.battlefield.BattleHandler;
+import battle.battlefield.Battlefield;
+import battle.battlefield.SavedBattle;
+import battle.battlefield.UndoRecord;
+import battle.battlefield.ZobristHash;
+import battle.interfaces.Unit;
+import battle.pathfinding.PathFinder;
+import calculations.BattleRandom;
+import calculations.GridCalculations;
+
+import java.util.Arrays;
+import java.util.IdentityHashMap;
+import java.util.Map;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicIntegerFieldUpdater;
+import java.util.concurrent.atomic.AtomicLongFieldUpdater;
+
+/**
+ * A computer opponent that plans one side's turn with Monte Carlo
+ * tree search. Every node of the tree is a single move or attack
+ * (or the end of the turn); each iteration walks down the tree,
+ * adds the next actions, and plays the rest of the battle out a few
+ * turns with a quick randomized policy to score the result.
+ *
+ * Every thread of the pool searches the same tree on its own copy
+ * of the battle, making and undoing actions rather than copying
+ * the battle per node. Threads walking through a node add a
+ * virtual loss to it so that they spread over different branches,
+ * and positions reached by different orders of actions share their
+ * results through a TranspositionTable, so a repeated position is
+ * scored once rather than played out again. The search runs until
+ * its time budget is spent and always returns the best plan found
+ * so far, so a longer budget (or more threads) only makes the plan
+ * better.
+ */
+public class TacticalPlanner {
+    /** default time budget of one turn */
+    public static final long DEFAULT_BUDGET_MILLIS = 100;
+    /** default turns played out after the planned turn: the
+     *  opponent's reply */
+    public static final int DEFAULT_PLAYOUT_TURNS = 1;
+
+    /** visits added to a node while a thread is below it */
+    private static final int VIRTUAL_LOSS = 3;
+    /** weight of exploration against exploitation (UCT) */
+    private static final double EXPLORATION = 0.7;
+    /** fixed-point scale of summed playout results */
+    private static final double VALUE_SCALE = 1 << 20;
+    /** share of a result given to closing on the enemy */
+    private static final double CLOSING_WEIGHT = 0.2;
+    /** playouts of a position after which its result is reused */
+    private static final int TRUSTED_SAMPLES = 4;
+    /** most nodes a single search may create */
+    private static final int MAX_NODES = 1 << 20;
+    /** entries of the transposition table */
+    private static final int TABLE_CAPACITY = 1 << 16;
+    /** no area (a destroyed unit or a missing target) */
+    private static final int NONE = -1;
+
+    private static final AtomicIntegerFieldUpdater<Node> VISITS =
+            AtomicIntegerFieldUpdater.newUpdater(Node.class, "visits");
+    private static final AtomicLongFieldUpdater<Node> VALUE =
+            AtomicLongFieldUpdater.newUpdater(Node.class, "value");
+
+    /** pool the search runs on */
+    private final ForkJoinPool pool;
+    /** time budget of one turn, in milliseconds */
+    private final long budgetMillis;
+    /** turns played out after the planned turn, always odd so
+     *  that a playout ends after an opponent's turn */
+    private final int playoutTurns;
+
+    /**
+     * Creates a TacticalPlanner object running on the common pool
+     * with the default time budget.
+     */
+    public TacticalPlanner() {
+        this(ForkJoinPool.commonPool(), DEFAULT_BUDGET_MILLIS,
+                DEFAULT_PLAYOUT_TURNS);
+    }
+
+    /**
+     * Creates a TacticalPlanner object.
+     * @param pool, pool the search runs on (one searching thread
+     *              per level of parallelism)
+     * @param budgetMillis, time budget of one turn
+     * @param playoutTurns, turns played out after the planned turn,
+     *                     which must be odd: a playout ending on the
+     *                     planning side's own turn lets a side that
+     *                     waits land the last strike, so waiting
+     *                     would score better than advancing
+     */
+    public TacticalPlanner(ForkJoinPool pool, long budgetMillis,
+                           int playoutTurns) {
+        if (playoutTurns < 1 || playoutTurns % 2 == 0) {
+            throw new IllegalArgumentException(
+                    "playout turns must be odd and positive");
+        }
+
+        this.pool = pool;
+        this.budgetMillis = budgetMillis;
+        this.playoutTurns = playoutTurns;
+    }
+
+    /**
+     * Plans the turn of one side. The side's movement points
+     * should already be reset for the turn. The battle is only
+     * read, and must not change while the plan is made.
+     * @param handler, the battle's handler
+     * @param battlefield, the battlefield the battle is fought on
+     * @param isAttacker, true to plan the attacking side's turn
+     * @param maxMovement, movement points each unit gets per turn
+     * @return TurnPlan
+     */
+    public TurnPlan plan(BattleHandler handler, Battlefield battlefield,
+                         boolean isAttacker, int maxMovement) {
+        long start = System.nanoTime();
+        Search search = new Search(handler, battlefield, isAttacker,
+                maxMovement, start + budgetMillis * 1_000_000L);
+
+        Worker[] workers = new Worker[pool.getParallelism()];
+        for (int i = 0; i < workers.length; i++) {
+            workers[i] = new Worker(search, i);
+        }
+
+        pool.invoke(new RecursiveAction() {
+            @Override
+            protected void compute() {
+                invokeAll(workers);
+            }
+        });
+
+        long iterations = 0;
+        for (Worker worker : workers) {
+            iterations += worker.iterations;
+        }
+
+        // follows the most visited actions on a fresh copy, and
+        // finishes the turn with the playout policy where the tree
+        // runs out
+        int[] actions = new Worker(search, workers.length)
+                .extractPlan();
+
+        int rootVisits = search.root.visits;
+        double value = rootVisits == 0 ? 0.5
+                : search.root.value / VALUE_SCALE / rootVisits;
+
+        return new TurnPlan(actions, value, iterations,
+                (System.nanoTime() - start) / 1_000_000);
+    }
+
+    /**
+     * A node of the search tree: the action leading to it and the
+     * results of the playouts that passed through it.
+     */
+    private static final class Node {
+        final int type;
+        final int source;
+        final int target;
+
+        /** actions that may follow, or null until expanded */
+        volatile Node[] children;
+        /** playouts through the node, plus virtual losses */
+        volatile int visits;
+        /** summed playout results, scaled by VALUE_SCALE */
+        volatile long value;
+
+        Node(int type, int source, int target) {
+            this.type = type;
+            this.source = source;
+            this.target = target;
+        }
+    }
+
+    /**
+     * State shared by every thread of one search.
+     */
+    private static final class Search {
+        final BattleHandler handler;
+        final Battlefield battlefield;
+        final boolean isAttacker;
+        final int maxMovement;
+        final long deadline;
+
+        /** the position at the start of the turn (no action) */
+        final Node root = new Node(NONE, NONE, NONE);
+        final TranspositionTable table =
+                new TranspositionTable(TABLE_CAPACITY);
+        final AtomicInteger nodes = new AtomicInteger(1);
+        /** seed of the threads' playout generators */
+        final long seed;
+
+        Search(BattleHandler handler, Battlefield battlefield,
+               boolean isAttacker, int maxMovement, long deadline) {
+            this.handler = handler;
+            this.battlefield = battlefield;
+            this.isAttacker = isAttacker;
+            this.maxMovement = maxMovement;
+            this.deadline = deadline;
+            this.seed = handler.getRandom().getState();
+        }
+    }
+
+    /**
+     * One searching thread with its own copy of the battle.
+     */
+    private final class Worker extends RecursiveAction {
+        private static final long serialVersionUID = 1L;
+
+        private final Search search;
+        private final BattleRandom random;
+
+        /** the worker's copy of the battle */
+        private final BattleHandler handler;
+        private final Battlefield battlefield;
+        private final ZobristHash zobrist;
+        /** prices steps by the same terrain rules as paths */
+        private final PathFinder pathFinder;
+
+        /** every unit on the board, in area order */
+        private final Unit[] units;
+        /** index of every unit in units */
+        private final Map<Unit, Integer> indexOf;
+        /** area of every unit, or NONE once destroyed */
+        private final int[] areas;
+        /** whether a unit belongs to the planning side */
+        private final boolean[] ours;
+        /** last turn each unit attacked in, or NONE */
+        private final int[] attackedTurn;
+        /** last turn each unit moved in, or NONE */
+        private final int[] movedTurn;
+        /** steps each unit took in the turn it last moved in */
+        private final int[] steps;
+        /** key of every unit having attacked in the planned turn */
+        private final long[] attackedKeys;
+        /** soldiers of each side at the start of the turn */
+        private final int ourStart;
+        private final int theirStart;
+        /** distance of each unit to the nearest enemy at the start
+         *  of the turn */
+        private final double[] startDistance;
+        /** summed startDistance of the planning side's units */
+        private final double ourStartDistance;
+
+        /** hash of which units attacked in the planned turn */
+        private long attackedHash;
+        /** turn being played, 0 for the planned turn */
+        private int turn;
+
+        /** actions made so far, undone in reverse order */
+        private UndoRecord[] undo = new UndoRecord[64];
+        private int[] undoType = new int[64];
+        private int[] undoUnit = new int[64];
+        private int[] undoArea = new int[64];
+        private int[] undoVictim = new int[64];
+        private int[] undoVictimArea = new int[64];
+        private int[] undoAttacked = new int[64];
+        private int[] undoMoved = new int[64];
+        private int[] undoSteps = new int[64];
+        private long[] undoHash = new long[64];
+        private int top;
+
+        /** nodes walked through in the current iteration */
+        private Node[] path = new Node[64];
+        /** area IDs written by handler queries */
+        private final int[] targets;
+        /** actions found when expanding a node */
+        private int[] found = new int[Actions.STRIDE * 64];
+
+        /** actions recorded into a plan, or null if not recording */
+        private int[] recorded;
+        private int recordedSize;
+
+        /** iterations this worker has run */
+        long iterations;
+
+        Worker(Search search, int index) {
+            this.search = search;
+            this.random = new BattleRandom(search.seed + index);
+
+            // the copy rolls its own dice, so the search samples
+            // ranged damage instead of foreseeing the real battle's
+            SavedBattle copy = SavedBattle.copy(search.handler,
+                    search.battlefield, new BattleRandom(random.nextLong()));
+            this.handler = copy.getHandler();
+            this.battlefield = copy.getBattlefield();
+            this.zobrist = new ZobristHash(handler, battlefield, 1);
+            this.pathFinder = new PathFinder(battlefield);
+
+            // a copy only holds units that are still in the battle
+            int n = battlefield.getRowCount();
+            Unit[] onBoard = new Unit[n * n];
+            int[] onBoardAreas = new int[n * n];
+            int count = 0;
+
+            for (int areaID = 0; areaID < n * n; areaID++) {
+                Unit unit = battlefield.getUnit(areaID);
+
+                if (unit != null) {
+                    onBoard[count] = unit;
+                    onBoardAreas[count++] = areaID;
+                }
+            }
+
+            this.units = Arrays.copyOf(onBoard, count);
+            this.areas = Arrays.copyOf(onBoardAreas, count);
+            this.indexOf = new IdentityHashMap<>(count * 2);
+            this.ours = new boolean[count];
+            this.attackedTurn = new int[count];
+            this.movedTurn = new int[count];
+            this.steps = new int[count];
+            this.attackedKeys = new long[count];
+            this.targets = new int[Math.max(1, count)];
+
+            // the keys only need to agree between workers, so they
+            // come from a fixed generator
+            BattleRandom keys = new BattleRandom(count);
+            int ourSoldiers = 0;
+            int theirSoldiers = 0;
+
+            for (int i = 0; i < count; i++) {
+                indexOf.put(units[i], i);
+                ours[i] = handler.isAttacker(units[i]) == search.isAttacker;
+                attackedTurn[i] = NONE;
+                movedTurn[i] = NONE;
+                attackedKeys[i] = keys.nextLong();
+
+                if (ours[i]) {
+                    ourSoldiers += units[i].getNumber();
+                } else {
+                    theirSoldiers += units[i].getNumber();
+                }
+            }
+
+            this.ourStart = Math.max(1, ourSoldiers);
+            this.theirStart = Math.max(1, theirSoldiers);
+
+            this.startDistance = new double[count];
+            double ourDistance = 0;
+
+            for (int i = 0; i < count; i++) {
+                startDistance[i] = distanceToEnemy(i);
+
+                if (ours[i]) {
+                    ourDistance += startDistance[i];
+                }
+            }
+
+            this.ourStartDistance = Math.max(1, ourDistance);
+        }
+
+        @Override
+        protected void compute() {
+            while (System.nanoTime() < search.deadline) {
+                iterate();
+                iterations++;
+            }
+        }
+
+        /**
+         * Runs one iteration: selection, expansion, playout (or a
+         * reused result), and backpropagation.
+         */
+        private void iterate() {
+            Node node = search.root;
+            int depth = 0;
+
+            VISITS.addAndGet(node, VIRTUAL_LOSS);
+            path[depth++] = node;
+
+            while (node.type != Actions.END_TURN) {
+                Node[] children = node.children;
+
+                if (children == null) {
+                    // a leaf is played out on its first visit and
+                    // expanded on its second
+                    if (node != search.root
+                            && node.visits <= VIRTUAL_LOSS) {
+                        break;
+                    }
+
+                    children = expand(node);
+
+                    if (children == null) {
+                        break;
+                    }
+                }
+
+                Node child = select(node, children);
+
+                VISITS.addAndGet(child, VIRTUAL_LOSS);
+                if (depth == path.length) {
+                    path = Arrays.copyOf(path, depth * 2);
+                }
+                path[depth++] = child;
+
+                if (child.type != Actions.END_TURN
+                        && !apply(child.type, child.source, child.target)) {
+                    break;
+                }
+
+                node = child;
+            }
+
+            boolean ended = node.type == Actions.END_TURN;
+            double result = score(ended);
+
+            long scaled = (long) (result * VALUE_SCALE);
+            for (int i = 0; i < depth; i++) {
+                VISITS.addAndGet(path[i], 1 - VIRTUAL_LOSS);
+                VALUE.addAndGet(path[i], scaled);
+            }
+
+            undoTo(0);
+        }
+
+        /**
+         * Scores the position reached, reusing the result of an
+         * equal position played out often enough before.
+         */
+        private double score(boolean ended) {
+            long key = zobrist.getHash() ^ attackedHash
+                    ^ (ended ? zobrist.getSideKey() : 0);
+            long entry = search.table.probe(key);
+            int samples = TranspositionTable.count(entry);
+
+            if (entry != TranspositionTable.NO_ENTRY
+                    && samples >= TRUSTED_SAMPLES) {
+                return TranspositionTable.value(entry);
+            }
+
+            double result = playout(ended);
+
+            // keeps a running mean of the position's playouts
+            double mean = entry == TranspositionTable.NO_ENTRY ? result
+                    : (TranspositionTable.value(entry) * samples + result)
+                    / (samples + 1);
+            search.table.store(key, TranspositionTable.entry(
+                    (float) mean, samples + 1));
+
+            return result;
+        }
+
+        /**
+         * Plays the rest of the planned turn and the following
+         * turns with the playout policy, returning the result for
+         * the planning side.
+         */
+        private double playout(boolean ended) {
+            int mark = top;
+
+            if (!ended) {
+                playTurn(true);
+            }
+
+            // only the planning side's own advance counts, not the
+            // enemy's answer to it
+            double closing = closing();
+
+            for (int t = 1; t <= playoutTurns && isContested(); t++) {
+                boolean isOurs = t % 2 == 0;
+
+                // each turn starts by resetting the side's movement
+                turn = t;
+                push(Actions.END_TURN, NONE, NONE);
+                handler.makeReset(search.isAttacker == isOurs,
+                        search.maxMovement, undo[top - 1]);
+                playTurn(isOurs);
+            }
+
+            double result = evaluate(closing);
+
+            turn = 0;
+            undoTo(mark);
+
+            return result;
+        }
+
+        /**
+         * Lets every unit of one side that has not attacked this
+         * turn attack a random enemy in range, advancing on the
+         * nearest enemy first if none is.
+         */
+        private void playTurn(boolean isOurs) {
+            int count = units.length;
+            if (count == 0) {
+                return;
+            }
+
+            int first = random.nextInt(count);
+
+            for (int k = 0; k < count; k++) {
+                int i = (first + k) % count;
+
+                if (ours[i] == isOurs && areas[i] != NONE
+                        && attackedTurn[i] != turn) {
+                    act(i);
+                }
+            }
+        }
+
+        private void act(int i) {
+            Unit unit = units[i];
+
+            while (true) {
+                int found = handler.findTargetsInRange(areas[i],
+                        battlefield, targets);
+
+                if (found > 0) {
+                    apply(Actions.ATTACK, areas[i],
+                            targets[random.nextInt(found)]);
+                    return;
+                }
+
+                int enemy = handler.findNearestEnemy(areas[i],
+                        battlefield);
+                if (enemy == NONE) {
+                    return;
+                }
+
+                int next = stepToward(unit, areas[i], enemy);
+                if (next == NONE || !apply(Actions.MOVE, areas[i], next)) {
+                    return;
+                }
+            }
+        }
+
+        /**
+         * Returns the neighboring area closest to a target that a
+         * unit can still afford to step into, or NONE if no such
+         * neighbor is closer than the area itself.
+         */
+        private int stepToward(Unit unit, int from, int target) {
+            int n = battlefield.getRowCount();
+            int row = GridCalculations.getRow(from, n);
+            int col = GridCalculations.getCol(from, row, n);
+
+            int best = NONE;
+            int bestDist = GridCalculations.getSquaredDistance(from,
+                    target, n);
+
+            for (int dRow = -1; dRow <= 1; dRow++) {
+                for (int dCol = -1; dCol <= 1; dCol++) {
+                    int r = row + dRow;
+                    int c = col + dCol;
+
+                    if (r < 0 || r >= n || c < 0 || c >= n) {
+                        continue;
+                    }
+
+                    int id = GridCalculations.getID(r, c, n);
+                    int dist = GridCalculations.getSquaredDistance(id,
+                            target, n);
+
+                    if (dist < bestDist && canStep(unit, id)) {
+                        best = id;
+                        bestDist = dist;
+                    }
+                }
+            }
+
+            return best;
+        }
+
+        /**
+         * Adds a child for every legal action of the planning side,
+         * unless another thread already has.
+         */
+        private Node[] expand(Node node) {
+            synchronized (node) {
+                if (node.children != null) {
+                    return node.children;
+                }
+
+                if (search.nodes.get() >= MAX_NODES) {
+                    return null;
+                }
+
+                int size = findActions();
+                Node[] children = new Node[size / Actions.STRIDE];
+
+                for (int i = 0; i < children.length; i++) {
+                    int at = i * Actions.STRIDE;
+                    children[i] = new Node(found[at], found[at + 1],
+                            found[at + 2]);
+                }
+
+                search.nodes.addAndGet(children.length);
+                node.children = children;
+
+                return children;
+            }
+        }
+
+        /**
+         * Writes every legal action of the planning side into
+         * found: steps to neighboring areas the unit can afford to
+         * enter, attacks on every enemy in range, and the end of
+         * the turn.
+         * @return int, number of ints written
+         */
+        private int findActions() {
+            int size = 0;
+            int n = battlefield.getRowCount();
+
+            for (int i = 0; i < units.length; i++) {
+                if (!ours[i] || areas[i] == NONE
+                        || attackedTurn[i] == turn) {
+                    continue;
+                }
+
+                int area = areas[i];
+                int count = handler.findTargetsInRange(area, battlefield,
+                        targets);
+
+                for (int t = 0; t < count; t++) {
+                    size = add(size, Actions.ATTACK, area, targets[t]);
+                }
+
+                if (handler.unitMovement(units[i])
+                        < units[i].getMovementCost()) {
+                    continue;
+                }
+
+                int row = GridCalculations.getRow(area, n);
+                int col = GridCalculations.getCol(area, row, n);
+
+                for (int dRow = -1; dRow <= 1; dRow++) {
+                    for (int dCol = -1; dCol <= 1; dCol++) {
+                        int r = row + dRow;
+                        int c = col + dCol;
+
+                        if (r < 0 || r >= n || c < 0 || c >= n) {
+                            continue;
+                        }
+
+                        int id = GridCalculations.getID(r, c, n);
+
+                        if (canStep(units[i], id)) {
+                            size = add(size, Actions.MOVE, area, id);
+                        }
+                    }
+                }
+            }
+
+            return add(size, Actions.END_TURN, NONE, NONE);
+        }
+
+        private int add(int size, int type, int source, int target) {
+            if (size + Actions.STRIDE > found.length) {
+                found = Arrays.copyOf(found, found.length * 2);
+            }
+
+            found[size] = type;
+            found[size + 1] = source;
+            found[size + 2] = target;
+
+            return size + Actions.STRIDE;
+        }
+
+        /**
+         * Picks the child with the best upper confidence bound;
+         * children never visited come first, starting from a random
+         * one so threads spread out.
+         */
+        private Node select(Node node, Node[] children) {
+            int count = children.length;
+            int first = random.nextInt(count);
+            double logVisits = Math.log(Math.max(1, node.visits));
+
+            Node best = null;
+            double bestScore = Double.NEGATIVE_INFINITY;
+
+            for (int k = 0; k < count; k++) {
+                Node child = children[(first + k) % count];
+                int visits = child.visits;
+
+                if (visits == 0) {
+                    return child;
+                }
+
+                double score = child.value / VALUE_SCALE / visits
+                        + EXPLORATION * Math.sqrt(logVisits / visits);
+
+                if (score > bestScore) {
+                    best = child;
+                    bestScore = score;
+                }
+            }
+
+            return best;
+        }
+
+        /**
+         * Makes an action on the worker's copy of the battle,
+         * returning false if it changed nothing.
+         */
+        private boolean apply(int type, int source, int target) {
+            int i = indexAt(source);
+            if (i == NONE) {
+                return false;
+            }
+
+            int victim = type == Actions.ATTACK ? indexAt(target) : NONE;
+            int cost = type == Actions.MOVE
+                    ? pathFinder.getStepCost(target, units[i]) : 0;
+
+            if (cost < 0) {
+                return false;
+            }
+
+            push(type, i, source);
+            UndoRecord record = undo[top - 1];
+
+            if (type == Actions.MOVE) {
+                handler.makeMove(source, target, cost, battlefield,
+                        record);
+            } else {
+                // a charge is as long as the steps taken this turn
+                handler.makeAttack(source, target, battlefield,
+                        movedTurn[i] == turn ? steps[i] : 0, record);
+            }
+
+            if (record.isEmpty()) {
+                top--;
+                return false;
+            }
+
+            if (type == Actions.MOVE) {
+                areas[i] = target;
+                undoMoved[top - 1] = movedTurn[i];
+                undoSteps[top - 1] = steps[i];
+
+                if (movedTurn[i] != turn) {
+                    movedTurn[i] = turn;
+                    steps[i] = 0;
+                }
+
+                steps[i]++;
+            } else {
+                undoAttacked[top - 1] = attackedTurn[i];
+                attackedTurn[i] = turn;
+
+                if (turn == 0) {
+                    attackedHash ^= attackedKeys[i];
+                }
+
+                if (victim != NONE && battlefield.getUnit(target) == null) {
+                    undoVictim[top - 1] = victim;
+                    undoVictimArea[top - 1] = target;
+                    areas[victim] = NONE;
+                }
+            }
+
+            if (recorded != null) {
+                record(type, source, target);
+            }
+
+            return true;
+        }
+
+        /**
+         * Takes back every action made after a given point.
+         */
+        private void undoTo(int mark) {
+            while (top > mark) {
+                top--;
+                handler.unmake(undo[top], battlefield);
+
+                int i = undoUnit[top];
+
+                if (undoType[top] == Actions.MOVE) {
+                    areas[i] = undoArea[top];
+                    movedTurn[i] = undoMoved[top];
+                    steps[i] = undoSteps[top];
+                } else if (undoType[top] == Actions.ATTACK) {
+                    attackedTurn[i] = undoAttacked[top];
+                    attackedHash = undoHash[top];
+
+                    if (undoVictim[top] != NONE) {
+                        areas[undoVictim[top]] = undoVictimArea[top];
+                    }
+                }
+            }
+        }
+
+        /**
+         * Makes room for one more action and remembers the state
+         * the worker keeps beside the battle.
+         */
+        private void push(int type, int unit, int area) {
+            if (top == undo.length) {
+                int size = top * 2;
+                undo = Arrays.copyOf(undo, size);
+                undoType = Arrays.copyOf(undoType, size);
+                undoUnit = Arrays.copyOf(undoUnit, size);
+                undoArea = Arrays.copyOf(undoArea, size);
+                undoVictim = Arrays.copyOf(undoVictim, size);
+                undoVictimArea = Arrays.copyOf(undoVictimArea, size);
+                undoAttacked = Arrays.copyOf(undoAttacked, size);
+                undoMoved = Arrays.copyOf(undoMoved, size);
+                undoSteps = Arrays.copyOf(undoSteps, size);
+                undoHash = Arrays.copyOf(undoHash, size);
+            }
+
+            if (undo[top] == null) {
+                undo[top] = new UndoRecord();
+            }
+
+            undoType[top] = type;
+            undoUnit[top] = unit;
+            undoArea[top] = area;
+            undoVictim[top] = NONE;
+            undoHash[top] = attackedHash;
+            top++;
+        }
+
+        /**
+         * Follows the most visited actions from the root on the
+         * worker's copy, then finishes the planned turn with the
+         * playout policy, returning every action made.
+         */
+        int[] extractPlan() {
+            recorded = new int[Actions.STRIDE * 16];
+            recordedSize = 0;
+
+            Node node = search.root;
+            boolean ended = false;
+
+            while (node.children != null) {
+                Node best = null;
+
+                for (Node child : node.children) {
+                    if (child.visits > 0
+                            && (best == null || child.visits > best.visits)) {
+                        best = child;
+                    }
+                }
+
+                if (best == null) {
+                    break;
+                }
+
+                if (best.type == Actions.END_TURN) {
+                    ended = true;
+                    break;
+                }
+
+                if (!apply(best.type, best.source, best.target)) {
+                    break;
+                }
+
+                node = best;
+            }
+
+            if (!ended) {
+                playTurn(true);
+            }
+
+            undoTo(0);
+
+            return Arrays.copyOf(recorded, recordedSize);
+        }
+
+        private void record(int type, int source, int target) {
+            if (recordedSize + Actions.STRIDE > recorded.length) {
+                recorded = Arrays.copyOf(recorded, recorded.length * 2);
+            }
+
+            recorded[recordedSize++] = type;
+            recorded[recordedSize++] = source;
+            recorded[recordedSize++] = target;
+        }
+
+        /**
+         * Returns the result for the planning side, from 0 (it lost
+         * every soldier and the enemy none) to 1 (the reverse).
+         * Mostly this weighs the losses of both sides, but a small
+         * share rewards the side's units for closing on the enemy,
+         * so that when neither side can strike first within the
+         * horizon, waiting does not win over advancing.
+         * @param closing, result of closing() after the planned turn
+         */
+        private double evaluate(double closing) {
+            int ourSoldiers = 0;
+            int theirSoldiers = 0;
+
+            for (int i = 0; i < units.length; i++) {
+                if (areas[i] == NONE) {
+                    continue;
+                }
+
+                if (ours[i]) {
+                    ourSoldiers += units[i].getNumber();
+                } else {
+                    theirSoldiers += units[i].getNumber();
+                }
+            }
+
+            double ourLoss = 1 - (double) ourSoldiers / ourStart;
+            double theirLoss = 1 - (double) theirSoldiers / theirStart;
+
+            return (1 - CLOSING_WEIGHT) * (0.5 + 0.5 * (theirLoss - ourLoss))
+                    + CLOSING_WEIGHT * (0.5 + 0.5 * closing);
+        }
+
+        /**
+         * Returns how far the planning side's units have closed on
+         * the enemy since the start of the turn, from -1 to 1 (every
+         * unit standing next to an enemy).
+         */
+        private double closing() {
+            double closed = 0;
+
+            for (int i = 0; i < units.length; i++) {
+                if (ours[i] && areas[i] != NONE) {
+                    closed += startDistance[i] - distanceToEnemy(i);
+                }
+            }
+
+            return Math.max(-1, Math.min(1, closed / ourStartDistance));
+        }
+
+        /**
+         * Returns the distance from a unit to the nearest enemy, or
+         * 0 if it has none.
+         */
+        private double distanceToEnemy(int i) {
+            int enemy = handler.findNearestEnemy(areas[i], battlefield);
+
+            return enemy == NONE ? 0 : GridCalculations.getEuclidDistance(
+                    areas[i], enemy, battlefield.getRowCount());
+        }
+
+        /**
+         * Checks if both sides still have units on the board.
+         */
+        private boolean isContested() {
+            boolean ourUnits = false;
+            boolean theirUnits = false;
+
+            for (int i = 0; i < units.length; i++) {
+                if (areas[i] != NONE) {
+                    if (ours[i]) {
+                        ourUnits = true;
+                    } else {
+                        theirUnits = true;
+                    }
+                }
+            }
+
+            return ourUnits && theirUnits;
+        }
+
+        private int indexAt(int areaID) {
+            Integer i = indexOf.get(battlefield.getUnit(areaID));
+            return i == null ? NONE : i;
+        }
+
+        /**
+         * Checks if a unit can enter a neighboring area with the
+         * movement points it has left.
+         */
+        private boolean canStep(Unit unit, int areaID) {
+            int cost = pathFinder.getStepCost(areaID, unit);
+            return cost >= 0 && cost <= handler.unitMovement(unit);
+        }
+    }
+}
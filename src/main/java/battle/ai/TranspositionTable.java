@@ -0,0 +1,142 @@
+package battle.ai;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * A fixed-size table of search results keyed by the Zobrist hash
+ * of a battle position, shared without locks by every thread of a
+ * search. Each entry stores a 64-bit result next to its hash XORed
+ * with the result, so an entry half written by another thread
+ * simply fails to match instead of returning a wrong result.
+ *
+ * Entries live in buckets of two: the first keeps the result with
+ * the most samples, the second always takes the newest result, so
+ * well-explored positions survive while new ones still get in.
+ *
+ * Results are usually a value and a sample count packed with
+ * entry; an entry of 0 means no result and is never stored.
+ */
+public final class TranspositionTable {
+    /** returned by probe when a position has no result */
+    public static final long NO_ENTRY = 0;
+
+    /** hash XOR result, then result, for every entry */
+    private final AtomicLongArray entries;
+    /** number of buckets minus one (a power of two minus one) */
+    private final int mask;
+
+    /**
+     * Creates a TranspositionTable object holding at least a given
+     * number of entries, rounded up to a power of two.
+     * @param capacity, number of entries (at least 2)
+     */
+    public TranspositionTable(int capacity) {
+        if (capacity < 2 || capacity > 1 << 26) {
+            throw new IllegalArgumentException(
+                    "capacity must be between 2 and 2^26");
+        }
+
+        int buckets = Integer.highestOneBit(capacity - 1);
+
+        this.entries = new AtomicLongArray(buckets * 4);
+        this.mask = buckets - 1;
+    }
+
+    /**
+     * Returns the result stored for a position, or NO_ENTRY.
+     * @param hash, the position's Zobrist hash
+     * @return long
+     */
+    public long probe(long hash) {
+        int base = bucket(hash);
+
+        for (int i = base; i < base + 4; i += 2) {
+            long data = entries.get(i + 1);
+
+            if (data != NO_ENTRY && (entries.get(i) ^ data) == hash) {
+                return data;
+            }
+        }
+
+        return NO_ENTRY;
+    }
+
+    /**
+     * Stores the result for a position, replacing any earlier
+     * result of the same position.
+     * @param hash, the position's Zobrist hash
+     * @param data, the result (never NO_ENTRY)
+     */
+    public void store(long hash, long data) {
+        if (data == NO_ENTRY) {
+            return;
+        }
+
+        int base = bucket(hash);
+        long kept = entries.get(base + 1);
+
+        // the first entry is replaced by the same position or by a
+        // result with at least as many samples
+        int i = base + 2;
+        if (kept == NO_ENTRY || (entries.get(base) ^ kept) == hash
+                || count(kept) <= count(data)) {
+            i = base;
+        }
+
+        // a reader seeing one word of this write and one of an
+        // earlier write fails the check in probe
+        entries.set(i, hash ^ data);
+        entries.set(i + 1, data);
+    }
+
+    /**
+     * Removes every result.
+     */
+    public void clear() {
+        for (int i = 0; i < entries.length(); i++) {
+            entries.set(i, 0);
+        }
+    }
+
+    /**
+     * Returns the number of entries the table holds.
+     * @return int
+     */
+    public int getCapacity() {
+        return entries.length() / 2;
+    }
+
+    /**
+     * Packs a value and the number of samples behind it into a
+     * result. A count of at least 1 never gives NO_ENTRY.
+     * @param value, the position's value
+     * @param count, number of samples (or search depth)
+     * @return long
+     */
+    public static long entry(float value, int count) {
+        return (long) count << 32 | (Float.floatToRawIntBits(value)
+                & 0xFFFFFFFFL);
+    }
+
+    /**
+     * Returns the value packed into a result.
+     * @param data, a result made by entry
+     * @return float
+     */
+    public static float value(long data) {
+        return Float.intBitsToFloat((int) data);
+    }
+
+    /**
+     * Returns the sample count packed into a result.
+     * @param data, a result made by entry
+     * @return int
+     */
+    public static int count(long data) {
+        return (int) (data >>> 32);
+    }
+
+    private int bucket(long hash) {
+        return ((int) (hash ^ hash >>> 32) & mask) << 2;
+    }
+}
@@ -0,0 +1,189 @@
+package battle.ai;
+
+import battle.battlefield.BattleHandler;
+import battle.battlefield.Battlefield;
+import battle.battlefield.UndoRecord;
+import battle.interfaces.Unit;
+import battle.pathfinding.PathFinder;
+import enumerators.FailureReason;
+import testing.unittesting.StateType;
+
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.IdentityHashMap;
+import java.util.Map;
+
+/**
+ * The moves and attacks a TacticalPlanner chose for one side's
+ * turn, in the order they should be made, along with how the
+ * search went.
+ */
+public class TurnPlan {
+    /** packed actions, Actions.STRIDE ints each */
+    private final int[] actions;
+    /** expected result of the plan, between 0 and 1 */
+    private final double value;
+    /** playouts run (or reused) by the search */
+    private final long iterations;
+    /** wall-clock time the search took, in milliseconds */
+    private final long elapsedMillis;
+
+    /**
+     * Creates a TurnPlan object.
+     */
+    public TurnPlan(int[] actions, double value, long iterations,
+                    long elapsedMillis) {
+        this.actions = actions;
+        this.value = value;
+        this.iterations = iterations;
+        this.elapsedMillis = elapsedMillis;
+    }
+
+    /**
+     * Returns the number of actions in the plan.
+     * @return int
+     */
+    public int getActionCount() {
+        return actions.length / Actions.STRIDE;
+    }
+
+    /**
+     * Returns the type of an action (Actions.MOVE or ATTACK).
+     * @param i, index of the action
+     * @return int
+     */
+    public int getType(int i) {
+        return actions[i * Actions.STRIDE];
+    }
+
+    /**
+     * Returns the area of the unit taking an action.
+     * @param i, index of the action
+     * @return int
+     */
+    public int getSource(int i) {
+        return actions[i * Actions.STRIDE + 1];
+    }
+
+    /**
+     * Returns the area an action moves to or attacks.
+     * @param i, index of the action
+     * @return int
+     */
+    public int getTarget(int i) {
+        return actions[i * Actions.STRIDE + 2];
+    }
+
+    /**
+     * Returns the packed actions of the plan.
+     * @return int[]
+     */
+    public int[] getActions() {
+        return Arrays.copyOf(actions, actions.length);
+    }
+
+    /**
+     * Returns the expected result of the plan for the side that
+     * makes it, from 0 (every loss on its side) to 1.
+     * @return double
+     */
+    public double getValue() {
+        return value;
+    }
+
+    public long getIterations() {
+        return iterations;
+    }
+
+    public long getElapsedMillis() {
+        return elapsedMillis;
+    }
+
+    /**
+     * Makes every action of the plan through a battle's handler:
+     * moves are made with makeMove, which only spends movement
+     * points on moves that succeed, at the terrain cost PathFinder
+     * charges for the step, and attacks are made with fightTwoUnits,
+     * charging with the steps the unit took this turn.
+     *
+     * The planner samples ranged damage, so the battle's own dice
+     * may destroy a unit sooner or later than the plan expected.
+     * Attacks on a unit that is already destroyed are skipped, as
+     * are moves into an area still held by a unit the plan expected
+     * to destroy, along with every later action of the unit that
+     * could not move. Stops at the first other action that fails
+     * and returns its failure.
+     * @param handler, the battle's handler
+     * @param battlefield, the battlefield the battle is fought on
+     * @return StateType
+     */
+    public StateType execute(BattleHandler handler,
+                             Battlefield battlefield) {
+        UndoRecord undo = new UndoRecord();
+
+        // steps each unit has taken so far this turn
+        Map<Unit, Integer> steps = new IdentityHashMap<>();
+
+        // areas the plan expected a unit of its side to stand in,
+        // which that unit never reached
+        BitSet stranded = new BitSet();
+
+        for (int i = 0; i < getActionCount(); i++) {
+            int source = getSource(i);
+            int target = getTarget(i);
+
+            if (stranded.get(source)) {
+                if (getType(i) == Actions.MOVE) {
+                    stranded.set(target);
+                }
+
+                continue;
+            }
+
+            Unit unit = battlefield.getUnit(source);
+
+            if (unit == null) {
+                return StateType.returnFailure(FailureReason.UNIT_NOT_FOUND);
+            }
+
+            StateType result;
+
+            if (getType(i) == Actions.MOVE) {
+                if (battlefield.getUnit(target) != null
+                        && handler.areEnemies(unit,
+                        battlefield.getUnit(target))) {
+                    stranded.set(target);
+                    continue;
+                }
+
+                int cost = PathFinder.getStepCost(
+                        battlefield.getArea(target), unit);
+
+                if (cost < 0) {
+                    return StateType.returnFailure(
+                            FailureReason.AREA_IMPASSABLE);
+                }
+
+                result = handler.makeMove(source, target, cost,
+                        battlefield, undo);
+
+                if (StateType.checkIfSuccess(result)) {
+                    steps.merge(unit, 1, Integer::sum);
+                }
+            } else {
+                if (battlefield.getUnit(target) == null) {
+                    continue;
+                }
+
+                result = handler.fightTwoUnits(source, target,
+                        battlefield, steps.getOrDefault(unit, 0));
+            }
+
+            if (StateType.checkIfFailure(result)) {
+                return result;
+            }
+        }
+
+        return StateType.SUCCESS;
+    }
+}
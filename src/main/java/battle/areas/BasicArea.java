@@ -0,0 +1,61 @@
+package battle.areas;
+
+import battle.interfaces.Area;
+
+/**
+ * BasicArea class
+ *
+ * The class represents a single square of terrain on a
+ * battlefield that implements the Area interface.
+ *
+ * The defense bonus of an area is the percentage of an
+ * attack's damage that still reaches a unit standing in it
+ * (i.e. a defense bonus of 0.8 reduces damage TO 80% of its
+ * lethality), so open ground should use a bonus of 1.
+ */
+public class BasicArea implements Area {
+    /** integer id of the area (row * n + col). */
+    private final int areaID;
+    /** terrain type of the area. */
+    private final AreaType areaType;
+    /** percentage of damage that reaches a defending unit. */
+    private final double defenseBonus;
+    /** boolean checking whether a unit can move into the area. */
+    private boolean isOpen;
+
+    /**
+     * Constructs a new BasicArea object.
+     * @param areaID is the id of the area on the battlefield
+     * @param areaType is the terrain type of the area
+     * @param defenseBonus is the percentage of damage that reaches
+     *                     a unit defending in the area
+     * @param isOpen is whether a unit can move into the area
+     */
+    public BasicArea(final int areaID, final AreaType areaType,
+                     final double defenseBonus, final boolean isOpen) {
+        this.areaID = areaID;
+        this.areaType = areaType;
+        this.defenseBonus = defenseBonus;
+        this.isOpen = isOpen;
+    }
+
+    public int getAreaID() {
+        return this.areaID;
+    }
+
+    public double getDefenseBonus() {
+        return this.defenseBonus;
+    }
+
+    public String getAreaType() {
+        return this.areaType.name();
+    }
+
+    public void changeStatus(boolean isOpen) {
+        this.isOpen = isOpen;
+    }
+
+    public boolean isOpen() {
+        return this.isOpen;
+    }
+}
@@ -0,0 +1,81 @@
+package battle.battlefield;
+
+import battle.interfaces.Unit;
+
+/**
+ * Result of one auto-resolved battle: which side won, and how many
+ * soldiers each side lost, broken down by unit type.
+ */
+public class AutoBattleReport {
+    /** whether the attackers won the battle */
+    private final boolean attackerWin;
+    /** soldiers the attackers lost, indexed by UnitType ordinal */
+    private final int[] attackerCasualties;
+    /** soldiers the defenders lost, indexed by UnitType ordinal */
+    private final int[] defenderCasualties;
+
+    /**
+     * Creates an AutoBattleReport object.
+     * @param attackerWin, whether the attackers won the battle
+     * @param attackerCasualties, soldiers the attackers lost per
+     *                            UnitType ordinal
+     * @param defenderCasualties, soldiers the defenders lost per
+     *                            UnitType ordinal
+     */
+    AutoBattleReport(boolean attackerWin, int[] attackerCasualties,
+                     int[] defenderCasualties) {
+        this.attackerWin = attackerWin;
+        this.attackerCasualties = attackerCasualties;
+        this.defenderCasualties = defenderCasualties;
+    }
+
+    /**
+     * Checks whether the attackers won the battle.
+     * @return boolean
+     */
+    public boolean isAttackerWin() {
+        return this.attackerWin;
+    }
+
+    /**
+     * Returns the soldiers the attackers lost of a unit type.
+     * @param type, the unit type
+     * @return int
+     */
+    public int getAttackerCasualties(Unit.UnitType type) {
+        return this.attackerCasualties[type.ordinal()];
+    }
+
+    /**
+     * Returns the soldiers the defenders lost of a unit type.
+     * @param type, the unit type
+     * @return int
+     */
+    public int getDefenderCasualties(Unit.UnitType type) {
+        return this.defenderCasualties[type.ordinal()];
+    }
+
+    /**
+     * Returns the soldiers the attackers lost in total.
+     * @return int
+     */
+    public int getAttackerCasualties() {
+        return sum(this.attackerCasualties);
+    }
+
+    /**
+     * Returns the soldiers the defenders lost in total.
+     * @return int
+     */
+    public int getDefenderCasualties() {
+        return sum(this.defenderCasualties);
+    }
+
+    private static int sum(int[] casualties) {
+        int total = 0;
+        for (int c : casualties) {
+            total += c;
+        }
+        return total;
+    }
+}
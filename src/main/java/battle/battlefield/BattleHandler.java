@@ -1,54 +1,102 @@
 package battle.battlefield;
 
+import enumerators.FailureReason;
 import battle.interfaces.Unit;
+import calculations.BattleRandom;
 import calculations.GridCalculations;
 import testing.unittesting.StateType;
 
 import java.util.Arrays;
-import java.util.HashMap;
+import java.util.function.Predicate;
 
 /**
- * Two HashMaps and two integers represent the BattleHandler.
+ * Every unit in a battle is given a dense integer slot, and the
+ * ammunition, movement points, and special ability turns of each
+ * unit are held in parallel arrays indexed by that slot.
  * The class ensures that any interaction between two units
  * is completely valid (i.e. ensuring that a unit attacks
  * within range, etc.).
  */
 public class BattleHandler {
-    /** HashMap holding ammunition, movement points, and
-     *  special ability turns a unit has left.
+    /** number of unit types, for casualties per unit type */
+    private static final int UNIT_TYPES = Unit.UnitType.values().length;
+
+    /** Table binding each unit to its slot. Units destroyed in
+     *  battle lose their binding.
      */
-    private HashMap<Unit, UnitNums> unitMap;
+    private final UnitIndex unitSlots;
+    /** unit holding each slot, or null once it is destroyed */
+    final Unit[] slotUnits;
+
+    /** ammunition each unit has left, indexed by slot */
+    final int[] ammunition;
+    /** movement points each unit has left, indexed by slot */
+    final int[] movePoints;
+    /** special ability turns each unit has left, indexed by slot */
+    final int[] specialTurns;
+
+    /** number of slots handed out so far */
+    int slotCount;
+    /** attackers hold slots [0, attackerCount), defenders hold
+     *  the slots after them */
+    final int attackerCount;
+
+    /** source of all randomness in the battle (i.e. ranged
+     *  damage), so the battle can be replayed from its seed */
+    private final BattleRandom random;
+
+    /** log every change to the battle is appended to, or null if
+     *  the battle is not being logged */
+    BattleLog log;
+
+    /** hash kept up to date with every change to the battle, or
+     *  null if the battle is not being hashed */
+    ZobristHash zobrist;
+
+    /** accepts the defenders still in the battle, kept so that
+     *  target queries of attackers do not allocate */
+    private final Predicate<Unit> enemiesOfAttackers =
+            unit -> isEnemy(unit, true);
+
+    /** accepts the attackers still in the battle, kept so that
+     *  target queries of defenders do not allocate */
+    private final Predicate<Unit> enemiesOfDefenders =
+            unit -> isEnemy(unit, false);
 
     /**
-     * Initializes the hash maps for a given
-     * array of units.
+     * Gives each unit in a given array of units a slot
+     * and its starting ammunition, movement points, and
+     * special ability turns.
      * @param units, an array of Unit objects
      */
-    private void initializeMaps(Unit[] units, int maxMovement,
-                                int maxAmmo, int maxTurns) {
-        // initializes the HashMap
-        unitMap = new HashMap<>();
-
-        // adds each unit to both ammo and movement
-        // HashMaps
+    private void initializeSlots(Unit[] units, int maxMovement,
+                                 int maxAmmo, int maxTurns) {
         for (Unit unit : units) {
-            // creates new UnitNums object
-            UnitNums nums = new UnitNums(0,
-                    maxMovement, maxTurns);
+            // empty spaces in an army never get a slot
+            if (unit == null) {
+                continue;
+            }
+
+            int slot = slotCount++;
+
+            movePoints[slot] = maxMovement;
+            specialTurns[slot] = maxTurns;
 
             // gives each RANGED unit a certain amount of
             // ammunition
             if (unit.isRangedUnit()) {
-                nums.setAmmunition(maxAmmo);
+                ammunition[slot] = maxAmmo;
             }
 
             // creates binding for unit
-            unitMap.put(unit, nums);
+            unitSlots.put(unit, slot);
+            slotUnits[slot] = unit;
         }
     }
 
     /**
-     * Creates a BattleHandler object and initializes it.
+     * Creates a BattleHandler object with an arbitrary seed and
+     * initializes it.
      * @param attackers, units corresponding to attacking player
      * @param defenders, units corresponding to defending player
      * @param maxAmmo, the max amount of ammo a unit can have
@@ -58,10 +106,68 @@ public class BattleHandler {
     public BattleHandler(Unit[] attackers, Unit[] defenders,
                          int maxAmmo, int maxMovement,
                          int maxTurns) {
-        // adds attackers and defenders to movement point and
-        // ammunition hash maps
-        initializeMaps(attackers, maxMovement, maxAmmo, maxTurns);
-        initializeMaps(defenders, maxMovement, maxAmmo, maxTurns);
+        this(attackers, defenders, maxAmmo, maxMovement, maxTurns,
+                new BattleRandom());
+    }
+
+    /**
+     * Creates a BattleHandler object whose randomness comes from
+     * a given battle generator and initializes it.
+     * @param attackers, units corresponding to attacking player
+     * @param defenders, units corresponding to defending player
+     * @param maxAmmo, the max amount of ammo a unit can have
+     * @param maxMovement, the max amount of movement points
+     *                     a unit can have
+     * @param random, the battle's generator
+     */
+    public BattleHandler(Unit[] attackers, Unit[] defenders,
+                         int maxAmmo, int maxMovement,
+                         int maxTurns, BattleRandom random) {
+        this.random = random;
+
+        int size = attackers.length + defenders.length;
+
+        unitSlots = new UnitIndex(size);
+        slotUnits = new Unit[size];
+        ammunition = new int[size];
+        movePoints = new int[size];
+        specialTurns = new int[size];
+
+        // gives attackers their slots first, followed by defenders
+        initializeSlots(attackers, maxMovement, maxAmmo, maxTurns);
+        attackerCount = slotCount;
+        initializeSlots(defenders, maxMovement, maxAmmo, maxTurns);
+    }
+
+    /**
+     * Creates a BattleHandler object from saved slots, keeping every
+     * unit in the slot it had (destroyed units leave null slots).
+     * The arrays are used directly rather than copied.
+     * @param slotUnits, unit holding each slot, or null
+     * @param attackerCount, number of attacking slots
+     * @param ammunition, ammunition left per slot
+     * @param movePoints, movement points left per slot
+     * @param specialTurns, special ability turns left per slot
+     * @param random, the battle's generator
+     */
+    BattleHandler(Unit[] slotUnits, int attackerCount, int[] ammunition,
+                  int[] movePoints, int[] specialTurns,
+                  BattleRandom random) {
+        this.random = random;
+        this.slotUnits = slotUnits;
+        this.attackerCount = attackerCount;
+        this.slotCount = slotUnits.length;
+        this.ammunition = ammunition;
+        this.movePoints = movePoints;
+        this.specialTurns = specialTurns;
+
+        unitSlots = new UnitIndex(slotUnits.length);
+
+        for (int slot = 0; slot < slotUnits.length; slot++) {
+            if (slotUnits[slot] != null) {
+                unitSlots.put(slotUnits[slot], slot);
+            }
+        }
     }
 
     /**
@@ -75,17 +181,53 @@ public class BattleHandler {
         // gives each unit the maximum amount of movement points
         // again
         for (Unit unit : units) {
+            int slot = unitSlots.get(unit);
+
             // if no mapping is somehow found, then return failure
-            if (!unitMap.containsKey(unit)) {
-                return StateType.returnFailure("Error: no mapping " +
-                        "found during movement reset");
+            if (slot == UnitIndex.NO_SLOT) {
+                return StateType.returnFailure(
+                        FailureReason.NO_MOVEMENT_MAPPING);
             }
 
             // resets movement points for the unit
-            unitMap.get(unit).setMovePoints(maxMovement);
+            if (zobrist != null) {
+                zobrist.recordMovement(slot, movePoints[slot],
+                        maxMovement);
+            }
+
+            movePoints[slot] = maxMovement;
+
+            if (log != null) {
+                log.recordMovement(slot, maxMovement);
+            }
+        }
+
+        return StateType.SUCCESS;
+    }
+
+    /**
+     * Sets the movement points of every unit on one side back
+     * to the maximum amount in a single fill, since each side's
+     * slots are contiguous.
+     * @param isAttacker, true for the attacking side.
+     * @param maxMovement that each unit gets.
+     */
+    public void resetMovement(boolean isAttacker, int maxMovement) {
+        if (zobrist != null) {
+            zobrist.recordReset(isAttacker ? 0 : attackerCount,
+                    isAttacker ? attackerCount : slotCount, maxMovement);
+        }
+
+        if (isAttacker) {
+            Arrays.fill(movePoints, 0, attackerCount, maxMovement);
+        } else {
+            Arrays.fill(movePoints, attackerCount, slotCount,
+                    maxMovement);
         }
 
-        return StateType.returnSuccess(null);
+        if (log != null) {
+            log.recordReset(isAttacker, maxMovement);
+        }
     }
 
     public StateType fightTwoUnits(int attackID, int defendID,
@@ -97,8 +239,7 @@ public class BattleHandler {
         Unit defender = battlefield.getUnit(defendID);
 
         // retrieves defensive area bonus for defender
-        double areaBonus =
-                battlefield.getArea(defendID).getDefenseBonus();
+        double areaBonus = battlefield.getDefenseBonus(defendID);
 
         // retrieves number of areas in one row
         int n = battlefield.getRowCount();
@@ -106,64 +247,50 @@ public class BattleHandler {
         // if any of the units are found to be null, return
         // failure
         if (attacker == null) {
-            return StateType.returnFailure("Error: Attacker unit " +
-                    "nonexistent");
+            return StateType.returnFailure(FailureReason.ATTACKER_NONEXISTENT);
         }
 
         if (defender == null) {
-            return StateType.returnFailure("Error: Defender unit " +
-                    "nonexistent");
+            return StateType.returnFailure(FailureReason.DEFENDER_NONEXISTENT);
         }
 
+        // retrieves the slots of both units
+        int attackSlot = unitSlots.get(attacker);
+        int defendSlot = unitSlots.get(defender);
+
         // if a unit binding doesn't exist for a unit, then return
         // failure
-        if (!unitMap.containsKey(attacker))
-            return StateType.returnFailure("Error: Attacker unit " +
-                    "binding nonexistent");
-
-        if (!unitMap.containsKey(defender))
-            return StateType.returnFailure("Error: Defender unit " +
-                    "binding nonexistent");
-
-        // calculates the euclidean distance between two
-        // units to ensure that a unit attacks another
-        // unit within a valid range
-        double dist = GridCalculations.getEuclidDistance(attackID,
-                defendID, n);
-
-        // calculates actual range of a given unit, set automatically
-        // to Math.sqrt(2) if it is a ranged unit with no more
-        // ammunition, a melee unit, or a unit that directly
-        // neighbors the unit
-        double range = getRangeOfUnit(attacker);
-
-        // handles ammunition for an attacker unit, if
-        // it intends to use ranged attacks
-        int ammo = 0;
-        boolean isMelee = checkIfMelee(attacker, range);
-
-        // if the unit plans on attacking with range, its ammo
-        // must be retrieved for future use
-        if (!isMelee) {
-            // retrieves the ranged unit's ammunition amount
-            // from the HashMap, if the unit exists in
-            // the HashMap. If it doesn't, then return
-            // failure
-            if (hasAmmo(attacker)) {
-                ammo = unitMap.get(attacker).getAmmunition();
-            }
-        }
+        if (attackSlot == UnitIndex.NO_SLOT)
+            return StateType.returnFailure(
+                    FailureReason.ATTACKER_BINDING_NONEXISTENT);
 
-        // if the defending unit is out of range, then
-        // return failure
-        if (dist > range) {
-            return StateType.returnFailure("Error: defender unit is"
-                    + " out of range");
+        if (defendSlot == UnitIndex.NO_SLOT)
+            return StateType.returnFailure(
+                    FailureReason.DEFENDER_BINDING_NONEXISTENT);
+
+        // calculates actual range factor of a given unit, set
+        // automatically to 1 (a range of Math.sqrt(2)) if it is a
+        // ranged unit with no more ammunition or a melee unit
+        int rangeFactor = getRangeFactorOfUnit(attacker, attackSlot);
+
+        // checks whether the attacker unit intends to use
+        // ranged attacks
+        boolean isMelee = checkIfMelee(attacker, attackSlot,
+                rangeFactor);
+
+        // compares squared distances to ensure that a unit attacks
+        // another unit within a valid range, which needs no
+        // floating point math; if the defending unit is out of
+        // range, then return failure
+        if (!GridCalculations.isWithinRange(attackID, defendID, n,
+                rangeFactor)) {
+            return StateType.returnFailure(FailureReason.OUT_OF_RANGE);
         }
 
         // retrieves result of attacking method
         // and returns the result if applicable
         StateType result;
+        int defenderNumber = defender.getNumber();
 
         // if the attacker happens to have no ammunition left,
         // is a melee unit, or is in melee range, then the
@@ -171,7 +298,8 @@ public class BattleHandler {
         if (isMelee) {
             result = attacker.attackWithMelee(defender, areaBonus);
         } else {
-            result = attacker.attackWithRange(defender, areaBonus);
+            result = attacker.attackWithRange(defender, areaBonus,
+                    random);
         }
 
         // if failure is found, then return failure
@@ -182,18 +310,31 @@ public class BattleHandler {
         // inflicts charge damage on the defending unit separately
         // from the main unit's MELEE attack, increasing linearly
         // with the length of the path taken and doubled if
-        // the unit is a cavalry unit
+        // the unit is a cavalry unit (a defender destroyed by the
+        // main attack takes no further damage)
         int bonus = 1;
         int cavalryBonus = 2;
 
         if (attacker.getUnitType() == Unit.UnitType.CAVALRY)
             bonus = cavalryBonus;
 
-        if (isMelee) {
+        if (isMelee && !StateType.checkIfDestroy(result)) {
             int bonusDamage =(int) (bonus * pathLength * areaBonus);
             result = defender.damageUnit(bonusDamage);
         }
 
+        // logs the defender's remaining soldiers, even if the
+        // charge fails after the main attack has landed
+        if (log != null) {
+            log.recordAttack(attackSlot, defendSlot, !isMelee,
+                    defender.getNumber());
+        }
+
+        if (zobrist != null) {
+            zobrist.recordNumber(defendSlot, defenderNumber,
+                    defender.getNumber());
+        }
+
         // if failure is found, then return failure
         if (StateType.checkIfFailure(result)) {
             return result;
@@ -201,23 +342,376 @@ public class BattleHandler {
 
         // decreases ammunition count of attacker unit, if it
         // attacked with range
-        if (!isMelee) {
-            // replaces ammunition value for given unit
-            if (hasAmmo(attacker)) {
-                unitMap.get(attacker).setAmmunition(ammo - 1);
+        if (!isMelee && hasAmmo(attackSlot)) {
+            if (zobrist != null) {
+                zobrist.recordAmmunition(attackSlot,
+                        ammunition[attackSlot], ammunition[attackSlot] - 1);
+            }
+
+            ammunition[attackSlot]--;
+
+            if (log != null) {
+                log.recordAmmunition(attackSlot, ammunition[attackSlot]);
             }
         }
 
         // handles defender unit deletion, if destroyed by attacker
         // unit
         if (StateType.checkIfDestroy(result)) {
-            unitMap.remove(defender);
+            if (log != null) {
+                log.recordDestroy(defendSlot);
+            }
+
+            if (zobrist != null) {
+                zobrist.recordSlot(defendSlot, defender.getNumber());
+            }
+
+            // removes the defender while it still has its slot, so
+            // the battlefield's hooks can still name it
             battlefield.removeUnit(defendID);
+            unitSlots.remove(defender);
+            slotUnits[defendSlot] = null;
+        }
+
+        return result;
+    }
+
+    /**
+     * Moves the unit in one area to another and charges it the
+     * cost of the move, filling an UndoRecord that unmake can use
+     * to take the move back exactly. Nothing changes if the move
+     * fails.
+     * @param fromID, area of the moving unit.
+     * @param toID, empty area the unit moves to.
+     * @param pathCost, corresponding to cost of moving
+     *                  a unit along a certain path.
+     * @param battlefield the units are on.
+     * @param undo, receives the move.
+     * @return StateType
+     */
+    public StateType makeMove(int fromID, int toID, int pathCost,
+                              Battlefield battlefield, UndoRecord undo) {
+        undo.clear();
+
+        Unit unit = battlefield.getUnit(fromID);
+
+        if (unit == null) {
+            return StateType.returnFailure(FailureReason.UNIT_NOT_FOUND);
+        }
+
+        int slot = unitSlots.get(unit);
+
+        if (slot == UnitIndex.NO_SLOT) {
+            return StateType.returnFailure(
+                    FailureReason.MOVEMENT_BINDING_NONEXISTENT);
+        }
+
+        if (movePoints[slot] < pathCost) {
+            return StateType.returnFailure(FailureReason.NOT_ENOUGH_MOVEMENT);
+        }
+
+        StateType result = battlefield.moveUnit(fromID, toID);
+
+        if (StateType.checkIfFailure(result)) {
+            return result;
+        }
+
+        undo.kind = UndoRecord.MOVE;
+        undo.slot = slot;
+        undo.fromID = fromID;
+        undo.toID = toID;
+        undo.movePoints = movePoints[slot];
+
+        if (zobrist != null) {
+            zobrist.recordMovement(slot, movePoints[slot],
+                    movePoints[slot] - pathCost);
+        }
+
+        movePoints[slot] -= pathCost;
+
+        if (log != null) {
+            log.recordMovement(slot, movePoints[slot]);
+        }
+
+        return StateType.SUCCESS;
+    }
+
+    /**
+     * Makes the unit in one area attack another exactly as
+     * fightTwoUnits does, filling an UndoRecord that unmake can use
+     * to take the attack back exactly (including a destroyed
+     * defender and the generator's draws).
+     * @param attackID, area of the attacking unit.
+     * @param defendID, area being attacked.
+     * @param battlefield the units are on.
+     * @param pathLength, length of the path taken before attacking.
+     * @param undo, receives the attack.
+     * @return StateType
+     */
+    public StateType makeAttack(int attackID, int defendID,
+                                Battlefield battlefield, int pathLength,
+                                UndoRecord undo) {
+        undo.clear();
+
+        Unit attacker = battlefield.getUnit(attackID);
+        Unit defender = battlefield.getUnit(defendID);
+        int attackSlot = unitSlots.get(attacker);
+        int defendSlot = unitSlots.get(defender);
+
+        // an attack that cannot find both units changes nothing,
+        // so only attacks between bound units need a record (even
+        // failed ones, as a failed charge still leaves damage)
+        if (attackSlot != UnitIndex.NO_SLOT
+                && defendSlot != UnitIndex.NO_SLOT) {
+            undo.kind = UndoRecord.ATTACK;
+            undo.slot = attackSlot;
+            undo.fromID = attackID;
+            undo.ammunition = ammunition[attackSlot];
+            undo.defendSlot = defendSlot;
+            undo.defendID = defendID;
+            undo.number = defender.getNumber();
+            undo.randomState = random.getState();
+        }
+
+        StateType result = fightTwoUnits(attackID, defendID, battlefield,
+                pathLength);
+
+        if (undo.kind == UndoRecord.ATTACK
+                && slotUnits[defendSlot] == null) {
+            undo.removed = defender;
         }
 
         return result;
     }
 
+    /**
+     * Sets the movement points of every unit on one side back to
+     * the maximum amount, as resetMovement does, filling an
+     * UndoRecord that unmake can use to take the reset back.
+     * @param isAttacker, true for the attacking side.
+     * @param maxMovement that each unit gets.
+     * @param undo, receives the reset.
+     */
+    public void makeReset(boolean isAttacker, int maxMovement,
+                          UndoRecord undo) {
+        undo.clear();
+
+        int from = isAttacker ? 0 : attackerCount;
+        int to = isAttacker ? attackerCount : slotCount;
+
+        if (undo.savedMovePoints == null
+                || undo.savedMovePoints.length < slotCount) {
+            undo.savedMovePoints = new int[slotCount];
+        }
+
+        System.arraycopy(movePoints, from, undo.savedMovePoints, from,
+                to - from);
+
+        undo.kind = UndoRecord.RESET;
+        undo.resetFrom = from;
+        undo.resetTo = to;
+
+        resetMovement(isAttacker, maxMovement);
+    }
+
+    /**
+     * Takes back the action held in an UndoRecord, restoring the
+     * battle exactly as it was before, and empties the record.
+     * Actions must be undone in the reverse order they were made.
+     * A BattleLog has no events that take an action back, so
+     * battles being logged cannot be searched this way.
+     * @param undo, the action to take back.
+     * @param battlefield the units are on.
+     * @throws IllegalStateException if a BattleLog is attached
+     */
+    public void unmake(UndoRecord undo, Battlefield battlefield) {
+        // checked before anything changes, so the log is never left
+        // with half of an undone action
+        if (log != null || battlefield.log != null) {
+            throw new IllegalStateException("Error: cannot unmake "
+                    + "actions of a battle being logged");
+        }
+
+        if (undo.kind == UndoRecord.MOVE) {
+            battlefield.moveUnit(undo.toID, undo.fromID);
+
+            if (zobrist != null) {
+                zobrist.recordMovement(undo.slot, movePoints[undo.slot],
+                        undo.movePoints);
+            }
+
+            movePoints[undo.slot] = undo.movePoints;
+        } else if (undo.kind == UndoRecord.ATTACK) {
+            int defendSlot = undo.defendSlot;
+
+            if (zobrist != null) {
+                zobrist.recordAmmunition(undo.slot,
+                        ammunition[undo.slot], undo.ammunition);
+            }
+
+            ammunition[undo.slot] = undo.ammunition;
+
+            // puts a destroyed defender back into its slot and area
+            if (undo.removed != null) {
+                slotUnits[defendSlot] = undo.removed;
+                unitSlots.put(undo.removed, defendSlot);
+                battlefield.placeUnit(undo.defendID, undo.removed);
+                undo.removed.setNumber(undo.number);
+
+                if (zobrist != null) {
+                    zobrist.recordSlot(defendSlot, undo.number);
+                }
+            } else {
+                Unit defender = slotUnits[defendSlot];
+
+                if (zobrist != null) {
+                    zobrist.recordNumber(defendSlot,
+                            defender.getNumber(), undo.number);
+                }
+
+                defender.setNumber(undo.number);
+            }
+
+            random.setState(undo.randomState);
+        } else if (undo.kind == UndoRecord.RESET) {
+            for (int slot = undo.resetFrom; slot < undo.resetTo; slot++) {
+                if (zobrist != null && slotUnits[slot] != null) {
+                    zobrist.recordMovement(slot, movePoints[slot],
+                            undo.savedMovePoints[slot]);
+                }
+
+                movePoints[slot] = undo.savedMovePoints[slot];
+            }
+        }
+
+        undo.clear();
+    }
+
+    /**
+     * Returns the battle's generator.
+     * @return BattleRandom
+     */
+    public BattleRandom getRandom() {
+        return random;
+    }
+
+    /**
+     * Checks if a unit belongs to the attacking side.
+     * @param unit, corresponding to said unit.
+     * @return boolean, false for defenders and unknown units
+     */
+    public boolean isAttacker(Unit unit) {
+        int slot = unitSlots.get(unit);
+        return slot != UnitIndex.NO_SLOT && slot < attackerCount;
+    }
+
+    /**
+     * Checks if two units are still in the battle and fight
+     * on opposite sides.
+     * @param unit, the first unit.
+     * @param other, the second unit.
+     * @return boolean
+     */
+    public boolean areEnemies(Unit unit, Unit other) {
+        int slot = unitSlots.get(unit);
+        int otherSlot = unitSlots.get(other);
+
+        if (slot == UnitIndex.NO_SLOT || otherSlot == UnitIndex.NO_SLOT) {
+            return false;
+        }
+
+        return (slot < attackerCount) != (otherSlot < attackerCount);
+    }
+
+    /**
+     * Returns the area of the enemy closest to the unit in a
+     * given area, or -1 if there is none.
+     * @param areaID, area of the unit.
+     * @param battlefield the units are on.
+     * @return int
+     */
+    public int findNearestEnemy(int areaID, Battlefield battlefield) {
+        int slot = unitSlots.get(battlefield.getUnit(areaID));
+
+        if (slot == UnitIndex.NO_SLOT) {
+            return -1;
+        }
+
+        return battlefield.findNearestUnit(areaID, enemiesOf(slot));
+    }
+
+    /**
+     * Writes the areas of every enemy the unit in a given area can
+     * attack right now (taking its ammunition into account) into
+     * an array, stopping once it is full.
+     * @param attackID, area of the attacking unit.
+     * @param battlefield the units are on.
+     * @param out, receives area IDs.
+     * @return int, number of area IDs written
+     */
+    public int findTargetsInRange(int attackID, Battlefield battlefield,
+                                  int[] out) {
+        Unit attacker = battlefield.getUnit(attackID);
+        int slot = unitSlots.get(attacker);
+
+        if (slot == UnitIndex.NO_SLOT) {
+            return 0;
+        }
+
+        int rangeFactor = getRangeFactorOfUnit(attacker, slot);
+
+        // only enemies take room in the array, so allies standing
+        // nearby can never crowd real targets out
+        return battlefield.findUnitsInRange(attackID, rangeFactor,
+                enemiesOf(slot), out);
+    }
+
+    /**
+     * Returns the filter accepting the enemies of the unit in a
+     * given slot.
+     * @param slot, of a unit in the battle.
+     * @return Predicate
+     */
+    private Predicate<Unit> enemiesOf(int slot) {
+        return slot < attackerCount ? enemiesOfAttackers
+                : enemiesOfDefenders;
+    }
+
+    /**
+     * Checks if a unit is still in the battle and fights against
+     * a given side.
+     * @param unit, corresponding to said unit.
+     * @param ofAttackers, true for the attackers' enemies.
+     * @return boolean
+     */
+    private boolean isEnemy(Unit unit, boolean ofAttackers) {
+        int slot = unitSlots.get(unit);
+        return slot != UnitIndex.NO_SLOT
+                && (slot < attackerCount) != ofAttackers;
+    }
+
+    /**
+     * Checks if the unit in one area is close enough to attack
+     * another area, using the same range rules as fightTwoUnits.
+     * @param attackID, area of the attacking unit.
+     * @param defendID, area being attacked.
+     * @param battlefield the units are on.
+     * @return boolean
+     */
+    public boolean isInRange(int attackID, int defendID,
+                             Battlefield battlefield) {
+        Unit attacker = battlefield.getUnit(attackID);
+        int slot = unitSlots.get(attacker);
+
+        if (slot == UnitIndex.NO_SLOT) {
+            return false;
+        }
+
+        return GridCalculations.isWithinRange(attackID, defendID,
+                battlefield.getRowCount(),
+                getRangeFactorOfUnit(attacker, slot));
+    }
+
     /**
      * Subtracts the cost of moving a unit a certain distance
      * or prevents the user from moving if they don't have
@@ -228,52 +722,90 @@ public class BattleHandler {
      * @return StateType
      */
     public StateType handleMovement(Unit unit, int pathCost) {
-        if (unitMap.containsKey(unit)) {
-            // gets movement points left for unit
-            int movesLeft = unitMap.get(unit).getMovePoints();
-
-            // if the unit doesn't have enough movement
-            // points, return failure and prevent user from moving
-            // unit
-            if (movesLeft < pathCost) {
-                return StateType.returnFailure("Error: Not enough " +
-                        "movement points!");
-            }
+        int slot = unitSlots.get(unit);
 
-            // subtracts unit movement cost
-            movesLeft -= pathCost;
-            unitMap.get(unit).setMovePoints(movesLeft);
-        } else {
-            return StateType.returnFailure("Error: unit binding" +
-                    " in movement table not found!");
+        if (slot == UnitIndex.NO_SLOT) {
+            return StateType.returnFailure(
+                    FailureReason.MOVEMENT_BINDING_NONEXISTENT);
+        }
+
+        // if the unit doesn't have enough movement
+        // points, return failure and prevent user from moving
+        // unit
+        if (movePoints[slot] < pathCost) {
+            return StateType.returnFailure(FailureReason.NOT_ENOUGH_MOVEMENT);
+        }
+
+        // subtracts unit movement cost
+        if (zobrist != null) {
+            zobrist.recordMovement(slot, movePoints[slot],
+                    movePoints[slot] - pathCost);
+        }
+
+        movePoints[slot] -= pathCost;
+
+        if (log != null) {
+            log.recordMovement(slot, movePoints[slot]);
         }
 
-        return StateType.returnSuccess(null);
+        return StateType.SUCCESS;
     }
 
     /**
-     * Checks if two units are within melee attacking
-     * distance, intended for ranged units that move
-     * too close to (directly neighboring) another unit.
-     * @param euclidDistance, corresponding to the distance between
-     *                        a ranged unit and another unit.
-     * @return boolean
+     * Returns the slot of a unit.
+     * @param unit, corresponding to said unit.
+     * @return int, or UnitIndex.NO_SLOT if it has none
      */
-    private boolean isMeleeRange(double euclidDistance) {
-        return euclidDistance <= Math.sqrt(2);
+    int slotOf(Unit unit) {
+        return unitSlots.get(unit);
     }
 
     /**
-     * Checks if a given unit has ammunition left.
-     * @param unit, corresponding to the ranged unit.
-     * @return boolean
+     * Copies the current state of the battle (the area and number
+     * of soldiers of every unit on a battlefield, and every unit's
+     * ammunition and movement points).
+     * @param battlefield the units are on.
+     * @return BattleState
      */
-    private boolean hasAmmo(Unit unit) {
-        if (!unitMap.containsKey(unit)) {
-            return false;
+    BattleState captureState(Battlefield battlefield) {
+        BattleState state = new BattleState(battlefield.getRowCount(),
+                slotCount, attackerCount);
+
+        System.arraycopy(ammunition, 0, state.ammunition, 0, slotCount);
+        System.arraycopy(movePoints, 0, state.movePoints, 0, slotCount);
+
+        for (int areaID = 0; areaID < battlefield.units.length; areaID++) {
+            Unit unit = battlefield.units[areaID];
+            int slot = unit == null ? UnitIndex.NO_SLOT
+                    : unitSlots.get(unit);
+
+            if (slot != UnitIndex.NO_SLOT) {
+                state.areas[slot] = areaID;
+                state.occupancy[areaID] = slot;
+                state.numbers[slot] = unit.getNumber();
+            }
         }
 
-        return unitMap.get(unit).getAmmunition() > 0;
+        return state;
+    }
+
+    /**
+     * Checks if a range factor only reaches melee attacking
+     * distance (directly neighboring areas).
+     * @param rangeFactor, corresponding to a unit's range.
+     * @return boolean
+     */
+    private boolean isMeleeRange(int rangeFactor) {
+        return rangeFactor <= 1;
+    }
+
+    /**
+     * Checks if the unit in a given slot has ammunition left.
+     * @param slot, corresponding to the ranged unit.
+     * @return boolean
+     */
+    private boolean hasAmmo(int slot) {
+        return ammunition[slot] > 0;
     }
 
     /**
@@ -286,7 +818,8 @@ public class BattleHandler {
             return 0;
         }
 
-        return unitMap.get(unit).getAmmunition();
+        int slot = unitSlots.get(unit);
+        return slot == UnitIndex.NO_SLOT ? 0 : ammunition[slot];
     }
 
     /**
@@ -295,7 +828,8 @@ public class BattleHandler {
      * @return int
      */
     public int unitMovement(Unit unit) {
-        return unitMap.get(unit).getMovePoints();
+        int slot = unitSlots.get(unit);
+        return slot == UnitIndex.NO_SLOT ? 0 : movePoints[slot];
     }
 
     /**
@@ -305,47 +839,51 @@ public class BattleHandler {
      * @return int
      */
     public int unitTurns(Unit unit) {
-        return unitMap.get(unit).getSpecialTurns();
+        int slot = unitSlots.get(unit);
+        return slot == UnitIndex.NO_SLOT ? 0 : specialTurns[slot];
     }
 
     /**
      * Checks if a unit should attack with melee or
      * ranged attacks.
      * @param attacker, corresponding to attacking unit.
-     * @param range, corresponding to distance between two units
+     * @param slot, corresponding to attacking unit's slot.
+     * @param rangeFactor, corresponding to the unit's range
      * @return boolean
      */
-    private boolean checkIfMelee(Unit attacker, double range) {
+    private boolean checkIfMelee(Unit attacker, int slot,
+                                 int rangeFactor) {
         if (!attacker.isRangedUnit())
             return true;
 
-        if (isMeleeRange(range))
+        if (isMeleeRange(rangeFactor))
             return true;
 
-        return !hasAmmo(attacker);
+        return !hasAmmo(slot);
     }
 
     /**
-     * Gets the actual range of a unit.
+     * Gets the actual range factor of a unit (its range is the
+     * range factor * sqrt(2)).
      * @param attacker, corresponding to attacking unit.
-     * @return double
+     * @param slot, corresponding to attacking unit's slot.
+     * @return int
      */
-    private double getRangeOfUnit(Unit attacker) {
+    private int getRangeFactorOfUnit(Unit attacker, int slot) {
         // if the unit is a melee unit, simply return
-        // its range factor * sqrt(2) (the range factor
-        // will never change)
+        // its range factor (the range factor will never change)
         if (!attacker.isRangedUnit())
-            return attacker.getRangeFactor() * Math.sqrt(2);
+            return attacker.getRangeFactor();
 
         // if the ranged unit has no ammunition left,
         // it should only have as much range as a melee
         // unit
-        if (!hasAmmo(attacker)) {
-            return Math.sqrt(2);
+        if (!hasAmmo(slot)) {
+            return 1;
         }
 
         // return ranged unit's full range
-        return attacker.getRangeFactor() * Math.sqrt(2);
+        return attacker.getRangeFactor();
     }
 
     /**
@@ -361,49 +899,75 @@ public class BattleHandler {
      */
     public static boolean autoBattle(Unit[] attackers,
                                      Unit[] defenders) {
-        // cumulative sum of attacker stats
-        int aPoints = 0;
+        return resolveAutoBattle(attackers, defenders).isAttackerWin();
+    }
 
-        // cumulative sum of defender stats
-        int dPoints = 0;
+    /**
+     * Automatically simulates a battle the same way as autoBattle,
+     * and reports the casualties of both sides per unit type.
+     * Either army may be sparse (null spaces are skipped).
+     * @param attackers, an array of attacker units.
+     * @param defenders, an array of defender units.
+     * @return AutoBattleReport
+     */
+    public static AutoBattleReport resolveAutoBattle(Unit[] attackers,
+                                                     Unit[] defenders) {
+        // soldiers of each side per unit type, which is
+        // exactly what the side loses if it is defeated
+        int[] aSoldiers = new int[UNIT_TYPES];
+        int[] dSoldiers = new int[aSoldiers.length];
 
         // calculates the sum of the number of soldiers,
         // the melee damage, the ranged damage,
-        // and the armor (skips null spaces)
-        for (Unit attacker : attackers) {
-            if (attacker != null) {
-                aPoints += attacker.getNumber();
-                aPoints += attacker.getMeleeDamage();
-                aPoints += attacker.getRangedDamage();
-                aPoints += attacker.getArmor();
-            }
-        }
-
-        // does the same for defenders
-        for (Unit defender : defenders) {
-            if (defender != null) {
-                dPoints += defender.getNumber();
-                dPoints += defender.getMeleeDamage();
-                dPoints += defender.getRangedDamage();
-                dPoints += defender.getArmor();
-            }
-        }
+        // and the armor of both sides
+        int aPoints = scoreArmy(attackers, aSoldiers);
+        int dPoints = scoreArmy(defenders, dSoldiers);
 
         // retrieves total number of points from
         // both sides
         int total = aPoints + dPoints;
 
         // if aPoints > dPoints, the attackers win,
-        // otherwise defenders win
-        if (aPoints > dPoints) {
-            handleWinningSide(attackers, aPoints, total);
+        // otherwise defenders win; the losers' casualties
+        // were already counted while scoring
+        boolean attackerWin = aPoints > dPoints;
+        if (attackerWin) {
+            int[] aCasualties = handleWinningSide(attackers, aPoints,
+                    total);
             handleLosingSide(defenders);
-        } else {
-            handleWinningSide(defenders, dPoints, total);
-            handleLosingSide(attackers);
+            return new AutoBattleReport(true, aCasualties, dSoldiers);
         }
 
-        return aPoints > dPoints;
+        int[] dCasualties = handleWinningSide(defenders, dPoints, total);
+        handleLosingSide(attackers);
+        return new AutoBattleReport(false, aSoldiers, dCasualties);
+    }
+
+    /**
+     * Sums the stats of every unit in an army, skipping null
+     * spaces, while counting its soldiers per unit type.
+     * @param units, the units of one side.
+     * @param soldiers, soldiers per UnitType ordinal, added to.
+     * @return int, the points of the army
+     */
+    private static int scoreArmy(Unit[] units, int[] soldiers) {
+        int points = 0;
+
+        for (Unit unit : units) {
+            if (unit == null) {
+                continue;
+            }
+
+            int number = unit.getNumber();
+            soldiers[unit.getUnitType().ordinal()] += number;
+
+            points += number;
+            points += unit.getMeleeDamage();
+            points += unit.getRangedDamage();
+            points += unit.getArmor();
+        }
+
+        return points;
     }
 
     /**
@@ -420,23 +984,33 @@ public class BattleHandler {
      * @param units, the units of the winner.
      * @param winPoints, the points the winner got.
      * @param total, the total number of points both sides got.
+     * @return int[], soldiers lost per UnitType ordinal
      */
-    private static void handleWinningSide(Unit[] units,
-                                          int winPoints, int total) {
+    private static int[] handleWinningSide(Unit[] units,
+                                           int winPoints, int total) {
+        int[] casualties = new int[UNIT_TYPES];
+
         // percentage of each unit that will remain
         double percent = (double) winPoints / total;
 
         // every unit will now retain a certain percentage
         // of its original number. If taking a percentage
         // results in a 0 integer value, then the unit
-        // is considered destroyed.
+        // is considered destroyed. Null spaces are skipped.
         for (int i = 0; i < units.length; i++) {
+            Unit unit = units[i];
+            if (unit == null) {
+                continue;
+            }
+
             // retrieves original number of soldiers
-            int number = units[i].getNumber();
+            int number = unit.getNumber();
 
             // calculates new number of soldiers
             int newNum = (int) (number * percent);
 
+            casualties[unit.getUnitType().ordinal()] += number - newNum;
+
             // if the new number of soldiers ends up being zero,
             // then the program should remove the unit from the
             // original array. Else, set the number of soldiers
@@ -444,8 +1018,10 @@ public class BattleHandler {
             if (newNum == 0) {
                 units[i] = null;
             } else {
-                units[i].setNumber(newNum);
+                unit.setNumber(newNum);
             }
         }
+
+        return casualties;
     }
 }
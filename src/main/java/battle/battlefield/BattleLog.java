@@ -0,0 +1,466 @@
+package battle.battlefield;
+
+import battle.interfaces.Unit;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * An append-only log of everything that changes during a battle.
+ * Once attached to a BattleHandler and its Battlefield, every
+ * successful placement, move, removal, attack, destruction,
+ * ammunition or movement point change, and movement reset is
+ * appended as a compact event of a few ints, with units named by
+ * their slot in the handler. The log keeps its own copy of the
+ * battle state up to date by applying each event, and copies it
+ * into a snapshot every few turns, so that the state at the end
+ * of any turn can be rebuilt by replaying from the nearest
+ * snapshot instead of from the start.
+ *
+ * Attacks log the number of soldiers the defender has left rather
+ * than the random draws behind it, so a replay never needs the
+ * battle's generator. Terrain changes are not logged.
+ */
+public class BattleLog {
+    /** a new turn starts: turn */
+    public static final int TURN = 0;
+    /** a unit is placed: slot, area, number */
+    public static final int PLACE = 1;
+    /** a unit moves: from area, to area */
+    public static final int MOVE = 2;
+    /** a unit is removed: area */
+    public static final int REMOVE = 3;
+    /** a unit attacks: attacker slot, defender slot, 1 if ranged,
+     *  soldiers the defender has left */
+    public static final int ATTACK = 4;
+    /** a unit is destroyed: slot */
+    public static final int DESTROY = 5;
+    /** a unit's ammunition changes: slot, ammunition left */
+    public static final int AMMO = 6;
+    /** a unit's movement points change: slot, points left */
+    public static final int MOVEMENT = 7;
+    /** a side's movement is reset: 1 for attackers, points */
+    public static final int RESET = 8;
+
+    /** number of ints each event type takes, including its type */
+    private static final int[] LENGTHS = {2, 4, 3, 2, 5, 2, 3, 3, 3};
+
+    /** first bytes of a saved log ("CQBL") */
+    private static final int MAGIC = 0x4351424C;
+    /** format version of saved logs */
+    private static final int VERSION = 1;
+    /** largest row count whose number of areas fits in an int */
+    private static final int MAX_ROW_COUNT = 46340;
+
+    /** handler whose slots name the units, or null for a log
+     *  read back from a stream */
+    private final BattleHandler handler;
+    /** turns between two snapshots */
+    private final int snapshotInterval;
+
+    /** encoded events */
+    private int[] events;
+    /** number of ints of events used */
+    private int size;
+
+    /** state after the last event */
+    private final BattleState state;
+    /** compact copies of the state, oldest first */
+    private final List<BattleState> snapshots;
+    /** event position each snapshot was taken at */
+    private int[] snapshotOffsets;
+
+    /**
+     * Creates a BattleLog object starting from the current state of
+     * a battle, and attaches it to the battle's handler and
+     * battlefield, replacing any log attached before.
+     * @param handler, the battle's handler
+     * @param battlefield, the battlefield the battle is fought on
+     * @param snapshotInterval, turns between two snapshots
+     */
+    public BattleLog(BattleHandler handler, Battlefield battlefield,
+                     int snapshotInterval) {
+        this(handler, handler.captureState(battlefield),
+                snapshotInterval);
+
+        handler.log = this;
+        battlefield.log = this;
+    }
+
+    private BattleLog(BattleHandler handler, BattleState initial,
+                      int snapshotInterval) {
+        if (snapshotInterval < 1) {
+            throw new IllegalArgumentException(
+                    "snapshot interval must be positive");
+        }
+
+        this.handler = handler;
+        this.snapshotInterval = snapshotInterval;
+        this.events = new int[256];
+        this.state = initial;
+        this.snapshots = new ArrayList<>();
+        this.snapshotOffsets = new int[8];
+
+        takeSnapshot();
+    }
+
+    /**
+     * Marks the start of a turn, taking a snapshot every
+     * snapshotInterval turns.
+     * @param turn, the turn that starts
+     */
+    public void beginTurn(int turn) {
+        append(TURN, turn, 0, 0, 0);
+    }
+
+    void recordPlace(int areaID, Unit unit) {
+        append(PLACE, handler.slotOf(unit), areaID, unit.getNumber(), 0);
+    }
+
+    void recordMove(int from, int to) {
+        append(MOVE, from, to, 0, 0);
+    }
+
+    void recordRemove(int areaID) {
+        append(REMOVE, areaID, 0, 0, 0);
+    }
+
+    void recordAttack(int attackSlot, int defendSlot, boolean isRanged,
+                      int defenderNumber) {
+        append(ATTACK, attackSlot, defendSlot, isRanged ? 1 : 0,
+                defenderNumber);
+    }
+
+    void recordDestroy(int slot) {
+        append(DESTROY, slot, 0, 0, 0);
+    }
+
+    void recordAmmunition(int slot, int ammunition) {
+        append(AMMO, slot, ammunition, 0, 0);
+    }
+
+    void recordMovement(int slot, int movePoints) {
+        append(MOVEMENT, slot, movePoints, 0, 0);
+    }
+
+    void recordReset(boolean isAttacker, int maxMovement) {
+        append(RESET, isAttacker ? 1 : 0, maxMovement, 0, 0);
+    }
+
+    /**
+     * Appends an event, applies it to the current state, and
+     * takes a snapshot if a snapshot turn starts.
+     */
+    private void append(int type, int a, int b, int c, int d) {
+        int length = LENGTHS[type];
+
+        if (size + length > events.length) {
+            events = Arrays.copyOf(events, events.length * 2);
+        }
+
+        int pos = size;
+        events[pos] = type;
+
+        // stores only as many arguments as the event type has
+        if (length > 1) {
+            events[pos + 1] = a;
+        }
+
+        if (length > 2) {
+            events[pos + 2] = b;
+        }
+
+        if (length > 3) {
+            events[pos + 3] = c;
+        }
+
+        if (length > 4) {
+            events[pos + 4] = d;
+        }
+
+        size += length;
+
+        apply(state, events, pos);
+
+        if (type == TURN && a % snapshotInterval == 0) {
+            takeSnapshot();
+        }
+    }
+
+    private void takeSnapshot() {
+        int count = snapshots.size();
+
+        if (count == snapshotOffsets.length) {
+            snapshotOffsets = Arrays.copyOf(snapshotOffsets, count * 2);
+        }
+
+        snapshotOffsets[count] = size;
+        snapshots.add(state.compactCopy());
+    }
+
+    /**
+     * Applies the event at a position to a state.
+     * @return int, position of the next event
+     */
+    private static int apply(BattleState state, int[] events, int pos) {
+        int type = events[pos];
+
+        switch (type) {
+            case TURN:
+                state.turn = events[pos + 1];
+                break;
+            case PLACE: {
+                int slot = events[pos + 1];
+                int areaID = events[pos + 2];
+                if (slot != UnitIndex.NO_SLOT) {
+                    state.areas[slot] = areaID;
+                    state.occupancy[areaID] = slot;
+                    state.numbers[slot] = events[pos + 3];
+                }
+                break;
+            }
+            case MOVE: {
+                int from = events[pos + 1];
+                int to = events[pos + 2];
+                int slot = state.occupancy[from];
+                state.occupancy[from] = BattleState.NONE;
+                state.occupancy[to] = slot;
+                if (slot != BattleState.NONE) {
+                    state.areas[slot] = to;
+                }
+                break;
+            }
+            case REMOVE: {
+                int areaID = events[pos + 1];
+                int slot = state.occupancy[areaID];
+                state.occupancy[areaID] = BattleState.NONE;
+                if (slot != BattleState.NONE) {
+                    state.areas[slot] = BattleState.NONE;
+                }
+                break;
+            }
+            case ATTACK:
+                state.numbers[events[pos + 2]] = events[pos + 4];
+                break;
+            case DESTROY:
+                // the removal from the map follows as its own event
+                break;
+            case AMMO:
+                state.ammunition[events[pos + 1]] = events[pos + 2];
+                break;
+            case MOVEMENT:
+                state.movePoints[events[pos + 1]] = events[pos + 2];
+                break;
+            case RESET:
+                if (events[pos + 1] == 1) {
+                    Arrays.fill(state.movePoints, 0, state.attackerCount,
+                            events[pos + 2]);
+                } else {
+                    Arrays.fill(state.movePoints, state.attackerCount,
+                            state.movePoints.length, events[pos + 2]);
+                }
+                break;
+            default:
+                throw new IllegalStateException("unknown event " + type);
+        }
+
+        return pos + LENGTHS[type];
+    }
+
+    /**
+     * Rebuilds the state of the battle at the end of a turn (just
+     * before the next one starts), replaying from the nearest
+     * snapshot at or before it.
+     * @param turn, the turn to rebuild
+     * @return BattleState, a new copy owned by the caller
+     */
+    public BattleState replayTo(int turn) {
+        // finds the last snapshot taken at or before the turn;
+        // snapshot turns only ever increase
+        int index = snapshots.size() - 1;
+        while (index > 0 && snapshots.get(index).turn > turn) {
+            index--;
+        }
+
+        BattleState replayed = snapshots.get(index).fullCopy();
+        int pos = snapshotOffsets[index];
+
+        while (pos < size) {
+            if (events[pos] == TURN && events[pos + 1] > turn) {
+                break;
+            }
+
+            pos = apply(replayed, events, pos);
+        }
+
+        return replayed;
+    }
+
+    /**
+     * Returns a copy of the state after the last event.
+     * @return BattleState
+     */
+    public BattleState getCurrentState() {
+        return state.fullCopy();
+    }
+
+    /**
+     * Returns the number of ints the encoded events take.
+     * @return int
+     */
+    public int getEventSize() {
+        return this.size;
+    }
+
+    /**
+     * Returns the number of snapshots kept, including the
+     * starting state.
+     * @return int
+     */
+    public int getSnapshotCount() {
+        return this.snapshots.size();
+    }
+
+    /**
+     * Writes the starting state and every event to a stream, so
+     * that the battle can be replayed elsewhere (i.e. attached to
+     * a bug report).
+     * @param stream, the stream to write to (left open)
+     * @throws IOException if the stream cannot be written
+     */
+    public void writeTo(OutputStream stream) throws IOException {
+        DataOutputStream out = new DataOutputStream(stream);
+        BattleState initial = snapshots.get(0);
+
+        out.writeInt(MAGIC);
+        out.writeInt(VERSION);
+        out.writeInt(snapshotInterval);
+        out.writeInt(initial.rowCount);
+        out.writeInt(initial.areas.length);
+        out.writeInt(initial.attackerCount);
+        out.writeInt(initial.turn);
+
+        for (int slot = 0; slot < initial.areas.length; slot++) {
+            out.writeInt(initial.areas[slot]);
+            out.writeInt(initial.numbers[slot]);
+            out.writeInt(initial.ammunition[slot]);
+            out.writeInt(initial.movePoints[slot]);
+        }
+
+        out.writeInt(size);
+        for (int i = 0; i < size; i++) {
+            out.writeInt(events[i]);
+        }
+
+        out.flush();
+    }
+
+    /**
+     * Reads a log written by writeTo, rebuilding its snapshots.
+     * The log is not attached to any battle.
+     * @param stream, the stream to read from (left open)
+     * @return BattleLog
+     * @throws IOException if the stream cannot be read or is invalid
+     */
+    public static BattleLog readFrom(InputStream stream)
+            throws IOException {
+        DataInputStream in = new DataInputStream(stream);
+
+        if (in.readInt() != MAGIC) {
+            throw new IOException("not a battle log");
+        }
+
+        if (in.readInt() != VERSION) {
+            throw new IOException("unsupported battle log version");
+        }
+
+        int interval = in.readInt();
+        int rowCount = in.readInt();
+        int slotCount = in.readInt();
+        int attackerCount = in.readInt();
+
+        if (interval < 1 || rowCount < 0 || rowCount > MAX_ROW_COUNT
+                || slotCount < 0 || slotCount > Integer.MAX_VALUE / 4
+                || attackerCount < 0 || attackerCount > slotCount) {
+            throw new IOException("corrupt battle log header");
+        }
+
+        int turn = in.readInt();
+
+        // slots are read into a growing array before the state is
+        // built, so a slot count larger than the stream ends in an
+        // EOFException rather than a huge allocation
+        int[] slots = new int[Math.min(slotCount, 1024) * 4];
+
+        for (int i = 0; i < slotCount * 4; i++) {
+            if (i == slots.length) {
+                slots = Arrays.copyOf(slots,
+                        (int) Math.min(2L * i, 4L * slotCount));
+            }
+
+            slots[i] = in.readInt();
+        }
+
+        int areaCount = rowCount * rowCount;
+        BattleState initial = new BattleState(rowCount, slotCount,
+                attackerCount);
+        initial.turn = turn;
+
+        for (int slot = 0; slot < slotCount; slot++) {
+            int areaID = slots[4 * slot];
+            initial.areas[slot] = areaID;
+            initial.numbers[slot] = slots[4 * slot + 1];
+            initial.ammunition[slot] = slots[4 * slot + 2];
+            initial.movePoints[slot] = slots[4 * slot + 3];
+
+            if (areaID == BattleState.NONE) {
+                continue;
+            }
+
+            if (areaID < 0 || areaID >= areaCount
+                    || initial.occupancy[areaID] != BattleState.NONE) {
+                throw new IOException("corrupt battle log units");
+            }
+
+            initial.occupancy[areaID] = slot;
+        }
+
+        int size = in.readInt();
+        if (size < 0) {
+            throw new IOException("corrupt battle log events");
+        }
+
+        BattleLog log = new BattleLog(null, initial, interval);
+        int[] args = new int[4];
+
+        // events are applied as they are read, so a size larger
+        // than the stream ends in an EOFException, not a huge array
+        try {
+            for (int pos = 0; pos < size; ) {
+                int type = in.readInt();
+
+                if (type < 0 || type >= LENGTHS.length
+                        || pos + LENGTHS[type] > size) {
+                    throw new IOException("corrupt battle log events");
+                }
+
+                for (int k = 0; k < LENGTHS[type] - 1; k++) {
+                    args[k] = in.readInt();
+                }
+
+                log.append(type, args[0], args[1], args[2], args[3]);
+                pos += LENGTHS[type];
+            }
+        } catch (RuntimeException e) {
+            throw new IOException("corrupt battle log events", e);
+        }
+
+        return log;
+    }
+}
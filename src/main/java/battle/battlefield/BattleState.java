@@ -0,0 +1,151 @@
+package battle.battlefield;
+
+import java.util.Arrays;
+
+/**
+ * The state of a battle at one point in a BattleLog: the area,
+ * number of soldiers, ammunition, and movement points of every
+ * unit, indexed by the unit's slot in the BattleHandler (attackers
+ * first, then defenders), plus which slot stands in every area.
+ */
+public class BattleState {
+    /** area and slot of no unit */
+    public static final int NONE = -1;
+
+    /** turn the state belongs to */
+    int turn;
+    /** number of areas in one row of the map */
+    final int rowCount;
+    /** attackers hold slots [0, attackerCount) */
+    final int attackerCount;
+
+    /** area each unit stands in, or NONE */
+    final int[] areas;
+    /** soldiers each unit has left */
+    final int[] numbers;
+    /** ammunition each unit has left */
+    final int[] ammunition;
+    /** movement points each unit has left */
+    final int[] movePoints;
+    /** slot of the unit in each area, or NONE; null in the
+     *  compact copies a BattleLog keeps as snapshots */
+    final int[] occupancy;
+
+    /**
+     * Creates an empty BattleState object with no unit on the map.
+     * @param rowCount, number of areas in one row of the map
+     * @param slotCount, number of units in the battle
+     * @param attackerCount, number of attacking units
+     */
+    BattleState(int rowCount, int slotCount, int attackerCount) {
+        this.rowCount = rowCount;
+        this.attackerCount = attackerCount;
+        this.areas = new int[slotCount];
+        this.numbers = new int[slotCount];
+        this.ammunition = new int[slotCount];
+        this.movePoints = new int[slotCount];
+        this.occupancy = new int[rowCount * rowCount];
+
+        Arrays.fill(this.areas, NONE);
+        Arrays.fill(this.occupancy, NONE);
+    }
+
+    /**
+     * Creates a BattleState object from another, either with or
+     * without the occupancy of the map (which is rebuilt from the
+     * unit areas).
+     */
+    private BattleState(BattleState other, boolean withOccupancy) {
+        this.turn = other.turn;
+        this.rowCount = other.rowCount;
+        this.attackerCount = other.attackerCount;
+        this.areas = other.areas.clone();
+        this.numbers = other.numbers.clone();
+        this.ammunition = other.ammunition.clone();
+        this.movePoints = other.movePoints.clone();
+        this.occupancy = withOccupancy
+                ? new int[rowCount * rowCount] : null;
+
+        if (withOccupancy) {
+            Arrays.fill(this.occupancy, NONE);
+
+            for (int slot = 0; slot < areas.length; slot++) {
+                if (areas[slot] != NONE) {
+                    this.occupancy[areas[slot]] = slot;
+                }
+            }
+        }
+    }
+
+    /**
+     * Returns a copy without the occupancy of the map, for
+     * snapshots that are only ever copied again.
+     * @return BattleState
+     */
+    BattleState compactCopy() {
+        return new BattleState(this, false);
+    }
+
+    /**
+     * Returns a full copy, rebuilding the occupancy of the map.
+     * @return BattleState
+     */
+    BattleState fullCopy() {
+        return new BattleState(this, true);
+    }
+
+    public int getTurn() {
+        return this.turn;
+    }
+
+    public int getRowCount() {
+        return this.rowCount;
+    }
+
+    /**
+     * Returns the number of units in the battle.
+     * @return int
+     */
+    public int getSlotCount() {
+        return this.areas.length;
+    }
+
+    /**
+     * Checks if the unit in a slot belongs to the attacking side.
+     * @param slot, slot of the unit
+     * @return boolean
+     */
+    public boolean isAttacker(int slot) {
+        return slot < this.attackerCount;
+    }
+
+    /**
+     * Returns the area a unit stands in.
+     * @param slot, slot of the unit
+     * @return int, or NONE if the unit is not on the map
+     */
+    public int getArea(int slot) {
+        return this.areas[slot];
+    }
+
+    /**
+     * Returns the slot of the unit standing in an area.
+     * @param areaID, the area
+     * @return int, or NONE if the area is empty
+     */
+    public int getSlotAt(int areaID) {
+        return this.occupancy[areaID];
+    }
+
+    public int getNumber(int slot) {
+        return this.numbers[slot];
+    }
+
+    public int getAmmunition(int slot) {
+        return this.ammunition[slot];
+    }
+
+    public int getMovePoints(int slot) {
+        return this.movePoints[slot];
+    }
+}
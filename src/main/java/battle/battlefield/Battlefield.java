@@ -1,32 +1,142 @@
 package battle.battlefield;
 
+import enumerators.FailureReason;
 import calculations.GridCalculations;
 import battle.interfaces.Area;
 import battle.interfaces.Unit;
 import testing.unittesting.StateType;
 
-import java.util.HashMap;
+import java.util.function.Predicate;
 
 /**
  * A 2D array representation of a battlefield in the game of
  * Conquest. Users can access areas on the battlefield and move
  * units from area to area.
+ *
+ * Every Battlefield owns its own unit placements, so any number
+ * of battles can run side by side. Terrain is either owned by the
+ * battlefield, referenced from a shared TerrainTemplate or
+ * PackedTerrain, or read on demand from a shared MappedTerrain.
  */
 public class Battlefield {
-    /** 2D array holding areas in battlefield */
-    private static Area[][] areas;
+    /** 2D array holding areas in battlefield, either owned by
+     *  this battlefield or shared with a TerrainTemplate, or null
+     *  if the terrain is packed or memory-mapped */
+    private final Area[][] areas;
 
-    /** HashMap corresponding area ID to unit */
-    HashMap<Integer, Unit> units;
+    /** packed terrain the areas are read from, or null */
+    private final PackedTerrain packed;
+
+    /** memory-mapped terrain the areas are read from, or null */
+    private final MappedTerrain mapped;
+
+    /** whether the areas belong to shared terrain */
+    private final boolean isShared;
+
+    /** number of elements in one row of the board */
+    private final int n;
+
+    /** Array corresponding area ID to unit, indexed by
+     *  GridCalculations.getID (row * n + col). Empty areas hold null.
+     */
+    Unit[] units;
+
+    /** counts every change to unit placements, so cached results
+     *  that depend on where units stand know when to recompute */
+    private long occupancyVersion;
+
+    /** buckets of occupied areas for range and nearest-unit
+     *  queries, updated on every placement, move, and removal */
+    private final SpatialIndex index;
+
+    /** log every placement, move, and removal is appended to, or
+     *  null if the battle is not being logged */
+    BattleLog log;
+
+    /** hash every placement, move, and removal updates, or null if
+     *  the battle is not being hashed */
+    ZobristHash zobrist;
 
     /**
      * Creates an n x n Battlefield object and initializes
-     * ID to unit HashMap
+     * ID to unit array
      * @param n, or length of one row in the board
      */
     public Battlefield(int n) {
         areas = new Area[n][n];
-        units = new HashMap<>();
+        packed = null;
+        mapped = null;
+        isShared = false;
+        this.n = n;
+        units = new Unit[n * n];
+        index = new SpatialIndex(n);
+    }
+
+    /**
+     * Creates a Battlefield object on the terrain of a shared
+     * template. The template's areas are referenced, not copied.
+     * @param template, the terrain the battle is fought on
+     */
+    public Battlefield(TerrainTemplate template) {
+        int n = template.getRowCount();
+
+        areas = template.getAreas();
+        packed = null;
+        mapped = null;
+        isShared = true;
+        this.n = n;
+        units = new Unit[n * n];
+        index = new SpatialIndex(n);
+    }
+
+    /**
+     * Creates a Battlefield object on packed terrain. The terrain
+     * is referenced, not copied.
+     * @param terrain, the terrain the battle is fought on
+     */
+    public Battlefield(PackedTerrain terrain) {
+        int n = terrain.getRowCount();
+
+        areas = null;
+        packed = terrain;
+        mapped = null;
+        isShared = true;
+        this.n = n;
+        units = new Unit[n * n];
+        index = new SpatialIndex(n);
+    }
+
+    /**
+     * Creates a Battlefield object on memory-mapped terrain. Areas
+     * are only created when asked for with getArea.
+     * @param terrain, the terrain the battle is fought on
+     */
+    public Battlefield(MappedTerrain terrain) {
+        int n = terrain.getRowCount();
+
+        areas = null;
+        packed = null;
+        mapped = terrain;
+        isShared = true;
+        this.n = n;
+        units = new Unit[n * n];
+        index = new SpatialIndex(n);
+    }
+
+    /**
+     * Creates an empty Battlefield object on the terrain of another
+     * battlefield. The terrain is referenced, not copied, and is
+     * read-only through the new battlefield.
+     * @param other, the battlefield whose terrain is shared
+     */
+    Battlefield(Battlefield other) {
+        areas = other.areas;
+        packed = other.packed;
+        mapped = other.mapped;
+        isShared = true;
+        n = other.n;
+        units = new Unit[n * n];
+        index = new SpatialIndex(n);
     }
 
     /**
@@ -38,24 +148,38 @@ public class Battlefield {
     public StateType placeUnit(int areaID, Unit unit) {
         // checks if unit is ever null
         if (unit == null) {
-            return StateType.returnFailure("Error: empty unit placement");
+            return StateType.returnFailure(FailureReason.EMPTY_PLACEMENT);
+        }
+
+        // checks if area ID lies outside of the board
+        if (!isValidID(areaID)) {
+            return StateType.returnFailure(FailureReason.AREA_OUT_OF_BOUNDS);
         }
 
         // checks to ensure that the unit is not placed
         // to an area with an existing unit
-        Unit temp = units.get(areaID);
+        Unit temp = units[areaID];
 
         // if it turns out there is already a unit at a given
         // area id, then the unit should not be placed there
         if (temp != null) {
-            return StateType.returnFailure("Error: unit exists at " +
-                    "selected area");
+            return StateType.returnFailure(FailureReason.AREA_OCCUPIED);
         }
 
         // places unit at area
-        units.put(areaID, unit);
+        units[areaID] = unit;
+        index.add(areaID);
+        occupancyVersion++;
+
+        if (log != null) {
+            log.recordPlace(areaID, unit);
+        }
+
+        if (zobrist != null) {
+            zobrist.recordPlace(areaID, unit);
+        }
 
-        return StateType.returnSuccess(null);
+        return StateType.SUCCESS;
     }
 
     /**
@@ -64,7 +188,12 @@ public class Battlefield {
      * @return Unit
      */
     public Unit getUnit(int areaID) {
-        return units.get(areaID);
+        // areas outside of the board never hold a unit
+        if (!isValidID(areaID)) {
+            return null;
+        }
+
+        return units[areaID];
     }
 
     /**
@@ -73,6 +202,16 @@ public class Battlefield {
      * @return Area
      */
     public Area getArea(int areaID) {
+        // packed terrain hands out shared areas, and mapped
+        // terrain creates its areas on demand
+        if (packed != null) {
+            return packed.getArea(areaID);
+        }
+
+        if (mapped != null) {
+            return mapped.getArea(areaID);
+        }
+
         // retrieves number of elements in single row
         int n = getRowCount();
 
@@ -85,6 +224,93 @@ public class Battlefield {
         return areas[row][col];
     }
 
+    /**
+     * Returns the defense bonus of the area at a given areaID, or
+     * 1 (no bonus) if the area does not exist. On packed terrain
+     * this is a byte load and a table lookup.
+     * @param areaID of the area.
+     * @return double
+     */
+    public double getDefenseBonus(int areaID) {
+        if (packed != null) {
+            return packed.getDefenseBonus(areaID);
+        }
+
+        if (mapped != null) {
+            return mapped.getDefenseBonus(areaID);
+        }
+
+        Area area = getArea(areaID);
+        return area == null ? 1 : area.getDefenseBonus();
+    }
+
+    /**
+     * Sets the area at a given areaID. Only battlefields that own
+     * their terrain may change it; terrain shared through a
+     * TerrainTemplate, PackedTerrain or MappedTerrain is read-only.
+     * @param areaID of the area.
+     * @param area that will be placed.
+     * @return StateType
+     */
+    public StateType setArea(int areaID, Area area) {
+        // shared terrain must never change underneath other battles
+        if (isShared) {
+            return StateType.returnFailure(FailureReason.SHARED_TERRAIN);
+        }
+
+        // checks if area ID lies outside of the board
+        if (!isValidID(areaID)) {
+            return StateType.returnFailure(FailureReason.AREA_OUT_OF_BOUNDS);
+        }
+
+        // retrieves row and col number of given area
+        int n = getRowCount();
+        int row = GridCalculations.getRow(areaID, n);
+        int col = GridCalculations.getCol(areaID, row, n);
+
+        areas[row][col] = area;
+
+        return StateType.SUCCESS;
+    }
+
+    /**
+     * Opens or closes the area at a given areaID. Like setArea,
+     * this only works on battlefields that own their terrain.
+     * @param areaID of the area.
+     * @param isOpen, whether a unit can move into the area.
+     * @return StateType
+     */
+    public StateType setOpen(int areaID, boolean isOpen) {
+        // shared terrain must never change underneath other battles
+        if (isShared) {
+            return StateType.returnFailure(FailureReason.SHARED_TERRAIN);
+        }
+
+        // checks if area ID lies outside of the board
+        if (!isValidID(areaID)) {
+            return StateType.returnFailure(FailureReason.AREA_OUT_OF_BOUNDS);
+        }
+
+        Area area = getArea(areaID);
+
+        if (area == null) {
+            return StateType.returnFailure(FailureReason.AREA_NOT_FOUND);
+        }
+
+        area.changeStatus(isOpen);
+
+        return StateType.SUCCESS;
+    }
+
+    /**
+     * Checks if the battlefield's terrain is shared through a
+     * TerrainTemplate, PackedTerrain or MappedTerrain.
+     * @return boolean
+     */
+    public boolean hasSharedTerrain() {
+        return isShared;
+    }
+
     /**
      * Moves a unit from one area to another, returns SUCCESS
      * if transfer is successful, returns FAILURE if transfer
@@ -94,65 +320,203 @@ public class Battlefield {
      * @return StateType
      */
     public StateType moveUnit(int id1, int id2) {
+        // checks if either area ID lies outside of the board
+        if (!isValidID(id1) || !isValidID(id2)) {
+            return StateType.returnFailure(FailureReason.AREA_OUT_OF_BOUNDS);
+        }
+
         // retrieves unit at area id1
-        Unit unit = units.get(id1);
+        Unit unit = units[id1];
 
         // if the unit is null, then no unit
         // was ever initialized at that area,
         // signaling an error
         if (unit == null) {
-            return StateType.returnFailure("Error: unit at" +
-                    " selected area does not exist");
+            return StateType.returnFailure(FailureReason.UNIT_NOT_FOUND);
         }
 
         // checks to ensure that the unit is not transferred
         // to an area with an existing unit
-        Unit temp = units.get(id2);
+        Unit temp = units[id2];
 
         // if it turns out there is already a unit at a given
         // area id, then the unit should not be moved
         if (temp != null) {
-            return StateType.returnFailure("Error: unit exists at " +
-                    "selected area");
+            return StateType.returnFailure(FailureReason.AREA_OCCUPIED);
         }
 
-        // once the transfer is confirmed to be valid, delete
-        // the key-value pair associated with id1 and create
-        // a new key-value pair associated with id2
-        unit = units.remove(id1);
-        temp = units.put(id2, unit);
+        // once the transfer is confirmed to be valid, clear
+        // the slot associated with id1 and fill the slot
+        // associated with id2
+        units[id1] = null;
+        units[id2] = unit;
+        index.move(id1, id2);
+        occupancyVersion++;
 
-        // if it turns out the HashMap returns a non-null object,
-        // this means some unknown error occurred with replacing
-        // the area ids
-        if (temp != null) {
-            return StateType.returnFailure("Error: unknown unit " +
-                    "exists at final area");
+        if (log != null) {
+            log.recordMove(id1, id2);
+        }
+
+        if (zobrist != null) {
+            zobrist.recordMove(id1, id2, unit);
         }
 
-        return StateType.returnSuccess(null);
+        return StateType.SUCCESS;
     }
 
     /**
-     * Removes a unit from the battlefield via removing its
-     * Integer-Unit Key-Value pair.
+     * Removes a unit from the battlefield via clearing its
+     * slot in the area ID to unit array.
      * @param id, representing current space where unit is at.
      * @return StateType
      */
     public StateType removeUnit(int id) {
+        // if the area lies outside of the board, no unit
+        // could have existed there, so simply return success
+        if (!isValidID(id)) {
+            return StateType.SUCCESS;
+        }
+
         // checks if unit ever existed
-        Unit temp = units.get(id);
+        Unit temp = units[id];
 
         // if the unit never existed, simply return
         // success
         if (temp == null) {
-            return StateType.returnSuccess(null);
+            return StateType.SUCCESS;
+        }
+
+        // clears the area's slot in the array
+        units[id] = null;
+        index.remove(id);
+        occupancyVersion++;
+
+        if (log != null) {
+            log.recordRemove(id);
+        }
+
+        if (zobrist != null) {
+            zobrist.recordRemove(id, temp);
+        }
+
+        return StateType.SUCCESS;
+    }
+
+    /**
+     * Writes the areas holding a unit (other than the given area
+     * itself) whose squared distance to a given area is at most
+     * maxDistSquared into an array, stopping once it is full.
+     * @param areaID, the center area.
+     * @param maxDistSquared, greatest squared distance.
+     * @param out, receives area IDs.
+     * @return int, number of area IDs written
+     */
+    public int findUnitsWithin(int areaID, int maxDistSquared,
+                               int[] out) {
+        if (!isValidID(areaID)) {
+            return 0;
+        }
+
+        return index.findWithin(areaID, maxDistSquared, units, null, out);
+    }
+
+    /**
+     * Writes the areas holding a unit (other than the given area
+     * itself) that a filter accepts and whose squared distance to
+     * a given area is at most maxDistSquared into an array,
+     * stopping once it is full. Units the filter rejects take no
+     * room in the array.
+     * @param areaID, the center area.
+     * @param maxDistSquared, greatest squared distance.
+     * @param filter, decides which units count.
+     * @param out, receives area IDs.
+     * @return int, number of area IDs written
+     */
+    public int findUnitsWithin(int areaID, int maxDistSquared,
+                               Predicate<Unit> filter, int[] out) {
+        if (!isValidID(areaID)) {
+            return 0;
+        }
+
+        return index.findWithin(areaID, maxDistSquared, units, filter,
+                out);
+    }
+
+    /**
+     * Writes the areas holding a unit (other than the given area
+     * itself) that a filter accepts and that lie within a range
+     * made up of a number of diagonal squares of a given area into
+     * an array, stopping once it is full.
+     *
+     * Where the range holds fewer areas than the index has units
+     * to look through, the range's offset table is walked instead,
+     * which also returns the nearest units first.
+     * @param areaID, the center area.
+     * @param rangeFactor, number of diagonal squares.
+     * @param filter, decides which units count.
+     * @param out, receives area IDs.
+     * @return int, number of area IDs written
+     */
+    public int findUnitsInRange(int areaID, int rangeFactor,
+                                Predicate<Unit> filter, int[] out) {
+        if (!isValidID(areaID)) {
+            return 0;
+        }
+
+        int rangeSquared = GridCalculations.getRangeSquared(rangeFactor);
+        int[] offsets = GridCalculations.getRangeOffsets(rangeFactor);
+
+        if (offsets.length / 2 > index.countNear(areaID,
+                (int) Math.sqrt(rangeSquared))) {
+            return findUnitsWithin(areaID, rangeSquared, filter, out);
+        }
+
+        int row = GridCalculations.getRow(areaID, n);
+        int col = GridCalculations.getCol(areaID, row, n);
+        int found = 0;
+
+        for (int i = 0; i < offsets.length && found < out.length;
+             i += 2) {
+            int r = row + offsets[i];
+            int c = col + offsets[i + 1];
+
+            if (r < 0 || r >= n || c < 0 || c >= n) {
+                continue;
+            }
+
+            int id = GridCalculations.getID(r, c, n);
+
+            if (units[id] != null && filter.test(units[id])) {
+                out[found++] = id;
+            }
         }
 
-        // removes integer-unit pair in HashMap
-        units.remove(id);
+        return found;
+    }
+
+    /**
+     * Returns the area of the unit closest to a given area (other
+     * than the unit in the area itself) that a filter accepts, or
+     * -1 if there is none.
+     * @param areaID, the center area.
+     * @param filter, decides which units count.
+     * @return int
+     */
+    public int findNearestUnit(int areaID, Predicate<Unit> filter) {
+        if (!isValidID(areaID)) {
+            return -1;
+        }
 
-        return StateType.returnSuccess(null);
+        return index.findNearest(areaID, units, filter);
+    }
+
+    /**
+     * Returns a number that changes whenever a unit is placed,
+     * moved, or removed.
+     * @return long
+     */
+    public long getOccupancyVersion() {
+        return occupancyVersion;
     }
 
     /**
@@ -160,6 +524,15 @@ public class Battlefield {
      * @return int
      */
     public int getRowCount() {
-        return areas.length;
+        return n;
+    }
+
+    /**
+     * Checks if an area ID lies within the board.
+     * @param areaID to check.
+     * @return boolean
+     */
+    private boolean isValidID(int areaID) {
+        return areaID >= 0 && areaID < units.length;
     }
 }
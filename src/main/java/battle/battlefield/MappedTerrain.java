@@ -0,0 +1,302 @@
+package battle.battlefield;
+
+import battle.interfaces.Area;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.function.IntFunction;
+
+/**
+ * The terrain of one battle map, read straight out of a
+ * memory-mapped file instead of being held as Area objects. Each
+ * area is a single packed byte, and Area objects are only created
+ * when a Battlefield is asked for one, so even very large maps
+ * open instantly and take almost no heap. Pages of the file are
+ * read in by the operating system as they are first touched.
+ *
+ * Like a TerrainTemplate, a MappedTerrain can be shared by any
+ * number of Battlefield objects at once, so it is read-only: the
+ * file is mapped read-only, and changeStatus on its areas has no
+ * effect.
+ *
+ * Terrain files hold a header followed by one byte per area in
+ * area ID order: bits 0-2 are the AreaType ordinal (7 for an area
+ * that does not exist), bit 3 is set if the area is open, and
+ * bits 4-7 index the header's table of up to 16 defense bonuses.
+ */
+public final class MappedTerrain {
+    /** first bytes of a terrain file ("CQTM") */
+    private static final int MAGIC = 0x4351544D;
+    /** format version of terrain files */
+    private static final int VERSION = 1;
+    /** most distinct defense bonuses a terrain file can hold */
+    private static final int MAX_BONUSES = 16;
+    /** bytes before the first area: magic, version, n, bonus
+     *  count, and the bonus table */
+    private static final int HEADER = 16 + MAX_BONUSES * 8;
+    /** areas written to the file per chunk */
+    private static final int CHUNK = 1 << 16;
+
+    private static final int TYPE_MASK = 0x07;
+    private static final int NO_TYPE = 0x07;
+    private static final int OPEN_BIT = 0x08;
+    private static final int BONUS_SHIFT = 4;
+
+    private static final Area.AreaType[] AREA_TYPES =
+            Area.AreaType.values();
+
+    /** the mapped areas, one byte each, starting at index 0 */
+    private final ByteBuffer cells;
+    /** defense bonuses indexed by the high bits of an area */
+    private final double[] bonuses;
+    /** number of elements in one row of the map */
+    private final int n;
+
+    private MappedTerrain(ByteBuffer cells, double[] bonuses, int n) {
+        this.cells = cells;
+        this.bonuses = bonuses;
+        this.n = n;
+    }
+
+    /**
+     * Maps a terrain file into memory.
+     * @param path, the file to map
+     * @return MappedTerrain
+     * @throws IOException if the file cannot be read or is not a
+     *                     valid terrain file
+     */
+    public static MappedTerrain open(Path path) throws IOException {
+        MappedByteBuffer buffer;
+
+        try (FileChannel channel = FileChannel.open(path,
+                StandardOpenOption.READ)) {
+            if (channel.size() < HEADER) {
+                throw new IOException("not a terrain file");
+            }
+
+            buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0,
+                    channel.size());
+        }
+
+        if (buffer.getInt() != MAGIC) {
+            throw new IOException("not a terrain file");
+        }
+
+        if (buffer.getInt() != VERSION) {
+            throw new IOException("unsupported terrain version");
+        }
+
+        int n = buffer.getInt();
+        int bonusCount = buffer.getInt();
+
+        if (n < 0 || bonusCount < 0 || bonusCount > MAX_BONUSES) {
+            throw new IOException("corrupt terrain header");
+        }
+
+        if (buffer.capacity() != HEADER + (long) n * n) {
+            throw new IOException("terrain file is truncated");
+        }
+
+        double[] bonuses = new double[MAX_BONUSES];
+        for (int i = 0; i < MAX_BONUSES; i++) {
+            bonuses[i] = buffer.getDouble();
+        }
+
+        buffer.position(HEADER);
+
+        return new MappedTerrain(buffer.slice(), bonuses, n);
+    }
+
+    /**
+     * Writes the areas of a TerrainTemplate to a terrain file.
+     * @param path, the file to write
+     * @param template, the terrain to write
+     * @throws IOException if the file cannot be written or the
+     *                     terrain cannot be packed
+     */
+    public static void write(Path path, TerrainTemplate template)
+            throws IOException {
+        write(path, template.getRowCount(), template::getArea);
+    }
+
+    /**
+     * Writes an n x n map to a terrain file, asking for one area
+     * at a time so the whole map never has to be held in memory.
+     * Null areas are written as areas that do not exist.
+     * @param path, the file to write
+     * @param n, length of one row in the map
+     * @param areas, returns the area with a given area ID
+     * @throws IOException if the file cannot be written, or the
+     *                     map has more than 16 defense bonuses
+     */
+    public static void write(Path path, int n, IntFunction<Area> areas)
+            throws IOException {
+        if (n < 0 || (long) n * n > Integer.MAX_VALUE - HEADER) {
+            throw new IOException("terrain too large: " + n);
+        }
+
+        double[] bonuses = new double[MAX_BONUSES];
+        int bonusCount = 0;
+
+        try (FileChannel channel = FileChannel.open(path,
+                StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING)) {
+            ByteBuffer chunk = ByteBuffer.allocate(CHUNK);
+            long position = HEADER;
+            int size = n * n;
+
+            // writes the areas first, since the bonus table in
+            // the header is only known once every area is seen
+            for (int areaID = 0; areaID < size; areaID++) {
+                Area area = areas.apply(areaID);
+                int cell = NO_TYPE;
+
+                if (area != null) {
+                    double bonus = area.getDefenseBonus();
+                    int index = 0;
+
+                    while (index < bonusCount
+                            && Double.compare(bonuses[index], bonus) != 0) {
+                        index++;
+                    }
+
+                    if (index == bonusCount) {
+                        if (bonusCount == MAX_BONUSES) {
+                            throw new IOException("terrain has more than "
+                                    + MAX_BONUSES + " defense bonuses");
+                        }
+
+                        bonuses[bonusCount++] = bonus;
+                    }
+
+                    cell = Area.AreaType.valueOf(area.getAreaType())
+                            .ordinal()
+                            | (area.isOpen() ? OPEN_BIT : 0)
+                            | index << BONUS_SHIFT;
+                }
+
+                chunk.put((byte) cell);
+
+                if (!chunk.hasRemaining() || areaID == size - 1) {
+                    chunk.flip();
+                    while (chunk.hasRemaining()) {
+                        position += channel.write(chunk, position);
+                    }
+                    chunk.clear();
+                }
+            }
+
+            ByteBuffer header = ByteBuffer.allocate(HEADER);
+            header.putInt(MAGIC);
+            header.putInt(VERSION);
+            header.putInt(n);
+            header.putInt(bonusCount);
+            for (double bonus : bonuses) {
+                header.putDouble(bonus);
+            }
+
+            header.flip();
+            position = 0;
+            while (header.hasRemaining()) {
+                position += channel.write(header, position);
+            }
+        }
+    }
+
+    /**
+     * Returns a view of the area with a given areaID, or null if
+     * the area does not exist. Views are created on every call and
+     * always reflect the mapped data.
+     * @param areaID of the area.
+     * @return Area
+     */
+    public Area getArea(int areaID) {
+        if ((cells.get(areaID) & TYPE_MASK) == NO_TYPE) {
+            return null;
+        }
+
+        return new MappedArea(this, areaID);
+    }
+
+    /**
+     * Returns the terrain type of an area, or null if the area
+     * does not exist.
+     * @param areaID of the area.
+     * @return Area.AreaType
+     */
+    public Area.AreaType getAreaType(int areaID) {
+        int type = cells.get(areaID) & TYPE_MASK;
+        return type == NO_TYPE ? null : AREA_TYPES[type];
+    }
+
+    /**
+     * Returns the defense bonus of an area, or 1 (no bonus) if the
+     * area does not exist.
+     * @param areaID of the area.
+     * @return double
+     */
+    public double getDefenseBonus(int areaID) {
+        int cell = cells.get(areaID) & 0xFF;
+
+        if ((cell & TYPE_MASK) == NO_TYPE) {
+            return 1;
+        }
+
+        return bonuses[cell >>> BONUS_SHIFT];
+    }
+
+    /**
+     * Checks if a unit can move into an area.
+     * @param areaID of the area.
+     * @return boolean
+     */
+    public boolean isOpen(int areaID) {
+        return (cells.get(areaID) & OPEN_BIT) != 0;
+    }
+
+    /**
+     * Returns number of elements in one row of the map.
+     * @return int
+     */
+    public int getRowCount() {
+        return n;
+    }
+
+    /**
+     * A view of one area of a MappedTerrain, reading the mapped
+     * data on every call.
+     */
+    private static final class MappedArea implements Area {
+        private final MappedTerrain terrain;
+        private final int areaID;
+
+        MappedArea(MappedTerrain terrain, int areaID) {
+            this.terrain = terrain;
+            this.areaID = areaID;
+        }
+
+        public int getAreaID() {
+            return this.areaID;
+        }
+
+        public double getDefenseBonus() {
+            return terrain.getDefenseBonus(areaID);
+        }
+
+        public String getAreaType() {
+            return terrain.getAreaType(areaID).name();
+        }
+
+        // shared by every battle on the terrain, so never changes
+        public void changeStatus(boolean isOpen) {
+        }
+
+        public boolean isOpen() {
+            return terrain.isOpen(areaID);
+        }
+    }
+}
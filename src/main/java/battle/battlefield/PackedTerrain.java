@@ -0,0 +1,264 @@
+package battle.battlefield;
+
+import battle.interfaces.Area;
+
+import java.util.Arrays;
+
+/**
+ * The terrain of one battle map stored as a single byte per area:
+ * its AreaType and whether it is open. Defense bonuses belong to
+ * the terrain type rather than to each area and are looked up
+ * from a small table, so reading an area's bonus is a byte load
+ * and an array lookup.
+ *
+ * getArea returns shared flyweight Area objects, one per terrain
+ * type and open flag, instead of one object per area. Since a
+ * flyweight stands for many areas, its getAreaID returns NO_ID and
+ * changeStatus on it has no effect; use setOpen instead.
+ *
+ * Like a TerrainTemplate, a PackedTerrain can be shared by any
+ * number of Battlefield objects at once, and should be filled in
+ * before any battle uses it.
+ */
+public final class PackedTerrain {
+    /** area ID reported by flyweight areas */
+    public static final int NO_ID = -1;
+
+    private static final int TYPE_MASK = 0x07;
+    /** type bits of an area that does not exist */
+    private static final int NO_TYPE = 0x07;
+    private static final int OPEN_BIT = 0x08;
+
+    private static final Area.AreaType[] AREA_TYPES =
+            Area.AreaType.values();
+
+    /** one byte per area, indexed by area ID */
+    private final byte[] cells;
+    /** defense bonus of every terrain type, indexed by ordinal */
+    private final double[] bonuses;
+    /** shared areas, indexed by type ordinal and then open flag */
+    private final Area[] flyweights;
+    /** number of elements in one row of the map */
+    private final int n;
+
+    /**
+     * Creates an n x n PackedTerrain object in which no area
+     * exists yet.
+     * @param n, length of one row in the map
+     * @param bonuses, defense bonus of every AreaType, indexed by
+     *                 ordinal
+     */
+    public PackedTerrain(int n, double[] bonuses) {
+        if (bonuses.length != AREA_TYPES.length) {
+            throw new IllegalArgumentException("Error: expected " +
+                    AREA_TYPES.length + " defense bonuses");
+        }
+
+        this.n = n;
+        this.cells = new byte[n * n];
+        this.bonuses = bonuses.clone();
+        this.flyweights = new Area[AREA_TYPES.length * 2];
+
+        Arrays.fill(this.cells, (byte) NO_TYPE);
+
+        for (Area.AreaType type : AREA_TYPES) {
+            double bonus = this.bonuses[type.ordinal()];
+
+            flyweights[type.ordinal() * 2] =
+                    new TerrainArea(type, bonus, false);
+            flyweights[type.ordinal() * 2 + 1] =
+                    new TerrainArea(type, bonus, true);
+        }
+    }
+
+    /**
+     * Packs the areas of a TerrainTemplate. Every area of the same
+     * type must have the same defense bonus.
+     * @param template, the terrain to pack
+     * @return PackedTerrain
+     */
+    public static PackedTerrain pack(TerrainTemplate template) {
+        int n = template.getRowCount();
+        double[] bonuses = new double[AREA_TYPES.length];
+        boolean[] seen = new boolean[AREA_TYPES.length];
+
+        Arrays.fill(bonuses, 1);
+
+        for (int areaID = 0; areaID < n * n; areaID++) {
+            Area area = template.getArea(areaID);
+            if (area == null) {
+                continue;
+            }
+
+            int type = Area.AreaType.valueOf(area.getAreaType())
+                    .ordinal();
+
+            if (seen[type] && Double.compare(bonuses[type],
+                    area.getDefenseBonus()) != 0) {
+                throw new IllegalArgumentException("Error: areas of " +
+                        "type " + AREA_TYPES[type] + " have different " +
+                        "defense bonuses");
+            }
+
+            seen[type] = true;
+            bonuses[type] = area.getDefenseBonus();
+        }
+
+        PackedTerrain terrain = new PackedTerrain(n, bonuses);
+
+        for (int areaID = 0; areaID < n * n; areaID++) {
+            Area area = template.getArea(areaID);
+            if (area != null) {
+                terrain.setArea(areaID, Area.AreaType.valueOf(
+                        area.getAreaType()), area.isOpen());
+            }
+        }
+
+        return terrain;
+    }
+
+    /**
+     * Sets the terrain type of an area and whether it is open.
+     * @param areaID of the area.
+     * @param type, terrain type of the area
+     * @param isOpen, whether a unit can move into the area
+     */
+    public void setArea(int areaID, Area.AreaType type, boolean isOpen) {
+        cells[areaID] = (byte) (type.ordinal() | (isOpen ? OPEN_BIT : 0));
+    }
+
+    /**
+     * Sets every area of the map to a terrain type.
+     * @param type, terrain type of every area
+     * @param isOpen, whether a unit can move into the areas
+     */
+    public void fill(Area.AreaType type, boolean isOpen) {
+        Arrays.fill(cells, (byte) (type.ordinal()
+                | (isOpen ? OPEN_BIT : 0)));
+    }
+
+    /**
+     * Removes an area from the map.
+     * @param areaID of the area.
+     */
+    public void clearArea(int areaID) {
+        cells[areaID] = (byte) NO_TYPE;
+    }
+
+    /**
+     * Changes whether a unit can move into an existing area.
+     * @param areaID of the area.
+     * @param isOpen, whether a unit can move into the area
+     */
+    public void setOpen(int areaID, boolean isOpen) {
+        int cell = cells[areaID];
+        if ((cell & TYPE_MASK) == NO_TYPE) {
+            return;
+        }
+
+        cells[areaID] = (byte) (isOpen ? cell | OPEN_BIT
+                : cell & ~OPEN_BIT);
+    }
+
+    /**
+     * Returns the shared area standing for a given area, or null
+     * if the area does not exist.
+     * @param areaID of the area.
+     * @return Area
+     */
+    public Area getArea(int areaID) {
+        int cell = cells[areaID];
+        int type = cell & TYPE_MASK;
+
+        if (type == NO_TYPE) {
+            return null;
+        }
+
+        return flyweights[type * 2 + ((cell & OPEN_BIT) >>> 3)];
+    }
+
+    /**
+     * Returns the terrain type of an area, or null if the area
+     * does not exist.
+     * @param areaID of the area.
+     * @return Area.AreaType
+     */
+    public Area.AreaType getAreaType(int areaID) {
+        int type = cells[areaID] & TYPE_MASK;
+        return type == NO_TYPE ? null : AREA_TYPES[type];
+    }
+
+    /**
+     * Returns the defense bonus of an area, or 1 (no bonus) if the
+     * area does not exist.
+     * @param areaID of the area.
+     * @return double
+     */
+    public double getDefenseBonus(int areaID) {
+        int type = cells[areaID] & TYPE_MASK;
+        return type == NO_TYPE ? 1 : bonuses[type];
+    }
+
+    /**
+     * Checks if a unit can move into an area.
+     * @param areaID of the area.
+     * @return boolean
+     */
+    public boolean isOpen(int areaID) {
+        return (cells[areaID] & OPEN_BIT) != 0;
+    }
+
+    /**
+     * Returns the defense bonus of a terrain type.
+     * @param type, the terrain type
+     * @return double
+     */
+    public double getTypeBonus(Area.AreaType type) {
+        return bonuses[type.ordinal()];
+    }
+
+    /**
+     * Returns number of elements in one row of the map.
+     * @return int
+     */
+    public int getRowCount() {
+        return n;
+    }
+
+    /**
+     * A flyweight area shared by every area of one terrain type
+     * and open flag.
+     */
+    private static final class TerrainArea implements Area {
+        private final AreaType areaType;
+        private final double defenseBonus;
+        private final boolean isOpen;
+
+        TerrainArea(AreaType areaType, double defenseBonus,
+                    boolean isOpen) {
+            this.areaType = areaType;
+            this.defenseBonus = defenseBonus;
+            this.isOpen = isOpen;
+        }
+
+        public int getAreaID() {
+            return NO_ID;
+        }
+
+        public double getDefenseBonus() {
+            return this.defenseBonus;
+        }
+
+        public String getAreaType() {
+            return this.areaType.name();
+        }
+
+        // stands for many areas at once, so never changes
+        public void changeStatus(boolean isOpen) {
+        }
+
+        public boolean isOpen() {
+            return this.isOpen;
+        }
+    }
+}
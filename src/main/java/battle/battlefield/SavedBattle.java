@@ -0,0 +1,593 @@
+package battle.battlefield;
+
+import battle.areas.BasicArea;
+import battle.interfaces.Area;
+import battle.interfaces.Unit;
+import battle.units.UnitTemplate;
+import battle.units.ancientunits.UnitKind;
+import calculations.BattleRandom;
+import testing.unittesting.StateType;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.IdentityHashMap;
+import java.util.Map;
+
+/**
+ * Saves an entire battle (terrain, where every unit stands, every
+ * unit's stats and soldiers, its ammunition, movement points and
+ * special ability turns, and the position of the battle's
+ * generator) to a compact versioned binary form, and loads it back.
+ *
+ * A save is built in one buffer in a single sequential pass and
+ * written to a channel in one go. Terrain is stored as a palette
+ * of distinct areas plus one 2-byte palette index per area, and
+ * unit stats as a table of distinct templates plus one index per
+ * unit, so large maps and armies stay small. Units keep their
+ * slots, and the generator continues exactly where it left off.
+ *
+ * Only ancient units that hold a slot in the handler are saved;
+ * loaded terrain is made of BasicArea objects. A battle can also be
+ * copied in memory without a save, sharing its terrain.
+ */
+public class SavedBattle {
+    /** first bytes of a save ("CQSV") */
+    private static final int MAGIC = 0x43515356;
+    /** format version of saves */
+    private static final int VERSION = 1;
+    /** bytes before the body: magic, version, body length */
+    private static final int HEADER = 12;
+    /** palette entry of areas that are null */
+    private static final byte NO_TYPE = -1;
+    /** bytes of a palette entry: type, defense bonus, open flag */
+    private static final int PALETTE_ENTRY = 10;
+    /** fewest bytes of a unit template: kind, empty name, stats */
+    private static final int MIN_TEMPLATE = 39;
+    /** bytes of a slot: template, number, special, counters, area */
+    private static final int SLOT = 25;
+
+    private static final Area.AreaType[] AREA_TYPES =
+            Area.AreaType.values();
+    private static final UnitKind[] UNIT_KINDS = UnitKind.values();
+
+    private final BattleHandler handler;
+    private final Battlefield battlefield;
+
+    private SavedBattle(BattleHandler handler, Battlefield battlefield) {
+        this.handler = handler;
+        this.battlefield = battlefield;
+    }
+
+    /**
+     * Returns the loaded battle's handler.
+     * @return BattleHandler
+     */
+    public BattleHandler getHandler() {
+        return this.handler;
+    }
+
+    /**
+     * Returns the loaded battle's battlefield.
+     * @return Battlefield
+     */
+    public Battlefield getBattlefield() {
+        return this.battlefield;
+    }
+
+    /**
+     * Returns the attacking units in slot order, with null for
+     * destroyed units.
+     * @return Unit[]
+     */
+    public Unit[] getAttackers() {
+        return Arrays.copyOfRange(handler.slotUnits, 0,
+                handler.attackerCount);
+    }
+
+    /**
+     * Returns the defending units in slot order, with null for
+     * destroyed units.
+     * @return Unit[]
+     */
+    public Unit[] getDefenders() {
+        return Arrays.copyOfRange(handler.slotUnits,
+                handler.attackerCount, handler.slotCount);
+    }
+
+    /**
+     * Copies a battle in memory: every unit still in the battle is
+     * copied into the same slot and area, with the same
+     * ammunition, movement points, special ability turns, and
+     * generator position, on the same (shared) terrain. Changes to
+     * the copy never reach the original, so each thread of a search
+     * can play out its own copy.
+     * @param handler, the battle's handler
+     * @param battlefield, the battlefield the battle is fought on
+     * @return SavedBattle
+     */
+    public static SavedBattle copy(BattleHandler handler,
+                                   Battlefield battlefield) {
+        BattleRandom random = handler.getRandom();
+
+        return copy(handler, battlefield,
+                new BattleRandom(random.getSeed(), random.getState()));
+    }
+
+    /**
+     * Copies a battle in memory the same way as copy, except that
+     * the copy draws its randomness from a given generator instead
+     * of continuing the original's. A search uses this so that
+     * ranged damage in its copies is sampled rather than being the
+     * very numbers the real battle will draw next.
+     * @param handler, the battle's handler
+     * @param battlefield, the battlefield the battle is fought on
+     * @param random, the generator the copy draws from
+     * @return SavedBattle
+     */
+    public static SavedBattle copy(BattleHandler handler,
+                                   Battlefield battlefield,
+                                   BattleRandom random) {
+        int slotCount = handler.slotCount;
+        Unit[] slotUnits = new Unit[slotCount];
+
+        for (int slot = 0; slot < slotCount; slot++) {
+            Unit unit = handler.slotUnits[slot];
+
+            if (unit != null) {
+                slotUnits[slot] = unit.copyUnit();
+
+                if (unit.specialIsActivated()) {
+                    slotUnits[slot].activateSpecialAbility();
+                }
+            }
+        }
+
+        BattleHandler copy = new BattleHandler(slotUnits,
+                handler.attackerCount,
+                Arrays.copyOf(handler.ammunition, slotCount),
+                Arrays.copyOf(handler.movePoints, slotCount),
+                Arrays.copyOf(handler.specialTurns, slotCount), random);
+
+        Battlefield field = new Battlefield(battlefield);
+
+        for (int areaID = 0; areaID < battlefield.units.length; areaID++) {
+            int slot = handler.slotOf(battlefield.units[areaID]);
+
+            if (slot != UnitIndex.NO_SLOT) {
+                field.placeUnit(areaID, slotUnits[slot]);
+            }
+        }
+
+        return new SavedBattle(copy, field);
+    }
+
+    /**
+     * Saves a battle to a file, replacing it if it exists.
+     * @param path, the file to write
+     * @param handler, the battle's handler
+     * @param battlefield, the battlefield the battle is fought on
+     * @throws IOException if the battle cannot be saved
+     */
+    public static void save(Path path, BattleHandler handler,
+                            Battlefield battlefield) throws IOException {
+        try (FileChannel channel = FileChannel.open(path,
+                StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING)) {
+            save(channel, handler, battlefield);
+        }
+    }
+
+    /**
+     * Loads a battle from a file.
+     * @param path, the file to read
+     * @return SavedBattle
+     * @throws IOException if the file cannot be read or is invalid
+     */
+    public static SavedBattle load(Path path) throws IOException {
+        try (FileChannel channel = FileChannel.open(path,
+                StandardOpenOption.READ)) {
+            return load(channel);
+        }
+    }
+
+    /**
+     * Saves a battle to a channel.
+     * @param channel, the channel to write to (left open)
+     * @param handler, the battle's handler
+     * @param battlefield, the battlefield the battle is fought on
+     * @throws IOException if the battle cannot be saved
+     */
+    public static void save(WritableByteChannel channel,
+                            BattleHandler handler,
+                            Battlefield battlefield) throws IOException {
+        int n = battlefield.getRowCount();
+        int slotCount = handler.slotCount;
+
+        // builds the terrain palette and each area's index into it
+        byte[] types = new byte[8];
+        double[] bonuses = new double[8];
+        boolean[] open = new boolean[8];
+        int paletteSize = 0;
+        char[] paletteIndex = new char[n * n];
+
+        String lastName = null;
+        byte lastType = NO_TYPE;
+        int lastEntry = -1;
+
+        for (int areaID = 0; areaID < n * n; areaID++) {
+            Area area = battlefield.getArea(areaID);
+            byte type = NO_TYPE;
+            double bonus = 0;
+            boolean isOpen = false;
+
+            if (area != null) {
+                // area types are almost always the same few
+                // enum names, so the last lookup is reused
+                String name = area.getAreaType();
+                if (!name.equals(lastName)) {
+                    lastName = name;
+                    lastType = (byte) Area.AreaType.valueOf(name)
+                            .ordinal();
+                }
+                type = lastType;
+                bonus = area.getDefenseBonus();
+                isOpen = area.isOpen();
+            }
+
+            int entry = lastEntry;
+            if (entry < 0 || types[entry] != type
+                    || bonuses[entry] != bonus || open[entry] != isOpen) {
+                entry = -1;
+                for (int i = 0; i < paletteSize; i++) {
+                    if (types[i] == type && bonuses[i] == bonus
+                            && open[i] == isOpen) {
+                        entry = i;
+                        break;
+                    }
+                }
+            }
+
+            if (entry < 0) {
+                if (paletteSize > Character.MAX_VALUE) {
+                    throw new IOException("too many distinct areas");
+                }
+
+                if (paletteSize == types.length) {
+                    types = Arrays.copyOf(types, paletteSize * 2);
+                    bonuses = Arrays.copyOf(bonuses, paletteSize * 2);
+                    open = Arrays.copyOf(open, paletteSize * 2);
+                }
+
+                entry = paletteSize++;
+                types[entry] = type;
+                bonuses[entry] = bonus;
+                open[entry] = isOpen;
+            }
+
+            lastEntry = entry;
+            paletteIndex[areaID] = (char) entry;
+        }
+
+        // finds the area of every unit still in the battle
+        int[] slotAreas = new int[slotCount];
+        Arrays.fill(slotAreas, BattleState.NONE);
+
+        for (int areaID = 0; areaID < n * n; areaID++) {
+            Unit unit = battlefield.units[areaID];
+            int slot = unit == null ? UnitIndex.NO_SLOT
+                    : handler.slotOf(unit);
+
+            if (slot != UnitIndex.NO_SLOT) {
+                slotAreas[slot] = areaID;
+            }
+        }
+
+        // builds the table of distinct templates
+        Map<UnitTemplate, Integer> templateIDs = new IdentityHashMap<>();
+        UnitTemplate[] templates = new UnitTemplate[slotCount];
+        UnitKind[] kinds = new UnitKind[slotCount];
+        byte[][] names = new byte[slotCount][];
+        int[] slotTemplates = new int[slotCount];
+        int templateBytes = 0;
+
+        for (int slot = 0; slot < slotCount; slot++) {
+            Unit unit = handler.slotUnits[slot];
+            slotTemplates[slot] = -1;
+
+            if (unit == null) {
+                continue;
+            }
+
+            UnitKind kind = UnitKind.of(unit);
+            if (kind == null) {
+                throw new IOException("cannot save unit class "
+                        + unit.getClass().getSimpleName());
+            }
+
+            UnitTemplate template = unit.getTemplate();
+            Integer id = templateIDs.get(template);
+
+            if (id == null) {
+                id = templateIDs.size();
+                templateIDs.put(template, id);
+                templates[id] = template;
+                kinds[id] = kind;
+                names[id] = template.getName() == null ? new byte[0]
+                        : template.getName().getBytes(
+                        StandardCharsets.UTF_8);
+
+                if (names[id].length > Character.MAX_VALUE) {
+                    throw new IOException("unit name too long");
+                }
+
+                templateBytes += 1 + 2 + names[id].length + 7 * 4 + 8;
+            }
+
+            slotTemplates[slot] = id;
+        }
+
+        int templateCount = templateIDs.size();
+
+        int bodyLength = 4 + 8 + 8
+                + 4 + paletteSize * (1 + 8 + 1) + n * n * 2
+                + 4 + templateBytes
+                + 4 + 4 + slotCount * (4 + 4 + 1 + 4 + 4 + 4 + 4);
+
+        ByteBuffer buffer = ByteBuffer.allocate(HEADER + bodyLength);
+
+        buffer.putInt(MAGIC);
+        buffer.putInt(VERSION);
+        buffer.putInt(bodyLength);
+
+        BattleRandom random = handler.getRandom();
+        buffer.putInt(n);
+        buffer.putLong(random.getSeed());
+        buffer.putLong(random.getState());
+
+        buffer.putInt(paletteSize);
+        for (int i = 0; i < paletteSize; i++) {
+            buffer.put(types[i]);
+            buffer.putDouble(bonuses[i]);
+            buffer.put((byte) (open[i] ? 1 : 0));
+        }
+        buffer.asCharBuffer().put(paletteIndex);
+        buffer.position(buffer.position() + n * n * 2);
+
+        buffer.putInt(templateCount);
+        for (int id = 0; id < templateCount; id++) {
+            UnitTemplate t = templates[id];
+
+            buffer.put((byte) kinds[id].ordinal());
+            buffer.putChar((char) names[id].length);
+            buffer.put(names[id]);
+            buffer.putInt(t.getLimit());
+            buffer.putInt(t.getUnitCost());
+            buffer.putInt(t.getMeleeDamage());
+            buffer.putInt(t.getRangedDamage());
+            buffer.putInt(t.getArmor());
+            buffer.putInt(t.getMovementCost());
+            buffer.putInt(t.getRangeFactor());
+            buffer.putDouble(t.getAbilityBonus());
+        }
+
+        buffer.putInt(slotCount);
+        buffer.putInt(handler.attackerCount);
+        for (int slot = 0; slot < slotCount; slot++) {
+            Unit unit = handler.slotUnits[slot];
+
+            buffer.putInt(slotTemplates[slot]);
+            buffer.putInt(unit == null ? 0 : unit.getNumber());
+            buffer.put((byte) (unit != null
+                    && unit.specialIsActivated() ? 1 : 0));
+            buffer.putInt(handler.ammunition[slot]);
+            buffer.putInt(handler.movePoints[slot]);
+            buffer.putInt(handler.specialTurns[slot]);
+            buffer.putInt(slotAreas[slot]);
+        }
+
+        buffer.flip();
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+    }
+
+    /**
+     * Loads a battle from a channel.
+     * @param channel, the channel to read from (left open)
+     * @return SavedBattle
+     * @throws IOException if the channel cannot be read or the
+     *                     save is invalid
+     */
+    public static SavedBattle load(ReadableByteChannel channel)
+            throws IOException {
+        ByteBuffer header = ByteBuffer.allocate(HEADER);
+        readFully(channel, header);
+
+        if (header.getInt() != MAGIC) {
+            throw new IOException("not a saved battle");
+        }
+
+        if (header.getInt() != VERSION) {
+            throw new IOException("unsupported save version");
+        }
+
+        int bodyLength = header.getInt();
+        if (bodyLength < 0) {
+            throw new IOException("corrupt save header");
+        }
+
+        ByteBuffer buffer = readBody(channel, bodyLength);
+
+        try {
+            return read(buffer);
+        } catch (BufferUnderflowException | IndexOutOfBoundsException
+                | IllegalArgumentException e) {
+            throw new IOException("corrupt saved battle", e);
+        }
+    }
+
+    /**
+     * Rebuilds a battle from the body of a save.
+     */
+    private static SavedBattle read(ByteBuffer buffer) throws IOException {
+        // every count is checked against the bytes left before
+        // anything is allocated for it
+        int n = buffer.getInt();
+        if (n < 0 || (long) n * n * Character.BYTES > buffer.remaining()) {
+            throw new IOException("corrupt map size");
+        }
+
+        BattleRandom random = new BattleRandom(buffer.getLong(),
+                buffer.getLong());
+
+        int paletteSize = buffer.getInt();
+        if (paletteSize < 0
+                || paletteSize > buffer.remaining() / PALETTE_ENTRY) {
+            throw new IOException("corrupt area palette");
+        }
+
+        byte[] types = new byte[paletteSize];
+        double[] bonuses = new double[paletteSize];
+        boolean[] open = new boolean[paletteSize];
+
+        for (int i = 0; i < paletteSize; i++) {
+            types[i] = buffer.get();
+            bonuses[i] = buffer.getDouble();
+            open[i] = buffer.get() == 1;
+        }
+
+        Battlefield battlefield = new Battlefield(n);
+
+        for (int areaID = 0; areaID < n * n; areaID++) {
+            int entry = buffer.getChar();
+            if (types[entry] == NO_TYPE) {
+                continue;
+            }
+
+            battlefield.setArea(areaID, new BasicArea(areaID,
+                    AREA_TYPES[types[entry]], bonuses[entry],
+                    open[entry]));
+        }
+
+        int templateCount = buffer.getInt();
+        if (templateCount < 0
+                || templateCount > buffer.remaining() / MIN_TEMPLATE) {
+            throw new IOException("corrupt unit templates");
+        }
+
+        UnitTemplate[] templates = new UnitTemplate[templateCount];
+        UnitKind[] kinds = new UnitKind[templateCount];
+
+        for (int id = 0; id < templateCount; id++) {
+            kinds[id] = UNIT_KINDS[buffer.get()];
+
+            byte[] name = new byte[buffer.getChar()];
+            buffer.get(name);
+
+            templates[id] = new UnitTemplate(
+                    new String(name, StandardCharsets.UTF_8),
+                    buffer.getInt(), buffer.getInt(), buffer.getInt(),
+                    buffer.getInt(), buffer.getInt(), buffer.getInt(),
+                    buffer.getInt(), buffer.getDouble());
+        }
+
+        int slotCount = buffer.getInt();
+        int attackerCount = buffer.getInt();
+        if (slotCount < 0 || slotCount > buffer.remaining() / SLOT
+                || attackerCount < 0 || attackerCount > slotCount) {
+            throw new IOException("corrupt slot counts");
+        }
+
+        Unit[] slotUnits = new Unit[slotCount];
+        int[] ammunition = new int[slotCount];
+        int[] movePoints = new int[slotCount];
+        int[] specialTurns = new int[slotCount];
+        int[] slotAreas = new int[slotCount];
+
+        for (int slot = 0; slot < slotCount; slot++) {
+            int id = buffer.getInt();
+            int number = buffer.getInt();
+            boolean isActivated = buffer.get() == 1;
+            ammunition[slot] = buffer.getInt();
+            movePoints[slot] = buffer.getInt();
+            specialTurns[slot] = buffer.getInt();
+            slotAreas[slot] = buffer.getInt();
+
+            if (id < 0) {
+                continue;
+            }
+
+            Unit unit = kinds[id].create(templates[id]);
+            unit.setNumber(number);
+            if (isActivated) {
+                unit.activateSpecialAbility();
+            }
+
+            slotUnits[slot] = unit;
+        }
+
+        BattleHandler handler = new BattleHandler(slotUnits,
+                attackerCount, ammunition, movePoints, specialTurns,
+                random);
+
+        for (int slot = 0; slot < slotCount; slot++) {
+            if (slotUnits[slot] != null
+                    && slotAreas[slot] != BattleState.NONE
+                    && StateType.checkIfFailure(battlefield.placeUnit(
+                            slotAreas[slot], slotUnits[slot]))) {
+                throw new IOException("corrupt unit area");
+            }
+        }
+
+        return new SavedBattle(handler, battlefield);
+    }
+
+    /**
+     * Reads a body of a given length into a buffer that grows as
+     * bytes arrive, so a corrupt length larger than the channel ends
+     * in an EOFException rather than a huge allocation.
+     */
+    private static ByteBuffer readBody(ReadableByteChannel channel,
+                                       int length) throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate(Math.min(length, 1 << 16));
+
+        while (true) {
+            while (buffer.hasRemaining()) {
+                if (channel.read(buffer) < 0) {
+                    throw new EOFException("saved battle is truncated");
+                }
+            }
+
+            if (buffer.capacity() == length) {
+                buffer.flip();
+                return buffer;
+            }
+
+            ByteBuffer grown = ByteBuffer.allocate(
+                    (int) Math.min(2L * buffer.capacity(), length));
+            buffer.flip();
+            grown.put(buffer);
+            buffer = grown;
+        }
+    }
+
+    private static void readFully(ReadableByteChannel channel,
+                                  ByteBuffer buffer) throws IOException {
+        while (buffer.hasRemaining()) {
+            if (channel.read(buffer) < 0) {
+                throw new EOFException("saved battle is truncated");
+            }
+        }
+
+        buffer.flip();
+    }
+}
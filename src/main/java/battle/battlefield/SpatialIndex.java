@@ -0,0 +1,261 @@
+package battle.battlefield;
+
+import battle.interfaces.Unit;
+import calculations.GridCalculations;
+
+import java.util.function.Predicate;
+
+/**
+ * Uniform grid of buckets over a battlefield, each holding the IDs
+ * of the occupied areas inside an 8 x 8 block of the map. Range
+ * and nearest-unit queries only look at the buckets that can hold
+ * an answer instead of scanning the whole board.
+ *
+ * Battlefield keeps the index up to date on every placement, move,
+ * and removal; each update touches at most two buckets.
+ */
+class SpatialIndex {
+    /** log2 of the width of a bucket, in areas */
+    private static final int SHIFT = 3;
+    /** width of a bucket, in areas */
+    private static final int SIZE = 1 << SHIFT;
+    /** starting capacity of a bucket */
+    private static final int INITIAL_CAPACITY = 4;
+
+    /** length of one row of the map */
+    private final int n;
+    /** number of buckets in one row of the grid */
+    private final int bucketsPerRow;
+
+    /** occupied area IDs held by each bucket */
+    private final int[][] buckets;
+    /** number of area IDs held by each bucket */
+    private final int[] counts;
+    /** position of each occupied area within its bucket */
+    private final int[] positions;
+
+    /**
+     * Creates an empty SpatialIndex for an n x n map.
+     * @param n, length of one row of the map
+     */
+    SpatialIndex(int n) {
+        this.n = n;
+        this.bucketsPerRow = (n + SIZE - 1) >> SHIFT;
+
+        int bucketCount = bucketsPerRow * bucketsPerRow;
+
+        buckets = new int[bucketCount][];
+        counts = new int[bucketCount];
+        positions = new int[n * n];
+    }
+
+    /**
+     * Adds an area that became occupied.
+     * @param areaID of the area.
+     */
+    void add(int areaID) {
+        int bucket = bucketOf(areaID);
+        int count = counts[bucket];
+
+        if (buckets[bucket] == null) {
+            buckets[bucket] = new int[INITIAL_CAPACITY];
+        } else if (count == buckets[bucket].length) {
+            int[] grown = new int[count * 2];
+            System.arraycopy(buckets[bucket], 0, grown, 0, count);
+            buckets[bucket] = grown;
+        }
+
+        buckets[bucket][count] = areaID;
+        positions[areaID] = count;
+        counts[bucket] = count + 1;
+    }
+
+    /**
+     * Removes an area that became empty.
+     * @param areaID of the area.
+     */
+    void remove(int areaID) {
+        int bucket = bucketOf(areaID);
+        int last = --counts[bucket];
+        int position = positions[areaID];
+
+        // fills the hole with the bucket's last area
+        int moved = buckets[bucket][last];
+        buckets[bucket][position] = moved;
+        positions[moved] = position;
+    }
+
+    /**
+     * Moves an occupied area's unit to another area. Within a
+     * single bucket this only rewrites one entry.
+     * @param fromID, area the unit leaves.
+     * @param toID, area the unit enters.
+     */
+    void move(int fromID, int toID) {
+        int bucket = bucketOf(fromID);
+
+        if (bucket == bucketOf(toID)) {
+            int position = positions[fromID];
+            buckets[bucket][position] = toID;
+            positions[toID] = position;
+        } else {
+            remove(fromID);
+            add(toID);
+        }
+    }
+
+    /**
+     * Writes the occupied areas (other than the center itself)
+     * whose squared distance to a center area is at most a given
+     * value and whose unit a filter accepts into an array, stopping
+     * once the array is full. Areas the filter rejects take no room.
+     * @param areaID, the center area.
+     * @param maxDistSquared, greatest squared distance.
+     * @param units, unit of each area.
+     * @param filter, decides which units count, or null for all.
+     * @param out, receives area IDs.
+     * @return int, number of area IDs written
+     */
+    int findWithin(int areaID, int maxDistSquared, Unit[] units,
+                   Predicate<Unit> filter, int[] out) {
+        int row = GridCalculations.getRow(areaID, n);
+        int col = GridCalculations.getCol(areaID, row, n);
+        int radius = (int) Math.sqrt(maxDistSquared);
+
+        int firstRow = Math.max(row - radius, 0) >> SHIFT;
+        int lastRow = Math.min(row + radius, n - 1) >> SHIFT;
+        int firstCol = Math.max(col - radius, 0) >> SHIFT;
+        int lastCol = Math.min(col + radius, n - 1) >> SHIFT;
+
+        int found = 0;
+
+        for (int bRow = firstRow; bRow <= lastRow; bRow++) {
+            for (int bCol = firstCol; bCol <= lastCol; bCol++) {
+                int bucket = bRow * bucketsPerRow + bCol;
+                int[] ids = buckets[bucket];
+
+                for (int i = 0; i < counts[bucket]; i++) {
+                    int id = ids[i];
+
+                    if (id != areaID
+                            && distSquared(row, col, id) <= maxDistSquared
+                            && (filter == null || filter.test(units[id]))) {
+                        if (found == out.length) {
+                            return found;
+                        }
+
+                        out[found++] = id;
+                    }
+                }
+            }
+        }
+
+        return found;
+    }
+
+    /**
+     * Counts the occupied areas in the buckets a range query of a
+     * given radius around a center area would look through.
+     * @param areaID, the center area.
+     * @param radius, greatest distance along either axis.
+     * @return int
+     */
+    int countNear(int areaID, int radius) {
+        int row = GridCalculations.getRow(areaID, n);
+        int col = GridCalculations.getCol(areaID, row, n);
+
+        int firstRow = Math.max(row - radius, 0) >> SHIFT;
+        int lastRow = Math.min(row + radius, n - 1) >> SHIFT;
+        int firstCol = Math.max(col - radius, 0) >> SHIFT;
+        int lastCol = Math.min(col + radius, n - 1) >> SHIFT;
+
+        int count = 0;
+
+        for (int bRow = firstRow; bRow <= lastRow; bRow++) {
+            for (int bCol = firstCol; bCol <= lastCol; bCol++) {
+                count += counts[bRow * bucketsPerRow + bCol];
+            }
+        }
+
+        return count;
+    }
+
+    /**
+     * Returns the closest occupied area (other than the center
+     * itself) whose unit a filter accepts, or -1 if there is none.
+     * Buckets are searched in rings around the center, stopping
+     * once no further ring can hold anything closer.
+     * @param areaID, the center area.
+     * @param units, unit of each area.
+     * @param filter, decides which units count.
+     * @return int
+     */
+    int findNearest(int areaID, Unit[] units, Predicate<Unit> filter) {
+        int row = GridCalculations.getRow(areaID, n);
+        int col = GridCalculations.getCol(areaID, row, n);
+        int centerRow = row >> SHIFT;
+        int centerCol = col >> SHIFT;
+
+        int best = -1;
+        int bestDist = Integer.MAX_VALUE;
+
+        for (int ring = 0; ring < bucketsPerRow; ring++) {
+            // every area in this ring is at least this many areas
+            // away from the center along one axis
+            if (ring > 0) {
+                int minDist = (ring - 1) * SIZE + 1;
+
+                if (minDist * minDist > bestDist) {
+                    break;
+                }
+            }
+
+            for (int bRow = centerRow - ring; bRow <= centerRow + ring;
+                 bRow++) {
+                if (bRow < 0 || bRow >= bucketsPerRow) {
+                    continue;
+                }
+
+                // inner rows of the ring only have their two ends
+                boolean edge = bRow == centerRow - ring
+                        || bRow == centerRow + ring;
+                int step = edge || ring == 0 ? 1 : 2 * ring;
+
+                for (int bCol = centerCol - ring; bCol <= centerCol + ring;
+                     bCol += step) {
+                    if (bCol < 0 || bCol >= bucketsPerRow) {
+                        continue;
+                    }
+
+                    int bucket = bRow * bucketsPerRow + bCol;
+                    int[] ids = buckets[bucket];
+
+                    for (int i = 0; i < counts[bucket]; i++) {
+                        int id = ids[i];
+                        int dist = distSquared(row, col, id);
+
+                        if (id != areaID && dist < bestDist
+                                && filter.test(units[id])) {
+                            best = id;
+                            bestDist = dist;
+                        }
+                    }
+                }
+            }
+        }
+
+        return best;
+    }
+
+    private int bucketOf(int areaID) {
+        int row = GridCalculations.getRow(areaID, n);
+        int col = GridCalculations.getCol(areaID, row, n);
+        return (row >> SHIFT) * bucketsPerRow + (col >> SHIFT);
+    }
+
+    private int distSquared(int row, int col, int areaID) {
+        int r = GridCalculations.getRow(areaID, n);
+        int c = GridCalculations.getCol(areaID, r, n);
+        return (r - row) * (r - row) + (c - col) * (c - col);
+    }
+}
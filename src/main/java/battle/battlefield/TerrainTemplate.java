@@ -0,0 +1,124 @@
+package battle.battlefield;
+
+import battle.interfaces.Area;
+import calculations.GridCalculations;
+
+/**
+ * An immutable n x n grid of areas making up the terrain of one
+ * battle map. A single template can be referenced by any number
+ * of Battlefield objects at once without copying, so each map
+ * only needs one copy of its terrain in memory no matter how
+ * many battles are fought on it.
+ *
+ * The template keeps its own read-only copy of every area, taken
+ * when it is created: changeStatus on an area handed out by the
+ * template has no effect, so one battle can never close an area in
+ * every other battle on the same map. Battlefield.setOpen reports
+ * the attempt as SHARED_TERRAIN instead.
+ */
+public final class TerrainTemplate {
+    /** 2D array holding areas of the map */
+    private final Area[][] areas;
+
+    /**
+     * Creates a TerrainTemplate object from an n x n array of
+     * areas. The areas are copied, so later changes to the given
+     * array or its areas do not affect the template.
+     * @param areas, an n x n array of areas
+     */
+    public TerrainTemplate(Area[][] areas) {
+        int n = areas.length;
+
+        this.areas = new Area[n][];
+
+        // copies every row, ensuring the grid is square
+        for (int row = 0; row < n; row++) {
+            if (areas[row] == null || areas[row].length != n) {
+                throw new IllegalArgumentException("Error: terrain " +
+                        "grid is not square");
+            }
+
+            this.areas[row] = new Area[n];
+
+            for (int col = 0; col < n; col++) {
+                Area area = areas[row][col];
+
+                if (area != null) {
+                    this.areas[row][col] = new TemplateArea(area);
+                }
+            }
+        }
+    }
+
+    /**
+     * Returns an area given an areaID.
+     * @param areaID of the area.
+     * @return Area
+     */
+    public Area getArea(int areaID) {
+        // retrieves number of elements in single row
+        int n = getRowCount();
+
+        // retrieves row and col number of given area
+        int row = GridCalculations.getRow(areaID, n);
+        int col = GridCalculations.getCol(areaID, row, n);
+
+        return areas[row][col];
+    }
+
+    /**
+     * Returns number of elements in one row of the map.
+     * @return int
+     */
+    public int getRowCount() {
+        return areas.length;
+    }
+
+    /**
+     * Returns the underlying grid so that a Battlefield can
+     * reference it without copying. Never modified or handed
+     * out beyond this package.
+     * @return Area[][]
+     */
+    Area[][] getAreas() {
+        return areas;
+    }
+
+    /**
+     * A read-only copy of an area, shared by every battle fought
+     * on the template.
+     */
+    private static final class TemplateArea implements Area {
+        private final int areaID;
+        private final String areaType;
+        private final double defenseBonus;
+        private final boolean isOpen;
+
+        TemplateArea(Area area) {
+            this.areaID = area.getAreaID();
+            this.areaType = area.getAreaType();
+            this.defenseBonus = area.getDefenseBonus();
+            this.isOpen = area.isOpen();
+        }
+
+        public int getAreaID() {
+            return this.areaID;
+        }
+
+        public double getDefenseBonus() {
+            return this.defenseBonus;
+        }
+
+        public String getAreaType() {
+            return this.areaType;
+        }
+
+        // shared by every battle on the template, so never changes
+        public void changeStatus(boolean isOpen) {
+        }
+
+        public boolean isOpen() {
+            return this.isOpen;
+        }
+    }
+}
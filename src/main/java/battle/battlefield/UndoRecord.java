@@ -0,0 +1,75 @@
+package battle.battlefield;
+
+import battle.interfaces.Unit;
+
+/**
+ * Everything needed to take back one move, attack, or movement
+ * reset made with BattleHandler.makeMove, makeAttack, or makeReset:
+ * the unit's previous area, movement points, and ammunition, the
+ * defender's previous number of soldiers, the generator's previous
+ * state, the defender itself if the attack destroyed it, and the
+ * movement points a reset replaced.
+ *
+ * A record holds a single action and is meant to be reused, so a
+ * search can keep one record per level of depth and never
+ * allocate while looking ahead.
+ */
+public final class UndoRecord {
+    /** kinds of action a record can hold */
+    static final byte NONE = 0;
+    static final byte MOVE = 1;
+    static final byte ATTACK = 2;
+    static final byte RESET = 3;
+
+    /** kind of action held */
+    byte kind;
+    /** slot of the unit that moved or attacked */
+    int slot;
+    /** area the unit moved from, or attacked from */
+    int fromID;
+    /** area the unit moved to */
+    int toID;
+    /** movement points of the unit before the action */
+    int movePoints;
+    /** ammunition of the attacker before the attack */
+    int ammunition;
+    /** slot of the defender */
+    int defendSlot;
+    /** area of the defender */
+    int defendID;
+    /** soldiers of the defender before the attack */
+    int number;
+    /** state of the battle's generator before the attack */
+    long randomState;
+    /** the defender if the attack destroyed it, or null */
+    Unit removed;
+    /** first slot and end of the slots a reset changed */
+    int resetFrom;
+    int resetTo;
+    /** movement points of the reset slots before the reset, kept
+     *  between uses so that resets do not allocate */
+    int[] savedMovePoints;
+
+    /**
+     * Creates an empty UndoRecord object.
+     */
+    public UndoRecord() {
+        clear();
+    }
+
+    /**
+     * Checks if the record holds an action that can be undone.
+     * @return boolean
+     */
+    public boolean isEmpty() {
+        return kind == NONE;
+    }
+
+    /**
+     * Empties the record.
+     */
+    void clear() {
+        kind = NONE;
+        removed = null;
+    }
+}
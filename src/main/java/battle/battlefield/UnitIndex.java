@@ -0,0 +1,182 @@
+package battle.battlefield;
+
+import battle.interfaces.Unit;
+
+/**
+ * Open-addressing table binding units to dense integer slots.
+ * Units are compared by identity (as the Unit implementations
+ * never override equals or hashCode), and slots are kept in a
+ * primitive array so looking up a unit never boxes an Integer.
+ */
+class UnitIndex {
+    /** value returned when a unit has no slot */
+    static final int NO_SLOT = -1;
+
+    /** smallest capacity of the table */
+    private static final int MIN_CAPACITY = 16;
+
+    /** units held in the table (null marks an empty bucket) */
+    private Unit[] keys;
+    /** slot bound to the unit in the same bucket */
+    private int[] slots;
+    /** number of units held in the table */
+    private int size;
+
+    /**
+     * Creates a UnitIndex large enough to hold a given number
+     * of units without resizing.
+     * @param expected, number of units expected
+     */
+    UnitIndex(int expected) {
+        int capacity = MIN_CAPACITY;
+
+        // keeps the table at most half full
+        while (capacity < expected * 2) {
+            capacity <<= 1;
+        }
+
+        keys = new Unit[capacity];
+        slots = new int[capacity];
+    }
+
+    /**
+     * Returns the slot bound to a unit, or NO_SLOT if the
+     * unit has none.
+     * @param unit to look up.
+     * @return int
+     */
+    int get(Unit unit) {
+        if (unit == null) {
+            return NO_SLOT;
+        }
+
+        int mask = keys.length - 1;
+
+        // probes buckets until the unit or an empty bucket is found
+        for (int i = bucket(unit, mask); ; i = (i + 1) & mask) {
+            Unit key = keys[i];
+
+            if (key == unit) {
+                return slots[i];
+            }
+
+            if (key == null) {
+                return NO_SLOT;
+            }
+        }
+    }
+
+    /**
+     * Binds a unit to a slot, replacing any earlier binding.
+     * @param unit to bind.
+     * @param slot given to the unit.
+     */
+    void put(Unit unit, int slot) {
+        // grows the table before it becomes more than half full
+        if ((size + 1) * 2 > keys.length) {
+            resize(keys.length << 1);
+        }
+
+        int mask = keys.length - 1;
+        int i = bucket(unit, mask);
+
+        // probes buckets until the unit or an empty bucket is found
+        while (keys[i] != null && keys[i] != unit) {
+            i = (i + 1) & mask;
+        }
+
+        if (keys[i] == null) {
+            keys[i] = unit;
+            size++;
+        }
+
+        slots[i] = slot;
+    }
+
+    /**
+     * Removes the binding of a unit, returning its slot or
+     * NO_SLOT if the unit had none.
+     * @param unit to unbind.
+     * @return int
+     */
+    int remove(Unit unit) {
+        if (unit == null) {
+            return NO_SLOT;
+        }
+
+        int mask = keys.length - 1;
+        int i = bucket(unit, mask);
+
+        // finds the bucket holding the unit
+        while (keys[i] != unit) {
+            if (keys[i] == null) {
+                return NO_SLOT;
+            }
+
+            i = (i + 1) & mask;
+        }
+
+        int slot = slots[i];
+
+        // shifts later units of the same probe run back into the
+        // freed bucket so that lookups never stop early
+        int hole = i;
+
+        for (int j = (i + 1) & mask; keys[j] != null; j = (j + 1) & mask) {
+            int home = bucket(keys[j], mask);
+
+            // moves the unit only if its home bucket does not lie
+            // cyclically between the hole and its current bucket
+            if (((j - home) & mask) >= ((j - hole) & mask)) {
+                keys[hole] = keys[j];
+                slots[hole] = slots[j];
+                hole = j;
+            }
+        }
+
+        keys[hole] = null;
+        size--;
+
+        return slot;
+    }
+
+    /**
+     * Rebuilds the table with a new capacity.
+     * @param capacity, a power of two.
+     */
+    private void resize(int capacity) {
+        Unit[] oldKeys = keys;
+        int[] oldSlots = slots;
+
+        keys = new Unit[capacity];
+        slots = new int[capacity];
+
+        int mask = capacity - 1;
+
+        for (int i = 0; i < oldKeys.length; i++) {
+            if (oldKeys[i] != null) {
+                int j = bucket(oldKeys[i], mask);
+
+                while (keys[j] != null) {
+                    j = (j + 1) & mask;
+                }
+
+                keys[j] = oldKeys[i];
+                slots[j] = oldSlots[i];
+            }
+        }
+    }
+
+    /**
+     * Calculates the home bucket of a unit.
+     * @param unit to hash.
+     * @param mask, capacity of the table minus one.
+     * @return int
+     */
+    private static int bucket(Unit unit, int mask) {
+        // spreads the identity hash so that nearby values
+        // do not cluster into neighboring buckets
+        int h = System.identityHashCode(unit) * 0x9E3779B9;
+        return (h ^ (h >>> 16)) & mask;
+    }
+}
@@ -0,0 +1,197 @@
+package battle.battlefield;
+
+import battle.interfaces.Unit;
+
+/**
+ * A 64-bit Zobrist hash of a battle position, kept up to date as
+ * the battle changes so that a search can recognize a position it
+ * has already seen after reaching it by a different order of
+ * moves. The hash combines the area of every unit on the
+ * battlefield, its number of soldiers (rounded down to buckets, so
+ * that nearly equal positions hash alike), its ammunition, and its
+ * movement points.
+ *
+ * Once attached to a BattleHandler and its Battlefield, every
+ * placement, move, removal, attack, destruction, ammunition or
+ * movement point change, and undone action updates the hash with
+ * a few XORs. Keys are not kept in tables but mixed from the unit's
+ * slot and value on demand, so the hash needs no memory however
+ * large the map is, and every ZobristHash gives equal positions
+ * equal hashes.
+ *
+ * Which side moves next is not part of the battle, so searches
+ * should XOR getSideKey into the hash themselves.
+ */
+public class ZobristHash {
+    /** kinds of value a key is mixed from */
+    private static final int POSITION = 0;
+    private static final int NUMBER = 1;
+    private static final int AMMO = 2;
+    private static final int MOVEMENT = 3;
+    private static final int SIDE = 4;
+
+    /** increment of the SplitMix64 generator, spreading keys */
+    private static final long GOLDEN_GAMMA = 0x9e3779b97f4a7c15L;
+
+    /** handler whose slots name the units */
+    private final BattleHandler handler;
+    /** soldiers per bucket of unit numbers */
+    private final int numberBucket;
+
+    /** hash of the current position */
+    private long hash;
+
+    /**
+     * Creates a ZobristHash object from the current position of a
+     * battle, and attaches it to the battle's handler and
+     * battlefield, replacing any hash attached before.
+     * @param handler, the battle's handler
+     * @param battlefield, the battlefield the battle is fought on
+     * @param numberBucket, soldiers per bucket; units whose
+     *                     numbers fall in the same bucket hash
+     *                     alike (1 tells every number apart)
+     */
+    public ZobristHash(BattleHandler handler, Battlefield battlefield,
+                       int numberBucket) {
+        if (numberBucket < 1) {
+            throw new IllegalArgumentException(
+                    "number bucket must be positive");
+        }
+
+        this.handler = handler;
+        this.numberBucket = numberBucket;
+
+        handler.zobrist = this;
+        battlefield.zobrist = this;
+
+        reset(battlefield);
+    }
+
+    /**
+     * Returns the hash of the current position.
+     * @return long
+     */
+    public long getHash() {
+        return hash;
+    }
+
+    /**
+     * Returns the key to XOR into the hash when the attackers are
+     * the side to move.
+     * @return long
+     */
+    public long getSideKey() {
+        return key(SIDE, 0, 0);
+    }
+
+    /**
+     * Computes the hash of the current position from scratch,
+     * replacing the hash kept so far.
+     * @param battlefield the units are on.
+     * @return long
+     */
+    public long reset(Battlefield battlefield) {
+        long h = 0;
+
+        for (int slot = 0; slot < handler.slotCount; slot++) {
+            Unit unit = handler.slotUnits[slot];
+
+            if (unit != null) {
+                h ^= slotKey(slot, unit.getNumber(),
+                        handler.ammunition[slot],
+                        handler.movePoints[slot]);
+            }
+        }
+
+        for (int areaID = 0; areaID < battlefield.units.length; areaID++) {
+            int slot = handler.slotOf(battlefield.units[areaID]);
+
+            if (slot != UnitIndex.NO_SLOT) {
+                h ^= key(POSITION, slot, areaID);
+            }
+        }
+
+        hash = h;
+        return h;
+    }
+
+    void recordPlace(int areaID, Unit unit) {
+        int slot = handler.slotOf(unit);
+
+        if (slot != UnitIndex.NO_SLOT) {
+            hash ^= key(POSITION, slot, areaID);
+        }
+    }
+
+    void recordMove(int from, int to, Unit unit) {
+        int slot = handler.slotOf(unit);
+
+        if (slot != UnitIndex.NO_SLOT) {
+            hash ^= key(POSITION, slot, from) ^ key(POSITION, slot, to);
+        }
+    }
+
+    void recordRemove(int areaID, Unit unit) {
+        recordPlace(areaID, unit);
+    }
+
+    void recordNumber(int slot, int before, int after) {
+        int from = before / numberBucket;
+        int to = after / numberBucket;
+
+        if (from != to) {
+            hash ^= key(NUMBER, slot, from) ^ key(NUMBER, slot, to);
+        }
+    }
+
+    void recordAmmunition(int slot, int before, int after) {
+        hash ^= key(AMMO, slot, before) ^ key(AMMO, slot, after);
+    }
+
+    void recordMovement(int slot, int before, int after) {
+        hash ^= key(MOVEMENT, slot, before) ^ key(MOVEMENT, slot, after);
+    }
+
+    /**
+     * Records movement points of slots [from, to) being reset,
+     * before the handler's array changes.
+     */
+    void recordReset(int from, int to, int maxMovement) {
+        for (int slot = from; slot < to; slot++) {
+            if (handler.slotUnits[slot] != null) {
+                recordMovement(slot, handler.movePoints[slot],
+                        maxMovement);
+            }
+        }
+    }
+
+    /**
+     * Adds or removes the soldiers, ammunition, and movement point
+     * keys of a unit still bound to its slot, as it is destroyed or
+     * brought back (its area is handled by the battlefield).
+     */
+    void recordSlot(int slot, int number) {
+        hash ^= slotKey(slot, number, handler.ammunition[slot],
+                handler.movePoints[slot]);
+    }
+
+    private long slotKey(int slot, int number, int ammunition,
+                         int movePoints) {
+        return key(NUMBER, slot, number / numberBucket)
+                ^ key(AMMO, slot, ammunition)
+                ^ key(MOVEMENT, slot, movePoints);
+    }
+
+    /**
+     * Mixes the key of one value of one slot with the SplitMix64
+     * finalizer.
+     */
+    private static long key(int kind, int slot, int value) {
+        long z = ((long) kind << 60 | (long) slot << 32
+                | (value & 0xFFFFFFFFL)) * GOLDEN_GAMMA + GOLDEN_GAMMA;
+
+        z = (z ^ (z >>> 30)) * 0xbf58476d1ce4e5b9L;
+        z = (z ^ (z >>> 27)) * 0x94d049bb133111ebL;
+        return z ^ (z >>> 31);
+    }
+}
@@ -1,5 +1,7 @@
 package battle.interfaces;
 
+import battle.units.UnitTemplate;
+import calculations.BattleRandom;
 import testing.unittesting.StateType;
 
 public interface Unit {
@@ -98,6 +100,21 @@ public interface Unit {
      */
     public StateType attackWithRange(Unit unit, double areaBonus);
 
+    /**
+     * Attacks an enemy unit with the current unit object, drawing
+     * any random damage from the given battle generator so that
+     * the attack can be reproduced from the battle's seed.
+     * Returns SUCCESS if no specific errors are encountered,
+     * Returns DESTROY if the unit number goes below 0,
+     * Returns FAILURE if error is encountered.
+     * @param unit
+     * @param areaBonus
+     * @param random
+     * @return StateType
+     */
+    public StateType attackWithRange(Unit unit, double areaBonus,
+                                     BattleRandom random);
+
     /**
      * Attacks an enemy unit with the current unit object
      * through its melee damage.
@@ -152,4 +169,11 @@ public interface Unit {
      * @return Unit
      */
     public Unit copyUnit();
-}
\ No newline at end of file
+
+    /**
+     * Returns the template holding the unit's fixed stats,
+     * which is shared with every copy of the unit.
+     * @return UnitTemplate
+     */
+    public UnitTemplate getTemplate();
+}
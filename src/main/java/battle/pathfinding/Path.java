@@ -0,0 +1,58 @@
+package battle.pathfinding;
+
+/**
+ * A route across a battlefield found by PathFinder: the areas it
+ * passes through, in order, and the movement points it costs.
+ * The length of the path is what BattleHandler.fightTwoUnits takes
+ * as pathLength, and its cost is what BattleHandler.handleMovement
+ * takes as pathCost.
+ */
+public class Path {
+    /** areas along the path, starting with the unit's own area */
+    private final int[] areaIDs;
+    /** movement points needed to walk the path */
+    private final int cost;
+
+    /**
+     * Creates a Path object.
+     * @param areaIDs, areas along the path including the start
+     * @param cost, movement points needed to walk the path
+     */
+    public Path(int[] areaIDs, int cost) {
+        this.areaIDs = areaIDs;
+        this.cost = cost;
+    }
+
+    /**
+     * Returns the areas along the path, starting with the
+     * area the unit stands in.
+     * @return int[]
+     */
+    public int[] getAreaIDs() {
+        return areaIDs.clone();
+    }
+
+    /**
+     * Returns the area the path ends in.
+     * @return int
+     */
+    public int getDestination() {
+        return areaIDs[areaIDs.length - 1];
+    }
+
+    /**
+     * Returns the number of steps along the path.
+     * @return int
+     */
+    public int getLength() {
+        return areaIDs.length - 1;
+    }
+
+    /**
+     * Returns the movement points needed to walk the path.
+     * @return int
+     */
+    public int getCost() {
+        return this.cost;
+    }
+}
@@ -0,0 +1,498 @@
+package battle.pathfinding;
+
+import battle.battlefield.Battlefield;
+import battle.interfaces.Area;
+import battle.interfaces.Unit;
+import calculations.GridCalculations;
+
+import java.util.Arrays;
+import java.util.BitSet;
+
+/**
+ * Finds cheapest routes for units across a Battlefield with A*.
+ *
+ * Units move to any of the eight neighboring areas, paying their
+ * movement cost times the terrain cost of the area they enter.
+ * Areas that are closed, impassable (water and walls), missing, or
+ * occupied by another unit cannot be entered.
+ *
+ * Every array a search needs is allocated once, sized to the map,
+ * and reused: entries are tagged with the number of the search that
+ * wrote them, so nothing has to be cleared between searches. A
+ * PathFinder is therefore not thread-safe; each thread should use
+ * its own.
+ */
+public class PathFinder {
+    /** terrain cost of an area that cannot be entered */
+    static final byte IMPASSABLE = 0;
+
+    /** row and column offsets of the eight neighboring areas */
+    private static final int[] D_ROW = {-1, -1, -1, 0, 0, 1, 1, 1};
+    private static final int[] D_COL = {-1, 0, 1, -1, 1, -1, 0, 1};
+
+    private final Battlefield battlefield;
+    /** length of one row of the map */
+    private final int n;
+
+    /** cost multiplier of entering each area, IMPASSABLE if none */
+    private final byte[] terrainCost;
+
+    /** search number that last reached each area */
+    private final int[] seen;
+    /** search number that last settled each area */
+    private final int[] closed;
+    /** cheapest known cost from the start to each area */
+    private final int[] gScore;
+    /** area each area was reached from */
+    private final int[] parent;
+
+    /** binary min-heap of open areas ordered by estimated cost */
+    private final int[] heap;
+    /** estimated total cost of each area in the heap */
+    private final int[] heapKey;
+    /** position of each area in the heap */
+    private final int[] heapIndex;
+    private int heapSize;
+
+    /** number of the current search */
+    private int search;
+    /** number of the last search run by findReachable */
+    private int reachSearch;
+
+    /**
+     * Creates a PathFinder object for a battlefield and reads its
+     * terrain.
+     * @param battlefield, the battlefield routes are found on
+     */
+    public PathFinder(Battlefield battlefield) {
+        this.battlefield = battlefield;
+        this.n = battlefield.getRowCount();
+
+        int size = n * n;
+
+        terrainCost = new byte[size];
+        seen = new int[size];
+        closed = new int[size];
+        gScore = new int[size];
+        parent = new int[size];
+        heap = new int[size];
+        heapKey = new int[size];
+        heapIndex = new int[size];
+
+        refreshTerrain();
+    }
+
+    /**
+     * Reads the terrain of every area again, for when areas
+     * are changed or opened and closed during a battle.
+     */
+    public void refreshTerrain() {
+        for (int id = 0; id < terrainCost.length; id++) {
+            refreshArea(id);
+        }
+    }
+
+    /**
+     * Reads the terrain of a single area again.
+     * @param areaID of the area.
+     */
+    public void refreshArea(int areaID) {
+        Area area = battlefield.getArea(areaID);
+
+        if (area == null || !area.isOpen()) {
+            terrainCost[areaID] = IMPASSABLE;
+        } else {
+            terrainCost[areaID] = terrainCost(
+                    Area.AreaType.valueOf(area.getAreaType()));
+        }
+    }
+
+    /**
+     * Finds the cheapest path for a unit from its area to an
+     * empty area.
+     * @param fromID, area the unit stands in.
+     * @param toID, area the unit moves to.
+     * @param unit, the moving unit.
+     * @return Path, or null if the area cannot be reached
+     */
+    public Path findPath(int fromID, int toID, Unit unit) {
+        if (!isValidID(fromID) || !isValidID(toID)) {
+            return null;
+        }
+
+        if (fromID != toID && !isEnterable(toID)) {
+            return null;
+        }
+
+        return search(fromID, toID, 0, unit);
+    }
+
+    /**
+     * Finds the cheapest path for a unit to any area from which
+     * a target area lies within a range factor, measured the same
+     * way BattleHandler measures attack range (a range factor of 1
+     * covers the eight neighboring areas).
+     * @param fromID, area the unit stands in.
+     * @param targetID, area the unit wants to reach in range.
+     * @param unit, the moving unit.
+     * @param rangeFactor, range of the unit's attack.
+     * @return Path, or null if no such area can be reached
+     */
+    public Path findPathInRange(int fromID, int targetID, Unit unit,
+                                int rangeFactor) {
+        if (!isValidID(fromID) || !isValidID(targetID)) {
+            return null;
+        }
+
+        return search(fromID, targetID, rangeFactor, unit);
+    }
+
+    /**
+     * Marks every area a unit can reach from its area without
+     * spending more than a given number of movement points,
+     * including the area it stands in. Runs Dijkstra's algorithm
+     * bounded by the budget, so only reachable areas are visited.
+     * @param fromID, area the unit stands in.
+     * @param unit, the moving unit.
+     * @param budget, movement points the unit may spend.
+     * @param reachable, cleared and filled with reachable area IDs.
+     */
+    public void findReachable(int fromID, Unit unit, int budget,
+                              BitSet reachable) {
+        reachable.clear();
+
+        if (!isValidID(fromID) || budget < 0) {
+            return;
+        }
+
+        int step = Math.max(unit.getMovementCost(), 1);
+
+        startSearch();
+        reachSearch = search;
+        open(fromID, 0, fromID, 0);
+
+        while (heapSize > 0) {
+            int current = poll();
+            closed[current] = search;
+            reachable.set(current);
+
+            int row = GridCalculations.getRow(current, n);
+            int col = GridCalculations.getCol(current, row, n);
+
+            for (int k = 0; k < D_ROW.length; k++) {
+                int r = row + D_ROW[k];
+                int c = col + D_COL[k];
+
+                if (r < 0 || r >= n || c < 0 || c >= n) {
+                    continue;
+                }
+
+                int next = GridCalculations.getID(r, c, n);
+
+                if (closed[next] == search || !isEnterable(next)) {
+                    continue;
+                }
+
+                int g = gScore[current] + step * terrainCost[next];
+
+                // areas beyond the budget are never opened
+                if (g <= budget
+                        && (seen[next] != search || g < gScore[next])) {
+                    open(next, g, current, g);
+                }
+            }
+        }
+    }
+
+    /**
+     * Returns the movement points the cheapest path to an area
+     * costs, for an area marked by the last call to findReachable.
+     * @param areaID, an area marked reachable.
+     * @return int, or -1 if the area was not marked or another
+     *         search has run since
+     */
+    public int getReachedCost(int areaID) {
+        if (!isValidID(areaID) || reachSearch != search
+                || closed[areaID] != search) {
+            return -1;
+        }
+
+        return gScore[areaID];
+    }
+
+    /**
+     * Returns the movement points a unit pays to step into a
+     * neighboring area, or -1 if the area cannot be entered.
+     * @param areaID, the area stepped into.
+     * @param unit, the moving unit.
+     * @return int
+     */
+    public int getStepCost(int areaID, Unit unit) {
+        if (!isValidID(areaID) || !isEnterable(areaID)) {
+            return -1;
+        }
+
+        return Math.max(unit.getMovementCost(), 1) * terrainCost[areaID];
+    }
+
+    /**
+     * Returns the movement points a unit pays to step into an
+     * area, by the same rules as a PathFinder but without one, or
+     * -1 if the area is missing, closed, or impassable. Whether a
+     * unit stands in the area is not checked.
+     * @param area, the area stepped into.
+     * @param unit, the moving unit.
+     * @return int
+     */
+    public static int getStepCost(Area area, Unit unit) {
+        if (area == null || !area.isOpen()) {
+            return -1;
+        }
+
+        byte cost = terrainCost(Area.AreaType.valueOf(area.getAreaType()));
+
+        return cost == IMPASSABLE ? -1
+                : Math.max(unit.getMovementCost(), 1) * cost;
+    }
+
+    /**
+     * Returns the battlefield routes are found on.
+     * @return Battlefield
+     */
+    public Battlefield getBattlefield() {
+        return battlefield;
+    }
+
+    /**
+     * Runs A* from an area until it settles an area within range
+     * of the goal (range 0 means the goal itself).
+     * @return Path, or null if no such area can be reached
+     */
+    private Path search(int fromID, int goalID, int rangeFactor,
+                        Unit unit) {
+        int step = Math.max(unit.getMovementCost(), 1);
+
+        int goalRow = GridCalculations.getRow(goalID, n);
+        int goalCol = GridCalculations.getCol(goalID, goalRow, n);
+
+        // squared euclidean distance an end area may lie from the
+        // goal, and the chebyshev distance that allows at most
+        int maxDistSquared = 2 * rangeFactor * rangeFactor;
+        int reach = (int) Math.floor(rangeFactor * Math.sqrt(2));
+
+        startSearch();
+        open(fromID, 0, fromID,
+                heuristic(fromID, goalRow, goalCol, reach, step));
+
+        while (heapSize > 0) {
+            int current = poll();
+            closed[current] = search;
+
+            int row = GridCalculations.getRow(current, n);
+            int col = GridCalculations.getCol(current, row, n);
+
+            int dRow = row - goalRow;
+            int dCol = col - goalCol;
+
+            if (dRow * dRow + dCol * dCol <= maxDistSquared) {
+                return buildPath(fromID, current);
+            }
+
+            for (int k = 0; k < D_ROW.length; k++) {
+                int r = row + D_ROW[k];
+                int c = col + D_COL[k];
+
+                if (r < 0 || r >= n || c < 0 || c >= n) {
+                    continue;
+                }
+
+                int next = GridCalculations.getID(r, c, n);
+
+                if (closed[next] == search || !isEnterable(next)) {
+                    continue;
+                }
+
+                int g = gScore[current] + step * terrainCost[next];
+
+                if (seen[next] != search || g < gScore[next]) {
+                    open(next, g, current,
+                            g + heuristic(next, goalRow, goalCol,
+                                    reach, step));
+                }
+            }
+        }
+
+        return null;
+    }
+
+    /**
+     * Estimates the cost left from an area: every area nearer
+     * the goal is at least one step away, and no step costs
+     * less than the unit's movement cost.
+     */
+    private int heuristic(int id, int goalRow, int goalCol, int reach,
+                          int step) {
+        int row = GridCalculations.getRow(id, n);
+        int col = GridCalculations.getCol(id, row, n);
+
+        int chebyshev = Math.max(Math.abs(row - goalRow),
+                Math.abs(col - goalCol));
+
+        return Math.max(chebyshev - reach, 0) * step;
+    }
+
+    /**
+     * Walks the parent links back from the end area.
+     */
+    private Path buildPath(int fromID, int endID) {
+        int length = 1;
+
+        for (int id = endID; id != fromID; id = parent[id]) {
+            length++;
+        }
+
+        int[] areaIDs = new int[length];
+
+        for (int id = endID, i = length - 1; i >= 0; i--) {
+            areaIDs[i] = id;
+            id = parent[id];
+        }
+
+        return new Path(areaIDs, gScore[endID]);
+    }
+
+    /**
+     * Checks if a unit can move into an area.
+     */
+    private boolean isEnterable(int id) {
+        return terrainCost[id] != IMPASSABLE
+                && battlefield.getUnit(id) == null;
+    }
+
+    private boolean isValidID(int id) {
+        return id >= 0 && id < terrainCost.length;
+    }
+
+    /**
+     * Begins a new search, wrapping the search number around
+     * (and clearing the tags) only once every four billion
+     * searches.
+     */
+    private void startSearch() {
+        heapSize = 0;
+        search++;
+
+        if (search == 0) {
+            Arrays.fill(seen, 0);
+            Arrays.fill(closed, 0);
+            search = 1;
+        }
+    }
+
+    /**
+     * Records a cheaper way to reach an area and adds it to
+     * the heap or moves it up within it.
+     */
+    private void open(int id, int g, int from, int key) {
+        boolean inHeap = seen[id] == search;
+
+        seen[id] = search;
+        gScore[id] = g;
+        parent[id] = from;
+
+        if (!inHeap) {
+            heapIndex[id] = heapSize;
+            heap[heapSize] = id;
+            heapSize++;
+        }
+
+        heapKey[id] = key;
+        siftUp(heapIndex[id]);
+    }
+
+    /**
+     * Removes and returns the open area with the lowest
+     * estimated total cost.
+     */
+    private int poll() {
+        int top = heap[0];
+
+        heapSize--;
+
+        if (heapSize > 0) {
+            heap[0] = heap[heapSize];
+            heapIndex[heap[0]] = 0;
+            siftDown(0);
+        }
+
+        return top;
+    }
+
+    private void siftUp(int i) {
+        int id = heap[i];
+        int key = heapKey[id];
+
+        while (i > 0) {
+            int p = (i - 1) >>> 1;
+
+            if (heapKey[heap[p]] <= key) {
+                break;
+            }
+
+            heap[i] = heap[p];
+            heapIndex[heap[i]] = i;
+            i = p;
+        }
+
+        heap[i] = id;
+        heapIndex[id] = i;
+    }
+
+    private void siftDown(int i) {
+        int id = heap[i];
+        int key = heapKey[id];
+
+        while (true) {
+            int child = 2 * i + 1;
+
+            if (child >= heapSize) {
+                break;
+            }
+
+            if (child + 1 < heapSize
+                    && heapKey[heap[child + 1]] < heapKey[heap[child]]) {
+                child++;
+            }
+
+            if (heapKey[heap[child]] >= key) {
+                break;
+            }
+
+            heap[i] = heap[child];
+            heapIndex[heap[i]] = i;
+            i = child;
+        }
+
+        heap[i] = id;
+        heapIndex[id] = i;
+    }
+
+    /**
+     * Returns the cost multiplier of entering an area of a given
+     * terrain type, or IMPASSABLE.
+     * @param type of the terrain.
+     * @return byte
+     */
+    static byte terrainCost(Area.AreaType type) {
+        switch (type) {
+            case NORMAL:
+                return 1;
+            case HILL:
+                return 2;
+            case MOUNTAIN:
+                return 3;
+            default:
+                return IMPASSABLE;
+        }
+    }
+}
@@ -0,0 +1,168 @@
+package battle.pathfinding;
+
+import battle.battlefield.BattleHandler;
+import battle.battlefield.Battlefield;
+import battle.interfaces.Unit;
+
+import java.util.BitSet;
+import java.util.IdentityHashMap;
+import java.util.Iterator;
+import java.util.Map;
+
+/**
+ * Answers "which areas can this unit reach with the movement
+ * points it has left" and remembers the answer for each unit.
+ *
+ * A remembered answer is reused as long as the unit is in the
+ * same area with the same movement points and movement cost, and
+ * no unit has been placed, moved, or removed on the battlefield
+ * since (checked through Battlefield.getOccupancyVersion), so
+ * repeated questions within a turn cost a single lookup. Answers
+ * of units that have left their area (moved, destroyed, or
+ * removed) are dropped once the occupancy changes, so the cache
+ * does not keep destroyed units alive.
+ */
+public class ReachabilityCache {
+    private final PathFinder pathFinder;
+    private final Battlefield battlefield;
+
+    /** remembered answer of each unit */
+    private final IdentityHashMap<Unit, Entry> entries;
+    /** occupancy version the entries were last swept at */
+    private long sweptVersion;
+
+    /**
+     * Creates a ReachabilityCache object.
+     * @param pathFinder, used to compute answers.
+     */
+    public ReachabilityCache(PathFinder pathFinder) {
+        this.pathFinder = pathFinder;
+        this.battlefield = pathFinder.getBattlefield();
+        this.entries = new IdentityHashMap<>();
+    }
+
+    /**
+     * Copies the areas the unit in a given area can reach with
+     * the movement points it has left in a battle into a set.
+     * @param areaID, area the unit stands in.
+     * @param handler, the battle's handler.
+     * @param out, cleared and filled with reachable area IDs, left
+     *             empty if the area has no unit.
+     */
+    public void getReachable(int areaID, BattleHandler handler,
+                             BitSet out) {
+        out.clear();
+
+        BitSet reachable = lookup(areaID, handler);
+
+        if (reachable != null) {
+            out.or(reachable);
+        }
+    }
+
+    /**
+     * Checks if the unit in a given area can reach another area
+     * with the movement points it has left in a battle.
+     * @param fromID, area the unit stands in.
+     * @param toID, area the unit would move to.
+     * @param handler, the battle's handler.
+     * @return boolean, false if the first area has no unit
+     */
+    public boolean canReach(int fromID, int toID,
+                            BattleHandler handler) {
+        BitSet reachable = lookup(fromID, handler);
+
+        return reachable != null && toID >= 0 && reachable.get(toID);
+    }
+
+    /**
+     * Returns the remembered answer for the unit in an area,
+     * computing it first if needed.
+     * @return BitSet owned by the cache, or null if the area has
+     *         no unit
+     */
+    private BitSet lookup(int areaID, BattleHandler handler) {
+        Unit unit = battlefield.getUnit(areaID);
+
+        if (unit == null) {
+            return null;
+        }
+
+        int budget = handler.unitMovement(unit);
+        int step = unit.getMovementCost();
+        long version = battlefield.getOccupancyVersion();
+
+        if (version != sweptVersion) {
+            sweep();
+            sweptVersion = version;
+        }
+
+        Entry entry = entries.get(unit);
+
+        if (entry == null) {
+            entry = new Entry();
+            entries.put(unit, entry);
+        } else if (entry.areaID == areaID && entry.budget == budget
+                && entry.step == step && entry.version == version
+                && entry.valid) {
+            return entry.reachable;
+        }
+
+        // recomputes into the entry's own set, reusing its storage
+        pathFinder.findReachable(areaID, unit, budget, entry.reachable);
+
+        entry.areaID = areaID;
+        entry.budget = budget;
+        entry.step = step;
+        entry.version = version;
+        entry.valid = true;
+
+        return entry.reachable;
+    }
+
+    /**
+     * Drops the answers of units no longer standing in the area
+     * their answer was computed for.
+     */
+    private void sweep() {
+        Iterator<Map.Entry<Unit, Entry>> it =
+                entries.entrySet().iterator();
+
+        while (it.hasNext()) {
+            Map.Entry<Unit, Entry> e = it.next();
+
+            if (battlefield.getUnit(e.getValue().areaID) != e.getKey()) {
+                it.remove();
+            }
+        }
+    }
+
+    /**
+     * Forgets every remembered answer, for when terrain changes
+     * (after PathFinder.refreshTerrain) rather than units.
+     */
+    public void invalidate() {
+        for (Entry entry : entries.values()) {
+            entry.valid = false;
+        }
+    }
+
+    /**
+     * Drops every remembered answer along with its storage.
+     */
+    public void clear() {
+        entries.clear();
+    }
+
+    /**
+     * Remembered answer for one unit and the state it holds for.
+     */
+    private static class Entry {
+        private final BitSet reachable = new BitSet();
+        private int areaID;
+        private int budget;
+        private int step;
+        private long version;
+        private boolean valid;
+    }
+}
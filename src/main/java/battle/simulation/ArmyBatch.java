@@ -0,0 +1,152 @@
+package battle.simulation;
+
+import battle.interfaces.Unit;
+
+/**
+ * Many armies packed into parallel primitive arrays, one entry
+ * per unit, so that they can be scored in tight loops over
+ * contiguous memory instead of through virtual getters. The units
+ * of army i sit at indices [getStart(i), getEnd(i)).
+ */
+public final class ArmyBatch {
+    /** index of the first unit of every army, plus the unit count */
+    private final int[] offsets;
+    /** number of soldiers of every unit */
+    private final int[] numbers;
+    /** melee damage of every unit */
+    private final int[] meleeDamage;
+    /** ranged damage of every unit */
+    private final int[] rangedDamage;
+    /** armor of every unit */
+    private final int[] armor;
+
+    /**
+     * Creates an ArmyBatch object by packing the stats of the given
+     * armies (null spaces are skipped, as autoBattle does).
+     * @param armies, the armies to pack
+     */
+    public ArmyBatch(Unit[][] armies) {
+        int count = 0;
+        for (Unit[] army : armies) {
+            for (Unit unit : army) {
+                if (unit != null) {
+                    count++;
+                }
+            }
+        }
+
+        this.offsets = new int[armies.length + 1];
+        this.numbers = new int[count];
+        this.meleeDamage = new int[count];
+        this.rangedDamage = new int[count];
+        this.armor = new int[count];
+
+        int i = 0;
+        for (int army = 0; army < armies.length; army++) {
+            this.offsets[army] = i;
+            for (Unit unit : armies[army]) {
+                if (unit == null) {
+                    continue;
+                }
+                this.numbers[i] = unit.getNumber();
+                this.meleeDamage[i] = unit.getMeleeDamage();
+                this.rangedDamage[i] = unit.getRangedDamage();
+                this.armor[i] = unit.getArmor();
+                i++;
+            }
+        }
+        this.offsets[armies.length] = count;
+    }
+
+    /**
+     * Creates an ArmyBatch object over already packed arrays, which
+     * are used directly rather than copied.
+     * @param offsets, index of the first unit of every army,
+     *                 followed by the total number of units
+     * @param numbers, number of soldiers of every unit
+     * @param meleeDamage, melee damage of every unit
+     * @param rangedDamage, ranged damage of every unit
+     * @param armor, armor of every unit
+     */
+    public ArmyBatch(int[] offsets, int[] numbers, int[] meleeDamage,
+                     int[] rangedDamage, int[] armor) {
+        if (offsets.length == 0) {
+            throw new IllegalArgumentException("offsets are empty");
+        }
+
+        int count = numbers.length;
+        if (meleeDamage.length != count || rangedDamage.length != count
+                || armor.length != count) {
+            throw new IllegalArgumentException(
+                    "stat arrays have different lengths");
+        }
+
+        if (offsets[0] != 0 || offsets[offsets.length - 1] != count) {
+            throw new IllegalArgumentException(
+                    "offsets do not cover the stat arrays");
+        }
+
+        for (int i = 1; i < offsets.length; i++) {
+            if (offsets[i] < offsets[i - 1]) {
+                throw new IllegalArgumentException(
+                        "offsets are not ascending");
+            }
+        }
+
+        this.offsets = offsets;
+        this.numbers = numbers;
+        this.meleeDamage = meleeDamage;
+        this.rangedDamage = rangedDamage;
+        this.armor = armor;
+    }
+
+    /**
+     * Returns the number of armies in the batch.
+     * @return int
+     */
+    public int getArmyCount() {
+        return this.offsets.length - 1;
+    }
+
+    /**
+     * Returns the number of units in the batch.
+     * @return int
+     */
+    public int getUnitCount() {
+        return this.numbers.length;
+    }
+
+    /**
+     * Returns the index of the first unit of an army.
+     * @param army, index of the army
+     * @return int
+     */
+    public int getStart(int army) {
+        return this.offsets[army];
+    }
+
+    /**
+     * Returns the index after the last unit of an army.
+     * @param army, index of the army
+     * @return int
+     */
+    public int getEnd(int army) {
+        return this.offsets[army + 1];
+    }
+
+    int[] numbers() {
+        return this.numbers;
+    }
+
+    int[] meleeDamage() {
+        return this.meleeDamage;
+    }
+
+    int[] rangedDamage() {
+        return this.rangedDamage;
+    }
+
+    int[] armor() {
+        return this.armor;
+    }
+}
@@ -0,0 +1,65 @@
+package battle.simulation;
+
+/**
+ * Outcomes of a batch of auto-resolved battles: which side won
+ * each battle, and how many soldiers every unit has left, packed
+ * in the same order as the ArmyBatch the units came from.
+ */
+public class AutoResolveResult {
+    /** whether the attackers won each battle */
+    private final boolean[] attackerWins;
+    /** soldiers every attacking unit has left */
+    private final int[] attackerSurvivors;
+    /** soldiers every defending unit has left */
+    private final int[] defenderSurvivors;
+
+    /**
+     * Creates an AutoResolveResult object.
+     * @param attackerWins, whether the attackers won each battle
+     * @param attackerSurvivors, soldiers every attacking unit has left
+     * @param defenderSurvivors, soldiers every defending unit has left
+     */
+    AutoResolveResult(boolean[] attackerWins, int[] attackerSurvivors,
+                      int[] defenderSurvivors) {
+        this.attackerWins = attackerWins;
+        this.attackerSurvivors = attackerSurvivors;
+        this.defenderSurvivors = defenderSurvivors;
+    }
+
+    /**
+     * Returns the number of battles resolved.
+     * @return int
+     */
+    public int getBattleCount() {
+        return this.attackerWins.length;
+    }
+
+    /**
+     * Checks whether the attackers won a battle.
+     * @param battle, index of the battle
+     * @return boolean
+     */
+    public boolean isAttackerWin(int battle) {
+        return this.attackerWins[battle];
+    }
+
+    /**
+     * Returns the soldiers an attacking unit has left, where 0
+     * means the unit was destroyed.
+     * @param unit, index of the unit in the attacking ArmyBatch
+     * @return int
+     */
+    public int getAttackerSurvivors(int unit) {
+        return this.attackerSurvivors[unit];
+    }
+
+    /**
+     * Returns the soldiers a defending unit has left, where 0
+     * means the unit was destroyed.
+     * @param unit, index of the unit in the defending ArmyBatch
+     * @return int
+     */
+    public int getDefenderSurvivors(int unit) {
+        return this.defenderSurvivors[unit];
+    }
+}
@@ -0,0 +1,111 @@
+package battle.simulation;
+
+/**
+ * Auto-resolves many battles at once. Scoring matches
+ * BattleHandler.autoBattle exactly: each side scores the sum of
+ * every unit's number, melee damage, ranged damage and armor, the
+ * attackers win only with strictly more points, the losing side is
+ * wiped out, and every winning unit keeps (int) (number * percent)
+ * soldiers, where percent is the winner's share of all points.
+ *
+ * Every pass is a plain counted loop over the packed arrays of an
+ * ArmyBatch so that the JIT can unroll and vectorize it.
+ */
+public final class BatchAutoResolver {
+    private BatchAutoResolver() {
+    }
+
+    /**
+     * Auto-resolves battle i between attacking army i and
+     * defending army i, for every army in the batches.
+     * @param attackers, the attacking armies
+     * @param defenders, the defending armies
+     * @return AutoResolveResult
+     */
+    public static AutoResolveResult resolve(ArmyBatch attackers,
+                                            ArmyBatch defenders) {
+        int battles = attackers.getArmyCount();
+        if (defenders.getArmyCount() != battles) {
+            throw new IllegalArgumentException(
+                    "batches have different numbers of armies");
+        }
+
+        int[] aPoints = scoreArmies(attackers);
+        int[] dPoints = scoreArmies(defenders);
+
+        boolean[] attackerWins = new boolean[battles];
+        int[] aSurvivors = new int[attackers.getUnitCount()];
+        int[] dSurvivors = new int[defenders.getUnitCount()];
+
+        for (int b = 0; b < battles; b++) {
+            int total = aPoints[b] + dPoints[b];
+
+            // if aPoints > dPoints, the attackers win,
+            // otherwise defenders win; the losers' survivors
+            // are already 0
+            if (aPoints[b] > dPoints[b]) {
+                attackerWins[b] = true;
+                scaleSurvivors(attackers, b,
+                        (double) aPoints[b] / total, aSurvivors);
+            } else {
+                scaleSurvivors(defenders, b,
+                        (double) dPoints[b] / total, dSurvivors);
+            }
+        }
+
+        return new AutoResolveResult(attackerWins, aSurvivors,
+                dSurvivors);
+    }
+
+    /**
+     * Sums the points of every army in a batch.
+     * @param batch, the armies to score
+     * @return int[], points of each army
+     */
+    private static int[] scoreArmies(ArmyBatch batch) {
+        int[] numbers = batch.numbers();
+        int[] melee = batch.meleeDamage();
+        int[] ranged = batch.rangedDamage();
+        int[] armor = batch.armor();
+
+        // per-unit points in one branch-free pass over the
+        // whole batch (int overflow wraps the same way as
+        // autoBattle's running sum, so the totals agree)
+        int[] unitPoints = new int[numbers.length];
+        for (int i = 0; i < unitPoints.length; i++) {
+            unitPoints[i] = numbers[i] + melee[i] + ranged[i]
+                    + armor[i];
+        }
+
+        int[] points = new int[batch.getArmyCount()];
+        for (int army = 0; army < points.length; army++) {
+            int sum = 0;
+            for (int i = batch.getStart(army),
+                 end = batch.getEnd(army); i < end; i++) {
+                sum += unitPoints[i];
+            }
+            points[army] = sum;
+        }
+
+        return points;
+    }
+
+    /**
+     * Writes how many soldiers each unit of a winning army keeps.
+     * @param batch, the batch the army belongs to
+     * @param army, index of the winning army
+     * @param percent, proportion of each unit that remains
+     * @param survivors, per-unit survivors of the batch
+     */
+    private static void scaleSurvivors(ArmyBatch batch, int army,
+                                       double percent,
+                                       int[] survivors) {
+        int[] numbers = batch.numbers();
+        int start = batch.getStart(army);
+        int end = batch.getEnd(army);
+
+        for (int i = start; i < end; i++) {
+            survivors[i] = (int) (numbers[i] * percent);
+        }
+    }
+}
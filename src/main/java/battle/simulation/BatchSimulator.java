@@ -0,0 +1,169 @@
+package battle.simulation;
+
+import battle.areas.BasicArea;
+import battle.battlefield.Battlefield;
+import battle.battlefield.TerrainTemplate;
+import battle.interfaces.Area;
+import calculations.GridCalculations;
+
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * Runs a batch of independent tactical battles for one matchup
+ * in parallel on a fork-join pool and aggregates their win rates
+ * and casualties. Every battle gets its own Battlefield and unit
+ * copies, all sharing one TerrainTemplate, and writes its outcome
+ * into its own slot of the result arrays, so workers never
+ * contend with each other.
+ */
+public class BatchSimulator {
+    /** battles a single task runs before it stops splitting */
+    private static final int BATTLES_PER_TASK = 64;
+
+    /** number of worker threads */
+    private final int parallelism;
+
+    /**
+     * Creates a BatchSimulator object using every core.
+     */
+    public BatchSimulator() {
+        this(Runtime.getRuntime().availableProcessors());
+    }
+
+    /**
+     * Creates a BatchSimulator object.
+     * @param parallelism, number of worker threads
+     */
+    public BatchSimulator(int parallelism) {
+        this.parallelism = parallelism;
+    }
+
+    /**
+     * Runs every battle of a matchup and aggregates the results.
+     * @param spec, the matchup to simulate
+     * @return SimulationReport
+     */
+    public SimulationReport run(MatchupSpec spec) {
+        long start = System.nanoTime();
+
+        int battles = spec.getBattles();
+        TerrainTemplate terrain = plains(spec.getMapSize());
+
+        // per-battle results, each written by exactly one task
+        byte[] winners = new byte[battles];
+        int[] attackerCasualties = new int[battles];
+        int[] defenderCasualties = new int[battles];
+
+        ForkJoinPool pool = new ForkJoinPool(parallelism);
+
+        try {
+            pool.invoke(new BattleRange(spec, terrain, winners,
+                    attackerCasualties, defenderCasualties, 0, battles));
+        } finally {
+            pool.shutdown();
+        }
+
+        int[] wins = new int[BattleOutcome.Winner.values().length];
+
+        for (byte winner : winners) {
+            wins[winner]++;
+        }
+
+        return new SimulationReport(battles,
+                wins[BattleOutcome.Winner.ATTACKER.ordinal()],
+                wins[BattleOutcome.Winner.DEFENDER.ordinal()],
+                wins[BattleOutcome.Winner.DRAW.ordinal()],
+                new CasualtyDistribution(attackerCasualties),
+                new CasualtyDistribution(defenderCasualties),
+                (System.nanoTime() - start) / 1_000_000);
+    }
+
+    /**
+     * Runs a single battle of a matchup.
+     * @param spec, the matchup
+     * @param terrain, the map the battle is fought on
+     * @param battle, index of the battle within the batch
+     * @return BattleOutcome
+     */
+    public static BattleOutcome runBattle(MatchupSpec spec,
+                                          TerrainTemplate terrain,
+                                          int battle) {
+        TacticalBattle tactical = new TacticalBattle(
+                spec.createAttackers(), spec.createDefenders(),
+                new Battlefield(terrain), spec.getMaxAmmo(),
+                spec.getMaxMovement(), spec.battleSeed(battle));
+
+        return tactical.run(spec.getMaxTurns());
+    }
+
+    /**
+     * Builds an n x n map of open, normal ground.
+     * @param n, length of one row of the map
+     * @return TerrainTemplate
+     */
+    public static TerrainTemplate plains(int n) {
+        Area[][] areas = new Area[n][n];
+
+        for (int row = 0; row < n; row++) {
+            for (int col = 0; col < n; col++) {
+                areas[row][col] = new BasicArea(
+                        GridCalculations.getID(row, col, n),
+                        Area.AreaType.NORMAL, 1, true);
+            }
+        }
+
+        return new TerrainTemplate(areas);
+    }
+
+    /**
+     * Fork-join task running the battles in [from, to), split
+     * in halves until small enough to run directly.
+     */
+    private static class BattleRange extends RecursiveAction {
+        private static final long serialVersionUID = 1L;
+
+        private final MatchupSpec spec;
+        private final TerrainTemplate terrain;
+        private final byte[] winners;
+        private final int[] attackerCasualties;
+        private final int[] defenderCasualties;
+        private final int from;
+        private final int to;
+
+        BattleRange(MatchupSpec spec, TerrainTemplate terrain,
+                    byte[] winners, int[] attackerCasualties,
+                    int[] defenderCasualties, int from, int to) {
+            this.spec = spec;
+            this.terrain = terrain;
+            this.winners = winners;
+            this.attackerCasualties = attackerCasualties;
+            this.defenderCasualties = defenderCasualties;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from <= BATTLES_PER_TASK) {
+                for (int i = from; i < to; i++) {
+                    BattleOutcome outcome = runBattle(spec, terrain, i);
+
+                    winners[i] = (byte) outcome.getWinner().ordinal();
+                    attackerCasualties[i] = outcome.getAttackerCasualties();
+                    defenderCasualties[i] = outcome.getDefenderCasualties();
+                }
+                return;
+            }
+
+            int mid = (from + to) >>> 1;
+
+            invokeAll(new BattleRange(spec, terrain, winners,
+                            attackerCasualties, defenderCasualties,
+                            from, mid),
+                    new BattleRange(spec, terrain, winners,
+                            attackerCasualties, defenderCasualties,
+                            mid, to));
+        }
+    }
+}
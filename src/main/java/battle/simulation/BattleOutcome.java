@@ -0,0 +1,50 @@
+package battle.simulation;
+
+/**
+ * Result of one simulated tactical battle.
+ */
+public class BattleOutcome {
+    /** side left standing at the end of a battle */
+    public enum Winner {ATTACKER, DEFENDER, DRAW}
+
+    /** side that won the battle */
+    private final Winner winner;
+    /** number of turns the battle lasted */
+    private final int turns;
+    /** soldiers the attacking army lost */
+    private final int attackerCasualties;
+    /** soldiers the defending army lost */
+    private final int defenderCasualties;
+
+    /**
+     * Creates a BattleOutcome object.
+     * @param winner, side that won the battle
+     * @param turns, number of turns the battle lasted
+     * @param attackerCasualties, soldiers the attackers lost
+     * @param defenderCasualties, soldiers the defenders lost
+     */
+    public BattleOutcome(Winner winner, int turns,
+                         int attackerCasualties,
+                         int defenderCasualties) {
+        this.winner = winner;
+        this.turns = turns;
+        this.attackerCasualties = attackerCasualties;
+        this.defenderCasualties = defenderCasualties;
+    }
+
+    public Winner getWinner() {
+        return this.winner;
+    }
+
+    public int getTurns() {
+        return this.turns;
+    }
+
+    public int getAttackerCasualties() {
+        return this.attackerCasualties;
+    }
+
+    public int getDefenderCasualties() {
+        return this.defenderCasualties;
+    }
+}
@@ -0,0 +1,90 @@
+package battle.simulation;
+
+import java.util.Arrays;
+
+/**
+ * Summary of the casualties one side took over a batch of
+ * battles: mean, standard deviation, and percentiles.
+ */
+public class CasualtyDistribution {
+    private final double mean;
+    private final double standardDeviation;
+    private final int min;
+    private final int p10;
+    private final int median;
+    private final int p90;
+    private final int max;
+
+    /**
+     * Creates a CasualtyDistribution object from the casualties
+     * of every battle.
+     * @param casualties, one entry per battle (left unchanged)
+     */
+    public CasualtyDistribution(int[] casualties) {
+        int[] sorted = casualties.clone();
+        Arrays.sort(sorted);
+
+        // calculates the mean and variance in one pass
+        // (Welford's method, stable for large batches)
+        double mean = 0;
+        double squares = 0;
+
+        for (int i = 0; i < sorted.length; i++) {
+            double delta = sorted[i] - mean;
+            mean += delta / (i + 1);
+            squares += delta * (sorted[i] - mean);
+        }
+
+        this.mean = mean;
+        this.standardDeviation = sorted.length > 1
+                ? Math.sqrt(squares / (sorted.length - 1)) : 0;
+        this.min = percentile(sorted, 0);
+        this.p10 = percentile(sorted, 0.1);
+        this.median = percentile(sorted, 0.5);
+        this.p90 = percentile(sorted, 0.9);
+        this.max = percentile(sorted, 1);
+    }
+
+    public double getMean() {
+        return this.mean;
+    }
+
+    public double getStandardDeviation() {
+        return this.standardDeviation;
+    }
+
+    public int getMin() {
+        return this.min;
+    }
+
+    public int getP10() {
+        return this.p10;
+    }
+
+    public int getMedian() {
+        return this.median;
+    }
+
+    public int getP90() {
+        return this.p90;
+    }
+
+    public int getMax() {
+        return this.max;
+    }
+
+    /**
+     * Returns the nearest-rank percentile of sorted values.
+     * @param sorted, values in ascending order
+     * @param fraction, percentile between 0 and 1
+     * @return int
+     */
+    private static int percentile(int[] sorted, double fraction) {
+        if (sorted.length == 0) {
+            return 0;
+        }
+
+        int rank = (int) Math.ceil(fraction * sorted.length) - 1;
+        return sorted[Math.max(0, Math.min(rank, sorted.length - 1))];
+    }
+}
@@ -0,0 +1,147 @@
+package battle.simulation;
+
+import battle.interfaces.Unit;
+
+/**
+ * Describes a batch of battles between two fixed armies: the unit
+ * compositions of both sides, the size of the map they fight on,
+ * how many battles to run, and the seed every battle's own seed
+ * is derived from.
+ */
+public class MatchupSpec {
+    /** default number of turns before a battle is called a draw */
+    public static final int DEFAULT_MAX_TURNS = 200;
+    /** default movement points each unit gets per turn */
+    public static final int DEFAULT_MAX_MOVEMENT = 1000;
+    /** default ammunition each ranged unit starts with */
+    public static final int DEFAULT_MAX_AMMO = 10;
+
+    /** attacking army, copied for every battle */
+    private final Unit[] attackers;
+    /** defending army, copied for every battle */
+    private final Unit[] defenders;
+    /** length of one row of the square map */
+    private final int mapSize;
+    /** number of battles to run */
+    private final int battles;
+    /** seed the battle seeds are derived from */
+    private final long seed;
+    /** number of turns before a battle is called a draw */
+    private final int maxTurns;
+    /** movement points each unit gets per turn */
+    private final int maxMovement;
+    /** ammunition each ranged unit starts with */
+    private final int maxAmmo;
+
+    /**
+     * Creates a MatchupSpec object with the default turn limit,
+     * movement points, and ammunition.
+     * @param attackers, units of the attacking army
+     * @param defenders, units of the defending army
+     * @param mapSize, length of one row of the map
+     * @param battles, number of battles to run
+     * @param seed, seed the battle seeds are derived from
+     */
+    public MatchupSpec(Unit[] attackers, Unit[] defenders, int mapSize,
+                       int battles, long seed) {
+        this(attackers, defenders, mapSize, battles, seed,
+                DEFAULT_MAX_TURNS, DEFAULT_MAX_MOVEMENT,
+                DEFAULT_MAX_AMMO);
+    }
+
+    /**
+     * Creates a MatchupSpec object.
+     * @param attackers, units of the attacking army
+     * @param defenders, units of the defending army
+     * @param mapSize, length of one row of the map
+     * @param battles, number of battles to run
+     * @param seed, seed the battle seeds are derived from
+     * @param maxTurns, turns before a battle is called a draw
+     * @param maxMovement, movement points per unit per turn
+     * @param maxAmmo, ammunition each ranged unit starts with
+     */
+    public MatchupSpec(Unit[] attackers, Unit[] defenders, int mapSize,
+                       int battles, long seed, int maxTurns,
+                       int maxMovement, int maxAmmo) {
+        this.attackers = attackers.clone();
+        this.defenders = defenders.clone();
+        this.mapSize = mapSize;
+        this.battles = battles;
+        this.seed = seed;
+        this.maxTurns = maxTurns;
+        this.maxMovement = maxMovement;
+        this.maxAmmo = maxAmmo;
+    }
+
+    /**
+     * Returns a fresh copy of the attacking army.
+     * @return Unit[]
+     */
+    public Unit[] createAttackers() {
+        return copyArmy(attackers);
+    }
+
+    /**
+     * Returns a fresh copy of the defending army.
+     * @return Unit[]
+     */
+    public Unit[] createDefenders() {
+        return copyArmy(defenders);
+    }
+
+    public int getMapSize() {
+        return this.mapSize;
+    }
+
+    public int getBattles() {
+        return this.battles;
+    }
+
+    public long getSeed() {
+        return this.seed;
+    }
+
+    public int getMaxTurns() {
+        return this.maxTurns;
+    }
+
+    public int getMaxMovement() {
+        return this.maxMovement;
+    }
+
+    public int getMaxAmmo() {
+        return this.maxAmmo;
+    }
+
+    /**
+     * Derives the seed of a single battle of the batch, so that
+     * a battle's seed depends only on its index and not on which
+     * thread happens to run it.
+     * @param battle, index of the battle
+     * @return long
+     */
+    public long battleSeed(int battle) {
+        // SplitMix64 finalizer over the golden-ratio sequence
+        long z = seed + (battle + 1) * 0x9E3779B97F4A7C15L;
+        z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+        z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+        return z ^ (z >>> 31);
+    }
+
+    /**
+     * Copies every unit of an army, keeping empty spaces empty.
+     * @param army to copy
+     * @return Unit[]
+     */
+    private static Unit[] copyArmy(Unit[] army) {
+        Unit[] copy = new Unit[army.length];
+
+        for (int i = 0; i < army.length; i++) {
+            if (army[i] != null) {
+                copy[i] = army[i].copyUnit();
+            }
+        }
+
+        return copy;
+    }
+}
@@ -0,0 +1,178 @@
+package battle.simulation;
+
+/**
+ * Estimated outcome of a matchup from a run of randomized tactical
+ * battles, with 95% confidence intervals for the attackers' win
+ * probability and the expected casualties of both sides.
+ */
+public class OutcomePrediction {
+    /** z-score of a two-sided 95% confidence interval */
+    static final double Z_95 = 1.96;
+
+    /** number of battles the estimate is based on */
+    private final int battles;
+    private final int attackerWins;
+    private final int draws;
+    /** casualties of the attacking army over every battle run */
+    private final CasualtyDistribution attackerCasualties;
+    /** casualties of the defending army over every battle run */
+    private final CasualtyDistribution defenderCasualties;
+    /** whether the estimate reached the requested precision */
+    private final boolean converged;
+    /** wall-clock time the prediction took, in milliseconds */
+    private final long elapsedMillis;
+
+    /**
+     * Creates an OutcomePrediction object.
+     */
+    OutcomePrediction(int battles, int attackerWins, int draws,
+                      CasualtyDistribution attackerCasualties,
+                      CasualtyDistribution defenderCasualties,
+                      boolean converged, long elapsedMillis) {
+        this.battles = battles;
+        this.attackerWins = attackerWins;
+        this.draws = draws;
+        this.attackerCasualties = attackerCasualties;
+        this.defenderCasualties = defenderCasualties;
+        this.converged = converged;
+        this.elapsedMillis = elapsedMillis;
+    }
+
+    public int getBattles() {
+        return this.battles;
+    }
+
+    /**
+     * Returns the estimated probability that the attackers win.
+     * @return double
+     */
+    public double getAttackerWinProbability() {
+        return battles == 0 ? 0 : (double) attackerWins / battles;
+    }
+
+    /**
+     * Returns the estimated probability that the battle is a draw.
+     * @return double
+     */
+    public double getDrawProbability() {
+        return battles == 0 ? 0 : (double) draws / battles;
+    }
+
+    /**
+     * Returns the lower bound of the 95% (Wilson score) interval of
+     * the attackers' win probability.
+     * @return double
+     */
+    public double getAttackerWinLower() {
+        return wilsonCenter(attackerWins, battles)
+                - wilsonHalfWidth(attackerWins, battles);
+    }
+
+    /**
+     * Returns the upper bound of the 95% (Wilson score) interval of
+     * the attackers' win probability.
+     * @return double
+     */
+    public double getAttackerWinUpper() {
+        return wilsonCenter(attackerWins, battles)
+                + wilsonHalfWidth(attackerWins, battles);
+    }
+
+    public CasualtyDistribution getAttackerCasualties() {
+        return this.attackerCasualties;
+    }
+
+    public CasualtyDistribution getDefenderCasualties() {
+        return this.defenderCasualties;
+    }
+
+    /**
+     * Returns the half-width of the 95% interval of the attackers'
+     * expected casualties.
+     * @return double
+     */
+    public double getAttackerCasualtyMargin() {
+        return meanHalfWidth(attackerCasualties, battles);
+    }
+
+    /**
+     * Returns the half-width of the 95% interval of the defenders'
+     * expected casualties.
+     * @return double
+     */
+    public double getDefenderCasualtyMargin() {
+        return meanHalfWidth(defenderCasualties, battles);
+    }
+
+    /**
+     * Checks whether the estimate reached the requested precision
+     * before the time budget or battle limit ran out.
+     * @return boolean
+     */
+    public boolean isConverged() {
+        return this.converged;
+    }
+
+    public long getElapsedMillis() {
+        return this.elapsedMillis;
+    }
+
+    /**
+     * Returns a printable summary of the prediction.
+     * @return String
+     */
+    public String getSummary() {
+        return String.format("Attacker win probability: %.1f%% "
+                        + "(95%% CI %.1f%% - %.1f%%)%n"
+                        + "Attacker casualties: %.1f +/- %.1f%n"
+                        + "Defender casualties: %.1f +/- %.1f%n"
+                        + "%d battles in %d ms%s",
+                100 * getAttackerWinProbability(),
+                100 * getAttackerWinLower(), 100 * getAttackerWinUpper(),
+                attackerCasualties.getMean(), getAttackerCasualtyMargin(),
+                defenderCasualties.getMean(), getDefenderCasualtyMargin(),
+                battles, elapsedMillis,
+                converged ? "" : " (not converged)");
+    }
+
+    /**
+     * Returns the center of the Wilson score interval, which
+     * unlike the plain normal interval stays within [0, 1] and
+     * behaves for win rates near 0 or 1.
+     */
+    static double wilsonCenter(int successes, int trials) {
+        if (trials == 0) {
+            return 0.5;
+        }
+
+        double z2 = Z_95 * Z_95;
+        double p = (double) successes / trials;
+
+        return (p + z2 / (2 * trials)) / (1 + z2 / trials);
+    }
+
+    /**
+     * Returns the half-width of the Wilson score interval.
+     */
+    static double wilsonHalfWidth(int successes, int trials) {
+        if (trials == 0) {
+            return 0.5;
+        }
+
+        double z2 = Z_95 * Z_95;
+        double p = (double) successes / trials;
+
+        return Z_95 / (1 + z2 / trials) * Math.sqrt(
+                p * (1 - p) / trials + z2 / (4.0 * trials * trials));
+    }
+
+    /**
+     * Returns the half-width of the normal interval of a mean.
+     */
+    static double meanHalfWidth(CasualtyDistribution casualties,
+                                int trials) {
+        return trials == 0 ? 0
+                : Z_95 * casualties.getStandardDeviation()
+                / Math.sqrt(trials);
+    }
+}
@@ -0,0 +1,207 @@
+package battle.simulation;
+
+import battle.battlefield.TerrainTemplate;
+
+import java.util.Arrays;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * Predicts the outcome of a matchup before it is fought by running
+ * randomized tactical battles in parallel, in rounds, until the
+ * attackers' win probability is known to within a requested margin,
+ * the matchup's battle limit is reached, or the time budget runs out.
+ * A battle that has already started when the budget runs out is
+ * finished, so a prediction can overrun its budget by about one
+ * battle. Battle i always uses the matchup's seed for battle i, so a
+ * prediction that runs the same battles gives the same estimate.
+ */
+public class OutcomePredictor {
+    /** default time budget, short enough for a UI preview */
+    public static final long DEFAULT_BUDGET_MILLIS = 50;
+    /** default half-width of the win probability's 95% interval */
+    public static final double DEFAULT_MARGIN = 0.05;
+
+    /** battles run before the estimate may be called converged */
+    private static final int MIN_BATTLES = 32;
+    /** battles run between two convergence checks */
+    private static final int BATTLES_PER_ROUND = 64;
+    /** battles a single task runs before it stops splitting */
+    private static final int BATTLES_PER_TASK = 4;
+
+    /** pool the battles run on */
+    private final ForkJoinPool pool;
+    /** time budget of one prediction, in milliseconds */
+    private final long budgetMillis;
+    /** half-width of the win probability's 95% interval to reach */
+    private final double margin;
+
+    /**
+     * Creates an OutcomePredictor object running on the common pool
+     * with the default time budget and margin.
+     */
+    public OutcomePredictor() {
+        this(ForkJoinPool.commonPool(), DEFAULT_BUDGET_MILLIS,
+                DEFAULT_MARGIN);
+    }
+
+    /**
+     * Creates an OutcomePredictor object.
+     * @param pool, pool the battles run on
+     * @param budgetMillis, time budget of one prediction
+     * @param margin, half-width of the win probability's 95%
+     *                interval at which to stop early
+     */
+    public OutcomePredictor(ForkJoinPool pool, long budgetMillis,
+                            double margin) {
+        this.pool = pool;
+        this.budgetMillis = budgetMillis;
+        this.margin = margin;
+    }
+
+    /**
+     * Predicts a matchup on open plains of the matchup's map size.
+     * @param spec, the matchup, whose battle count is the most
+     *              battles the prediction will run
+     * @return OutcomePrediction
+     */
+    public OutcomePrediction predict(MatchupSpec spec) {
+        return predict(spec, BatchSimulator.plains(spec.getMapSize()));
+    }
+
+    /**
+     * Predicts a matchup on the given terrain.
+     * @param spec, the matchup, whose battle count is the most
+     *              battles the prediction will run
+     * @param terrain, the map the battles are fought on
+     * @return OutcomePrediction
+     */
+    public OutcomePrediction predict(MatchupSpec spec,
+                                     TerrainTemplate terrain) {
+        long start = System.nanoTime();
+        long deadline = start + budgetMillis * 1_000_000;
+
+        int maxBattles = spec.getBattles();
+
+        // per-battle results, each written by exactly one task;
+        // battles skipped because of the deadline are never marked
+        // as finished
+        boolean[] finished = new boolean[maxBattles];
+        byte[] winners = new byte[maxBattles];
+        int[] attackerCasualties = new int[maxBattles];
+        int[] defenderCasualties = new int[maxBattles];
+
+        int battles = 0;
+        int attackerWins = 0;
+        int draws = 0;
+        boolean converged = false;
+
+        for (int from = 0; from < maxBattles && !converged;
+             from += BATTLES_PER_ROUND) {
+            int to = Math.min(maxBattles, from + BATTLES_PER_ROUND);
+
+            pool.invoke(new PredictionRange(spec, terrain, deadline,
+                    finished, winners, attackerCasualties,
+                    defenderCasualties, from, to));
+
+            // packs the finished battles of the round behind the
+            // ones before it
+            boolean skipped = false;
+
+            for (int i = from; i < to; i++) {
+                if (!finished[i]) {
+                    skipped = true;
+                    continue;
+                }
+
+                if (winners[i] == BattleOutcome.Winner.ATTACKER.ordinal()) {
+                    attackerWins++;
+                } else if (winners[i] == BattleOutcome.Winner.DRAW.ordinal()) {
+                    draws++;
+                }
+
+                attackerCasualties[battles] = attackerCasualties[i];
+                defenderCasualties[battles] = defenderCasualties[i];
+                battles++;
+            }
+
+            converged = battles >= MIN_BATTLES
+                    && OutcomePrediction.wilsonHalfWidth(attackerWins,
+                    battles) <= margin;
+
+            if (skipped || System.nanoTime() >= deadline) {
+                break;
+            }
+        }
+
+        return new OutcomePrediction(battles, attackerWins, draws,
+                new CasualtyDistribution(
+                        Arrays.copyOf(attackerCasualties, battles)),
+                new CasualtyDistribution(
+                        Arrays.copyOf(defenderCasualties, battles)),
+                converged, (System.nanoTime() - start) / 1_000_000);
+    }
+
+    /**
+     * Fork-join task running the battles in [from, to) that can
+     * still start before the deadline, split in halves until small
+     * enough to run directly.
+     */
+    private static class PredictionRange extends RecursiveAction {
+        private static final long serialVersionUID = 1L;
+
+        private final MatchupSpec spec;
+        private final TerrainTemplate terrain;
+        private final long deadline;
+        private final boolean[] finished;
+        private final byte[] winners;
+        private final int[] attackerCasualties;
+        private final int[] defenderCasualties;
+        private final int from;
+        private final int to;
+
+        PredictionRange(MatchupSpec spec, TerrainTemplate terrain,
+                        long deadline, boolean[] finished,
+                        byte[] winners, int[] attackerCasualties,
+                        int[] defenderCasualties, int from, int to) {
+            this.spec = spec;
+            this.terrain = terrain;
+            this.deadline = deadline;
+            this.finished = finished;
+            this.winners = winners;
+            this.attackerCasualties = attackerCasualties;
+            this.defenderCasualties = defenderCasualties;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from <= BATTLES_PER_TASK) {
+                for (int i = from; i < to; i++) {
+                    if (System.nanoTime() >= deadline) {
+                        return;
+                    }
+
+                    BattleOutcome outcome =
+                            BatchSimulator.runBattle(spec, terrain, i);
+
+                    winners[i] = (byte) outcome.getWinner().ordinal();
+                    attackerCasualties[i] = outcome.getAttackerCasualties();
+                    defenderCasualties[i] = outcome.getDefenderCasualties();
+                    finished[i] = true;
+                }
+                return;
+            }
+
+            int mid = (from + to) >>> 1;
+
+            invokeAll(new PredictionRange(spec, terrain, deadline,
+                            finished, winners, attackerCasualties,
+                            defenderCasualties, from, mid),
+                    new PredictionRange(spec, terrain, deadline,
+                            finished, winners, attackerCasualties,
+                            defenderCasualties, mid, to));
+        }
+    }
+}
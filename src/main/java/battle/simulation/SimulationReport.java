@@ -0,0 +1,120 @@
+package battle.simulation;
+
+/**
+ * Aggregated results of a batch of simulated battles.
+ */
+public class SimulationReport {
+    /** number of battles run */
+    private final int battles;
+    private final int attackerWins;
+    private final int defenderWins;
+    private final int draws;
+    /** casualties of the attacking army over every battle */
+    private final CasualtyDistribution attackerCasualties;
+    /** casualties of the defending army over every battle */
+    private final CasualtyDistribution defenderCasualties;
+    /** wall-clock time the batch took, in milliseconds */
+    private final long elapsedMillis;
+
+    /**
+     * Creates a SimulationReport object.
+     */
+    public SimulationReport(int battles, int attackerWins,
+                            int defenderWins, int draws,
+                            CasualtyDistribution attackerCasualties,
+                            CasualtyDistribution defenderCasualties,
+                            long elapsedMillis) {
+        this.battles = battles;
+        this.attackerWins = attackerWins;
+        this.defenderWins = defenderWins;
+        this.draws = draws;
+        this.attackerCasualties = attackerCasualties;
+        this.defenderCasualties = defenderCasualties;
+        this.elapsedMillis = elapsedMillis;
+    }
+
+    public int getBattles() {
+        return this.battles;
+    }
+
+    public int getAttackerWins() {
+        return this.attackerWins;
+    }
+
+    public int getDefenderWins() {
+        return this.defenderWins;
+    }
+
+    public int getDraws() {
+        return this.draws;
+    }
+
+    /**
+     * Returns the fraction of battles the attackers won.
+     * @return double
+     */
+    public double getAttackerWinRate() {
+        return battles == 0 ? 0 : (double) attackerWins / battles;
+    }
+
+    /**
+     * Returns the fraction of battles the defenders won.
+     * @return double
+     */
+    public double getDefenderWinRate() {
+        return battles == 0 ? 0 : (double) defenderWins / battles;
+    }
+
+    public CasualtyDistribution getAttackerCasualties() {
+        return this.attackerCasualties;
+    }
+
+    public CasualtyDistribution getDefenderCasualties() {
+        return this.defenderCasualties;
+    }
+
+    public long getElapsedMillis() {
+        return this.elapsedMillis;
+    }
+
+    /**
+     * Condenses the report into a string.
+     * @return String
+     */
+    public String getSummary() {
+        StringBuilder s = new StringBuilder();
+        s.append("Battles: ");
+        s.append(battles);
+        s.append(" (");
+        s.append(elapsedMillis);
+        s.append(" ms)\nAttacker win rate: ");
+        s.append(String.format("%.4f", getAttackerWinRate()));
+        s.append("\nDefender win rate: ");
+        s.append(String.format("%.4f", getDefenderWinRate()));
+        s.append("\nDraws: ");
+        s.append(draws);
+        appendCasualties(s, "Attacker", attackerCasualties);
+        appendCasualties(s, "Defender", defenderCasualties);
+        return s.toString();
+    }
+
+    private static void appendCasualties(StringBuilder s, String side,
+                                         CasualtyDistribution c) {
+        s.append("\n");
+        s.append(side);
+        s.append(" casualties: mean ");
+        s.append(String.format("%.1f", c.getMean()));
+        s.append(", sd ");
+        s.append(String.format("%.1f", c.getStandardDeviation()));
+        s.append(", min/p10/median/p90/max ");
+        s.append(c.getMin());
+        s.append("/");
+        s.append(c.getP10());
+        s.append("/");
+        s.append(c.getMedian());
+        s.append("/");
+        s.append(c.getP90());
+        s.append("/");
+        s.append(c.getMax());
+    }
+}
@@ -0,0 +1,392 @@
+package battle.simulation;
+
+import battle.battlefield.BattleHandler;
+import battle.battlefield.BattleLog;
+import battle.battlefield.Battlefield;
+import battle.interfaces.Area;
+import battle.interfaces.Unit;
+import calculations.BattleRandom;
+import calculations.GridCalculations;
+import testing.unittesting.StateType;
+
+/**
+ * Plays out one full battle between two armies on a Battlefield
+ * without any user input. The armies deploy on opposite edges of
+ * the map and take turns; on its turn every unit advances on the
+ * nearest enemy and attacks it once it is in range. Every unit
+ * interaction goes through BattleHandler, so simulated battles
+ * follow exactly the same rules as played ones.
+ */
+public class TacticalBattle {
+    /** area of a unit that is destroyed or was never deployed */
+    private static final int NO_AREA = -1;
+
+    private final Battlefield battlefield;
+    private final BattleHandler handler;
+
+    private final Unit[] attackers;
+    private final Unit[] defenders;
+    /** area each attacker stands in */
+    private final int[] attackerIDs;
+    /** area each defender stands in */
+    private final int[] defenderIDs;
+
+    /** movement points each unit gets per turn */
+    private final int maxMovement;
+    /** log the battle is recorded in, or null */
+    private BattleLog log;
+
+    /** number of soldiers each army started with */
+    private final int attackerStart;
+    private final int defenderStart;
+
+    /**
+     * Creates a TacticalBattle object and deploys both armies,
+     * attackers along the top edge of the map and defenders along
+     * the bottom edge, in seeded random column order. The same
+     * seed always plays out the same battle.
+     * @param attackers, units of the attacking army
+     * @param defenders, units of the defending army
+     * @param battlefield, an empty battlefield with terrain set
+     * @param maxAmmo, ammunition each ranged unit starts with
+     * @param maxMovement, movement points per unit per turn
+     * @param seed, seed of the battle
+     */
+    public TacticalBattle(Unit[] attackers, Unit[] defenders,
+                          Battlefield battlefield, int maxAmmo,
+                          int maxMovement, long seed) {
+        this.battlefield = battlefield;
+        this.attackers = attackers;
+        this.defenders = defenders;
+        this.maxMovement = maxMovement;
+
+        // deployment and combat draw from separate streams of
+        // the battle's seed
+        BattleRandom random = new BattleRandom(seed);
+
+        this.handler = new BattleHandler(attackers, defenders, maxAmmo,
+                maxMovement, 0, random.split());
+
+        this.attackerIDs = new int[attackers.length];
+        this.defenderIDs = new int[defenders.length];
+
+        int n = battlefield.getRowCount();
+
+        deploy(attackers, attackerIDs, 0, 1, random);
+        deploy(defenders, defenderIDs, n - 1, -1, random);
+
+        this.attackerStart = countSoldiers(attackers, attackerIDs);
+        this.defenderStart = countSoldiers(defenders, defenderIDs);
+    }
+
+    /**
+     * Plays the battle until one army is destroyed or the turn
+     * limit is reached. Attackers move first.
+     * @param maxTurns, turns before the battle is called a draw
+     * @return BattleOutcome
+     */
+    public BattleOutcome run(int maxTurns) {
+        int turn = 0;
+
+        while (turn < maxTurns && isAlive(attackerIDs)
+                && isAlive(defenderIDs)) {
+            if (log != null) {
+                log.beginTurn(turn);
+            }
+
+            if (turn % 2 == 0) {
+                takeTurn(true);
+            } else {
+                takeTurn(false);
+            }
+
+            turn++;
+        }
+
+        BattleOutcome.Winner winner = BattleOutcome.Winner.DRAW;
+
+        if (!isAlive(defenderIDs)) {
+            winner = BattleOutcome.Winner.ATTACKER;
+        } else if (!isAlive(attackerIDs)) {
+            winner = BattleOutcome.Winner.DEFENDER;
+        }
+
+        return new BattleOutcome(winner, turn,
+                attackerStart - countSoldiers(attackers, attackerIDs),
+                defenderStart - countSoldiers(defenders, defenderIDs));
+    }
+
+    /**
+     * Starts recording the battle, from its current state, into
+     * a new BattleLog.
+     * @param snapshotInterval, turns between two snapshots
+     * @return BattleLog
+     */
+    public BattleLog startLog(int snapshotInterval) {
+        log = new BattleLog(handler, battlefield, snapshotInterval);
+        return log;
+    }
+
+    /**
+     * Returns the handler the battle is fought through.
+     * @return BattleHandler
+     */
+    public BattleHandler getHandler() {
+        return handler;
+    }
+
+    /**
+     * Returns the battlefield the battle is fought on.
+     * @return Battlefield
+     */
+    public Battlefield getBattlefield() {
+        return battlefield;
+    }
+
+    /**
+     * Lets every unit of one side advance on its nearest enemy
+     * and attack it if it gets within range.
+     * @param isAttacker, true for the attacking side
+     */
+    private void takeTurn(boolean isAttacker) {
+        Unit[] units = isAttacker ? attackers : defenders;
+        int[] ids = isAttacker ? attackerIDs : defenderIDs;
+        int[] enemyIDs = isAttacker ? defenderIDs : attackerIDs;
+
+        handler.resetMovement(isAttacker, maxMovement);
+
+        for (int i = 0; i < units.length; i++) {
+            if (ids[i] == NO_AREA) {
+                continue;
+            }
+
+            int target = nearest(ids[i], enemyIDs);
+
+            // no enemies are left to fight
+            if (target == NO_AREA) {
+                return;
+            }
+
+            // moves toward the target, counting the steps taken
+            // so that a charge deals its bonus damage
+            int steps = 0;
+
+            while (!handler.isInRange(ids[i], enemyIDs[target],
+                    battlefield)) {
+                int next = stepToward(units[i], ids[i],
+                        enemyIDs[target]);
+
+                if (next == NO_AREA) {
+                    break;
+                }
+
+                ids[i] = next;
+                steps++;
+            }
+
+            if (!handler.isInRange(ids[i], enemyIDs[target],
+                    battlefield)) {
+                continue;
+            }
+
+            StateType result = handler.fightTwoUnits(ids[i],
+                    enemyIDs[target], battlefield, steps);
+
+            if (StateType.checkIfDestroy(result)) {
+                enemyIDs[target] = NO_AREA;
+            }
+        }
+    }
+
+    /**
+     * Moves a unit one area closer to a target area, returning
+     * the new area, or NO_AREA if the unit cannot get closer or
+     * has too few movement points left.
+     * @param unit, the moving unit
+     * @param from, area the unit stands in
+     * @param target, area the unit moves toward
+     * @return int
+     */
+    private int stepToward(Unit unit, int from, int target) {
+        int n = battlefield.getRowCount();
+        int row = GridCalculations.getRow(from, n);
+        int col = GridCalculations.getCol(from, row, n);
+        int targetRow = GridCalculations.getRow(target, n);
+        int targetCol = GridCalculations.getCol(target, targetRow, n);
+
+        int best = NO_AREA;
+        int bestDist = distanceSquared(row, col, targetRow, targetCol);
+
+        // picks the free neighboring area closest to the target
+        for (int dRow = -1; dRow <= 1; dRow++) {
+            for (int dCol = -1; dCol <= 1; dCol++) {
+                int r = row + dRow;
+                int c = col + dCol;
+
+                if (r < 0 || r >= n || c < 0 || c >= n) {
+                    continue;
+                }
+
+                int id = GridCalculations.getID(r, c, n);
+                int dist = distanceSquared(r, c, targetRow, targetCol);
+
+                if (dist < bestDist && isFree(id)) {
+                    best = id;
+                    bestDist = dist;
+                }
+            }
+        }
+
+        if (best == NO_AREA) {
+            return NO_AREA;
+        }
+
+        // pays for the step before taking it
+        if (StateType.checkIfFailure(handler.handleMovement(unit,
+                unit.getMovementCost()))) {
+            return NO_AREA;
+        }
+
+        battlefield.moveUnit(from, best);
+        return best;
+    }
+
+    /**
+     * Checks if a unit can move into an area.
+     * @param id of the area
+     * @return boolean
+     */
+    private boolean isFree(int id) {
+        Area area = battlefield.getArea(id);
+        return battlefield.getUnit(id) == null && area != null
+                && area.isOpen();
+    }
+
+    /**
+     * Returns the index of the enemy closest to an area, or
+     * NO_AREA if every enemy is destroyed.
+     * @param from, area distances are measured from
+     * @param enemyIDs, areas of the enemy units
+     * @return int
+     */
+    private int nearest(int from, int[] enemyIDs) {
+        int n = battlefield.getRowCount();
+        int row = GridCalculations.getRow(from, n);
+        int col = GridCalculations.getCol(from, row, n);
+
+        int best = NO_AREA;
+        int bestDist = Integer.MAX_VALUE;
+
+        for (int i = 0; i < enemyIDs.length; i++) {
+            if (enemyIDs[i] == NO_AREA) {
+                continue;
+            }
+
+            int r = GridCalculations.getRow(enemyIDs[i], n);
+            int c = GridCalculations.getCol(enemyIDs[i], r, n);
+            int dist = distanceSquared(row, col, r, c);
+
+            if (dist < bestDist) {
+                best = i;
+                bestDist = dist;
+            }
+        }
+
+        return best;
+    }
+
+    /**
+     * Places an army along one edge of the map, filling further
+     * rows toward the center once an edge row is full.
+     * @param units, the army
+     * @param ids, filled with the area of each unit
+     * @param firstRow, row of the map edge
+     * @param direction, 1 to fill downward, -1 to fill upward
+     * @param random, source of the column order
+     */
+    private void deploy(Unit[] units, int[] ids, int firstRow,
+                        int direction, BattleRandom random) {
+        int n = battlefield.getRowCount();
+        int[] columns = new int[n];
+
+        for (int c = 0; c < n; c++) {
+            columns[c] = c;
+        }
+
+        int placed = 0;
+
+        for (int i = 0; i < units.length; i++) {
+            if (units[i] == null) {
+                ids[i] = NO_AREA;
+                continue;
+            }
+
+            int rowIndex = placed / n;
+            int slot = placed % n;
+
+            if (rowIndex >= n / 2) {
+                throw new IllegalArgumentException("Error: army does " +
+                        "not fit on its half of the map");
+            }
+
+            // shuffles the columns each time a new row is started
+            if (slot == 0) {
+                shuffle(columns, random);
+            }
+
+            int id = GridCalculations.getID(
+                    firstRow + direction * rowIndex, columns[slot], n);
+
+            battlefield.placeUnit(id, units[i]);
+            ids[i] = id;
+            placed++;
+        }
+    }
+
+    /**
+     * Shuffles an array in place (Fisher-Yates).
+     */
+    private static void shuffle(int[] values, BattleRandom random) {
+        for (int i = values.length - 1; i > 0; i--) {
+            int j = random.nextInt(i + 1);
+            int temp = values[i];
+            values[i] = values[j];
+            values[j] = temp;
+        }
+    }
+
+    /**
+     * Checks if any unit of an army is still on the battlefield.
+     */
+    private static boolean isAlive(int[] ids) {
+        for (int id : ids) {
+            if (id != NO_AREA) {
+                return true;
+            }
+        }
+
+        return false;
+    }
+
+    /**
+     * Sums the soldiers of the units of an army still standing.
+     */
+    private static int countSoldiers(Unit[] units, int[] ids) {
+        int total = 0;
+
+        for (int i = 0; i < units.length; i++) {
+            if (ids[i] != NO_AREA) {
+                total += units[i].getNumber();
+            }
+        }
+
+        return total;
+    }
+
+    private static int distanceSquared(int row1, int col1,
+                                       int row2, int col2) {
+        int dRow = row1 - row2;
+        int dCol = col1 - col2;
+        return dRow * dRow + dCol * dCol;
+    }
+}
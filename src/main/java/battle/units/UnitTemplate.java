@@ -0,0 +1,103 @@
+package battle.units;
+
+/**
+ * The fixed stats of a kind of unit (name, soldier limit, cost,
+ * damage, armor, movement, range, and special ability bonus).
+ * A template never changes, so every unit fielded from it shares
+ * the one object and only holds its own number of soldiers and
+ * ability state.
+ */
+public final class UnitTemplate {
+    /** name of the unit (i.e. hoplites, horse archers). */
+    private final String name;
+    /** maximum possible number of soldiers in the unit. */
+    private final int limit;
+    /** cost of buying a new unit. */
+    private final int unitCost;
+    /** amount of melee damage the unit deals. */
+    private final int meleeDamage;
+    /** maximum amount of ranged damage the unit deals
+     *  (0 for melee units). */
+    private final int rangedDamage;
+    /** amount of armor the unit has (lowers damage inflicted by
+     *  a constant amount). */
+    private final int armor;
+    /** movement cost for moving one space on the battle board. */
+    private final int movementCost;
+    /** number of diagonal squares that make up range of unit
+     *  (1 for melee units). */
+    private final int rangeFactor;
+    /** value of the unit's special ability, whose meaning depends
+     *  on the unit class (i.e. a defense, attack, or movement
+     *  bonus). */
+    private final double abilityBonus;
+
+    /**
+     * Creates a UnitTemplate object.
+     * @param name is the name of the unit
+     * @param limit is the maximum possible number of soldiers
+     * @param unitCost is the cost of the unit
+     * @param meleeDamage is the melee damage inflicted on enemy
+     *                    units
+     * @param rangedDamage is the maximum possible ranged damage
+     *                     inflicted on enemy units
+     * @param armor is the natural defense of the unit
+     * @param movementCost is how many movement points are
+     *                     required to move a unit from one space to
+     *                     another
+     * @param rangeFactor is how many diagonal squares make up the
+     *                    range of the unit
+     * @param abilityBonus is the value of the special ability
+     */
+    public UnitTemplate(final String name, final int limit,
+                        final int unitCost, final int meleeDamage,
+                        final int rangedDamage, final int armor,
+                        final int movementCost, final int rangeFactor,
+                        final double abilityBonus) {
+        this.name = name;
+        this.limit = limit;
+        this.unitCost = unitCost;
+        this.meleeDamage = meleeDamage;
+        this.rangedDamage = rangedDamage;
+        this.armor = armor;
+        this.movementCost = movementCost;
+        this.rangeFactor = rangeFactor;
+        this.abilityBonus = abilityBonus;
+    }
+
+    public String getName() {
+        return this.name;
+    }
+
+    public int getLimit() {
+        return this.limit;
+    }
+
+    public int getUnitCost() {
+        return this.unitCost;
+    }
+
+    public int getMeleeDamage() {
+        return this.meleeDamage;
+    }
+
+    public int getRangedDamage() {
+        return this.rangedDamage;
+    }
+
+    public int getArmor() {
+        return this.armor;
+    }
+
+    public int getMovementCost() {
+        return this.movementCost;
+    }
+
+    public int getRangeFactor() {
+        return this.rangeFactor;
+    }
+
+    public double getAbilityBonus() {
+        return this.abilityBonus;
+    }
+}
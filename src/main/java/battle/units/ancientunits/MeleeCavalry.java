@@ -1,60 +1,46 @@
 package battle.units.ancientunits;
 
+import enumerators.FailureReason;
 import battle.interfaces.Unit;
+import battle.units.UnitTemplate;
+import calculations.BattleRandom;
 import testing.unittesting.StateType;
 
 public class MeleeCavalry implements Unit {
-    /** name of the melee cavalry unit (i.e. lancers, cataphracts). */
-    private String name;
+    /** stats shared by every unit made from the same template; its
+     *  ability bonus is the percentage of the movement cost the
+     *  unit pays while its special ability is activated. */
+    private final UnitTemplate template;
     /** number of soldiers in melee cavalry unit. */
     private int number;
-    /** maximum possible number of soldiers in the unit. */
-    private int limit;
-    /** cost of buying this new unit. */
-    private int unitCost;
-
-    /** amount of melee damage the unit deals
-     (no ranged damage for melee unit). */
-    private int meleeDamage;
-    /** amount of armor the unit has (lowers damage inflicted by a constant
-     *  amount). */
-    private int armor;
-
-    /** movement cost for moving one space on the battle board. */
-    private int movementCost;
-    /** how much defense the special ability provides, as
-     *  a percentage of how much attack damage is reduced. */
-    private double movementBonus;
     /** boolean checking whether or not the unit's special ability
      * is activated. */
     private boolean isActivated;
 
     public MeleeCavalry() {
-        this.name = null;
-        this.number = 0;
-        this.limit = 0;
-        this.unitCost = 0;
-        this.meleeDamage = 0;
-        this.armor = 0;
-        this.movementCost = 0;
-        this.movementBonus = 0;
+        this(new UnitTemplate(null, 0, 0, 0, 0, 0, 0, 0, 0));
     }
 
     public MeleeCavalry(final String name, final int limit, final int unitCost,
                         final int meleeDamage, final int armor,
                         final int movementCost, final double movementBonus) {
-        this.name = name;
-        this.limit = limit;
-        this.number = limit;
-        this.unitCost = unitCost;
-        this.meleeDamage = meleeDamage;
-        this.armor = armor;
-        this.movementCost = movementCost;
-        this.movementBonus = movementBonus;
+        this(new UnitTemplate(name, limit, unitCost, meleeDamage, 0,
+                armor, movementCost, 1, movementBonus));
+    }
+
+    /**
+     * Constructs a new MeleeCavalry object at full strength from a
+     * template.
+     * @param template holds the stats of the unit
+     */
+    public MeleeCavalry(final UnitTemplate template) {
+        this.template = template;
+        this.number = template.getLimit();
+        this.isActivated = false;
     }
 
     public String getUnitName() {
-        return this.name;
+        return this.template.getName();
     }
 
     public int getNumber() {
@@ -66,19 +52,19 @@ public class MeleeCavalry implements Unit {
     }
 
     public int getLimit() {
-        return this.limit;
+        return this.template.getLimit();
     }
 
     public int getUnitCost() {
-        return this.unitCost;
+        return this.template.getUnitCost();
     }
 
     public int getArmor() {
-        return this.armor;
+        return this.template.getArmor();
     }
 
     public int getMeleeDamage() {
-        return this.meleeDamage;
+        return this.template.getMeleeDamage();
     }
     
     public int getRangedDamage() {
@@ -87,9 +73,10 @@ public class MeleeCavalry implements Unit {
 
     public int getMovementCost() {
         if (isActivated) {
-            return (int) (movementCost * movementBonus);
+            return (int) (this.template.getMovementCost()
+                    * this.template.getAbilityBonus());
         } else {
-            return movementCost;
+            return this.template.getMovementCost();
         }
     }
 
@@ -99,16 +86,16 @@ public class MeleeCavalry implements Unit {
 
     public String getUnitSummary() {
         StringBuilder s = new StringBuilder();
-        s.append(this.name);
+        s.append(this.template.getName());
         s.append("\n");
         s.append(this.number);
         s.append(" \\ ");
-        s.append(this.limit);
+        s.append(this.template.getLimit());
         s.append("\n");
         s.append("Melee Damage: ");
-        s.append(this.meleeDamage);
+        s.append(this.template.getMeleeDamage());
         s.append("\nArmor: ");
-        s.append(this.armor);
+        s.append(this.template.getArmor());
         if (this.isActivated) {
             s.append("\nAbility active");
         } else {
@@ -120,45 +107,50 @@ public class MeleeCavalry implements Unit {
     public StateType damageUnit(int damage) {
         // checks whether parameter is invalid
         if (damage < 0) {
-            return StateType.returnFailure("Error: damage parameter invalid");
+            return StateType.returnFailure(FailureReason.INVALID_DAMAGE);
         }
 
-        int finalDamage = damage - this.armor;
+        int finalDamage = damage - this.template.getArmor();
 
         // if armor is sufficient enough to block attack
         // completely, then the unit is undamaged
         if (finalDamage <= 0) {
-            return StateType.returnSuccess(null);
+            return StateType.SUCCESS;
         }
 
         // subtracts unit number by the final damage inflicted
         this.number -= finalDamage;
 
         if (this.number <= 0) {
-            return StateType.returnDestroy("Note: Unit has been destroyed");
+            return StateType.DESTROY;
         }
 
         // method success
-        return StateType.returnSuccess(null);
+        return StateType.SUCCESS;
     }
 
     public StateType attackWithRange(Unit unit, double areaBonus) {
-        return StateType.returnSuccess(null);
+        return StateType.SUCCESS;
+    }
+
+    public StateType attackWithRange(Unit unit, double areaBonus,
+                                     BattleRandom random) {
+        return StateType.SUCCESS;
     }
 
     public StateType attackWithMelee(Unit unit, double areaBonus) {
         // validates parameters
         if (unit == null) {
-            return StateType.returnFailure("Error: null unit param");
+            return StateType.returnFailure(FailureReason.NULL_UNIT);
         }
 
         if (areaBonus < 0 || areaBonus > 1) {
-            return StateType.returnFailure("Error: invalid area param");
+            return StateType.returnFailure(FailureReason.INVALID_AREA_BONUS);
         }
 
         // computes the damage after taking into account terrain
         // defenses
-        double damage = this.meleeDamage * areaBonus;
+        double damage = this.template.getMeleeDamage() * areaBonus;
 
         // lowers the enemy unit by a certain amount of damage or
         // more, depending on if other unit has defense bonus
@@ -182,7 +174,7 @@ public class MeleeCavalry implements Unit {
     }
 
     public void refill() {
-        this.number = this.limit;
+        this.number = this.template.getLimit();
     }
 
     public UnitType getUnitType() {
@@ -190,17 +182,18 @@ public class MeleeCavalry implements Unit {
     }
 
     public Unit copyUnit() {
-        MeleeCavalry copy = new MeleeCavalry();
+        MeleeCavalry copy = new MeleeCavalry(this.template);
 
-        copy.name = this.name;
         copy.number = this.number;
-        copy.limit = this.limit;
-        copy.unitCost = this.unitCost;
-        copy.meleeDamage = this.meleeDamage;
-        copy.armor = this.armor;
-        copy.movementCost = this.movementCost;
-        copy.movementBonus = this.movementBonus;
 
         return copy;
     }
+
+    /**
+     * Returns the template holding the stats of the unit.
+     * @return template
+     */
+    public UnitTemplate getTemplate() {
+        return this.template;
+    }
 }
@@ -1,70 +1,47 @@
 package battle.units.ancientunits;
 
+import enumerators.FailureReason;
 import battle.interfaces.Unit;
+import battle.units.UnitTemplate;
+import calculations.BattleRandom;
 import testing.unittesting.StateType;
 
-import java.util.Random;
-
 public class SkirmisherCavalry implements Unit {
-    /** name of the skirmisher cavalry unit (i.e. skirmisher cavalry, horse archers). */
-    private String name;
+    /** stats shared by every unit made from the same template; its
+     *  ability bonus is the percentage of the movement cost the
+     *  unit pays while its special ability is activated. */
+    private final UnitTemplate template;
     /** number of soldiers in skirmisher cavalry unit. */
     private int number;
-    /** maximum possible number of soldiers in the unit. */
-    private int limit;
-    /** cost of buying this new unit. */
-    private int unitCost;
-
-    /** amount of melee damage the unit deals */
-    private int meleeDamage;
-    /** maximum amount of ranged damage the unit deals. */
-    private int rangedDamage;
-    /** amount of armor the unit has (lowers damage inflicted by a constant
-     *  amount). */
-    private int armor;
-    /** movement cost for moving one space on the battle board. */
-    private int movementCost;
-
-    /** number of diagonal squares that make up range of unit. */
-    private int rangeFactor;
-    /** how much defense the special ability provides, as
-     *  a percentage of how much attack damage is reduced. */
-    private double movementBonus;
     /** boolean checking whether or not the unit's special ability
      * is activated. */
     private boolean isActivated;
 
     public SkirmisherCavalry() {
-        this.name = null;
-        this.limit = 0;
-        this.number = 0;
-        this.unitCost = 0;
-        this.meleeDamage = 0;
-        this.rangedDamage = 0;
-        this.armor = 0;
-        this.movementCost = 0;
-        this.rangeFactor = 0;
-        this.movementBonus = 0;
+        this(new UnitTemplate(null, 0, 0, 0, 0, 0, 0, 0, 0));
     }
 
     public SkirmisherCavalry(final String name, final int limit, final int unitCost,
                  final int meleeDamage, final int rangedDamage, final int armor,
                  final int movementCost, final int rangeFactor,
                  final double movementBonus) {
-        this.name = name;
-        this.limit = limit;
-        this.number = limit;
-        this.unitCost = unitCost;
-        this.meleeDamage = meleeDamage;
-        this.rangedDamage = rangedDamage;
-        this.armor = armor;
-        this.movementCost = movementCost;
-        this.rangeFactor = rangeFactor;
-        this.movementBonus = movementBonus;
+        this(new UnitTemplate(name, limit, unitCost, meleeDamage, rangedDamage,
+                armor, movementCost, rangeFactor, movementBonus));
+    }
+
+    /**
+     * Constructs a new SkirmisherCavalry object at full strength from a
+     * template.
+     * @param template holds the stats of the unit
+     */
+    public SkirmisherCavalry(final UnitTemplate template) {
+        this.template = template;
+        this.number = template.getLimit();
+        this.isActivated = false;
     }
 
     public String getUnitName() {
-        return this.name;
+        return this.template.getName();
     }
 
     public int getNumber() {
@@ -76,53 +53,54 @@ public class SkirmisherCavalry implements Unit {
     }
 
     public int getLimit() {
-        return this.limit;
+        return this.template.getLimit();
     }
 
     public int getUnitCost() {
-        return this.unitCost;
+        return this.template.getUnitCost();
     }
 
     public int getArmor() {
-        return this.armor;
+        return this.template.getArmor();
     }
 
     public int getMeleeDamage() {
-        return this.meleeDamage;
+        return this.template.getMeleeDamage();
     }
 
     public int getRangedDamage() {
-        return this.rangedDamage;
+        return this.template.getRangedDamage();
     }
 
     public int getMovementCost() {
         // reduces movement cost to certain percentage (movementBonus),
         // allowing skirmisher cavalry unit to travel more distance
         if (this.isActivated) {
-            return (int) this.movementBonus * this.movementCost;
+            return (int) this.template.getAbilityBonus()
+                    * this.template.getMovementCost();
         }
 
-        return this.movementCost;
+        return this.template.getMovementCost();
     }
 
     public int getRangeFactor() {
-        return this.rangeFactor;
+        return this.template.getRangeFactor();
     }
 
     public String getUnitSummary() {
         StringBuilder s = new StringBuilder();
-        s.append(this.name);
+        s.append(this.template.getName());
         s.append("\n");
         s.append(this.number);
         s.append(" \\ ");
-        s.append(this.limit);
+        s.append(this.template.getLimit());
         s.append("\n");
         s.append("Melee Damage: ");
-        s.append(this.meleeDamage);
+        s.append(this.template.getMeleeDamage());
         s.append("\nRanged Damage: ");
-        s.append(this.rangedDamage);
+        s.append(this.template.getRangedDamage());
         s.append("\nArmor: ");
-        s.append(this.armor);
+        s.append(this.template.getArmor());
         if (this.isActivated) {
             s.append("\nAbility active");
         } else {
@@ -134,42 +112,46 @@ public class SkirmisherCavalry implements Unit {
     public StateType damageUnit(int damage) {
         // checks whether parameter is invalid
         if (damage < 0) {
-            return StateType.returnFailure("Error: damage parameter invalid");
+            return StateType.returnFailure(FailureReason.INVALID_DAMAGE);
         }
 
-        int finalDamage = damage - this.armor;
+        int finalDamage = damage - this.template.getArmor();
 
         // if armor is sufficient enough to block attack
         // completely, then the unit is undamaged
         if (finalDamage <= 0) {
-            return StateType.returnSuccess(null);
+            return StateType.SUCCESS;
         }
 
         // subtracts unit number by the final damage inflicted
         this.number -= finalDamage;
 
         if (this.number <= 0) {
-            return StateType.returnDestroy("Note: Unit has been destroyed");
+            return StateType.DESTROY;
         }
 
         // method success
-        return StateType.returnSuccess(null);
+        return StateType.SUCCESS;
     }
 
     public StateType attackWithRange(Unit unit, double areaBonus) {
+        return attackWithRange(unit, areaBonus, BattleRandom.current());
+    }
+
+    public StateType attackWithRange(Unit unit, double areaBonus,
+                                     BattleRandom random) {
         // validating parameters
         if (unit == null) {
-            return StateType.returnFailure("Error: null unit param");
+            return StateType.returnFailure(FailureReason.NULL_UNIT);
         }
 
         if (areaBonus < 0 || areaBonus > 1) {
-            return StateType.returnFailure("Error: invalid area param");
+            return StateType.returnFailure(FailureReason.INVALID_AREA_BONUS);
         }
 
         // calculates damage inflicted on enemy
-        // based on range of possible damages and Java's Random type
-        Random random = new Random();
-        double damage = random.nextInt(this.rangedDamage);
+        // based on range of possible damages and the battle's generator
+        double damage = random.nextInt(this.template.getRangedDamage());
 
         // applies area bonus of unit to reduce damage
         damage *= areaBonus;
@@ -181,16 +163,16 @@ public class SkirmisherCavalry implements Unit {
     public StateType attackWithMelee(Unit unit, double areaBonus) {
         // validating parameters
         if (unit == null) {
-            return StateType.returnFailure("Error: null unit param");
+            return StateType.returnFailure(FailureReason.NULL_UNIT);
         }
 
         if (areaBonus < 0 || areaBonus > 1) {
-            return StateType.returnFailure("Error: invalid area param");
+            return StateType.returnFailure(FailureReason.INVALID_AREA_BONUS);
         }
 
         // computes the damage after taking into account terrain
         // defenses
-        double damage = this.meleeDamage * areaBonus;
+        double damage = this.template.getMeleeDamage() * areaBonus;
 
         // lowers the enemy unit by a certain amount of damage or
         // more, depending on if other unit has defense bonus
@@ -214,7 +196,7 @@ public class SkirmisherCavalry implements Unit {
     }
 
     public void refill() {
-        this.number = this.limit;
+        this.number = this.template.getLimit();
     }
 
     public UnitType getUnitType() {
@@ -222,18 +204,18 @@ public class SkirmisherCavalry implements Unit {
     }
 
     public Unit copyUnit() {
-        SkirmisherCavalry copy = new SkirmisherCavalry();
-        copy.name = this.name;
+        SkirmisherCavalry copy = new SkirmisherCavalry(this.template);
+
         copy.number = this.number;
-        copy.limit = this.limit;
-        copy.unitCost = this.unitCost;
-        copy.meleeDamage = this.meleeDamage;
-        copy.rangedDamage = this.rangedDamage;
-        copy.armor = this.armor;
-        copy.movementCost = this.movementCost;
-        copy.rangeFactor = this.rangeFactor;
-        copy.movementBonus = this.movementBonus;
 
         return copy;
     }
+
+    /**
+     * Returns the template holding the stats of the unit.
+     * @return template
+     */
+    public UnitTemplate getTemplate() {
+        return this.template;
+    }
 }
@@ -1,50 +1,24 @@
 package battle.units.ancientunits;
 
+import enumerators.FailureReason;
 import battle.interfaces.Unit;
+import battle.units.UnitTemplate;
+import calculations.BattleRandom;
 import testing.unittesting.StateType;
 
-import java.util.Random;
-
 public class SkirmisherInfantry implements Unit {
-    /** name of the ranged infantry unit (i.e. archers,
-     *  javelins, etc). */
-    private String name;
+    /** stats shared by every unit made from the same template; its
+     *  ability bonus is how much extra attack the special ability
+     *  provides, as a percent increase. */
+    private final UnitTemplate template;
     /** number of soldiers in ranged infantry unit. */
     private int number;
-    /** maximum possible number of soldiers in the unit. */
-    private int limit;
-    /** cost of buying this new unit. */
-    private int unitCost;
-
-    /** amount of melee damage the unit deals. */
-    private int meleeDamage;
-    /** maximum amount of ranged damage the unit deals. */
-    private int rangedDamage;
-    /** amount of armor the unit has. */
-    private int armor;
-    /** movement cost for moving one space on the battle board. */
-    private int movementCost;
-
-    /** number of diagonal squares that make up range of unit. */
-    private int rangeFactor;
-    /** how much extra attack the special ability provides, as
-     *  a percent increase. */
-    private double attackBonus;
     /** boolean checking whether or not the unit's special ability
      * is activated. */
     private boolean isActivated;
 
     public SkirmisherInfantry() {
-        this.name = null;
-        this.limit = 0;
-        this.number = 0;
-        this.unitCost = 0;
-        this.meleeDamage = 0;
-        this.rangedDamage = 0;
-        this.armor = 0;
-        this.movementCost = 0;
-        this.rangeFactor = 0;
-        this.attackBonus = 0;
+        this(new UnitTemplate(null, 0, 0, 0, 0, 0, 0, 0, 0));
     }
 
     /**
@@ -72,16 +46,18 @@ public class SkirmisherInfantry implements Unit {
                               final int movementCost,
                               final int rangeFactor,
                               final double attackBonus) {
-        this.name = name;
-        this.number = limit;
-        this.limit = limit;
-        this.unitCost = unitCost;
-        this.meleeDamage = meleeDamage;
-        this.rangedDamage = rangedDamage;
-        this.armor = armor;
-        this.movementCost = movementCost;
-        this.rangeFactor = rangeFactor;
-        this.attackBonus = attackBonus;
+        this(new UnitTemplate(name, limit, unitCost, meleeDamage, rangedDamage,
+                armor, movementCost, rangeFactor, attackBonus));
+    }
+
+    /**
+     * Constructs a new SkirmisherInfantry object at full strength from a
+     * template.
+     * @param template holds the stats of the unit
+     */
+    public SkirmisherInfantry(final UnitTemplate template) {
+        this.template = template;
+        this.number = template.getLimit();
         this.isActivated = false;
     }
 
@@ -92,7 +68,7 @@ public class SkirmisherInfantry implements Unit {
      * @return name of the unit in string form.
      */
     public String getUnitName() {
-        return this.name;
+        return this.template.getName();
     }
 
     /**
@@ -116,7 +92,7 @@ public class SkirmisherInfantry implements Unit {
      * @return limit in int form
      */
     public int getLimit() {
-        return this.limit;
+        return this.template.getLimit();
     }
 
     /**
@@ -124,7 +100,7 @@ public class SkirmisherInfantry implements Unit {
      * @return unitCost in int form
      */
     public int getUnitCost() {
-        return this.unitCost;
+        return this.template.getUnitCost();
     }
 
     /**
@@ -132,15 +108,15 @@ public class SkirmisherInfantry implements Unit {
      * @return movementCost in int form
      */
     public int getArmor() {
-        return this.armor;
+        return this.template.getArmor();
     }
 
     public int getMeleeDamage() {
-        return this.meleeDamage;
+        return this.template.getMeleeDamage();
     }
 
     public int getRangedDamage() {
-        return this.rangedDamage;
+        return this.template.getRangedDamage();
     }
 
     /**
@@ -148,7 +124,7 @@ public class SkirmisherInfantry implements Unit {
      * @return movementCost in int form
      */
     public int getMovementCost() {
-        return this.movementCost;
+        return this.template.getMovementCost();
     }
 
     /**
@@ -157,7 +133,7 @@ public class SkirmisherInfantry implements Unit {
      * @return range factor in int form
      */
     public int getRangeFactor() {
-        return this.rangeFactor;
+        return this.template.getRangeFactor();
     }
 
     /**
@@ -168,18 +144,18 @@ public class SkirmisherInfantry implements Unit {
      */
     public String getUnitSummary() {
         StringBuilder s = new StringBuilder();
-        s.append(this.name);
+        s.append(this.template.getName());
         s.append("\n");
         s.append(this.number);
         s.append(" \\ ");
-        s.append(this.limit);
+        s.append(this.template.getLimit());
         s.append("\n");
         s.append("Melee Damage: ");
-        s.append(this.meleeDamage);
+        s.append(this.template.getMeleeDamage());
         s.append("\nRanged Damage: ");
-        s.append(this.rangedDamage);
+        s.append(this.template.getRangedDamage());
         s.append("\nArmor: ");
-        s.append(this.armor);
+        s.append(this.template.getArmor());
         if (this.isActivated) {
             s.append("\nAbility active");
         } else {
@@ -196,26 +172,26 @@ public class SkirmisherInfantry implements Unit {
     public StateType damageUnit(final int damage) {
         // checks whether parameter is invalid
         if (damage < 0) {
-            return StateType.returnFailure("Error: damage parameter invalid");
+            return StateType.returnFailure(FailureReason.INVALID_DAMAGE);
         }
 
-        int finalDamage = damage - this.armor;
+        int finalDamage = damage - this.template.getArmor();
 
         // if armor is sufficient enough to block attack
         // completely, then the unit is undamaged
         if (finalDamage <= 0) {
-            return StateType.returnSuccess(null);
+            return StateType.SUCCESS;
         }
 
         // subtracts unit number by the final damage inflicted
         this.number -= finalDamage;
 
         if (this.number <= 0) {
-            return StateType.returnDestroy("Note: Unit has been destroyed");
+            return StateType.DESTROY;
         }
 
         // method success
-        return StateType.returnSuccess(null);
+        return StateType.SUCCESS;
     }
 
     /**
@@ -227,24 +203,37 @@ public class SkirmisherInfantry implements Unit {
      *         or false if the attack fails
      */
     public StateType attackWithRange(Unit unit, final double areaBonus) {
+        return attackWithRange(unit, areaBonus, BattleRandom.current());
+    }
+
+    /**
+     * Damages the given unit with a ranged attack, drawing the
+     * damage from a battle generator.
+     * @param unit is enemy unit.
+     * @param areaBonus (of enemy unit).
+     * @param random is the battle's generator.
+     * @return true if attack runs with no errors
+     *         or false if the attack fails
+     */
+    public StateType attackWithRange(Unit unit, final double areaBonus,
+                                     BattleRandom random) {
         // validating parameters
         if (unit == null) {
-            return StateType.returnFailure("Error: null unit param");
+            return StateType.returnFailure(FailureReason.NULL_UNIT);
         }
 
         if (areaBonus < 0 || areaBonus > 1) {
-            return StateType.returnFailure("Error: invalid area param");
+            return StateType.returnFailure(FailureReason.INVALID_AREA_BONUS);
         }
 
         // calculates damage inflicted on enemy
-        // based on range of possible damages and Java's Random type
-        Random random = new Random();
-        double damage = random.nextInt(this.rangedDamage);
+        // based on range of possible damages and the battle's generator
+        double damage = random.nextInt(this.template.getRangedDamage());
 
         // inflicts more damage onto the enemy unit if the
         // special ability is activated
         if (this.isActivated) {
-            damage *= this.attackBonus;
+            damage *= this.template.getAbilityBonus();
         }
 
         // applies area bonus of unit to reduce damage
@@ -266,16 +255,16 @@ public class SkirmisherInfantry implements Unit {
                                    final double areaBonus) {
         // validating parameters
         if (unit == null) {
-            return StateType.returnFailure("Error: null unit param");
+            return StateType.returnFailure(FailureReason.NULL_UNIT);
         }
 
         if (areaBonus < 0 || areaBonus > 1) {
-            return StateType.returnFailure("Error: invalid area param");
+            return StateType.returnFailure(FailureReason.INVALID_AREA_BONUS);
         }
 
         // computes the damage after taking into account terrain
         // defenses
-        double damage = this.meleeDamage * areaBonus;
+        double damage = this.template.getMeleeDamage() * areaBonus;
 
         // lowers the enemy unit by a certain amount of damage or
         // less, depending on if other unit has defense bonus
@@ -312,7 +301,7 @@ public class SkirmisherInfantry implements Unit {
      * Replenishes the unit back to full capacity.
      */
     public void refill() {
-        this.number = this.limit;
+        this.number = this.template.getLimit();
     }
 
     public UnitType getUnitType() {
@@ -320,19 +309,18 @@ public class SkirmisherInfantry implements Unit {
     }
 
     public Unit copyUnit() {
-        SkirmisherInfantry copy = new SkirmisherInfantry();
+        SkirmisherInfantry copy = new SkirmisherInfantry(this.template);
 
-        copy.name = this.name;
         copy.number = this.number;
-        copy.limit = this.limit;
-        copy.unitCost = this.unitCost;
-        copy.meleeDamage = this.meleeDamage;
-        copy.rangedDamage = this.rangedDamage;
-        copy.armor = this.armor;
-        copy.movementCost = this.movementCost;
-        copy.rangeFactor = this.rangeFactor;
-        copy.attackBonus = this.attackBonus;
 
         return copy;
     }
+
+    /**
+     * Returns the template holding the stats of the unit.
+     * @return template
+     */
+    public UnitTemplate getTemplate() {
+        return this.template;
+    }
 }
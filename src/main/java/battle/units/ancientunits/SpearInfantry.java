@@ -1,58 +1,42 @@
 package battle.units.ancientunits;
 
+import enumerators.FailureReason;
 import battle.interfaces.Unit;
+import battle.units.UnitTemplate;
+import calculations.BattleRandom;
 import testing.unittesting.StateType;
 
 public class SpearInfantry implements Unit {
-    /** name of the spear infantry unit (i.e. levy spears, hoplites). */
-    private String name;
+    /** stats shared by every unit made from the same template; its
+     *  ability bonus is how much defense the special ability
+     *  provides, as a percentage of damage remaining (i.e. a defense
+     *  bonus of 80% reduces damage TO 80% of its lethality). */
+    private final UnitTemplate template;
     /** number of soldiers in spear infantry unit. */
     private int number;
-    /** maximum possible number of soldiers in the unit. */
-    private int limit;
-    /** cost of buying this new unit. */
-    private int unitCost;
-
-    /** amount of melee damage the unit deals
-     (no ranged damage for melee unit). */
-    private int meleeDamage;
-    /** amount of armor the unit has (lowers damage inflicted by a constant
-     *  amount). */
-    private int armor;
-
-    /** movement cost for moving one space on the battle board. */
-    private int movementCost;
-
-    /** how much defense the special ability provides, as
-     *  a percentage of damage remaining (i.e. a defense bonus
-     *  of 80% reduces damage TO 80% of its lethality). */
-    private double defenseBonus;
     /** boolean checking whether or not the unit's special ability
      * is activated. */
     private boolean isActivated;
 
     public SpearInfantry() {
-        this.name = null;
-        this.number = 0;
-        this.limit = 0;
-        this.unitCost = 0;
-        this.meleeDamage = 0;
-        this.armor = 0;
-        this.movementCost = 0;
-        this.defenseBonus = 0;
+        this(new UnitTemplate(null, 0, 0, 0, 0, 0, 0, 0, 0));
     }
 
     public SpearInfantry(final String name, final int limit, final int unitCost,
                 final int meleeDamage, final int armor,
                 final int movementCost, final double defenseBonus) {
-        this.name = name;
-        this.limit = limit;
-        this.number = limit;
-        this.unitCost = unitCost;
-        this.meleeDamage = meleeDamage;
-        this.armor = armor;
-        this.movementCost = movementCost;
-        this.defenseBonus = defenseBonus;
+        this(new UnitTemplate(name, limit, unitCost, meleeDamage, 0,
+                armor, movementCost, 1, defenseBonus));
+    }
+
+    /**
+     * Constructs a new SpearInfantry object at full strength from a
+     * template.
+     * @param template holds the stats of the unit
+     */
+    public SpearInfantry(final UnitTemplate template) {
+        this.template = template;
+        this.number = template.getLimit();
         this.isActivated = false;
     }
 
@@ -63,7 +47,7 @@ public class SpearInfantry implements Unit {
      * @return name of the unit.
      */
     public String getUnitName() {
-        return this.name;
+        return this.template.getName();
     }
 
     /**
@@ -87,7 +71,7 @@ public class SpearInfantry implements Unit {
      * @return limit
      */
     public int getLimit() {
-        return this.limit;
+        return this.template.getLimit();
     }
 
     /**
@@ -95,7 +79,7 @@ public class SpearInfantry implements Unit {
      * @return unitCost
      */
     public int getUnitCost() {
-        return this.unitCost;
+        return this.template.getUnitCost();
     }
 
     /**
@@ -103,11 +87,11 @@ public class SpearInfantry implements Unit {
      * @return movementCost
      */
     public int getArmor() {
-        return this.armor;
+        return this.template.getArmor();
     }
 
     public int getMeleeDamage() {
-        return this.meleeDamage;
+        return this.template.getMeleeDamage();
     }
 
     public int getRangedDamage() {
@@ -119,7 +103,7 @@ public class SpearInfantry implements Unit {
      * @return movementCost
      */
     public int getMovementCost() {
-        return this.movementCost;
+        return this.template.getMovementCost();
     }
 
     /**
@@ -139,16 +123,16 @@ public class SpearInfantry implements Unit {
      */
     public String getUnitSummary() {
         StringBuilder s = new StringBuilder();
-        s.append(this.name);
+        s.append(this.template.getName());
         s.append("\n");
         s.append(this.number);
         s.append(" \\ ");
-        s.append(this.limit);
+        s.append(this.template.getLimit());
         s.append("\n");
         s.append("Melee Damage: ");
-        s.append(this.meleeDamage);
+        s.append(this.template.getMeleeDamage());
         s.append("\nArmor: ");
-        s.append(this.armor);
+        s.append(this.template.getArmor());
         if (this.isActivated) {
             s.append("\nAbility active");
         } else {
@@ -166,32 +150,32 @@ public class SpearInfantry implements Unit {
     public StateType damageUnit(final int damage) {
         // checks whether parameter is invalid
         if (damage < 0) {
-            return StateType.returnFailure("Error: damage parameter invalid");
+            return StateType.returnFailure(FailureReason.INVALID_DAMAGE);
         }
 
-        int finalDamage = damage - this.armor;
+        int finalDamage = damage - this.template.getArmor();
 
         // if armor is sufficient enough to block attack
         // completely, then the unit is undamaged
         if (finalDamage <= 0) {
-            return StateType.returnSuccess(null);
+            return StateType.SUCCESS;
         }
 
         if (this.isActivated) {
-            finalDamage *= defenseBonus;
+            finalDamage *= this.template.getAbilityBonus();
         }
 
         if (finalDamage <= 0) {
-            return StateType.returnSuccess(null);
+            return StateType.SUCCESS;
         }
 
         this.number -= finalDamage;
 
         if (this.number <= 0) {
-            return StateType.returnDestroy("Note: Unit has been destroyed");
+            return StateType.DESTROY;
         }
 
-        return StateType.returnSuccess(null);
+        return StateType.SUCCESS;
     }
 
     /**
@@ -203,7 +187,20 @@ public class SpearInfantry implements Unit {
      *         doesn't apply (such as here).
      */
     public StateType attackWithRange(Unit unit, final double areaBonus) {
-        return StateType.returnSuccess(null);
+        return StateType.SUCCESS;
+    }
+
+    /**
+     * Damages the given unit with a ranged attack, using a battle
+     * generator for any random damage.
+     * @param unit is enemy unit.
+     * @param areaBonus (of enemy unit).
+     * @param random is the battle's generator.
+     * @return SUCCESS since the method doesn't apply (such as here).
+     */
+    public StateType attackWithRange(Unit unit, final double areaBonus,
+                                     BattleRandom random) {
+        return StateType.SUCCESS;
     }
 
     /**
@@ -217,16 +214,16 @@ public class SpearInfantry implements Unit {
     public StateType attackWithMelee(Unit unit, final double areaBonus) {
         // validating parameters
         if (unit == null) {
-            return StateType.returnFailure("Error: null unit param");
+            return StateType.returnFailure(FailureReason.NULL_UNIT);
         }
 
         if (areaBonus < 0 || areaBonus > 1) {
-            return StateType.returnFailure("Error: invalid area param");
+            return StateType.returnFailure(FailureReason.INVALID_AREA_BONUS);
         }
 
         // computes the damage after taking into account terrain
         // defenses
-        double damage = this.meleeDamage * areaBonus;
+        double damage = this.template.getMeleeDamage() * areaBonus;
 
         // lowers the enemy unit by a certain amount of damage or
         // more, depending on if other unit has defense bonus
@@ -263,7 +260,7 @@ public class SpearInfantry implements Unit {
      * Replenishes the unit back to full capacity.
      */
     public void refill() {
-        this.number = this.limit;
+        this.number = this.template.getLimit();
     }
 
     public UnitType getUnitType() {
@@ -271,17 +268,18 @@ public class SpearInfantry implements Unit {
     }
 
     public Unit copyUnit() {
-        SpearInfantry copy = new SpearInfantry();
+        SpearInfantry copy = new SpearInfantry(this.template);
 
-        copy.name = this.name;
         copy.number = this.number;
-        copy.limit = this.limit;
-        copy.unitCost = this.unitCost;
-        copy.meleeDamage = this.meleeDamage;
-        copy.armor = this.armor;
-        copy.movementCost = this.movementCost;
-        copy.defenseBonus = this.defenseBonus;
 
         return copy;
     }
+
+    /**
+     * Returns the template holding the stats of the unit.
+     * @return template
+     */
+    public UnitTemplate getTemplate() {
+        return this.template;
+    }
 }
@@ -0,0 +1,368 @@
+package battle.units.ancientunits;
+
+import battle.interfaces.Unit;
+import battle.units.UnitTemplate;
+
+import java.io.BufferedOutputStream;
+import java.io.BufferedReader;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * A registry of every unit that can be fielded, parsed once from a
+ * catalog file. Each unit gets a dense ID in file order, under
+ * which its template and unit class are stored, and units can be
+ * looked up by name.
+ *
+ * Catalogs are plain text, one unit per line:
+ * kind, name, limit, cost, melee damage, ranged damage, armor,
+ * movement cost, range factor, ability bonus
+ * where kind is the unit class (i.e. SpearInfantry). Blank lines
+ * and lines starting with # are skipped. A catalog can also be
+ * written in a precompiled binary form, which is read straight out
+ * of a memory-mapped file.
+ */
+public final class UnitCatalog {
+    /** classpath location of the bundled catalog */
+    public static final String DEFAULT_CATALOG = "/units/ancient.csv";
+
+    /** first bytes of a binary catalog ("CQUC") */
+    private static final int MAGIC = 0x43515543;
+    /** format version of binary catalogs */
+    private static final int VERSION = 1;
+    /** number of comma-separated fields in a catalog line */
+    private static final int FIELDS = 10;
+
+    /** unit class of every unit, indexed by ID */
+    private final UnitKind[] kinds;
+    /** template of every unit, indexed by ID */
+    private final UnitTemplate[] templates;
+    /** ID of every unit, keyed by name */
+    private final Map<String, Integer> ids;
+
+    /**
+     * Creates a UnitCatalog object from parallel lists.
+     * @param kinds, unit class of every unit
+     * @param templates, template of every unit
+     * @throws IOException if two units share a name
+     */
+    private UnitCatalog(List<UnitKind> kinds, List<UnitTemplate> templates)
+            throws IOException {
+        this.kinds = kinds.toArray(new UnitKind[0]);
+        this.templates = templates.toArray(new UnitTemplate[0]);
+        this.ids = new HashMap<>(this.templates.length * 2);
+
+        for (int id = 0; id < this.templates.length; id++) {
+            String name = this.templates[id].getName();
+
+            if (this.ids.putIfAbsent(name, id) != null) {
+                throw new IOException("duplicate unit name: " + name);
+            }
+        }
+    }
+
+    /**
+     * Returns the bundled catalog of ancient units, parsed the
+     * first time it is needed.
+     * @return UnitCatalog
+     */
+    public static UnitCatalog getDefault() {
+        return DefaultHolder.CATALOG;
+    }
+
+    /**
+     * Parses a text catalog file.
+     * @param path, the catalog file
+     * @return UnitCatalog
+     * @throws IOException if the file cannot be read or is invalid
+     */
+    public static UnitCatalog load(Path path) throws IOException {
+        try (Reader reader = Files.newBufferedReader(path,
+                StandardCharsets.UTF_8)) {
+            return parse(reader);
+        }
+    }
+
+    /**
+     * Parses a text catalog.
+     * @param reader, source of the catalog
+     * @return UnitCatalog
+     * @throws IOException if the catalog cannot be read or is invalid
+     */
+    public static UnitCatalog parse(Reader reader) throws IOException {
+        BufferedReader lines = new BufferedReader(reader);
+
+        List<UnitKind> kinds = new ArrayList<>();
+        List<UnitTemplate> templates = new ArrayList<>();
+
+        String line;
+        int lineNumber = 0;
+
+        while ((line = lines.readLine()) != null) {
+            lineNumber++;
+            line = line.trim();
+
+            if (line.isEmpty() || line.startsWith("#")) {
+                continue;
+            }
+
+            String[] fields = line.split(",");
+            if (fields.length != FIELDS) {
+                throw new IOException("line " + lineNumber + ": expected "
+                        + FIELDS + " fields but found " + fields.length);
+            }
+
+            UnitKind kind = UnitKind.fromLabel(fields[0].trim());
+            if (kind == null) {
+                throw new IOException("line " + lineNumber
+                        + ": unknown unit class " + fields[0].trim());
+            }
+
+            UnitTemplate template;
+            try {
+                template = new UnitTemplate(fields[1].trim(),
+                        parseInt(fields[2]), parseInt(fields[3]),
+                        parseInt(fields[4]), parseInt(fields[5]),
+                        parseInt(fields[6]), parseInt(fields[7]),
+                        parseInt(fields[8]),
+                        Double.parseDouble(fields[9].trim()));
+            } catch (NumberFormatException e) {
+                throw new IOException("line " + lineNumber + ": "
+                        + e.getMessage(), e);
+            }
+
+            String error = validate(kind, template);
+            if (error != null) {
+                throw new IOException("line " + lineNumber + ": " + error);
+            }
+
+            kinds.add(kind);
+            templates.add(template);
+        }
+
+        return new UnitCatalog(kinds, templates);
+    }
+
+    /**
+     * Reads a binary catalog written by writeBinary by
+     * memory-mapping the file.
+     * @param path, the binary catalog file
+     * @return UnitCatalog
+     * @throws IOException if the file cannot be read or is invalid
+     */
+    public static UnitCatalog loadBinary(Path path) throws IOException {
+        ByteBuffer buffer;
+
+        try (FileChannel channel = FileChannel.open(path,
+                StandardOpenOption.READ)) {
+            buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0,
+                    channel.size());
+        }
+
+        try {
+            if (buffer.getInt() != MAGIC) {
+                throw new IOException("not a binary unit catalog");
+            }
+
+            if (buffer.getInt() != VERSION) {
+                throw new IOException("unsupported catalog version");
+            }
+
+            int count = buffer.getInt();
+            UnitKind[] values = UnitKind.values();
+
+            List<UnitKind> kinds = new ArrayList<>(count);
+            List<UnitTemplate> templates = new ArrayList<>(count);
+
+            for (int i = 0; i < count; i++) {
+                int ordinal = buffer.get();
+                if (ordinal < 0 || ordinal >= values.length) {
+                    throw new IOException("unknown unit class " + ordinal);
+                }
+
+                byte[] name = new byte[buffer.getShort() & 0xFFFF];
+                buffer.get(name);
+
+                UnitTemplate template = new UnitTemplate(
+                        new String(name, StandardCharsets.UTF_8),
+                        buffer.getInt(), buffer.getInt(), buffer.getInt(),
+                        buffer.getInt(), buffer.getInt(), buffer.getInt(),
+                        buffer.getInt(), buffer.getDouble());
+
+                String error = validate(values[ordinal], template);
+                if (error != null) {
+                    throw new IOException("unit " + i + ": " + error);
+                }
+
+                kinds.add(values[ordinal]);
+                templates.add(template);
+            }
+
+            return new UnitCatalog(kinds, templates);
+        } catch (RuntimeException e) {
+            // a truncated file runs off the end of the buffer
+            throw new IOException("corrupt binary unit catalog", e);
+        }
+    }
+
+    /**
+     * Writes the catalog in its precompiled binary form.
+     * @param path, the file to write
+     * @throws IOException if the file cannot be written
+     */
+    public void writeBinary(Path path) throws IOException {
+        try (DataOutputStream out = new DataOutputStream(
+                new BufferedOutputStream(
+                        Files.newOutputStream(path)))) {
+            out.writeInt(MAGIC);
+            out.writeInt(VERSION);
+            out.writeInt(templates.length);
+
+            for (int id = 0; id < templates.length; id++) {
+                UnitTemplate t = templates[id];
+                byte[] name = t.getName().getBytes(StandardCharsets.UTF_8);
+                if (name.length > 0xFFFF) {
+                    throw new IOException("unit name too long: "
+                            + t.getName());
+                }
+
+                out.writeByte(kinds[id].ordinal());
+                out.writeShort(name.length);
+                out.write(name);
+                out.writeInt(t.getLimit());
+                out.writeInt(t.getUnitCost());
+                out.writeInt(t.getMeleeDamage());
+                out.writeInt(t.getRangedDamage());
+                out.writeInt(t.getArmor());
+                out.writeInt(t.getMovementCost());
+                out.writeInt(t.getRangeFactor());
+                out.writeDouble(t.getAbilityBonus());
+            }
+        }
+    }
+
+    /**
+     * Returns the number of units in the catalog.
+     * @return int
+     */
+    public int size() {
+        return this.templates.length;
+    }
+
+    /**
+     * Returns the ID of the unit with the given name.
+     * @param name, name of the unit
+     * @return int, or -1 if there is no such unit
+     */
+    public int getID(String name) {
+        Integer id = this.ids.get(name);
+        return id == null ? -1 : id;
+    }
+
+    public UnitTemplate getTemplate(int id) {
+        return this.templates[id];
+    }
+
+    public UnitKind getKind(int id) {
+        return this.kinds[id];
+    }
+
+    /**
+     * Creates a full-strength unit from the catalog.
+     * @param id, ID of the unit
+     * @return Unit
+     */
+    public Unit createUnit(int id) {
+        return this.kinds[id].create(this.templates[id]);
+    }
+
+    /**
+     * Creates a full-strength unit from the catalog.
+     * @param name, name of the unit
+     * @return Unit, or null if there is no such unit
+     */
+    public Unit createUnit(String name) {
+        int id = getID(name);
+        return id < 0 ? null : createUnit(id);
+    }
+
+    /**
+     * Checks that a template's stats make sense for its class.
+     * @return String, the problem, or null if there is none
+     */
+    private static String validate(UnitKind kind, UnitTemplate template) {
+        if (template.getName().isEmpty()) {
+            return "unit has no name";
+        }
+
+        if (template.getLimit() <= 0) {
+            return "limit must be positive";
+        }
+
+        if (template.getUnitCost() < 0 || template.getMeleeDamage() < 0
+                || template.getRangedDamage() < 0 || template.getArmor() < 0
+                || template.getAbilityBonus() < 0) {
+            return "stats must not be negative";
+        }
+
+        if (template.getMovementCost() <= 0) {
+            return "movement cost must be positive";
+        }
+
+        if (kind.isRanged() && template.getRangeFactor() < 1) {
+            return "range factor must be at least 1";
+        }
+
+        // ranged attacks draw their damage from [0, rangedDamage)
+        if (kind.isRanged() && template.getRangedDamage() <= 0) {
+            return "ranged units need positive ranged damage";
+        }
+
+        if (!kind.isRanged() && (template.getRangedDamage() != 0
+                || template.getRangeFactor() != 1)) {
+            return "melee units need 0 ranged damage and range factor 1";
+        }
+
+        return null;
+    }
+
+    private static int parseInt(String field) {
+        return Integer.parseInt(field.trim());
+    }
+
+    /**
+     * Holds the bundled catalog, which is parsed when the class
+     * is first used.
+     */
+    private static class DefaultHolder {
+        static final UnitCatalog CATALOG = loadDefault();
+
+        private static UnitCatalog loadDefault() {
+            try (InputStream in = UnitCatalog.class
+                    .getResourceAsStream(DEFAULT_CATALOG)) {
+                if (in == null) {
+                    throw new IOException("missing " + DEFAULT_CATALOG);
+                }
+
+                return parse(new InputStreamReader(in,
+                        StandardCharsets.UTF_8));
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+    }
+}
@@ -0,0 +1,98 @@
+package battle.units.ancientunits;
+
+import battle.interfaces.Unit;
+import battle.units.UnitTemplate;
+
+/**
+ * The ancient unit classes a UnitTemplate can be fielded as,
+ * named in unit catalogs by their class names.
+ */
+public enum UnitKind {
+    MELEE_INFANTRY("MeleeInfantry", false),
+    SPEAR_INFANTRY("SpearInfantry", false),
+    MELEE_CAVALRY("MeleeCavalry", false),
+    SKIRMISHER_INFANTRY("SkirmisherInfantry", true),
+    SKIRMISHER_CAVALRY("SkirmisherCavalry", true);
+
+    /** name of the unit class */
+    private final String label;
+    /** whether units of the class have ranged attacks */
+    private final boolean isRanged;
+
+    UnitKind(String label, boolean isRanged) {
+        this.label = label;
+        this.isRanged = isRanged;
+    }
+
+    public String getLabel() {
+        return this.label;
+    }
+
+    public boolean isRanged() {
+        return this.isRanged;
+    }
+
+    /**
+     * Creates a full-strength unit of this class from a template.
+     * @param template, the stats of the unit
+     * @return Unit
+     */
+    public Unit create(UnitTemplate template) {
+        switch (this) {
+            case MELEE_INFANTRY:
+                return new MeleeInfantry(template);
+            case SPEAR_INFANTRY:
+                return new SpearInfantry(template);
+            case MELEE_CAVALRY:
+                return new MeleeCavalry(template);
+            case SKIRMISHER_INFANTRY:
+                return new SkirmisherInfantry(template);
+            default:
+                return new SkirmisherCavalry(template);
+        }
+    }
+
+    /**
+     * Finds the kind of a unit.
+     * @param unit, the unit
+     * @return UnitKind, or null if the unit is not an ancient unit
+     */
+    public static UnitKind of(Unit unit) {
+        if (unit instanceof MeleeInfantry) {
+            return MELEE_INFANTRY;
+        }
+
+        if (unit instanceof SpearInfantry) {
+            return SPEAR_INFANTRY;
+        }
+
+        if (unit instanceof MeleeCavalry) {
+            return MELEE_CAVALRY;
+        }
+
+        if (unit instanceof SkirmisherInfantry) {
+            return SKIRMISHER_INFANTRY;
+        }
+
+        if (unit instanceof SkirmisherCavalry) {
+            return SKIRMISHER_CAVALRY;
+        }
+
+        return null;
+    }
+
+    /**
+     * Finds the kind with the given class name.
+     * @param label, name of the unit class
+     * @return UnitKind, or null if there is none
+     */
+    public static UnitKind fromLabel(String label) {
+        for (UnitKind kind : values()) {
+            if (kind.label.equals(label)) {
+                return kind;
+            }
+        }
+
+        return null;
+    }
+}
@@ -0,0 +1,4 @@
+/**
+ * Stats shared by units of every era.
+ */
+package battle.units;
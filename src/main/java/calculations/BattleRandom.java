@@ -0,0 +1,155 @@
+package calculations;
+
+import java.util.SplittableRandom;
+
+/**
+ * Source of randomness for a single battle. A BattleRandom is
+ * created from a seed, so a battle can be replayed exactly by
+ * reusing the seed, and split into child generators whose seeds
+ * are drawn from the parent, so parallel simulations each get an
+ * independent stream without sharing any state.
+ *
+ * The generator is the SplitMix64 algorithm of SplittableRandom
+ * (and draws exactly the same numbers from the same seed), kept
+ * in a single long here so that a saved battle can store and
+ * restore how far along its stream it is.
+ *
+ * A BattleRandom is not thread-safe; every battle (or thread)
+ * should own its own.
+ */
+public class BattleRandom {
+    /** generator used when no battle generator is given */
+    private static final ThreadLocal<BattleRandom> LOCAL =
+            ThreadLocal.withInitial(BattleRandom::new);
+
+    /** increment of the generator's state per draw */
+    private static final long GOLDEN_GAMMA = 0x9e3779b97f4a7c15L;
+
+    /** seed the generator was created with */
+    private final long seed;
+    /** current state of the generator */
+    private long state;
+
+    /**
+     * Creates a BattleRandom object with an arbitrary seed.
+     */
+    public BattleRandom() {
+        this(new SplittableRandom().nextLong());
+    }
+
+    /**
+     * Creates a BattleRandom object with a given seed.
+     * @param seed of the generator
+     */
+    public BattleRandom(long seed) {
+        this(seed, seed);
+    }
+
+    /**
+     * Creates a BattleRandom object partway along the stream of
+     * a seed.
+     * @param seed the generator was created with
+     * @param state the generator had reached (see getState)
+     */
+    public BattleRandom(long seed, long state) {
+        this.seed = seed;
+        this.state = state;
+    }
+
+    /**
+     * Returns the seed the generator was created with.
+     * @return long
+     */
+    public long getSeed() {
+        return this.seed;
+    }
+
+    /**
+     * Returns the current state of the generator, which together
+     * with the seed restores it exactly.
+     * @return long
+     */
+    public long getState() {
+        return this.state;
+    }
+
+    /**
+     * Moves the generator to a state returned by getState, so
+     * that it draws the same numbers again.
+     * @param state the generator had reached
+     */
+    public void setState(long state) {
+        this.state = state;
+    }
+
+    /**
+     * Returns a random integer in [0, bound).
+     * @param bound, exclusive upper bound (must be positive)
+     * @return int
+     */
+    public int nextInt(int bound) {
+        if (bound <= 0) {
+            throw new IllegalArgumentException("bound must be positive");
+        }
+
+        int r = mix32(state += GOLDEN_GAMMA);
+        int m = bound - 1;
+
+        // powers of two just take the low bits; other bounds
+        // reject the few values that would skew the result
+        if ((bound & m) == 0) {
+            return r & m;
+        }
+
+        for (int u = r >>> 1; u + m - (r = u % bound) < 0;
+             u = mix32(state += GOLDEN_GAMMA) >>> 1) {
+        }
+
+        return r;
+    }
+
+    /**
+     * Returns a random long.
+     * @return long
+     */
+    public long nextLong() {
+        return mix64(state += GOLDEN_GAMMA);
+    }
+
+    /**
+     * Returns a random double in [0, 1).
+     * @return double
+     */
+    public double nextDouble() {
+        return (nextLong() >>> 11) * 0x1.0p-53;
+    }
+
+    /**
+     * Creates a child generator seeded from this one, so the
+     * child's stream is fixed by this generator's seed.
+     * @return BattleRandom
+     */
+    public BattleRandom split() {
+        return new BattleRandom(nextLong());
+    }
+
+    /**
+     * Returns the unseeded generator of the current thread, for
+     * callers outside of a battle.
+     * @return BattleRandom
+     */
+    public static BattleRandom current() {
+        return LOCAL.get();
+    }
+
+    private static long mix64(long z) {
+        z = (z ^ (z >>> 30)) * 0xbf58476d1ce4e5b9L;
+        z = (z ^ (z >>> 27)) * 0x94d049bb133111ebL;
+        return z ^ (z >>> 31);
+    }
+
+    private static int mix32(long z) {
+        z = (z ^ (z >>> 33)) * 0x62a9d9ed799705f5L;
+        return (int) (((z ^ (z >>> 28)) * 0xcb24d0a5c88c35b3L) >>> 32);
+    }
+}
@@ -1,6 +1,11 @@
 package calculations;
 
+import java.util.Arrays;
+
 public class GridCalculations {
+    /** offset tables built so far, indexed by range factor */
+    private static volatile int[][] rangeTables = new int[0][];
+
     /**
      * Calculates single ID of an element in a 2D array.
      * @param row of the element
@@ -33,7 +38,28 @@ public class GridCalculations {
         return id - (row * n);
     }
 
+    /**
+     * Calculates the euclidean distance between two elements
+     * in a 2D array. Range checks should prefer isWithinRange,
+     * which needs no floating point math.
+     * @param id1 of the first element
+     * @param id2 of the second element
+     * @param n, or size of one row of a 2D array
+     * @return double
+     */
     public static double getEuclidDistance(int id1, int id2, int n) {
+        return Math.sqrt(getSquaredDistance(id1, id2, n));
+    }
+
+    /**
+     * Calculates the squared euclidean distance between two
+     * elements in a 2D array.
+     * @param id1 of the first element
+     * @param id2 of the second element
+     * @param n, or size of one row of a 2D array
+     * @return int
+     */
+    public static int getSquaredDistance(int id1, int id2, int n) {
         // retrieves the coordinates for first area
         int x1 = getRow(id1, n);
         int y1 = getCol(id1, x1, n);
@@ -42,12 +68,104 @@ public class GridCalculations {
         int x2 = getRow(id2, n);
         int y2 = getCol(id2, x2, n);
 
-        // squaring a number
-        int pow = 2;
+        int dx = x1 - x2;
+        int dy = y1 - y2;
+
+        return dx * dx + dy * dy;
+    }
+
+    /**
+     * Calculates the squared length of a range made up of a
+     * number of diagonal squares, (rangeFactor * sqrt(2))^2.
+     * @param rangeFactor, number of diagonal squares
+     * @return int
+     */
+    public static int getRangeSquared(int rangeFactor) {
+        return 2 * rangeFactor * rangeFactor;
+    }
+
+    /**
+     * Checks if two elements lie within a range made up of a
+     * number of diagonal squares of each other, using integer
+     * math only.
+     * @param id1 of the first element
+     * @param id2 of the second element
+     * @param n, or size of one row of a 2D array
+     * @param rangeFactor, number of diagonal squares
+     * @return boolean
+     */
+    public static boolean isWithinRange(int id1, int id2, int n,
+                                        int rangeFactor) {
+        return getSquaredDistance(id1, id2, n)
+                <= getRangeSquared(rangeFactor);
+    }
+
+    /**
+     * Returns every (row, col) offset within a range made up of a
+     * number of diagonal squares, excluding (0, 0), nearest first.
+     * Offsets are stored in pairs: {dRow0, dCol0, dRow1, dCol1, ...}.
+     * Tables are built once per range factor and shared, so the
+     * returned array must not be modified.
+     * @param rangeFactor, number of diagonal squares
+     * @return int[]
+     */
+    public static int[] getRangeOffsets(int rangeFactor) {
+        int[][] tables = rangeTables;
+
+        if (rangeFactor < tables.length && tables[rangeFactor] != null) {
+            return tables[rangeFactor];
+        }
+
+        return buildRangeOffsets(rangeFactor);
+    }
+
+    /**
+     * Builds and caches the offset table of a range factor.
+     * @param rangeFactor, number of diagonal squares
+     * @return int[]
+     */
+    private static synchronized int[] buildRangeOffsets(int rangeFactor) {
+        int[][] tables = rangeTables;
+
+        if (rangeFactor < tables.length && tables[rangeFactor] != null) {
+            return tables[rangeFactor];
+        }
+
+        int rangeSquared = getRangeSquared(rangeFactor);
+        int reach = (int) Math.sqrt(rangeSquared);
+
+        // collects every offset in range along with its distance
+        int side = 2 * reach + 1;
+        long[] found = new long[side * side];
+        int count = 0;
+
+        for (int dRow = -reach; dRow <= reach; dRow++) {
+            for (int dCol = -reach; dCol <= reach; dCol++) {
+                int dist = dRow * dRow + dCol * dCol;
+
+                if (dist != 0 && dist <= rangeSquared) {
+                    // sorts by distance, then row, then column
+                    found[count++] = ((long) dist << 32)
+                            | ((dRow + reach) << 16) | (dCol + reach);
+                }
+            }
+        }
+
+        Arrays.sort(found, 0, count);
+
+        int[] offsets = new int[count * 2];
+
+        for (int i = 0; i < count; i++) {
+            offsets[2 * i] = (int) ((found[i] >>> 16) & 0xFFFF) - reach;
+            offsets[2 * i + 1] = (int) (found[i] & 0xFFFF) - reach;
+        }
+
+        // publishes a copy of the cache that includes the new table
+        int[][] grown = Arrays.copyOf(tables,
+                Math.max(tables.length, rangeFactor + 1));
+        grown[rangeFactor] = offsets;
+        rangeTables = grown;
 
-        // calculates and returns euclidean distance of two
-        // coordinates
-        return Math.sqrt(Math.pow((x1 - x2), pow) +
-                Math.pow((y1 - y2), pow));
+        return offsets;
     }
 }
@@ -0,0 +1,41 @@
+package enumerators;
+
+/**
+ * Reasons a method can return FAILURE. Each reason carries a
+ * constant message, so failing methods never build strings.
+ */
+public enum FailureReason {
+    EMPTY_PLACEMENT("Error: empty unit placement"),
+    AREA_OUT_OF_BOUNDS("Error: area ID out of bounds"),
+    AREA_OCCUPIED("Error: unit exists at selected area"),
+    UNIT_NOT_FOUND("Error: unit at selected area does not exist"),
+    AREA_NOT_FOUND("Error: selected area does not exist"),
+    AREA_IMPASSABLE("Error: selected area cannot be entered"),
+    SHARED_TERRAIN("Error: terrain is shared and cannot be changed"),
+    NO_MOVEMENT_MAPPING("Error: no mapping found during movement reset"),
+    ATTACKER_NONEXISTENT("Error: Attacker unit nonexistent"),
+    DEFENDER_NONEXISTENT("Error: Defender unit nonexistent"),
+    ATTACKER_BINDING_NONEXISTENT("Error: Attacker unit binding nonexistent"),
+    DEFENDER_BINDING_NONEXISTENT("Error: Defender unit binding nonexistent"),
+    OUT_OF_RANGE("Error: defender unit is out of range"),
+    MOVEMENT_BINDING_NONEXISTENT("Error: unit binding in movement table not found!"),
+    NOT_ENOUGH_MOVEMENT("Error: Not enough movement points!"),
+    INVALID_DAMAGE("Error: damage parameter invalid"),
+    NULL_UNIT("Error: null unit param"),
+    INVALID_AREA_BONUS("Error: invalid area param");
+
+    /** message describing the failure */
+    private final String message;
+
+    FailureReason(String message) {
+        this.message = message;
+    }
+
+    /**
+     * Returns the message describing the failure.
+     * @return String
+     */
+    public String getMessage() {
+        return this.message;
+    }
+}
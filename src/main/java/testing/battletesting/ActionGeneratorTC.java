@@ -0,0 +1,184 @@
+package testing.battletesting;
+
+import battle.ai.ActionGenerator;
+import battle.ai.Actions;
+import battle.battlefield.BattleHandler;
+import battle.battlefield.Battlefield;
+import battle.battlefield.UndoRecord;
+import battle.interfaces.Unit;
+import battle.pathfinding.PathFinder;
+import battle.simulation.BatchSimulator;
+import battle.simulation.TacticalBattle;
+import battle.units.ancientunits.UnitCatalog;
+import testing.unittesting.StateType;
+
+public class ActionGeneratorTC {
+    /**
+     * Generates the actions of every unit part way through a battle
+     * and checks them: each attack must succeed when made (and is
+     * undone again), no enemy in range may be left out, and each
+     * move must go to an open, empty area the unit has the movement
+     * points for. Then checks that an archer hemmed in by its own
+     * side still gets its attack, and prints the average time to
+     * generate a unit's actions.
+     * Optional arguments: map size, turns, seed.
+     */
+    public static void main(String[] args) {
+        int mapSize = args.length > 0 ? Integer.parseInt(args[0]) : 24;
+        int turns = args.length > 1 ? Integer.parseInt(args[1]) : 4;
+        long seed = args.length > 2 ? Long.parseLong(args[2]) : 3;
+        int maxMovement = 1000;
+
+        // list of desired units, from the bundled unit catalog
+        UnitCatalog catalog = UnitCatalog.getDefault();
+        Unit[] attackers = new Unit[12];
+        Unit[] defenders = new Unit[12];
+
+        for (int i = 0; i < attackers.length; i++) {
+            attackers[i] = catalog.createUnit(i % 3 == 0
+                    ? "Archers" : "Legionaries");
+            defenders[i] = catalog.createUnit(i % 4 == 0
+                    ? "Horse Archers" : "Militia Hoplites");
+        }
+
+        TacticalBattle battle = new TacticalBattle(attackers, defenders,
+                new Battlefield(BatchSimulator.plains(mapSize)), 10,
+                maxMovement, seed);
+        battle.run(turns);
+
+        BattleHandler handler = battle.getHandler();
+        Battlefield battlefield = battle.getBattlefield();
+        handler.resetMovement(true, maxMovement);
+        handler.resetMovement(false, maxMovement);
+
+        ActionGenerator generator = new ActionGenerator(
+                new PathFinder(battlefield));
+        UndoRecord undo = new UndoRecord();
+        int size = mapSize * mapSize;
+        int attacks = 0;
+        int moves = 0;
+        int failed = 0;
+        int missed = 0;
+
+        for (int areaID = 0; areaID < size; areaID++) {
+            Unit unit = battlefield.getUnit(areaID);
+
+            if (unit == null) {
+                continue;
+            }
+
+            int count = generator.generate(areaID, handler);
+            boolean[] attacked = new boolean[size];
+
+            for (int i = 0; i < count; i++) {
+                int target = generator.getTarget(i);
+
+                if (generator.getType(i) == Actions.ATTACK) {
+                    attacks++;
+                    attacked[target] = true;
+
+                    if (StateType.checkIfFailure(handler.makeAttack(areaID,
+                            target, battlefield, 1, undo))) {
+                        failed++;
+                    }
+
+                    handler.unmake(undo, battlefield);
+                } else {
+                    moves++;
+
+                    if (battlefield.getUnit(target) != null
+                            || !battlefield.getArea(target).isOpen()
+                            || generator.getCost(i)
+                            > handler.unitMovement(unit)) {
+                        failed++;
+                    }
+                }
+            }
+
+            // every enemy the unit could attack must be listed
+            for (int enemyID = 0; enemyID < size; enemyID++) {
+                Unit enemy = battlefield.getUnit(enemyID);
+
+                if (enemy != null && handler.areEnemies(unit, enemy)
+                        && !attacked[enemyID]
+                        && handler.isInRange(areaID, enemyID, battlefield)) {
+                    missed++;
+                }
+            }
+        }
+
+        System.out.println("Generated " + attacks + " attacks and "
+                + moves + " moves: " + failed + " failed, " + missed
+                + " attacks missed");
+
+        System.out.println("Attacks generated for a hemmed-in archer: "
+                + crowdedAttacks(catalog));
+
+        int rounds = 200;
+        long start = System.nanoTime();
+        int generated = 0;
+
+        for (int round = 0; round < rounds; round++) {
+            for (int areaID = 0; areaID < size; areaID++) {
+                if (battlefield.getUnit(areaID) != null) {
+                    generator.generate(areaID, handler);
+                    generated++;
+                }
+            }
+        }
+
+        System.out.println("Average generate: "
+                + (System.nanoTime() - start) / generated / 1000 + " us");
+    }
+
+    /**
+     * Surrounds an archer with 80 allies and puts a single enemy in
+     * its range just outside them, so the nearest units in range
+     * are all allies, and returns how many attacks it is given.
+     */
+    private static int crowdedAttacks(UnitCatalog catalog) {
+        int n = 20;
+        Unit[] attackers = new Unit[81];
+        Unit[] defenders = {catalog.createUnit("Legionaries")};
+
+        attackers[0] = catalog.createUnit("Archers");
+        for (int i = 1; i < attackers.length; i++) {
+            attackers[i] = catalog.createUnit("Legionaries");
+        }
+
+        BattleHandler handler = new BattleHandler(attackers, defenders,
+                10, 1000, 3);
+        Battlefield battlefield = new Battlefield(BatchSimulator.plains(n));
+
+        // a 9 x 9 block of attackers around the archer, with one gap
+        // on its row for the enemy to be seen through
+        int center = 10 * n + 10;
+        int next = 1;
+
+        battlefield.placeUnit(center, attackers[0]);
+
+        for (int row = 6; row <= 14; row++) {
+            for (int col = 6; col <= 14; col++) {
+                if (row * n + col != center) {
+                    battlefield.placeUnit(row * n + col, attackers[next++]);
+                }
+            }
+        }
+
+        battlefield.removeUnit(10 * n + 14);
+        battlefield.placeUnit(10 * n + 16, defenders[0]);
+
+        ActionGenerator generator = new ActionGenerator(
+                new PathFinder(battlefield));
+        int count = generator.generate(center, handler);
+        int attacks = 0;
+
+        for (int i = 0; i < count; i++) {
+            if (generator.getType(i) == Actions.ATTACK) {
+                attacks++;
+            }
+        }
+
+        return attacks;
+    }
+}
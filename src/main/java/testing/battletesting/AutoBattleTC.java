@@ -1,11 +1,9 @@
 package testing.battletesting;
 
+import battle.battlefield.AutoBattleReport;
 import battle.battlefield.BattleHandler;
 import battle.interfaces.Unit;
-import battle.units.ancientunits.MeleeCavalry;
-import battle.units.ancientunits.MeleeInfantry;
-import battle.units.ancientunits.SkirmisherCavalry;
-import battle.units.ancientunits.SpearInfantry;
+import battle.units.ancientunits.UnitCatalog;
 
 import java.util.ArrayList;
 import java.util.Random;
@@ -15,18 +13,12 @@ public class AutoBattleTC {
      * Tests the AutoBattle method from BattleHandler.java
      */
     public static void main(String[] args) {
-        // list of desired units
-        Unit inf1 = new SpearInfantry("Militia Hoplites", 160,
-                150, 20, 3, 150, 0.5);
-
-        Unit inf2 = new MeleeInfantry("Legionaries", 160,
-                350, 40, 10, 250, 0.2);
-
-        Unit cav1 = new MeleeCavalry("Cataphracts", 80, 700,
-                60, 15, 250, 1.5);
-
-        Unit cav2 = new SkirmisherCavalry("Horse Archers", 80, 250, 10,
-                35, 5, 100, 4, 1.8);
+        // list of desired units, from the bundled unit catalog
+        UnitCatalog catalog = UnitCatalog.getDefault();
+        Unit inf1 = catalog.createUnit("Militia Hoplites");
+        Unit inf2 = catalog.createUnit("Legionaries");
+        Unit cav1 = catalog.createUnit("Cataphracts");
+        Unit cav2 = catalog.createUnit("Horse Archers");
 
         // all desired units compiled into array
         Unit[] units = {inf1, inf2, cav1, cav2};
@@ -81,9 +73,10 @@ public class AutoBattleTC {
             System.out.println("---------------------");
         }
 
-        // tests the BattleHandler's autoBattle method
-        boolean isAttacker =
-                BattleHandler.autoBattle(attackers, defenders);
+        // tests the BattleHandler's resolveAutoBattle method
+        AutoBattleReport report =
+                BattleHandler.resolveAutoBattle(attackers, defenders);
+        boolean isAttacker = report.isAttackerWin();
 
         System.out.println("---------------------");
 
@@ -130,5 +123,13 @@ public class AutoBattleTC {
         System.out.println("Defender Total: " + dTotal);
         System.out.println("Attacker Casualties: " + aCasualties);
         System.out.println("Defender Casualties: " + dCasualties);
+
+        // prints the casualties of each unit type reported by
+        // resolveAutoBattle
+        for (Unit.UnitType type : Unit.UnitType.values()) {
+            System.out.println(type + " Casualties: "
+                    + report.getAttackerCasualties(type) + " / "
+                    + report.getDefenderCasualties(type));
+        }
     }
 }
@@ -0,0 +1,203 @@
+package testing.battletesting;
+
+import battle.battlefield.BattleHandler;
+import battle.battlefield.BattleLog;
+import battle.battlefield.BattleState;
+import battle.battlefield.Battlefield;
+import battle.interfaces.Unit;
+import battle.simulation.BatchSimulator;
+import battle.simulation.BattleOutcome;
+import battle.simulation.TacticalBattle;
+import battle.units.ancientunits.UnitCatalog;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+
+public class BattleLogTC {
+    /**
+     * Records a battle with BattleLog, then replays it to the end of
+     * every turn and compares the replayed state with the same
+     * battle run live up to that turn; finally writes the log out,
+     * reads it back and compares the two.
+     * Optional arguments: map size, snapshot interval, seed.
+     */
+    public static void main(String[] args) throws IOException {
+        int mapSize = args.length > 0 ? Integer.parseInt(args[0]) : 32;
+        int interval = args.length > 1 ? Integer.parseInt(args[1]) : 5;
+        long seed = args.length > 2 ? Long.parseLong(args[2]) : 42;
+
+        TacticalBattle battle = createBattle(mapSize, seed);
+        BattleLog log = battle.startLog(interval);
+        BattleOutcome outcome = battle.run(200);
+
+        System.out.println("Recorded " + outcome.getTurns() + " turns: "
+                + log.getEventSize() + " event ints, "
+                + log.getSnapshotCount() + " snapshots");
+
+        // the same seed plays the same battle, so a fresh battle
+        // stopped after a number of turns is the live state the log
+        // must rebuild for the turn before
+        int mismatches = 0;
+
+        for (int turns = 1; turns <= outcome.getTurns(); turns++) {
+            TacticalBattle live = createBattle(mapSize, seed);
+            live.run(turns);
+
+            mismatches += compare(live.getHandler(), live.getBattlefield(),
+                    log.replayTo(turns - 1));
+        }
+
+        System.out.println("Replay mismatches: " + mismatches);
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        log.writeTo(out);
+
+        BattleLog back = BattleLog.readFrom(
+                new ByteArrayInputStream(out.toByteArray()));
+
+        int roundTrip = compare(log.getCurrentState(),
+                back.replayTo(Integer.MAX_VALUE));
+
+        for (int turn = 0; turn < outcome.getTurns(); turn++) {
+            roundTrip += compare(log.replayTo(turn), back.replayTo(turn));
+        }
+
+        System.out.println("Wrote " + out.size() + " bytes, read back with "
+                + roundTrip + " mismatches");
+
+        int escaped = corrupt(out.toByteArray());
+
+        System.out.println("Corrupt logs not rejected by an IOException: "
+                + escaped);
+
+        if (mismatches + roundTrip + escaped > 0) {
+            throw new IllegalStateException("BattleLogTC failed");
+        }
+
+        int replays = 1000;
+        long start = System.nanoTime();
+
+        for (int i = 0; i < replays; i++) {
+            log.replayTo(i % outcome.getTurns());
+        }
+
+        System.out.println("Average replay: "
+                + (System.nanoTime() - start) / replays / 1000 + " us");
+    }
+
+    /**
+     * Overwrites every int of a written log in turn with values a
+     * corrupt file could hold, plus truncates it, and counts the
+     * reads that fail with anything other than an IOException.
+     */
+    private static int corrupt(byte[] bytes) {
+        int[] values = {-7, -1, 1 << 20, Integer.MAX_VALUE,
+                Integer.MIN_VALUE};
+        int escaped = 0;
+
+        for (int offset = 0; offset + 4 <= bytes.length; offset += 4) {
+            for (int value : values) {
+                byte[] copy = bytes.clone();
+                ByteBuffer.wrap(copy).putInt(offset, value);
+                escaped += read(copy);
+            }
+
+            escaped += read(Arrays.copyOf(bytes, offset));
+        }
+
+        return escaped;
+    }
+
+    /**
+     * Reads a log back, returning 1 if it failed with anything
+     * other than an IOException.
+     */
+    private static int read(byte[] bytes) {
+        try {
+            BattleLog.readFrom(new ByteArrayInputStream(bytes));
+        } catch (IOException e) {
+            return 0;
+        } catch (RuntimeException e) {
+            System.out.println("Escaped: " + e);
+            return 1;
+        }
+
+        return 0;
+    }
+
+    private static TacticalBattle createBattle(int mapSize, long seed) {
+        // list of desired units, from the bundled unit catalog
+        UnitCatalog catalog = UnitCatalog.getDefault();
+        Unit[] attackers = new Unit[12];
+        Unit[] defenders = new Unit[12];
+
+        for (int i = 0; i < attackers.length; i++) {
+            attackers[i] = catalog.createUnit(i % 3 == 0
+                    ? "Archers" : "Legionaries");
+            defenders[i] = catalog.createUnit(i % 4 == 0
+                    ? "Horse Archers" : "Militia Hoplites");
+        }
+
+        return new TacticalBattle(attackers, defenders,
+                new Battlefield(BatchSimulator.plains(mapSize)), 10, 1000,
+                seed);
+    }
+
+    /**
+     * Counts the areas where a replayed state differs from a live
+     * battle: which side holds the area, and the soldiers,
+     * ammunition and movement points of the unit there.
+     */
+    private static int compare(BattleHandler handler,
+                               Battlefield battlefield,
+                               BattleState state) {
+        int n = battlefield.getRowCount();
+        int mismatches = 0;
+
+        for (int areaID = 0; areaID < n * n; areaID++) {
+            Unit unit = battlefield.getUnit(areaID);
+            int slot = state.getSlotAt(areaID);
+
+            if (unit == null || slot == BattleState.NONE) {
+                if (unit != null || slot != BattleState.NONE) {
+                    mismatches++;
+                }
+            } else if (handler.isAttacker(unit) != state.isAttacker(slot)
+                    || unit.getNumber() != state.getNumber(slot)
+                    || handler.unitAmmunition(unit)
+                    != state.getAmmunition(slot)
+                    || handler.unitMovement(unit)
+                    != state.getMovePoints(slot)) {
+                mismatches++;
+            }
+        }
+
+        return mismatches;
+    }
+
+    /**
+     * Counts the slots where two states differ.
+     */
+    private static int compare(BattleState state, BattleState other) {
+        int mismatches = 0;
+
+        if (state.getSlotCount() != other.getSlotCount()) {
+            return Math.max(state.getSlotCount(), other.getSlotCount());
+        }
+
+        for (int slot = 0; slot < state.getSlotCount(); slot++) {
+            if (state.getArea(slot) != other.getArea(slot)
+                    || state.getNumber(slot) != other.getNumber(slot)
+                    || state.getAmmunition(slot) != other.getAmmunition(slot)
+                    || state.getMovePoints(slot)
+                    != other.getMovePoints(slot)) {
+                mismatches++;
+            }
+        }
+
+        return mismatches;
+    }
+}
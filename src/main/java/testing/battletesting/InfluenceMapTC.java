@@ -0,0 +1,239 @@
+package testing.battletesting;
+
+import battle.ai.InfluenceMap;
+import battle.battlefield.BattleHandler;
+import battle.battlefield.Battlefield;
+import battle.interfaces.Unit;
+import battle.simulation.BatchSimulator;
+import battle.simulation.TacticalBattle;
+import battle.units.ancientunits.UnitCatalog;
+import calculations.GridCalculations;
+
+import java.util.Random;
+
+public class InfluenceMapTC {
+    /**
+     * Checks an InfluenceMap against a direct count of every unit's
+     * reach, then makes random moves and attacks (which may kill units
+     * and use up ammunition), updating the map in place after each,
+     * and compares it with a map rebuilt from scratch. Prints the
+     * average time of an update and of a rebuild.
+     * Optional arguments: map size, actions, seed.
+     */
+    public static void main(String[] args) {
+        int mapSize = args.length > 0 ? Integer.parseInt(args[0]) : 24;
+        int actions = args.length > 1 ? Integer.parseInt(args[1]) : 2000;
+        long seed = args.length > 2 ? Long.parseLong(args[2]) : 3;
+        int maxMovement = 1000;
+
+        // list of desired units, from the bundled unit catalog
+        UnitCatalog catalog = UnitCatalog.getDefault();
+        Unit[] attackers = new Unit[12];
+        Unit[] defenders = new Unit[12];
+
+        for (int i = 0; i < attackers.length; i++) {
+            attackers[i] = catalog.createUnit(i % 3 == 0
+                    ? "Archers" : "Legionaries");
+            defenders[i] = catalog.createUnit(i % 4 == 0
+                    ? "Horse Archers" : "Militia Hoplites");
+        }
+
+        TacticalBattle battle = new TacticalBattle(attackers, defenders,
+                new Battlefield(BatchSimulator.plains(mapSize)), 10,
+                maxMovement, seed);
+        battle.run(2);
+
+        BattleHandler handler = battle.getHandler();
+        Battlefield battlefield = battle.getBattlefield();
+
+        InfluenceMap updated = new InfluenceMap(battlefield, maxMovement);
+        InfluenceMap rebuilt = new InfluenceMap(battlefield, maxMovement);
+        updated.rebuild(handler);
+
+        System.out.println("Areas differing from a direct count: "
+                + countDirect(updated, handler, battlefield, maxMovement));
+
+        // plenty of movement points, so units can keep acting
+        handler.resetMovement(true, Integer.MAX_VALUE / 2);
+        handler.resetMovement(false, Integer.MAX_VALUE / 2);
+
+        int size = mapSize * mapSize;
+        int[] targets = new int[64];
+        int[] occupied = new int[size];
+        Random random = new Random(seed);
+        int moves = 0;
+        int attacks = 0;
+        int kills = 0;
+        int mismatches = 0;
+        long updateTime = 0;
+
+        for (int i = 0; i < actions; i++) {
+            int unitCount = 0;
+
+            for (int areaID = 0; areaID < size; areaID++) {
+                if (battlefield.getUnit(areaID) != null) {
+                    occupied[unitCount++] = areaID;
+                }
+            }
+
+            if (unitCount == 0) {
+                break;
+            }
+
+            int areaID = occupied[random.nextInt(unitCount)];
+
+            if (random.nextInt(4) == 0) {
+                int toID = random.nextInt(size);
+
+                if (battlefield.getUnit(toID) != null) {
+                    continue;
+                }
+
+                battlefield.moveUnit(areaID, toID);
+
+                long start = System.nanoTime();
+                updated.moveUnit(areaID, toID);
+                updateTime += System.nanoTime() - start;
+                moves++;
+            } else {
+                if (handler.findTargetsInRange(areaID, battlefield,
+                        targets) == 0) {
+                    continue;
+                }
+
+                int defendID = targets[0];
+                handler.fightTwoUnits(areaID, defendID, battlefield, 1);
+
+                // the attacker may have used up its ammunition, and
+                // the defender may be gone
+                long start = System.nanoTime();
+                updated.updateUnit(areaID, handler);
+                updated.updateUnit(defendID, handler);
+                updateTime += System.nanoTime() - start;
+
+                if (battlefield.getUnit(defendID) == null) {
+                    kills++;
+                }
+
+                attacks++;
+            }
+
+            rebuilt.rebuild(handler);
+            mismatches += compare(updated, rebuilt, size);
+        }
+
+        System.out.println("Updated after " + moves + " moves and "
+                + attacks + " attacks (" + kills + " kills): "
+                + mismatches + " areas differ from a rebuilt map");
+
+        handler.resetMovement(true, maxMovement);
+        handler.resetMovement(false, maxMovement);
+        updated.rebuild(handler);
+
+        System.out.println("Areas differing from a direct count: "
+                + countDirect(updated, handler, battlefield, maxMovement));
+
+        int rounds = 1000;
+        long start = System.nanoTime();
+
+        for (int i = 0; i < rounds; i++) {
+            rebuilt.rebuild(handler);
+        }
+
+        System.out.println("Average update: " + updateTime
+                / Math.max(1, moves + attacks) + " ns, rebuild: "
+                + (System.nanoTime() - start) / rounds + " ns");
+    }
+
+    /**
+     * Counts the areas where two maps differ for either side.
+     */
+    private static int compare(InfluenceMap map, InfluenceMap other,
+                               int size) {
+        int mismatches = 0;
+
+        for (int areaID = 0; areaID < size; areaID++) {
+            for (int side = 0; side < 2; side++) {
+                boolean isAttacker = side == 0;
+
+                if (map.getMeleeInfluence(areaID, isAttacker)
+                        != other.getMeleeInfluence(areaID, isAttacker)
+                        || map.getRangedInfluence(areaID, isAttacker)
+                        != other.getRangedInfluence(areaID, isAttacker)) {
+                    mismatches++;
+                }
+            }
+        }
+
+        return mismatches;
+    }
+
+    /**
+     * Counts the areas where a map differs from adding up, for each
+     * area, the damage of every unit that could step to within its
+     * range of the area, unit by unit.
+     */
+    private static int countDirect(InfluenceMap map, BattleHandler handler,
+                                   Battlefield battlefield,
+                                   int maxMovement) {
+        int n = battlefield.getRowCount();
+        int size = n * n;
+        float[][] direct = new float[4][size];
+
+        for (int unitID = 0; unitID < size; unitID++) {
+            Unit unit = battlefield.getUnit(unitID);
+
+            if (unit == null) {
+                continue;
+            }
+
+            boolean ranged = unit.isRangedUnit()
+                    && unit.getRangeFactor() > 1
+                    && handler.unitAmmunition(unit) > 0;
+            int rangeFactor = unit.isRangedUnit() && !ranged ? 1
+                    : unit.getRangeFactor();
+            int damage = ranged ? unit.getRangedDamage()
+                    : unit.getMeleeDamage();
+            int steps = maxMovement / Math.max(1, unit.getMovementCost());
+            float[] counted = direct[(handler.isAttacker(unit) ? 0 : 2)
+                    + (ranged ? 1 : 0)];
+
+            if (damage <= 0) {
+                continue;
+            }
+
+            int row = GridCalculations.getRow(unitID, n);
+            int col = GridCalculations.getCol(unitID, row, n);
+
+            for (int areaID = 0; areaID < size; areaID++) {
+                int r = GridCalculations.getRow(areaID, n);
+                int c = GridCalculations.getCol(areaID, r, n);
+
+                // distance left once the unit has taken its steps
+                int dRow = Math.max(0, Math.abs(r - row) - steps);
+                int dCol = Math.max(0, Math.abs(c - col) - steps);
+
+                if (dRow * dRow + dCol * dCol
+                        <= GridCalculations.getRangeSquared(rangeFactor)) {
+                    counted[areaID] += damage;
+                }
+            }
+        }
+
+        int mismatches = 0;
+
+        for (int areaID = 0; areaID < size; areaID++) {
+            if (map.getMeleeInfluence(areaID, true) != direct[0][areaID]
+                    || map.getRangedInfluence(areaID, true)
+                    != direct[1][areaID]
+                    || map.getMeleeInfluence(areaID, false)
+                    != direct[2][areaID]
+                    || map.getRangedInfluence(areaID, false)
+                    != direct[3][areaID]) {
+                mismatches++;
+            }
+        }
+
+        return mismatches;
+    }
+}
@@ -0,0 +1,157 @@
+package testing.battletesting;
+
+import battle.areas.BasicArea;
+import battle.battlefield.Battlefield;
+import battle.battlefield.MappedTerrain;
+import battle.battlefield.TerrainTemplate;
+import battle.interfaces.Area;
+import battle.interfaces.Unit;
+import battle.simulation.BattleOutcome;
+import battle.simulation.TacticalBattle;
+import battle.units.ancientunits.UnitCatalog;
+import calculations.GridCalculations;
+import testing.unittesting.StateType;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+public class MappedTerrainTC {
+    /**
+     * Writes a hilly map to a terrain file and maps it back,
+     * comparing every area with the original and checking that no
+     * battle can close one of its areas; then fights the same
+     * battles on both terrains and compares the outcomes. Last,
+     * writes and opens a large map and prints the times.
+     * Optional arguments: map size, battles, large map size.
+     */
+    public static void main(String[] args) throws IOException {
+        int mapSize = args.length > 0 ? Integer.parseInt(args[0]) : 32;
+        int battles = args.length > 1 ? Integer.parseInt(args[1]) : 20;
+        int largeSize = args.length > 2 ? Integer.parseInt(args[2]) : 2048;
+
+        TerrainTemplate template = hills(mapSize);
+        Path path = Files.createTempFile("terrain", ".map");
+
+        try {
+            MappedTerrain.write(path, template);
+            MappedTerrain mapped = MappedTerrain.open(path);
+            Battlefield battlefield = new Battlefield(mapped);
+
+            int mismatches = 0;
+
+            for (int areaID = 0; areaID < mapSize * mapSize; areaID++) {
+                Area area = template.getArea(areaID);
+                Area view = battlefield.getArea(areaID);
+
+                if (view.getAreaID() != areaID
+                        || !view.getAreaType().equals(area.getAreaType())
+                        || view.getDefenseBonus() != area.getDefenseBonus()
+                        || battlefield.getDefenseBonus(areaID)
+                        != area.getDefenseBonus()
+                        || view.isOpen() != area.isOpen()) {
+                    mismatches++;
+                }
+            }
+
+            System.out.println("Mapped " + mapSize + " x " + mapSize
+                    + " terrain with " + mismatches + " mismatches");
+
+            // the terrain is shared, so closing an area is refused
+            StateType result = battlefield.setOpen(0, false);
+            battlefield.getArea(0).changeStatus(false);
+
+            System.out.println("Closing a shared area refused: "
+                    + (StateType.checkIfFailure(result)
+                    && mapped.isOpen(0)));
+
+            int differences = 0;
+
+            for (long seed = 1; seed <= battles; seed++) {
+                BattleOutcome onTemplate = fight(new Battlefield(template),
+                        seed);
+                BattleOutcome onMapped = fight(new Battlefield(mapped),
+                        seed);
+
+                if (onTemplate.getWinner() != onMapped.getWinner()
+                        || onTemplate.getTurns() != onMapped.getTurns()
+                        || onTemplate.getAttackerCasualties()
+                        != onMapped.getAttackerCasualties()
+                        || onTemplate.getDefenderCasualties()
+                        != onMapped.getDefenderCasualties()) {
+                    differences++;
+                }
+            }
+
+            System.out.println("Battles with different outcomes: "
+                    + differences + " / " + battles);
+
+            long start = System.nanoTime();
+            MappedTerrain.write(path, largeSize, areaID -> new BasicArea(
+                    areaID, Area.AreaType.NORMAL, 1, true));
+            long written = System.nanoTime();
+            MappedTerrain large = MappedTerrain.open(path);
+            long opened = System.nanoTime();
+
+            System.out.println(String.format("%d x %d map: wrote %d bytes "
+                            + "in %.1f ms, opened in %.2f ms", largeSize,
+                    large.getRowCount(), Files.size(path),
+                    (written - start) / 1e6, (opened - written) / 1e6));
+        } finally {
+            Files.delete(path);
+        }
+    }
+
+    /**
+     * Builds an n x n map of patches of plains, hills and
+     * mountains, with a broken wall across the middle row.
+     */
+    private static TerrainTemplate hills(int n) {
+        Area[][] areas = new Area[n][n];
+
+        for (int row = 0; row < n; row++) {
+            for (int col = 0; col < n; col++) {
+                int areaID = GridCalculations.getID(row, col, n);
+
+                if (row == n / 2 && col % 8 == 0) {
+                    areas[row][col] = new BasicArea(areaID,
+                            Area.AreaType.WALL, 1, false);
+                    continue;
+                }
+
+                switch ((row / 4 + col / 4) % 3) {
+                    case 1:
+                        areas[row][col] = new BasicArea(areaID,
+                                Area.AreaType.HILL, 0.8, true);
+                        break;
+                    case 2:
+                        areas[row][col] = new BasicArea(areaID,
+                                Area.AreaType.MOUNTAIN, 0.6, true);
+                        break;
+                    default:
+                        areas[row][col] = new BasicArea(areaID,
+                                Area.AreaType.NORMAL, 1, true);
+                }
+            }
+        }
+
+        return new TerrainTemplate(areas);
+    }
+
+    private static BattleOutcome fight(Battlefield battlefield, long seed) {
+        // list of desired units, from the bundled unit catalog
+        UnitCatalog catalog = UnitCatalog.getDefault();
+        Unit[] attackers = new Unit[12];
+        Unit[] defenders = new Unit[12];
+
+        for (int i = 0; i < attackers.length; i++) {
+            attackers[i] = catalog.createUnit(i % 3 == 0
+                    ? "Archers" : "Legionaries");
+            defenders[i] = catalog.createUnit(i % 4 == 0
+                    ? "Horse Archers" : "Militia Hoplites");
+        }
+
+        return new TacticalBattle(attackers, defenders, battlefield, 10,
+                1000, seed).run(200);
+    }
+}
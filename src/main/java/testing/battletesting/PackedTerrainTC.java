@@ -0,0 +1,158 @@
+package testing.battletesting;
+
+import battle.areas.BasicArea;
+import battle.battlefield.Battlefield;
+import battle.battlefield.PackedTerrain;
+import battle.battlefield.TerrainTemplate;
+import battle.interfaces.Area;
+import battle.interfaces.Unit;
+import battle.simulation.BattleOutcome;
+import battle.simulation.TacticalBattle;
+import battle.units.ancientunits.UnitCatalog;
+import calculations.GridCalculations;
+import testing.unittesting.StateType;
+
+public class PackedTerrainTC {
+    /**
+     * Packs a hilly map and compares every area's type, defense
+     * bonus and open flag with the template, checks that areas of
+     * the same kind share one object and that setOpen and
+     * clearArea only change their own area, then fights the same
+     * battles on both terrains and compares the outcomes.
+     * Optional arguments: map size, battles.
+     */
+    public static void main(String[] args) {
+        int mapSize = args.length > 0 ? Integer.parseInt(args[0]) : 32;
+        int battles = args.length > 1 ? Integer.parseInt(args[1]) : 20;
+
+        TerrainTemplate template = new TerrainTemplate(hills(mapSize));
+        PackedTerrain packed = PackedTerrain.pack(template);
+        Battlefield battlefield = new Battlefield(packed);
+
+        int mismatches = 0;
+
+        for (int areaID = 0; areaID < mapSize * mapSize; areaID++) {
+            Area area = template.getArea(areaID);
+            Area shared = battlefield.getArea(areaID);
+
+            if (!shared.getAreaType().equals(area.getAreaType())
+                    || shared.getDefenseBonus() != area.getDefenseBonus()
+                    || battlefield.getDefenseBonus(areaID)
+                    != area.getDefenseBonus()
+                    || shared.isOpen() != area.isOpen()) {
+                mismatches++;
+            }
+        }
+
+        System.out.println("Packed " + mapSize + " x " + mapSize
+                + " terrain with " + mismatches + " mismatches");
+
+        // areas 0 and 1 are both open plains
+        boolean isShared = packed.getArea(0) == packed.getArea(1);
+
+        packed.setOpen(0, false);
+        boolean setOpen = !packed.isOpen(0) && packed.isOpen(1)
+                && packed.getArea(0) != packed.getArea(1);
+        packed.setOpen(0, true);
+
+        // battles on the terrain cannot close its shared areas
+        packed.getArea(0).changeStatus(false);
+        boolean refused = StateType.checkIfFailure(
+                new Battlefield(packed).setOpen(0, false))
+                && packed.getArea(0).isOpen();
+
+        packed.clearArea(2);
+        boolean cleared = packed.getArea(2) == null
+                && packed.getDefenseBonus(2) == 1
+                && packed.getArea(3) != null;
+        packed.setArea(2, Area.AreaType.NORMAL, true);
+
+        System.out.println("Shared areas: " + isShared + ", setOpen: "
+                + setOpen + ", closing refused: " + refused
+                + ", clearArea: " + cleared);
+
+        // a type with two different bonuses cannot be packed
+        Area[][] areas = hills(mapSize);
+        areas[0][0] = new BasicArea(0, Area.AreaType.NORMAL, 0.9, true);
+
+        try {
+            PackedTerrain.pack(new TerrainTemplate(areas));
+            System.out.println("Uneven bonuses packed: true");
+        } catch (IllegalArgumentException e) {
+            System.out.println("Uneven bonuses packed: false");
+        }
+
+        int differences = 0;
+
+        for (long seed = 1; seed <= battles; seed++) {
+            BattleOutcome onTemplate = fight(new Battlefield(template),
+                    seed);
+            BattleOutcome onPacked = fight(new Battlefield(packed), seed);
+
+            if (onTemplate.getWinner() != onPacked.getWinner()
+                    || onTemplate.getTurns() != onPacked.getTurns()
+                    || onTemplate.getAttackerCasualties()
+                    != onPacked.getAttackerCasualties()
+                    || onTemplate.getDefenderCasualties()
+                    != onPacked.getDefenderCasualties()) {
+                differences++;
+            }
+        }
+
+        System.out.println("Battles with different outcomes: "
+                + differences + " / " + battles);
+    }
+
+    /**
+     * Builds an n x n map of patches of plains, hills and
+     * mountains, with a broken wall across the middle row.
+     */
+    private static Area[][] hills(int n) {
+        Area[][] areas = new Area[n][n];
+
+        for (int row = 0; row < n; row++) {
+            for (int col = 0; col < n; col++) {
+                int areaID = GridCalculations.getID(row, col, n);
+
+                if (row == n / 2 && col % 8 == 0) {
+                    areas[row][col] = new BasicArea(areaID,
+                            Area.AreaType.WALL, 1, false);
+                    continue;
+                }
+
+                switch ((row / 4 + col / 4) % 3) {
+                    case 1:
+                        areas[row][col] = new BasicArea(areaID,
+                                Area.AreaType.HILL, 0.8, true);
+                        break;
+                    case 2:
+                        areas[row][col] = new BasicArea(areaID,
+                                Area.AreaType.MOUNTAIN, 0.6, true);
+                        break;
+                    default:
+                        areas[row][col] = new BasicArea(areaID,
+                                Area.AreaType.NORMAL, 1, true);
+                }
+            }
+        }
+
+        return areas;
+    }
+
+    private static BattleOutcome fight(Battlefield battlefield, long seed) {
+        // list of desired units, from the bundled unit catalog
+        UnitCatalog catalog = UnitCatalog.getDefault();
+        Unit[] attackers = new Unit[12];
+        Unit[] defenders = new Unit[12];
+
+        for (int i = 0; i < attackers.length; i++) {
+            attackers[i] = catalog.createUnit(i % 3 == 0
+                    ? "Archers" : "Legionaries");
+            defenders[i] = catalog.createUnit(i % 4 == 0
+                    ? "Horse Archers" : "Militia Hoplites");
+        }
+
+        return new TacticalBattle(attackers, defenders, battlefield, 10,
+                1000, seed).run(200);
+    }
+}
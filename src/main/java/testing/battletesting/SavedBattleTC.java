@@ -0,0 +1,208 @@
+package testing.battletesting;
+
+import battle.battlefield.BattleHandler;
+import battle.battlefield.Battlefield;
+import battle.battlefield.SavedBattle;
+import battle.interfaces.Area;
+import battle.interfaces.Unit;
+import battle.simulation.BatchSimulator;
+import battle.simulation.TacticalBattle;
+import battle.units.ancientunits.UnitCatalog;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+
+public class SavedBattleTC {
+    /**
+     * Plays a few turns of a battle, saves it to a file and loads it
+     * back, then compares every area's terrain and unit, and the
+     * generator's next draws, between the two. Prints the file size
+     * and the best of several save and load times.
+     * Optional arguments: map size, units per side, turns, seed.
+     */
+    public static void main(String[] args) throws IOException {
+        int mapSize = args.length > 0 ? Integer.parseInt(args[0]) : 256;
+        int armySize = args.length > 1 ? Integer.parseInt(args[1]) : 200;
+        int turns = args.length > 2 ? Integer.parseInt(args[2]) : 6;
+        long seed = args.length > 3 ? Long.parseLong(args[3]) : 42;
+
+        // list of desired units, from the bundled unit catalog
+        UnitCatalog catalog = UnitCatalog.getDefault();
+        Unit[] attackers = new Unit[armySize];
+        Unit[] defenders = new Unit[armySize];
+
+        for (int i = 0; i < armySize; i++) {
+            attackers[i] = catalog.createUnit(i % 3 == 0
+                    ? "Archers" : "Legionaries");
+            defenders[i] = catalog.createUnit(i % 4 == 0
+                    ? "Horse Archers" : "Militia Hoplites");
+        }
+
+        TacticalBattle battle = new TacticalBattle(attackers, defenders,
+                new Battlefield(BatchSimulator.plains(mapSize)), 10, 1000,
+                seed);
+        battle.run(turns);
+
+        BattleHandler handler = battle.getHandler();
+        Battlefield battlefield = battle.getBattlefield();
+
+        Path path = Files.createTempFile("battle", ".sav");
+        SavedBattle loaded = null;
+        long bestSave = Long.MAX_VALUE;
+        long bestLoad = Long.MAX_VALUE;
+
+        try {
+            // the first rounds warm up the code, so only the best
+            // times are kept
+            for (int round = 0; round < 30; round++) {
+                long start = System.nanoTime();
+                SavedBattle.save(path, handler, battlefield);
+                long saved = System.nanoTime();
+                loaded = SavedBattle.load(path);
+                long end = System.nanoTime();
+
+                bestSave = Math.min(bestSave, saved - start);
+                bestLoad = Math.min(bestLoad, end - saved);
+            }
+
+            System.out.println(mapSize + " x " + mapSize + " map, "
+                    + 2 * armySize + " units: " + Files.size(path)
+                    + " bytes");
+        } finally {
+            Files.delete(path);
+        }
+
+        System.out.println(String.format("Best save: %.2f ms, best load: "
+                + "%.2f ms", bestSave / 1e6, bestLoad / 1e6));
+
+        int mismatches = compare(handler, battlefield,
+                loaded.getHandler(), loaded.getBattlefield());
+
+        // the loaded generator must carry on where the saved one was
+        for (int i = 0; i < 10; i++) {
+            if (handler.getRandom().nextLong()
+                    != loaded.getHandler().getRandom().nextLong()) {
+                mismatches++;
+            }
+        }
+
+        System.out.println("Loaded " + loaded.getAttackers().length
+                + " / " + loaded.getDefenders().length
+                + " units with " + mismatches + " mismatches");
+
+        int escaped = corrupt(catalog);
+
+        System.out.println("Corrupt saves not rejected by an IOException: "
+                + escaped);
+
+        if (mismatches + escaped > 0) {
+            throw new IllegalStateException("SavedBattleTC failed");
+        }
+    }
+
+    /**
+     * Saves a small battle, then writes values a corrupt file could
+     * hold over four bytes at every offset of the save in turn, plus
+     * truncates it, and counts the loads that fail with anything
+     * other than an IOException.
+     */
+    private static int corrupt(UnitCatalog catalog) throws IOException {
+        Unit[] attackers = {catalog.createUnit("Archers"),
+                catalog.createUnit("Legionaries")};
+        Unit[] defenders = {catalog.createUnit("Horse Archers"),
+                catalog.createUnit("Militia Hoplites")};
+
+        TacticalBattle battle = new TacticalBattle(attackers, defenders,
+                new Battlefield(BatchSimulator.plains(8)), 10, 1000, 7);
+        battle.run(1);
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        SavedBattle.save(Channels.newChannel(out), battle.getHandler(),
+                battle.getBattlefield());
+        byte[] bytes = out.toByteArray();
+
+        int[] values = {-7, -1, 1 << 20, Integer.MAX_VALUE,
+                Integer.MIN_VALUE};
+        int escaped = 0;
+
+        for (int offset = 0; offset + 4 <= bytes.length; offset++) {
+            for (int value : values) {
+                byte[] copy = bytes.clone();
+                ByteBuffer.wrap(copy).putInt(offset, value);
+                escaped += load(copy);
+            }
+
+            escaped += load(Arrays.copyOf(bytes, offset));
+        }
+
+        return escaped;
+    }
+
+    /**
+     * Loads a save, returning 1 if it failed with anything other
+     * than an IOException.
+     */
+    private static int load(byte[] bytes) {
+        try {
+            SavedBattle.load(Channels.newChannel(
+                    new ByteArrayInputStream(bytes)));
+        } catch (IOException e) {
+            return 0;
+        } catch (RuntimeException e) {
+            System.out.println("Escaped: " + e);
+            return 1;
+        }
+
+        return 0;
+    }
+
+    /**
+     * Counts the areas where two battles differ: terrain, which side
+     * holds the area, and the name, soldiers, ammunition and
+     * movement points of the unit there.
+     */
+    private static int compare(BattleHandler handler,
+                               Battlefield battlefield,
+                               BattleHandler otherHandler,
+                               Battlefield otherField) {
+        int n = battlefield.getRowCount();
+        int mismatches = 0;
+
+        for (int areaID = 0; areaID < n * n; areaID++) {
+            Area area = battlefield.getArea(areaID);
+            Area other = otherField.getArea(areaID);
+
+            if (!area.getAreaType().equals(other.getAreaType())
+                    || area.getDefenseBonus() != other.getDefenseBonus()
+                    || area.isOpen() != other.isOpen()) {
+                mismatches++;
+            }
+
+            Unit unit = battlefield.getUnit(areaID);
+            Unit copy = otherField.getUnit(areaID);
+
+            if (unit == null || copy == null) {
+                if (unit != copy) {
+                    mismatches++;
+                }
+            } else if (!unit.getUnitName().equals(copy.getUnitName())
+                    || handler.isAttacker(unit)
+                    != otherHandler.isAttacker(copy)
+                    || unit.getNumber() != copy.getNumber()
+                    || handler.unitAmmunition(unit)
+                    != otherHandler.unitAmmunition(copy)
+                    || handler.unitMovement(unit)
+                    != otherHandler.unitMovement(copy)) {
+                mismatches++;
+            }
+        }
+
+        return mismatches;
+    }
+}
@@ -0,0 +1,51 @@
+package testing.battletesting;
+
+import battle.interfaces.Unit;
+import battle.simulation.BatchSimulator;
+import battle.simulation.MatchupSpec;
+import battle.simulation.OutcomePredictor;
+import battle.simulation.SimulationReport;
+import battle.units.ancientunits.UnitCatalog;
+
+public class SimulationTC {
+    /**
+     * Runs a batch of simulated battles between two fixed armies
+     * with BatchSimulator and prints the aggregated report.
+     * Optional arguments: number of battles, map size, seed.
+     */
+    public static void main(String[] args) {
+        int battles = args.length > 0 ? Integer.parseInt(args[0]) : 10000;
+        int mapSize = args.length > 1 ? Integer.parseInt(args[1]) : 32;
+        long seed = args.length > 2 ? Long.parseLong(args[2]) : 1;
+
+        // list of desired units, from the bundled unit catalog
+        UnitCatalog catalog = UnitCatalog.getDefault();
+        Unit hoplites = catalog.createUnit("Militia Hoplites");
+        Unit legionaries = catalog.createUnit("Legionaries");
+        Unit cataphracts = catalog.createUnit("Cataphracts");
+        Unit archers = catalog.createUnit("Archers");
+        Unit horseArchers = catalog.createUnit("Horse Archers");
+
+        // a combined-arms attacker against a spear-heavy defender
+        Unit[] attackers = {legionaries, legionaries, legionaries,
+                cataphracts, archers, archers, horseArchers};
+        Unit[] defenders = {hoplites, hoplites, hoplites, hoplites,
+                hoplites, legionaries, archers, archers};
+
+        MatchupSpec spec = new MatchupSpec(attackers, defenders,
+                mapSize, battles, seed);
+
+        // previews the matchup within the predictor's time budget
+        // before running the full batch
+        System.out.println("Predicting...");
+        System.out.println(new OutcomePredictor().predict(spec)
+                .getSummary());
+
+        System.out.println("Simulating " + battles + " battles on a "
+                + mapSize + " x " + mapSize + " map...");
+
+        SimulationReport report = new BatchSimulator().run(spec);
+
+        System.out.println(report.getSummary());
+    }
+}
@@ -0,0 +1,118 @@
+package testing.battletesting;
+
+import battle.ai.TacticalPlanner;
+import battle.ai.TurnPlan;
+import battle.battlefield.BattleHandler;
+import battle.battlefield.Battlefield;
+import battle.interfaces.Unit;
+import battle.simulation.BatchSimulator;
+import battle.simulation.TacticalBattle;
+import battle.units.ancientunits.UnitCatalog;
+import testing.unittesting.StateType;
+
+import java.util.concurrent.ForkJoinPool;
+
+public class TacticalAITC {
+    /** turns in a row without losses after which the battle
+     *  counts as stalled */
+    private static final int STALL_TURNS = 4;
+
+    /**
+     * Lets TacticalPlanner play both sides of a battle, turn by
+     * turn, and prints every turn's plan. Fails if a plan cannot be
+     * executed, or if neither side loses a soldier for STALL_TURNS
+     * turns in a row.
+     * Optional arguments: time budget per turn in ms, map size,
+     * turns, seed, playout turns.
+     */
+    public static void main(String[] args) {
+        long budget = args.length > 0 ? Long.parseLong(args[0]) : 200;
+        int mapSize = args.length > 1 ? Integer.parseInt(args[1]) : 16;
+        int turns = args.length > 2 ? Integer.parseInt(args[2]) : 40;
+        long seed = args.length > 3 ? Long.parseLong(args[3]) : 1;
+        int maxMovement = 1000;
+
+        // list of desired units, from the bundled unit catalog
+        UnitCatalog catalog = UnitCatalog.getDefault();
+        Unit[] attackers = new Unit[6];
+        Unit[] defenders = new Unit[6];
+
+        for (int i = 0; i < attackers.length; i++) {
+            attackers[i] = catalog.createUnit(i % 3 == 0
+                    ? "Archers" : "Legionaries");
+            defenders[i] = catalog.createUnit(i % 3 == 0
+                    ? "Horse Archers" : "Militia Hoplites");
+        }
+
+        // deploys both armies the same way simulated battles do
+        TacticalBattle battle = new TacticalBattle(attackers, defenders,
+                new Battlefield(BatchSimulator.plains(mapSize)), 10,
+                maxMovement, seed);
+        BattleHandler handler = battle.getHandler();
+        Battlefield battlefield = battle.getBattlefield();
+
+        TacticalPlanner planner = new TacticalPlanner(
+                ForkJoinPool.commonPool(), budget,
+                args.length > 4 ? Integer.parseInt(args[4])
+                        : TacticalPlanner.DEFAULT_PLAYOUT_TURNS);
+
+        int lastTotal = countSoldiers(handler, battlefield, true)
+                + countSoldiers(handler, battlefield, false);
+        int stalled = 0;
+
+        for (int turn = 0; turn < turns; turn++) {
+            boolean isAttacker = turn % 2 == 0;
+
+            handler.resetMovement(isAttacker, maxMovement);
+
+            TurnPlan plan = planner.plan(handler, battlefield,
+                    isAttacker, maxMovement);
+            StateType result = plan.execute(handler, battlefield);
+
+            if (StateType.checkIfFailure(result)) {
+                throw new IllegalStateException("Turn " + turn
+                        + ": " + result.getMessage());
+            }
+
+            int aTotal = countSoldiers(handler, battlefield, true);
+            int dTotal = countSoldiers(handler, battlefield, false);
+
+            stalled = aTotal + dTotal == lastTotal ? stalled + 1 : 0;
+            lastTotal = aTotal + dTotal;
+
+            System.out.println("Turn " + turn + " ("
+                    + (isAttacker ? "Attacker" : "Defender") + "): "
+                    + plan.getActionCount() + " actions, "
+                    + plan.getIterations() + " iterations in "
+                    + plan.getElapsedMillis() + " ms, expected "
+                    + String.format("%.3f", plan.getValue()));
+            System.out.println("Soldiers left: " + aTotal + " / " + dTotal);
+
+            if (aTotal == 0 || dTotal == 0) {
+                break;
+            }
+
+            if (stalled == STALL_TURNS) {
+                throw new IllegalStateException("No losses for "
+                        + STALL_TURNS + " turns in a row");
+            }
+        }
+    }
+
+    private static int countSoldiers(BattleHandler handler,
+                                     Battlefield battlefield,
+                                     boolean isAttacker) {
+        int n = battlefield.getRowCount();
+        int total = 0;
+
+        for (int areaID = 0; areaID < n * n; areaID++) {
+            Unit unit = battlefield.getUnit(areaID);
+
+            if (unit != null && handler.isAttacker(unit) == isAttacker) {
+                total += unit.getNumber();
+            }
+        }
+
+        return total;
+    }
+}
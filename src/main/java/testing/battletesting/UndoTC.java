@@ -0,0 +1,268 @@
+package testing.battletesting;
+
+import battle.battlefield.BattleHandler;
+import battle.battlefield.BattleLog;
+import battle.battlefield.Battlefield;
+import battle.battlefield.SavedBattle;
+import battle.battlefield.UndoRecord;
+import battle.interfaces.Unit;
+import battle.simulation.BatchSimulator;
+import battle.simulation.TacticalBattle;
+import battle.units.ancientunits.UnitCatalog;
+
+import java.util.Random;
+
+public class UndoTC {
+    /**
+     * Plays a few turns of a battle, then many times makes a run of
+     * random moves, attacks and movement resets with makeMove,
+     * makeAttack and makeReset, undoes them all in reverse order
+     * and checks the battle is exactly as before, and that a logged
+     * battle refuses to be undone. Prints the average cost of a
+     * make/unmake pair next to copying the battle.
+     * Optional arguments: map size, trials, actions per trial, seed.
+     */
+    public static void main(String[] args) {
+        int mapSize = args.length > 0 ? Integer.parseInt(args[0]) : 16;
+        int trials = args.length > 1 ? Integer.parseInt(args[1]) : 500;
+        int depth = args.length > 2 ? Integer.parseInt(args[2]) : 40;
+        long seed = args.length > 3 ? Long.parseLong(args[3]) : 3;
+        int maxMovement = 1000;
+
+        // list of desired units, from the bundled unit catalog
+        UnitCatalog catalog = UnitCatalog.getDefault();
+        Unit[] attackers = new Unit[10];
+        Unit[] defenders = new Unit[10];
+
+        for (int i = 0; i < attackers.length; i++) {
+            attackers[i] = catalog.createUnit(i % 3 == 0
+                    ? "Archers" : "Legionaries");
+            defenders[i] = catalog.createUnit(i % 4 == 0
+                    ? "Horse Archers" : "Militia Hoplites");
+        }
+
+        TacticalBattle battle = new TacticalBattle(attackers, defenders,
+                new Battlefield(BatchSimulator.plains(mapSize)), 10,
+                maxMovement, seed);
+        battle.run(3);
+
+        BattleHandler handler = battle.getHandler();
+        Battlefield battlefield = battle.getBattlefield();
+
+        // one reusable record per depth, as a search keeps them
+        UndoRecord[] records = new UndoRecord[depth];
+        for (int i = 0; i < depth; i++) {
+            records[i] = new UndoRecord();
+        }
+
+        int[] targets = new int[64];
+        Random random = new Random(seed);
+        int mismatches = 0;
+        int moves = 0;
+        int attacks = 0;
+        int kills = 0;
+        int resets = 0;
+
+        for (int trial = 0; trial < trials; trial++) {
+            Snapshot before = new Snapshot(handler, battlefield);
+
+            for (int i = 0; i < depth; i++) {
+                UndoRecord undo = records[i];
+                int fromID = random.nextInt(mapSize * mapSize);
+                int action = random.nextInt(10);
+                int soldiers = countSoldiers(battlefield);
+
+                if (action == 0) {
+                    handler.makeReset(random.nextBoolean(), maxMovement,
+                            undo);
+                    resets++;
+                } else if (action < 5) {
+                    handler.makeMove(fromID, random.nextInt(
+                            mapSize * mapSize), random.nextInt(3),
+                            battlefield, undo);
+
+                    if (!undo.isEmpty()) {
+                        moves++;
+                    }
+                } else {
+                    // attacks a target in range if the area has one
+                    int found = battlefield.getUnit(fromID) == null ? 0
+                            : handler.findTargetsInRange(fromID,
+                            battlefield, targets);
+                    int defendID = found > 0
+                            ? targets[random.nextInt(found)]
+                            : random.nextInt(mapSize * mapSize);
+
+                    handler.makeAttack(fromID, defendID, battlefield,
+                            random.nextInt(4), undo);
+
+                    if (!undo.isEmpty()) {
+                        attacks++;
+
+                        if (battlefield.getUnit(defendID) == null) {
+                            kills++;
+                        }
+                    }
+                }
+
+                if (undo.isEmpty()
+                        && countSoldiers(battlefield) != soldiers) {
+                    // an action without a record must change nothing
+                    mismatches++;
+                }
+            }
+
+            for (int i = depth - 1; i >= 0; i--) {
+                handler.unmake(records[i], battlefield);
+            }
+
+            mismatches += before.compare(handler, battlefield);
+        }
+
+        System.out.println("Made and undid " + moves + " moves, "
+                + attacks + " attacks (" + kills + " destroying the "
+                + "defender) and " + resets + " resets");
+        System.out.println("Mismatches after undoing: " + mismatches);
+
+        // a logged battle has no events to undo with, so it refuses
+        SavedBattle logged = SavedBattle.copy(handler, battlefield);
+        new BattleLog(logged.getHandler(), logged.getBattlefield(), 5);
+        boolean refused = false;
+
+        try {
+            logged.getHandler().unmake(records[0],
+                    logged.getBattlefield());
+        } catch (IllegalStateException e) {
+            refused = true;
+        }
+
+        System.out.println("Unmake refused on a logged battle: "
+                + refused);
+
+        // times a make/unmake pair against copying the whole battle
+        int rounds = 200000;
+        int attackID = firstWithTargets(handler, battlefield, targets);
+
+        if (attackID < 0) {
+            return;
+        }
+
+        UndoRecord undo = records[0];
+        long start = System.nanoTime();
+
+        for (int i = 0; i < rounds; i++) {
+            handler.makeAttack(attackID, targets[0], battlefield, 0, undo);
+            handler.unmake(undo, battlefield);
+        }
+
+        long made = System.nanoTime();
+
+        for (int i = 0; i < rounds / 100; i++) {
+            SavedBattle.copy(handler, battlefield);
+        }
+
+        long copied = System.nanoTime();
+
+        System.out.println("Average attack make/unmake: "
+                + (made - start) / rounds + " ns, battle copy: "
+                + (copied - made) / (rounds / 100) + " ns");
+    }
+
+    private static int countSoldiers(Battlefield battlefield) {
+        int n = battlefield.getRowCount();
+        int total = 0;
+
+        for (int areaID = 0; areaID < n * n; areaID++) {
+            Unit unit = battlefield.getUnit(areaID);
+
+            if (unit != null) {
+                total += unit.getNumber();
+            }
+        }
+
+        return total;
+    }
+
+    /**
+     * Returns the area of the first unit with a target in range,
+     * leaving the targets in a given array, or -1 if there is none.
+     */
+    private static int firstWithTargets(BattleHandler handler,
+                                        Battlefield battlefield,
+                                        int[] targets) {
+        int n = battlefield.getRowCount();
+
+        for (int areaID = 0; areaID < n * n; areaID++) {
+            if (battlefield.getUnit(areaID) != null
+                    && handler.findTargetsInRange(areaID, battlefield,
+                    targets) > 0) {
+                return areaID;
+            }
+        }
+
+        return -1;
+    }
+
+    /**
+     * The unit in every area, with its soldiers, ammunition and
+     * movement points, and the state of the battle's generator.
+     */
+    private static class Snapshot {
+        private final Unit[] units;
+        private final int[] numbers;
+        private final int[] ammunition;
+        private final int[] movePoints;
+        private final long randomState;
+
+        private Snapshot(BattleHandler handler, Battlefield battlefield) {
+            int size = battlefield.getRowCount() * battlefield.getRowCount();
+
+            units = new Unit[size];
+            numbers = new int[size];
+            ammunition = new int[size];
+            movePoints = new int[size];
+            randomState = handler.getRandom().getState();
+
+            for (int areaID = 0; areaID < size; areaID++) {
+                Unit unit = battlefield.getUnit(areaID);
+
+                if (unit != null) {
+                    units[areaID] = unit;
+                    numbers[areaID] = unit.getNumber();
+                    ammunition[areaID] = handler.unitAmmunition(unit);
+                    movePoints[areaID] = handler.unitMovement(unit);
+                }
+            }
+        }
+
+        /**
+         * Counts the areas that differ from the snapshot, plus one
+         * if the generator has moved.
+         */
+        private int compare(BattleHandler handler,
+                            Battlefield battlefield) {
+            int mismatches = 0;
+
+            for (int areaID = 0; areaID < units.length; areaID++) {
+                Unit unit = battlefield.getUnit(areaID);
+
+                if (unit != units[areaID]) {
+                    mismatches++;
+                } else if (unit != null
+                        && (unit.getNumber() != numbers[areaID]
+                        || handler.unitAmmunition(unit)
+                        != ammunition[areaID]
+                        || handler.unitMovement(unit)
+                        != movePoints[areaID])) {
+                    mismatches++;
+                }
+            }
+
+            if (handler.getRandom().getState() != randomState) {
+                mismatches++;
+            }
+
+            return mismatches;
+        }
+    }
+}
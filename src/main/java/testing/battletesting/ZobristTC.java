@@ -0,0 +1,289 @@
+package testing.battletesting;
+
+import battle.ai.TranspositionTable;
+import battle.battlefield.BattleHandler;
+import battle.battlefield.Battlefield;
+import battle.battlefield.UndoRecord;
+import battle.battlefield.ZobristHash;
+import battle.interfaces.Unit;
+import battle.simulation.BatchSimulator;
+import battle.simulation.TacticalBattle;
+import battle.units.ancientunits.UnitCatalog;
+
+import java.util.Random;
+import java.util.SplittableRandom;
+import java.util.concurrent.atomic.AtomicInteger;
+
+public class ZobristTC {
+    /**
+     * Checks that the hash kept up to date by ZobristHash always
+     * equals the hash recomputed from scratch with reset: while a
+     * battle is played, and after every random move, attack and
+     * movement reset made and undone; and that the same position
+     * reached in a different order hashes alike. Then stores and
+     * probes results in a TranspositionTable, from one thread and
+     * from several at once.
+     * Optional arguments: map size, trials, actions per trial, seed.
+     */
+    public static void main(String[] args) throws InterruptedException {
+        int mapSize = args.length > 0 ? Integer.parseInt(args[0]) : 16;
+        int trials = args.length > 1 ? Integer.parseInt(args[1]) : 300;
+        int depth = args.length > 2 ? Integer.parseInt(args[2]) : 40;
+        long seed = args.length > 3 ? Long.parseLong(args[3]) : 3;
+        int maxMovement = 1000;
+
+        // list of desired units, from the bundled unit catalog
+        UnitCatalog catalog = UnitCatalog.getDefault();
+        Unit[] attackers = new Unit[10];
+        Unit[] defenders = new Unit[10];
+
+        for (int i = 0; i < attackers.length; i++) {
+            attackers[i] = catalog.createUnit(i % 3 == 0
+                    ? "Archers" : "Legionaries");
+            defenders[i] = catalog.createUnit(i % 4 == 0
+                    ? "Horse Archers" : "Militia Hoplites");
+        }
+
+        TacticalBattle battle = new TacticalBattle(attackers, defenders,
+                new Battlefield(BatchSimulator.plains(mapSize)), 10,
+                maxMovement, seed);
+        BattleHandler handler = battle.getHandler();
+        Battlefield battlefield = battle.getBattlefield();
+
+        ZobristHash zobrist = new ZobristHash(handler, battlefield, 25);
+        battle.run(3);
+
+        // the hash followed every fight and move of the battle
+        int drift = zobrist.getHash() != zobrist.reset(battlefield) ? 1 : 0;
+
+        System.out.println("Drift after playing 3 turns: " + drift);
+
+        UndoRecord[] records = new UndoRecord[depth];
+        for (int i = 0; i < depth; i++) {
+            records[i] = new UndoRecord();
+        }
+
+        int[] targets = new int[64];
+        Random random = new Random(seed);
+        int checks = 0;
+        int restored = 0;
+
+        for (int trial = 0; trial < trials; trial++) {
+            long start = zobrist.getHash();
+
+            for (int i = 0; i < depth; i++) {
+                makeRandom(handler, battlefield, random, targets,
+                        maxMovement, records[i]);
+
+                checks++;
+                drift += checkDrift(zobrist, battlefield);
+            }
+
+            for (int i = depth - 1; i >= 0; i--) {
+                handler.unmake(records[i], battlefield);
+
+                checks++;
+                drift += checkDrift(zobrist, battlefield);
+            }
+
+            if (zobrist.getHash() == start) {
+                restored++;
+            }
+        }
+
+        System.out.println("Drift in " + checks + " checks: " + drift
+                + ", hash restored after undoing " + restored + " / "
+                + trials + " trials");
+
+        // moves two units in both orders; the end positions are the
+        // same, so their hashes must be too
+        int pairs = 0;
+        int differences = 0;
+        UndoRecord first = records[0];
+        UndoRecord second = records[1];
+
+        int[] occupied = new int[mapSize * mapSize];
+        int unitCount = 0;
+
+        for (int areaID = 0; areaID < mapSize * mapSize; areaID++) {
+            if (battlefield.getUnit(areaID) != null) {
+                occupied[unitCount++] = areaID;
+            }
+        }
+
+        for (int i = 0; i < 1000; i++) {
+            int a = occupied[random.nextInt(unitCount)];
+            int b = occupied[random.nextInt(unitCount)];
+            int toA = random.nextInt(mapSize * mapSize);
+            int toB = random.nextInt(mapSize * mapSize);
+
+            handler.makeMove(a, toA, 1, battlefield, first);
+            handler.makeMove(b, toB, 1, battlefield, second);
+            boolean bothMoved = !first.isEmpty() && !second.isEmpty();
+            long forward = zobrist.getHash();
+            handler.unmake(second, battlefield);
+            handler.unmake(first, battlefield);
+
+            if (!bothMoved) {
+                continue;
+            }
+
+            handler.makeMove(b, toB, 1, battlefield, second);
+            handler.makeMove(a, toA, 1, battlefield, first);
+
+            if (!first.isEmpty() && !second.isEmpty()) {
+                pairs++;
+
+                if (zobrist.getHash() != forward) {
+                    differences++;
+                }
+            }
+
+            handler.unmake(first, battlefield);
+            handler.unmake(second, battlefield);
+        }
+
+        System.out.println("Pairs of moves in both orders: " + pairs
+                + ", different hashes: " + differences);
+
+        checkTable();
+    }
+
+    /**
+     * Makes a random move, attack or movement reset, recording it
+     * so it can be undone.
+     */
+    private static void makeRandom(BattleHandler handler,
+                                   Battlefield battlefield, Random random,
+                                   int[] targets, int maxMovement,
+                                   UndoRecord undo) {
+        int size = battlefield.getRowCount() * battlefield.getRowCount();
+        int fromID = random.nextInt(size);
+        int action = random.nextInt(10);
+
+        if (action == 0) {
+            handler.makeReset(random.nextBoolean(), maxMovement, undo);
+        } else if (action < 5) {
+            handler.makeMove(fromID, random.nextInt(size),
+                    random.nextInt(3), battlefield, undo);
+        } else {
+            // attacks a target in range if the area has one
+            int found = battlefield.getUnit(fromID) == null ? 0
+                    : handler.findTargetsInRange(fromID, battlefield,
+                    targets);
+            int defendID = found > 0 ? targets[random.nextInt(found)]
+                    : random.nextInt(size);
+
+            handler.makeAttack(fromID, defendID, battlefield,
+                    random.nextInt(4), undo);
+        }
+    }
+
+    /**
+     * Returns 1 if the kept hash differs from the recomputed one.
+     */
+    private static int checkDrift(ZobristHash zobrist,
+                                  Battlefield battlefield) {
+        long kept = zobrist.getHash();
+        return kept != zobrist.reset(battlefield) ? 1 : 0;
+    }
+
+    /**
+     * Stores and probes results in a TranspositionTable from one
+     * thread, then has several threads store and probe results of
+     * the same few positions at once, checking that every result
+     * found is the one stored for that position.
+     */
+    private static void checkTable() throws InterruptedException {
+        // room enough that hardly any three positions share a bucket
+        TranspositionTable table = new TranspositionTable(1 << 14);
+        SplittableRandom random = new SplittableRandom(1);
+        long[] hashes = new long[500];
+
+        for (int i = 0; i < hashes.length; i++) {
+            hashes[i] = random.nextLong();
+            table.store(hashes[i], TranspositionTable.entry(i * 0.5f,
+                    hashes.length - i));
+        }
+
+        int hits = 0;
+        int wrong = 0;
+
+        for (int i = 0; i < hashes.length; i++) {
+            long data = table.probe(hashes[i]);
+
+            if (data != TranspositionTable.NO_ENTRY) {
+                hits++;
+
+                if (TranspositionTable.value(data) != i * 0.5f
+                        || TranspositionTable.count(data)
+                        != hashes.length - i) {
+                    wrong++;
+                }
+            }
+        }
+
+        System.out.println("Table of " + table.getCapacity() + ": "
+                + hits + " / " + hashes.length + " found, " + wrong
+                + " wrong, unknown position found: "
+                + (table.probe(random.nextLong())
+                != TranspositionTable.NO_ENTRY));
+
+        // a few positions in a small table, so the threads keep
+        // overwriting each other's entries
+        TranspositionTable shared = new TranspositionTable(16);
+        long[] positions = new long[64];
+
+        for (int i = 0; i < positions.length; i++) {
+            positions[i] = random.nextLong();
+        }
+
+        AtomicInteger found = new AtomicInteger();
+        AtomicInteger torn = new AtomicInteger();
+        Thread[] threads = new Thread[4];
+
+        for (int t = 0; t < threads.length; t++) {
+            long threadSeed = t;
+
+            threads[t] = new Thread(() -> {
+                SplittableRandom local = new SplittableRandom(threadSeed);
+
+                for (int i = 0; i < 1000000; i++) {
+                    long hash = positions[local.nextInt(positions.length)];
+
+                    if (local.nextBoolean()) {
+                        shared.store(hash, resultOf(hash));
+                        continue;
+                    }
+
+                    long data = shared.probe(hash);
+
+                    if (data != TranspositionTable.NO_ENTRY) {
+                        found.incrementAndGet();
+
+                        if (data != resultOf(hash)) {
+                            torn.incrementAndGet();
+                        }
+                    }
+                }
+            });
+            threads[t].start();
+        }
+
+        for (Thread thread : threads) {
+            thread.join();
+        }
+
+        System.out.println(threads.length + " threads sharing a table "
+                + "found " + found.get() + " results, " + torn.get()
+                + " wrong");
+    }
+
+    /**
+     * The result stored for a position in the threaded check.
+     */
+    private static long resultOf(long hash) {
+        return TranspositionTable.entry((float) (hash & 0xFFFF),
+                (int) (hash >>> 40) | 1);
+    }
+}
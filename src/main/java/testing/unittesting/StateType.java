@@ -1,10 +1,28 @@
 package testing.unittesting;
 
+import enumerators.FailureReason;
 import enumerators.Result;
 
+/**
+ * Result of a unit, area, etc. handling method. Results without
+ * a message are shared instances (SUCCESS, DESTROY, and one
+ * failure per FailureReason), so hot methods never allocate.
+ */
 public class StateType {
+    /** shared StateType for a successful method */
+    public static final StateType SUCCESS =
+            new StateType(Result.SUCCESS, null);
+
+    /** shared StateType for a method that destroys a unit */
+    public static final StateType DESTROY =
+            new StateType(Result.DESTROY, "Note: Unit has been destroyed");
+
+    /** shared failure StateTypes, indexed by FailureReason */
+    private static final StateType[] FAILURES = createFailures();
+
     private final Result result;
     private final String message;
+    private final FailureReason reason;
 
     /**
      * Constructor creating StateType object
@@ -14,6 +32,32 @@ public class StateType {
     public StateType(Result result, String message) {
         this.result = result;
         this.message = message;
+        this.reason = null;
+    }
+
+    /**
+     * Constructor creating a failure StateType object
+     * @param reason
+     */
+    private StateType(FailureReason reason) {
+        this.result = Result.FAILURE;
+        this.message = null;
+        this.reason = reason;
+    }
+
+    /**
+     * Creates one shared failure StateType per FailureReason.
+     * @return StateType[]
+     */
+    private static StateType[] createFailures() {
+        FailureReason[] reasons = FailureReason.values();
+        StateType[] failures = new StateType[reasons.length];
+
+        for (FailureReason reason : reasons) {
+            failures[reason.ordinal()] = new StateType(reason);
+        }
+
+        return failures;
     }
 
     /**
@@ -29,18 +73,37 @@ public class StateType {
      * Returns a given unit, area, etc. handling method's
      * message (i.e. "completed successfully," "validate
      * implementations," etc).
-     * @return Result enum representing result of a method
+     * The message of a failure with a FailureReason is only
+     * looked up here, when it is actually asked for.
+     * @return String message of a method
      */
     public String getMessage() {
+        if (this.message == null && this.reason != null) {
+            return this.reason.getMessage();
+        }
+
         return this.message;
     }
 
+    /**
+     * Returns the reason a method failed, or null if the method
+     * did not fail or failed with a free-form message.
+     * @return FailureReason
+     */
+    public FailureReason getReason() {
+        return this.reason;
+    }
+
     /**
      * Constructs and returns a StateType representing a
-     * successful method
+     * successful method, reusing SUCCESS when there is no message
      * @return StateType success enum
      */
     public static StateType returnSuccess(String message) {
+        if (message == null) {
+            return SUCCESS;
+        }
+
         return new StateType(Result.SUCCESS, message);
     }
 
@@ -53,6 +116,16 @@ public class StateType {
         return new StateType(Result.FAILURE, message);
     }
 
+    /**
+     * Returns the shared StateType representing a method that
+     * failed for a given reason
+     * @param reason the method failed
+     * @return StateType failure enum
+     */
+    public static StateType returnFailure(FailureReason reason) {
+        return FAILURES[reason.ordinal()];
+    }
+
     /**
      * Constructs and returns a StateType representing a
      * method that causes a unit to have a number 0 or